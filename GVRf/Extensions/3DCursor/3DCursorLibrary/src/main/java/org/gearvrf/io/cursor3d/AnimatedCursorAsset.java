@@ -25,8 +25,10 @@ import org.gearvrf.GVRMesh;
 import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
+import org.gearvrf.GVRTextureAtlas;
 import org.gearvrf.ZipLoader;
 import org.gearvrf.animation.GVRAnimation;
+import org.gearvrf.animation.GVRAtlasFrameAnimation;
 import org.gearvrf.animation.GVRAnimationEngine;
 import org.gearvrf.animation.GVRRepeatMode;
 import org.gearvrf.utility.Log;
@@ -42,16 +44,21 @@ import java.util.concurrent.Future;
  * The class takes the name of the folder in the assets directory that contains all the texture
  * files that help animate the {@link Cursor}.
  *
+ * The frames are packed into a single {@link GVRTextureAtlas} and the animation only moves the
+ * texture coordinates from frame to frame. If the frames do not fit in one atlas, each frame is
+ * loaded as a separate texture instead.
+ *
  * This class in itself only defines texture animations. It is assumed that the object that uses
  * this {@link CursorAsset} already has a {@link GVRMesh} and a {@link GVRMaterial} set.
  */
 class AnimatedCursorAsset extends MeshCursorAsset {
     private static final String TAG = AnimatedCursorAsset.class.getSimpleName();
+    private GVRTextureAtlas loaderAtlas;
     private List<GVRTexture> loaderTextures;
     private final static float LOADING_IMAGE_FRAME_ANIMATION_DURATION = 1f;
     private float animationDuration = LOADING_IMAGE_FRAME_ANIMATION_DURATION;
     private final static int LOOP_REPEAT = -1;
-    private SparseArray<GVRImageFrameAnimation> animations;
+    private SparseArray<GVRAnimation> animations;
     private final GVRAnimationEngine animationEngine;
 
     private String zipFileName;
@@ -60,7 +67,7 @@ class AnimatedCursorAsset extends MeshCursorAsset {
                         String mesh) {
         super(context, type, action, mesh, null);
         this.zipFileName = zipFileName;
-        animations = new SparseArray<GVRImageFrameAnimation>();
+        animations = new SparseArray<GVRAnimation>();
         animationEngine = context.getAnimationEngine();
     }
 
@@ -73,7 +80,7 @@ class AnimatedCursorAsset extends MeshCursorAsset {
         super.set(cursor);
 
         int key = cursor.getId();
-        GVRImageFrameAnimation animation = animations.get(key);
+        GVRAnimation animation = animations.get(key);
         if (animation == null) {
             GVRSceneObject assetSceneObject = sceneObjectArray.get(key);
             if (assetSceneObject == null) {
@@ -82,9 +89,14 @@ class AnimatedCursorAsset extends MeshCursorAsset {
             }
             GVRRenderData renderData = assetSceneObject.getRenderData();
             GVRMaterial loadingMaterial = renderData.getMaterial();
-            loadingMaterial.setMainTexture(loaderTextures.get(0));
-            animation = new GVRImageFrameAnimation(loadingMaterial,
-                    animationDuration, loaderTextures);
+            if (loaderAtlas != null) {
+                animation = new GVRAtlasFrameAnimation(loadingMaterial, animationDuration,
+                        loaderAtlas);
+            } else {
+                loadingMaterial.setMainTexture(loaderTextures.get(0));
+                animation = new GVRImageFrameAnimation(loadingMaterial,
+                        animationDuration, loaderTextures);
+            }
             //Usual animations have a repeat behavior
             animation.setRepeatMode(GVRRepeatMode.REPEATED);
             animation.setRepeatCount(LOOP_REPEAT);
@@ -97,7 +109,7 @@ class AnimatedCursorAsset extends MeshCursorAsset {
     @Override
     void reset(Cursor cursor) {
         int key = cursor.getId();
-        GVRImageFrameAnimation animation = animations.get(key);
+        GVRAnimation animation = animations.get(key);
         if (animation == null) {
             //nothing to do
             Log.d(TAG, "Animation is finished return, should not happen ");
@@ -120,9 +132,16 @@ class AnimatedCursorAsset extends MeshCursorAsset {
     @Override
     void load(Cursor cursor) {
         super.load(cursor);
-        if (loaderTextures != null) {
+        if (loaderAtlas != null || loaderTextures != null) {
             return;
         }
+        try {
+            loaderAtlas = GVRTextureAtlas.loadZip(context, zipFileName);
+            return;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot pack %s into an atlas, loading separate textures: %s",
+                    zipFileName, e);
+        }
         try {
             loaderTextures = ZipLoader.load(context, zipFileName, new ZipLoader
                     .ZipEntryProcessor<GVRTexture>() {
@@ -144,8 +163,11 @@ class AnimatedCursorAsset extends MeshCursorAsset {
 
         // check if there are cursors still using the textures
         if (sceneObjectArray.size() == 0) {
-            loaderTextures.clear();
-            loaderTextures = null;
+            loaderAtlas = null;
+            if (loaderTextures != null) {
+                loaderTextures.clear();
+                loaderTextures = null;
+            }
         }
     }
 
@@ -16,7 +16,6 @@
 package org.gearvrf.mixedreality.arcore;
 
 import com.google.ar.core.Anchor;
-import com.google.ar.core.TrackingState;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.mixedreality.GVRAnchor;
@@ -69,30 +68,30 @@ public class ARCoreAnchor extends GVRAnchor {
     }
 
     /**
-     * Update the anchor based on arcore best knowledge of the world
+     * Read the pose of the anchor from ARCore.
+     * Only needs to be called when ARCore reports the anchor as updated.
+     */
+    protected void updateFromAR() {
+        mPose.setARPose(mAnchor.getPose());
+    }
+
+    /**
+     * Update the anchor based on arcore best knowledge of the world.
+     * The transform is only set if the pose of the anchor or the AR to GVRf
+     * transform changed.
      *
-     * @param viewmtx
-     * @param gvrmatrix
-     * @param scale
+     * @param arToVrMatrix GVRf Camera matrix multiplied by the phone's camera view matrix
+     * @param scale Scale from AR to GVRf world
+     * @param transformVersion Changes whenever arToVrMatrix or scale change
      */
-    protected void update(float[] viewmtx, float[] gvrmatrix, float scale) {
+    protected void update(float[] arToVrMatrix, float scale, int transformVersion) {
         // Updates only when the plane is in the scene
         if (getParent() == null || !isEnabled()) {
             return;
         }
 
-        convertFromARtoVRSpace(viewmtx, gvrmatrix, scale);
-    }
-
-    /**
-     * Converts from ARCore world space to GVRf's world space.
-     *
-     * @param arViewMatrix Phone's camera view matrix.
-     * @param vrCamMatrix GVRf Camera matrix.
-     * @param scale Scale from AR to GVRf world.
-     */
-    protected void convertFromARtoVRSpace(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        mPose.update(mAnchor.getPose(), arViewMatrix, vrCamMatrix, scale);
-        getTransform().setModelMatrix(mPose.getPoseMatrix());
+        if (mPose.update(arToVrMatrix, scale, transformVersion)) {
+            getTransform().setModelMatrix(mPose.getPoseMatrix());
+        }
     }
 }
@@ -15,11 +15,14 @@
 
 package org.gearvrf.mixedreality.arcore;
 
+import android.opengl.Matrix;
+
 import com.google.ar.core.Anchor;
 import com.google.ar.core.AugmentedImage;
 import com.google.ar.core.HitResult;
 import com.google.ar.core.LightEstimate;
 import com.google.ar.core.Plane;
+import com.google.ar.core.Pose;
 import com.google.ar.core.Trackable;
 import com.google.ar.core.TrackingState;
 
@@ -37,6 +40,7 @@ import org.gearvrf.mixedreality.IAugmentedImageEventsListener;
 import org.gearvrf.mixedreality.IPlaneEventsListener;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -47,8 +51,17 @@ public class ARCoreHelper {
     private GVRScene mGvrScene;
 
     private Map<Plane, ARCorePlane> mArPlanes;
+    private List<ARCorePlane> mArPlaneList;
     private Map<AugmentedImage, ARCoreAugmentedImage> mArAugmentedImages;
     private List<ARCoreAnchor> mArAnchors;
+    private Map<Anchor, ARCoreAnchor> mArAnchorMap;
+    private List<ARCoreAnchor> mPendingAnchors;
+
+    // GVRf camera matrix * AR view matrix of the current frame
+    private final float[] mArToVrMatrix = new float[16];
+    private final float[] mTempMatrix = new float[16];
+    private float mArToVrScale;
+    private int mTransformVersion;
 
     private ArrayList<IPlaneEventsListener> planeEventsListeners = new ArrayList<>();
     private ArrayList<IAnchorEventsListener> anchorEventsListeners = new ArrayList<>();
@@ -58,29 +71,45 @@ public class ARCoreHelper {
         mGvrContext = gvrContext;
         mGvrScene = gvrScene;
         mArPlanes = new HashMap<>();
+        mArPlaneList = new ArrayList<>();
         mArAugmentedImages = new HashMap<>();
         mArAnchors = new ArrayList<>();
+        mArAnchorMap = new HashMap<>();
+        mPendingAnchors = new ArrayList<>();
     }
 
-    public void updatePlanes(Collection<Plane> allPlanes, float[] arViewMatrix,
+    /**
+     * Update the planes changed by the last ARCore update.
+     * Planes which ARCore did not report are only moved if the AR to GVRf
+     * transform changed since the last frame.
+     *
+     * @param updatedPlanes planes updated by the last {@code Session.update()},
+     *                      see {@code Frame.getUpdatedTrackables(Plane.class)}
+     * @param arViewMatrix Phone's camera view matrix
+     * @param vrCamMatrix GVRf Camera matrix
+     * @param scale Scale from AR to GVRf world
+     */
+    public void updatePlanes(Collection<Plane> updatedPlanes, float[] arViewMatrix,
                              float[] vrCamMatrix, float scale) {
         ARCorePlane arCorePlane;
 
-        for (Plane plane: allPlanes) {
-            if (plane.getTrackingState() != TrackingState.TRACKING
-                    || mArPlanes.containsKey(plane)) {
-                continue;
-            }
+        updateTransform(arViewMatrix, vrCamMatrix, scale);
 
-            arCorePlane = createPlane(plane);
-            // FIXME: New planes are updated two times
-            arCorePlane.update(arViewMatrix, vrCamMatrix, scale);
-            notifyPlaneDetectionListeners(arCorePlane);
-        }
-
-        for (Plane plane: mArPlanes.keySet()) {
+        for (Plane plane: updatedPlanes) {
             arCorePlane = mArPlanes.get(plane);
 
+            if (arCorePlane == null) {
+                if (plane.getTrackingState() != TrackingState.TRACKING) {
+                    continue;
+                }
+                arCorePlane = createPlane(plane);
+                arCorePlane.updateFromAR();
+                notifyPlaneDetectionListeners(arCorePlane);
+            }
+            else {
+                arCorePlane.updateFromAR();
+            }
+
             if (plane.getTrackingState() == TrackingState.TRACKING &&
                     arCorePlane.getTrackingState() != GVRTrackingState.TRACKING) {
                 arCorePlane.setTrackingState(GVRTrackingState.TRACKING);
@@ -101,8 +130,10 @@ public class ARCoreHelper {
                 arCorePlane.setParentPlane(mArPlanes.get(plane.getSubsumedBy()));
                 notifyMergedPlane(arCorePlane, arCorePlane.getParentPlane());
             }
+        }
 
-            arCorePlane.update(arViewMatrix, vrCamMatrix, scale);
+        for (int i = 0; i < mArPlaneList.size(); i++) {
+            mArPlaneList.get(i).update(mArToVrMatrix, scale, mTransformVersion);
         }
     }
 
@@ -121,8 +152,11 @@ public class ARCoreHelper {
             mArAugmentedImages.put(augmentedImage, arCoreAugmentedImage);
         }
 
-        for (AugmentedImage augmentedImage: mArAugmentedImages.keySet()) {
+        for (AugmentedImage augmentedImage: allAugmentedImages) {
             arCoreAugmentedImage = mArAugmentedImages.get(augmentedImage);
+            if (arCoreAugmentedImage == null) {
+                continue;
+            }
 
             if (augmentedImage.getTrackingState() == TrackingState.TRACKING &&
                     arCoreAugmentedImage.getTrackingState() != GVRTrackingState.TRACKING) {
@@ -142,38 +176,83 @@ public class ARCoreHelper {
         }
     }
 
-    public void updateAnchors(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        for (ARCoreAnchor anchor: mArAnchors) {
-            Anchor arAnchor = anchor.getAnchorAR();
+    /**
+     * Update the anchors changed by the last ARCore update, and the anchors
+     * created or moved since then.
+     * Other anchors are only moved if the AR to GVRf transform changed since the last frame.
+     *
+     * @param updatedAnchors anchors updated by the last {@code Session.update()},
+     *                       see {@code Frame.getUpdatedAnchors()}
+     * @param arViewMatrix Phone's camera view matrix
+     * @param vrCamMatrix GVRf Camera matrix
+     * @param scale Scale from AR to GVRf world
+     */
+    public void updateAnchors(Collection<Anchor> updatedAnchors, float[] arViewMatrix,
+                              float[] vrCamMatrix, float scale) {
+        updateTransform(arViewMatrix, vrCamMatrix, scale);
+
+        for (int i = 0; i < mPendingAnchors.size(); i++) {
+            updateAnchor(mPendingAnchors.get(i));
+        }
+        mPendingAnchors.clear();
 
-            if (arAnchor.getTrackingState() == TrackingState.TRACKING &&
-                    anchor.getTrackingState() != GVRTrackingState.TRACKING) {
-                anchor.setTrackingState(GVRTrackingState.TRACKING);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.TRACKING);
-            }
-            else if (arAnchor.getTrackingState() == TrackingState.PAUSED &&
-                    anchor.getTrackingState() != GVRTrackingState.PAUSED) {
-                anchor.setTrackingState(GVRTrackingState.PAUSED);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.PAUSED);
-            }
-            else if (arAnchor.getTrackingState() == TrackingState.STOPPED &&
-                    anchor.getTrackingState() != GVRTrackingState.STOPPED) {
-                anchor.setTrackingState(GVRTrackingState.STOPPED);
-                notifyAnchorStateChangeListeners(anchor, GVRTrackingState.STOPPED);
+        for (Anchor arAnchor: updatedAnchors) {
+            ARCoreAnchor anchor = mArAnchorMap.get(arAnchor);
+
+            if (anchor != null) {
+                updateAnchor(anchor);
             }
+        }
 
-            anchor.update(arViewMatrix, vrCamMatrix, scale);
+        for (int i = 0; i < mArAnchors.size(); i++) {
+            mArAnchors.get(i).update(mArToVrMatrix, scale, mTransformVersion);
         }
     }
 
-    public ArrayList<GVRPlane> getAllPlanes() {
-        ArrayList<GVRPlane> allPlanes = new ArrayList<>();
+    private void updateAnchor(ARCoreAnchor anchor) {
+        Anchor arAnchor = anchor.getAnchorAR();
+
+        if (arAnchor.getTrackingState() == TrackingState.TRACKING &&
+                anchor.getTrackingState() != GVRTrackingState.TRACKING) {
+            anchor.setTrackingState(GVRTrackingState.TRACKING);
+            notifyAnchorStateChangeListeners(anchor, GVRTrackingState.TRACKING);
+        }
+        else if (arAnchor.getTrackingState() == TrackingState.PAUSED &&
+                anchor.getTrackingState() != GVRTrackingState.PAUSED) {
+            anchor.setTrackingState(GVRTrackingState.PAUSED);
+            notifyAnchorStateChangeListeners(anchor, GVRTrackingState.PAUSED);
+        }
+        else if (arAnchor.getTrackingState() == TrackingState.STOPPED &&
+                anchor.getTrackingState() != GVRTrackingState.STOPPED) {
+            anchor.setTrackingState(GVRTrackingState.STOPPED);
+            notifyAnchorStateChangeListeners(anchor, GVRTrackingState.STOPPED);
+        }
+
+        anchor.updateFromAR();
+    }
 
-        for (Plane plane: mArPlanes.keySet()) {
-            allPlanes.add(mArPlanes.get(plane));
+    /**
+     * Computes the AR to GVRf transform for this frame. The version is only
+     * changed if the transform is different from the last frame, so planes and
+     * anchors which did not move in AR space can skip the update.
+     */
+    private void updateTransform(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
+        Matrix.multiplyMM(mTempMatrix, 0, vrCamMatrix, 0, arViewMatrix, 0);
+
+        if (scale != mArToVrScale || !Arrays.equals(mTempMatrix, mArToVrMatrix)) {
+            System.arraycopy(mTempMatrix, 0, mArToVrMatrix, 0, 16);
+            mArToVrScale = scale;
+            mTransformVersion++;
         }
+    }
 
-        return allPlanes;
+    /**
+     * @return a new list with all of the detected planes
+     */
+    public ArrayList<GVRPlane> getAllPlanes() {
+        synchronized (mArPlaneList) {
+            return new ArrayList<GVRPlane>(mArPlaneList);
+        }
     }
 
     public ArrayList<GVRAugmentedImage> getAllAugmentedImages() {
@@ -189,6 +268,9 @@ public class ARCoreHelper {
     public ARCorePlane createPlane(Plane plane) {
         ARCorePlane arCorePlane = new ARCorePlane(mGvrContext, plane);
         mArPlanes.put(plane, arCorePlane);
+        synchronized (mArPlaneList) {
+            mArPlaneList.add(arCorePlane);
+        }
         return arCorePlane;
     }
 
@@ -201,6 +283,8 @@ public class ARCoreHelper {
         ARCoreAnchor arCoreAnchor = new ARCoreAnchor(mGvrContext);
         arCoreAnchor.setAnchorAR(arAnchor);
         mArAnchors.add(arCoreAnchor);
+        mArAnchorMap.put(arAnchor, arCoreAnchor);
+        mPendingAnchors.add(arCoreAnchor);
 
         if (sceneObject != null) {
             arCoreAnchor.attachSceneObject(sceneObject);
@@ -211,14 +295,21 @@ public class ARCoreHelper {
 
     public void updateAnchorPose(ARCoreAnchor anchor, Anchor arAnchor) {
         if (anchor.getAnchorAR() != null) {
+            mArAnchorMap.remove(anchor.getAnchorAR());
             anchor.getAnchorAR().detach();
         }
         anchor.setAnchorAR(arAnchor);
+        mArAnchorMap.put(arAnchor, anchor);
+        if (!mPendingAnchors.contains(anchor)) {
+            mPendingAnchors.add(anchor);
+        }
     }
 
     public void removeAnchor(ARCoreAnchor anchor) {
+        mArAnchorMap.remove(anchor.getAnchorAR());
         anchor.getAnchorAR().detach();
         mArAnchors.remove(anchor);
+        mPendingAnchors.remove(anchor);
         mGvrScene.removeSceneObject(anchor);
     }
 
@@ -226,14 +317,18 @@ public class ARCoreHelper {
         for (HitResult hit : hitResult) {
             // Check if any plane was hit, and if it was hit inside the plane polygon
             Trackable trackable = hit.getTrackable();
+            if (!(trackable instanceof Plane)
+                    || ((Plane) trackable).getSubsumedBy() != null) {
+                continue;
+            }
+            Pose pose = hit.getHitPose();
             // Creates an anchor if a plane or an oriented point was hit.
-            if ((trackable instanceof Plane
-                    && ((Plane) trackable).isPoseInPolygon(hit.getHitPose()))
-                    && ((Plane) trackable).getSubsumedBy() == null) {
+            if (((Plane) trackable).isPoseInPolygon(pose)) {
                 GVRHitResult gvrHitResult = new GVRHitResult();
+                // The hit result keeps this array
                 float[] hitPose = new float[16];
 
-                hit.getHitPose().toMatrix(hitPose, 0);
+                pose.toMatrix(hitPose, 0);
                 gvrHitResult.setPose(hitPose);
                 gvrHitResult.setDistance(hit.getDistance());
                 gvrHitResult.setPlane(mArPlanes.get(trackable));
@@ -18,15 +18,23 @@ package org.gearvrf.mixedreality.arcore;
 import com.google.ar.core.Plane;
 
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRSceneObject;
 import org.gearvrf.mixedreality.GVRPlane;
 import org.gearvrf.mixedreality.GVRTrackingState;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 
 class ARCorePlane extends GVRPlane {
     private Plane mARPlane;
     private ARCorePose mPose;
+    private float mExtentX;
+    private float mExtentZ;
+    private boolean mExtentChanged = true;
+    private GVRSceneObject mScaledObject;
+    private FloatBuffer mPolygon;
 
     protected ARCorePlane(GVRContext gvrContext, Plane plane) {
         super(gvrContext);
@@ -69,9 +77,7 @@ class ARCorePlane extends GVRPlane {
 
     @Override
     public float[] getCenterPose() {
-        float[] centerPose = new float[16];
-        mARPlane.getCenterPose().toMatrix(centerPose, 0);
-        return centerPose;
+        return mPose.getARPoseMatrix().clone();
     }
 
     @Override
@@ -81,17 +87,17 @@ class ARCorePlane extends GVRPlane {
 
     @Override
     public float getWidth() {
-        return mARPlane.getExtentX();
+        return mExtentX;
     }
 
     @Override
     public float getHeight() {
-        return mARPlane.getExtentZ();
+        return mExtentZ;
     }
 
     @Override
     public FloatBuffer getPolygon() {
-        return mARPlane.getPolygon();
+        return mPolygon.asReadOnlyBuffer();
     }
 
     @Override
@@ -100,35 +106,64 @@ class ARCorePlane extends GVRPlane {
     }
 
     /**
-     * Update the plane based on arcore best knowledge of the world
+     * Read the pose, extents and polygon of the plane from ARCore.
+     * Only needs to be called when ARCore reports the plane as updated.
+     */
+    protected void updateFromAR() {
+        mPose.setARPose(mARPlane.getCenterPose());
+
+        final float extentX = mARPlane.getExtentX();
+        final float extentZ = mARPlane.getExtentZ();
+        if (extentX != mExtentX || extentZ != mExtentZ) {
+            mExtentX = extentX;
+            mExtentZ = extentZ;
+            mExtentChanged = true;
+        }
+        updatePolygon(mARPlane.getPolygon());
+    }
+
+    /**
+     * Update the plane based on arcore best knowledge of the world.
+     * The transform is only set if the pose of the plane or the AR to GVRf
+     * transform changed.
      *
-     * @param viewmtx
-     * @param gvrmatrix
-     * @param scale
+     * @param arToVrMatrix GVRf Camera matrix multiplied by the phone's camera view matrix
+     * @param scale Scale from AR to GVRf world
+     * @param transformVersion Changes whenever arToVrMatrix or scale change
      */
-    protected void update(float[] viewmtx, float[] gvrmatrix, float scale) {
+    protected void update(float[] arToVrMatrix, float scale, int transformVersion) {
         // Updates only when the plane is in the scene
         if (getParent() == null || !isEnabled()) {
             return;
         }
 
-        convertFromARtoVRSpace(viewmtx, gvrmatrix, scale);
+        if (mPose.update(arToVrMatrix, scale, transformVersion)) {
+            getTransform().setModelMatrix(mPose.getPoseMatrix());
+        }
 
-        if (mSceneObject != null) {
-            mSceneObject.getTransform().setScale(mARPlane.getExtentX() * 0.95f,
-                    mARPlane.getExtentZ() * 0.95f, 1.0f);
+        if (mSceneObject != null && (mExtentChanged || mSceneObject != mScaledObject)) {
+            mSceneObject.getTransform().setScale(mExtentX * 0.95f, mExtentZ * 0.95f, 1.0f);
+            mScaledObject = mSceneObject;
+            mExtentChanged = false;
         }
     }
-    
+
     /**
-     * Converts from ARCore world space to GVRf's world space.
-     *
-     * @param arViewMatrix Phone's camera view matrix
-     * @param vrCamMatrix GVRf Camera matrix
-     * @param scale Scale from AR to GVRf world
+     * Copies the polygon from ARCore if it is different from the last one,
+     * reusing the buffer when it is large enough.
      */
-    private void convertFromARtoVRSpace(float[] arViewMatrix, float[] vrCamMatrix, float scale) {
-        mPose.update(mARPlane.getCenterPose(), arViewMatrix, vrCamMatrix, scale);
-        getTransform().setModelMatrix(mPose.getPoseMatrix());
+    private void updatePolygon(FloatBuffer polygon) {
+        polygon.rewind();
+        if (mPolygon != null && mPolygon.equals(polygon)) {
+            return;
+        }
+        if (mPolygon == null || mPolygon.capacity() < polygon.remaining()) {
+            mPolygon = ByteBuffer.allocateDirect(polygon.remaining() * 4 * 2)
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        mPolygon.clear();
+        mPolygon.put(polygon);
+        mPolygon.flip();
+        polygon.rewind();
     }
 }
@@ -19,6 +19,8 @@ import android.opengl.Matrix;
 
 import com.google.ar.core.Pose;
 
+import java.util.Arrays;
+
 /**
  * Represents a ARCore pose in the scene.
  */
@@ -27,6 +29,11 @@ public class ARCorePose {
     private static float[] mModelViewMatrix = new float[16];
     // Represents a AR Pose at GVRf's world space
     private float[] mPoseMatrix = new float[16];
+    // Last pose read from ARCore, in AR world space
+    private float[] mARPoseMatrix = new float[16];
+    private float[] mTempMatrix = new float[16];
+    private boolean mARPoseChanged = true;
+    private int mTransformVersion = -1;
 
     /**
      * Returns the ARCore Pose matrix in GVRf's world space
@@ -37,6 +44,15 @@ public class ARCorePose {
         return mPoseMatrix;
     }
 
+    /**
+     * Returns the last pose set by {@link #setARPose(Pose)}
+     *
+     * @return The pose matrix in ARCore's world space.
+     */
+    public float[] getARPoseMatrix() {
+        return mARPoseMatrix;
+    }
+
     /**
      * Converts from ARCore world space to GVRf's world space
      *
@@ -51,6 +67,43 @@ public class ARCorePose {
         ar2gvr(arViewMatrix, vrCamMatrix, scale);
     }
 
+    /**
+     * Keep a new pose from ARCore. The pose is only converted to GVRf's world space by
+     * the next call to {@link #update(float[], float, int)}.
+     *
+     * @param pose AR Core Pose instance
+     * @return true if the pose is different from the last one
+     */
+    public boolean setARPose(Pose pose) {
+        pose.toMatrix(mTempMatrix, 0);
+        if (Arrays.equals(mTempMatrix, mARPoseMatrix)) {
+            return false;
+        }
+        System.arraycopy(mTempMatrix, 0, mARPoseMatrix, 0, 16);
+        mARPoseChanged = true;
+        return true;
+    }
+
+    /**
+     * Converts the last ARCore pose to GVRf's world space, if either the pose or
+     * the AR to GVRf transform changed since the last call.
+     *
+     * @param arToVrMatrix GVRf Camera matrix multiplied by the phone's camera view matrix
+     * @param scale Scale from AR to GVRf world
+     * @param transformVersion Changes whenever arToVrMatrix or scale change
+     * @return true if the pose matrix was updated
+     */
+    public boolean update(float[] arToVrMatrix, float scale, int transformVersion) {
+        if (!mARPoseChanged && mTransformVersion == transformVersion) {
+            return false;
+        }
+        Matrix.multiplyMM(mPoseMatrix, 0, arToVrMatrix, 0, mARPoseMatrix, 0);
+        applyScale(scale);
+        mARPoseChanged = false;
+        mTransformVersion = transformVersion;
+        return true;
+    }
+
     /**
      * Converts from AR world space to GVRf world space.
      */
@@ -60,6 +113,10 @@ public class ARCorePose {
         // From AR Camera space to GVRf world space
         Matrix.multiplyMM(mPoseMatrix, 0, GVRCamMatrix, 0, mModelViewMatrix, 0);
 
+        applyScale(scale);
+    }
+
+    private void applyScale(float scale) {
         // Real world scale
         Matrix.scaleM(mPoseMatrix, 0, scale, scale, scale);
         mPoseMatrix[12] = mPoseMatrix[12] * scale;
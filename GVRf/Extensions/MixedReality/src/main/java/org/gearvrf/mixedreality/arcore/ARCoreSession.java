@@ -289,14 +289,16 @@ public class ARCoreSession extends MRCommon {
             // Update passthrough object with last VR cam matrix
             updatePassThroughObject(mARPassThroughObject);
 
-            mArCoreHelper.updatePlanes(mSession.getAllTrackables(Plane.class),
+            mArCoreHelper.updatePlanes(arFrame.getUpdatedTrackables(Plane.class),
                     mARViewMatrix, mGVRCamMatrix, AR2VR_SCALE);
 
             mArCoreHelper.updateAugmentedImages(arFrame.getUpdatedTrackables(AugmentedImage.class));
 
-            mArCoreHelper.updateAnchors(mARViewMatrix, mGVRCamMatrix, AR2VR_SCALE);
+            Collection<Anchor> updatedAnchors = arFrame.getUpdatedAnchors();
 
-            updateCloudAnchors(arFrame.getUpdatedAnchors());
+            mArCoreHelper.updateAnchors(updatedAnchors, mARViewMatrix, mGVRCamMatrix, AR2VR_SCALE);
+
+            updateCloudAnchors(updatedAnchors);
 
             mLastARFrame = arFrame;
 
@@ -8,12 +8,15 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.GVRComponent;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRImportSettings;
 import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRRenderData;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRTexture;
+import org.gearvrf.GVRTransform;
 import org.gearvrf.IAssetEvents;
 import org.gearvrf.scene_objects.GVRCubeSceneObject;
 import org.gearvrf.scene_objects.GVRSphereSceneObject;
@@ -25,10 +28,14 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.Map;
 
 public class SceneSerializer {
     private static final String TAG = SceneSerializer.class.getSimpleName();
@@ -58,13 +65,23 @@ public class SceneSerializer {
     public void importScene(GVRContext gvrContext, GVRScene gvrScene, File location,
                             SceneLoaderListener sceneLoaderListener) {
         this.sceneLoaderListener = sceneLoaderListener;
-        JsonParser parser = new JsonParser();
-        JsonElement jsonElement = null;
         try {
-            jsonElement = parser.parse(new FileReader(location));
-            sceneData = gson.fromJson(jsonElement,SceneData.class);
+            if (SceneSnapshot.isSnapshot(location)) {
+                sceneData = SceneSnapshot.read(location);
+            } else {
+                JsonParser parser = new JsonParser();
+                Reader reader = new FileReader(location);
+                try {
+                    JsonElement jsonElement = parser.parse(reader);
+                    sceneData = gson.fromJson(jsonElement, SceneData.class);
+                } finally {
+                    reader.close();
+                }
+            }
         } catch (FileNotFoundException e) {
             Log.d(TAG,"Could not load scene from file");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not read scene file:%s", e.getMessage());
         }
         loadEnvironment(gvrContext, gvrScene);
         loadSceneObjects(gvrContext, gvrScene);
@@ -89,6 +106,19 @@ public class SceneSerializer {
         bw.close();
     }
 
+    /**
+     * Export the scene in the binary snapshot format. Snapshots are smaller and faster
+     * to import than JSON, {@link #importScene(GVRContext, GVRScene, File, SceneLoaderListener)}
+     * accepts both.
+     */
+    public void exportSnapshot(File location) throws IOException {
+        if(sceneData == null) {
+            return;
+        }
+        sceneData.prepareForExport();
+        SceneSnapshot.write(sceneData, location);
+    }
+
     public void setEnvironmentData(String fullPath) {
         setEnvironmentData(fullPath, DEFAULT_ENVIRONMENT_SCALE);
     }
@@ -184,12 +214,22 @@ public class SceneSerializer {
         assetObserver.startLoading();
     }
 
+    /**
+     * Loads the scene objects grouped by their source, so every model file is
+     * imported once. The first object of a group gets the imported model, the
+     * others get copies which share its meshes and materials. Models with
+     * components other than render data, such as animators, lights,
+     * colliders or skeletons, can't be copied that way: they are imported
+     * again for every object.
+     */
     private class AssetObserver implements IAssetEvents {
         Collection<SceneObjectData> sceneObjectDatas;
         GVRContext context;
         GVRScene scene;
-        Iterator<SceneObjectData> iterator;
-        SceneObjectData currentSod;
+        Iterator<Map.Entry<String, List<SceneObjectData>>> iterator;
+        Map.Entry<String, List<SceneObjectData>> currentSource;
+        int nextInstance;
+        GVRSceneObject lastModel;
 
         AssetObserver(Collection<SceneObjectData> sceneObjectDatas, GVRContext context, GVRScene
                 scene) {
@@ -199,80 +239,201 @@ public class SceneSerializer {
         }
 
         void startLoading() {
-            iterator = sceneObjectDatas.iterator();
+            Map<String, List<SceneObjectData>> sources =
+                    new LinkedHashMap<String, List<SceneObjectData>>();
+            for (SceneObjectData sod : sceneObjectDatas) {
+                List<SceneObjectData> group = sources.get(sod.getSrc());
+                if (group == null) {
+                    group = new ArrayList<SceneObjectData>();
+                    sources.put(sod.getSrc(), group);
+                }
+                group.add(sod);
+            }
+            iterator = sources.entrySet().iterator();
             loadNextAsset();
         }
 
         @Override
         public void onAssetLoaded(GVRContext context, GVRSceneObject model, String filePath,
                                   String errors) {
-            if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
-                model.getTransform().setModelMatrix(currentSod.getModelMatrix());
-                model.setName(currentSod.getName());
-                currentSod.setGvrSceneObject(model);
-                scene.addSceneObject(model);
-                if(sceneLoaderListener != null) {
-                    sceneLoaderListener.onSceneObjectLoaded(model);
-                }
-                loadNextAsset();
+            if (isCurrentSource(filePath)) {
+                addModels(model);
             }
         }
 
         @Override
         public void onModelLoaded(GVRContext context, GVRSceneObject model, String filePath) {
-            if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
-                model.getTransform().setModelMatrix(currentSod.getModelMatrix());
-                model.setName(currentSod.getName());
-                currentSod.setGvrSceneObject(model);
-                scene.addSceneObject(model);
-                if(sceneLoaderListener != null) {
-                    sceneLoaderListener.onSceneObjectLoaded(model);
-                }
-                loadNextAsset();
+            if (isCurrentSource(filePath)) {
+                addModels(model);
             }
         }
 
         @Override
         public void onTextureLoaded(GVRContext context, GVRTexture texture, String filePath) {
-            if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
+            if (isCurrentSource(filePath)) {
                 Log.d(TAG, "Texture loaded:%s", filePath);
             }
         }
 
         @Override
         public void onModelError(GVRContext context, String error, String filePath) {
-            if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
+            if (isCurrentSource(filePath)) {
                 Log.e(TAG, "Model Loading Error for %s", filePath);
-                iterator.remove();
+                removeCurrentSource();
                 loadNextAsset();
             }
         }
 
         @Override
         public void onTextureError(GVRContext context, String error, String filePath) {
-            if (currentSod != null && currentSod.getSrc().endsWith(filePath)) {
+            if (isCurrentSource(filePath)) {
                 Log.e(TAG, "Texture Loading error for %s", filePath);
-                loadNextAsset();
             }
         }
 
+        private boolean isCurrentSource(String filePath) {
+            return currentSource != null && currentSource.getKey().endsWith(filePath);
+        }
+
+        private void addModels(GVRSceneObject model) {
+            // Both onModelLoaded and onAssetLoaded report the same model
+            if (model == lastModel) {
+                return;
+            }
+            lastModel = model;
+            List<SceneObjectData> group = currentSource.getValue();
+            addModel(group.get(nextInstance++), model);
+            if (nextInstance < group.size() && !isCopyable(model)) {
+                if (!loadCurrentSource()) {
+                    loadNextAsset();
+                }
+                return;
+            }
+            while (nextInstance < group.size()) {
+                addModel(group.get(nextInstance++), copyModel(model));
+            }
+            loadNextAsset();
+        }
+
+        private void addModel(SceneObjectData sod, GVRSceneObject sceneObject) {
+            sceneObject.getTransform().setModelMatrix(sod.getModelMatrix());
+            sceneObject.setName(sod.getName());
+            sod.setGvrSceneObject(sceneObject);
+            scene.addSceneObject(sceneObject);
+            if(sceneLoaderListener != null) {
+                sceneLoaderListener.onSceneObjectLoaded(sceneObject);
+            }
+        }
+
+        /*
+         * Drop the objects of the current source that have no model yet.
+         */
+        private void removeCurrentSource() {
+            List<SceneObjectData> group = currentSource.getValue();
+            sceneObjectDatas.removeAll(new HashSet<SceneObjectData>(
+                    group.subList(nextInstance, group.size())));
+        }
+
         private void loadNextAsset() {
             while (iterator.hasNext()) {
-                currentSod = iterator.next();
-                try {
-                    context.getAssetLoader().loadModel(
-                            "sd:" + currentSod.getSrc(), GVRImportSettings.getRecommendedSettings(),
-                            true, null);
-                    break;
-                } catch (IOException e) {
-                    Log.e(TAG, "Could not load model:%s from sdcard:%s", currentSod.getSrc(),
-                            e.getMessage());
-                    iterator.remove();
+                currentSource = iterator.next();
+                nextInstance = 0;
+                if (loadCurrentSource()) {
+                    return;
                 }
             }
-            currentSod = null;
+            currentSource = null;
+        }
+
+        private boolean loadCurrentSource() {
+            try {
+                context.getAssetLoader().loadModel(
+                        "sd:" + currentSource.getKey(),
+                        GVRImportSettings.getRecommendedSettings(), true, null);
+                return true;
+            } catch (IOException e) {
+                Log.e(TAG, "Could not load model:%s from sdcard:%s", currentSource.getKey(),
+                        e.getMessage());
+                removeCurrentSource();
+                return false;
+            }
         }
     }
 
+    /**
+     * A model can be copied by {@link #copyModel(GVRSceneObject)} if its
+     * scene objects have no components but transforms and single pass render
+     * data.
+     */
+    private static boolean isCopyable(GVRSceneObject model) {
+        final boolean[] copyable = { true };
+        model.forAllComponents(new GVRSceneObject.ComponentVisitor() {
+            @Override
+            public boolean visit(GVRComponent comp) {
+                if (comp instanceof GVRTransform) {
+                    return true;
+                }
+                if (comp instanceof GVRRenderData
+                        && ((GVRRenderData) comp).getPassCount() <= 1) {
+                    return true;
+                }
+                copyable[0] = false;
+                return false;
+            }
+        });
+        return copyable[0];
+    }
+
+    /**
+     * Copy a model hierarchy. The copies share the meshes and materials
+     * of the source, only the scene objects and render data are new.
+     * @see #copyRenderState(GVRRenderData, GVRRenderData)
+     */
+    private static GVRSceneObject copyModel(GVRSceneObject source) {
+        GVRSceneObject copy = new GVRSceneObject(source.getGVRContext());
+        GVRRenderData renderData = source.getRenderData();
+
+        copy.setName(source.getName());
+        copy.getTransform().setModelMatrix(source.getTransform().getLocalModelMatrix());
+        if (renderData != null) {
+            GVRRenderData copyData = new GVRRenderData(source.getGVRContext(),
+                    renderData.getMaterial());
+            copyData.setMesh(renderData.getMesh());
+            copyRenderState(renderData, copyData);
+            copy.attachRenderData(copyData);
+        }
+        for (GVRSceneObject child : source.getChildren()) {
+            copy.addChildObject(copyModel(child));
+        }
+        return copy;
+    }
 
+    /**
+     * Copy the render state which can be read back from a render data.
+     * The depth mask and stencil settings have no getters and keep their
+     * defaults; the asset loader does not set them.
+     */
+    private static void copyRenderState(GVRRenderData source, GVRRenderData copy) {
+        copy.setRenderMask(source.getRenderMask());
+        copy.setRenderingOrder(source.getRenderingOrder());
+        copy.setDrawMode(source.getDrawMode());
+        copy.setCullFace(source.getCullFace());
+        copy.setDepthTest(source.getDepthTest());
+        copy.setOffset(source.getOffset());
+        copy.setOffsetFactor(source.getOffsetFactor());
+        copy.setOffsetUnits(source.getOffsetUnits());
+        copy.setAlphaBlend(source.getAlphaBlend());
+        copy.setAlphaBlendFunc(source.getSourceAlphaBlendFunc(),
+                source.getDestAlphaBlendFunc());
+        copy.setAlphaToCoverage(source.getAlphaToCoverage());
+        copy.setSampleCoverage(source.getSampleCoverage());
+        copy.setInvertCoverageMask(source.getInvertCoverageMask());
+        copy.setCastShadows(source.getCastShadows());
+        if (!source.isLightEnabled()) {
+            copy.disableLight();
+        }
+        if (source.isLightMapEnabled()) {
+            copy.enableLightMap();
+        }
+    }
 }
@@ -0,0 +1,210 @@
+package org.gearvrf.utlis.sceneserializer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes {@link SceneData} in a compact binary format.
+ * <p>
+ * All strings (model sources and object names) are stored once in a string table
+ * and referenced by index, and the model matrices are packed one after the other
+ * so they can be read in one bulk copy. Files are read through a memory mapped buffer.
+ * <pre>
+ * int    magic, version
+ * int    string count, then for each string: int byte length, UTF-8 bytes
+ *        padding to a multiple of 4 bytes
+ * int    environment source index (-1 if none)
+ * float  environment scale
+ * int    object count
+ * int    source index, name index (-1 if null) for each object
+ * float  16 floats of model matrix for each object
+ * </pre>
+ * All values are little endian.
+ */
+final class SceneSnapshot {
+    private static final int MAGIC = 0x4E435347; // "GSCN"
+    private static final int VERSION = 1;
+    private static final int MATRIX_SIZE = 16;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final float[] IDENTITY = {
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0,
+            0, 0, 0, 1
+    };
+
+    private SceneSnapshot() {
+    }
+
+    /**
+     * @return true if the file starts with the snapshot header
+     */
+    static boolean isSnapshot(File location) throws IOException {
+        FileInputStream in = new FileInputStream(location);
+        try {
+            byte[] header = new byte[4];
+            if (in.read(header) != header.length) {
+                return false;
+            }
+            return ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        } finally {
+            in.close();
+        }
+    }
+
+    static SceneData read(File location) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(location, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return read(buffer);
+        } finally {
+            file.close();
+        }
+    }
+
+    private static SceneData read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a scene snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported scene snapshot version " + version);
+        }
+
+        String[] strings = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, UTF8);
+        }
+        buffer.position(align(buffer.position()));
+
+        SceneData sceneData = new SceneData();
+        int environmentSrc = buffer.getInt();
+        float environmentScale = buffer.getFloat();
+        if (environmentSrc >= 0) {
+            sceneData.setEnvironmentData(new EnvironmentData(strings[environmentSrc],
+                    environmentScale));
+        }
+
+        int objectCount = buffer.getInt();
+        int[] indices = new int[objectCount * 2];
+        IntBuffer intView = buffer.asIntBuffer();
+        intView.get(indices);
+        buffer.position(buffer.position() + indices.length * 4);
+        FloatBuffer matrices = buffer.asFloatBuffer();
+
+        List<SceneObjectData> objects = new ArrayList<SceneObjectData>(objectCount);
+        for (int i = 0; i < objectCount; i++) {
+            SceneObjectData sod = new SceneObjectData();
+            float[] matrix = new float[MATRIX_SIZE];
+            matrices.get(matrix);
+            int src = indices[i * 2];
+            int name = indices[i * 2 + 1];
+            sod.setSrc(src >= 0 ? strings[src] : null);
+            sod.setName(name >= 0 ? strings[name] : null);
+            sod.setModelMatrix(matrix);
+            objects.add(sod);
+        }
+        sceneData.setSceneObjectDataList(objects);
+        return sceneData;
+    }
+
+    static void write(SceneData sceneData, File location) throws IOException {
+        Map<String, Integer> stringIndex = new LinkedHashMap<String, Integer>();
+        EnvironmentData environmentData = sceneData.getEnvironmentData();
+        List<SceneObjectData> objects = sceneData.getSceneObjectDataList();
+        int objectCount = objects != null ? objects.size() : 0;
+        int[] indices = new int[objectCount * 2];
+
+        int environmentSrc = environmentData != null ?
+                addString(stringIndex, environmentData.getSrc()) : -1;
+        for (int i = 0; i < objectCount; i++) {
+            SceneObjectData sod = objects.get(i);
+            indices[i * 2] = addString(stringIndex, sod.getSrc());
+            indices[i * 2 + 1] = addString(stringIndex, sod.getName());
+        }
+
+        List<byte[]> strings = new ArrayList<byte[]>(stringIndex.size());
+        int size = 12;
+        for (String s : stringIndex.keySet()) {
+            byte[] bytes = s.getBytes(UTF8);
+            strings.add(bytes);
+            size += 4 + bytes.length;
+        }
+        size = align(size) + 12 + objectCount * (2 + MATRIX_SIZE) * 4;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(strings.size());
+        for (byte[] bytes : strings) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        while (buffer.position() != align(buffer.position())) {
+            buffer.put((byte) 0);
+        }
+        buffer.putInt(environmentSrc);
+        buffer.putFloat(environmentData != null ? environmentData.getScale() : 0);
+        buffer.putInt(objectCount);
+        for (int index : indices) {
+            buffer.putInt(index);
+        }
+        for (int i = 0; i < objectCount; i++) {
+            float[] matrix = objects.get(i).getModelMatrix();
+            if (matrix == null || matrix.length < MATRIX_SIZE) {
+                matrix = IDENTITY;
+            }
+            for (int j = 0; j < MATRIX_SIZE; j++) {
+                buffer.putFloat(matrix[j]);
+            }
+        }
+        buffer.flip();
+
+        FileOutputStream out = new FileOutputStream(location);
+        try {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static int addString(Map<String, Integer> stringIndex, String s) {
+        if (s == null) {
+            return -1;
+        }
+        Integer index = stringIndex.get(s);
+        if (index == null) {
+            index = stringIndex.size();
+            stringIndex.put(s, index);
+        }
+        return index;
+    }
+
+    private static int align(int position) {
+        return (position + 3) & ~3;
+    }
+}
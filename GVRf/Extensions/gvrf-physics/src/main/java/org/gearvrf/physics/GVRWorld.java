@@ -391,6 +391,8 @@ public class GVRWorld extends GVRComponent {
             maxSubSteps = (int) (timeStep * 60) / 1000 + 1;
 
             NativePhysics3DWorld.step(getNative(), timeStep, maxSubSteps);
+            // the step moved scene objects from native code
+            GVRTransform.invalidateMirrors();
 
             generateCollisionEvents();
 
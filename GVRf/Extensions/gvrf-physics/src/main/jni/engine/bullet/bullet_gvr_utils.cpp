@@ -123,8 +123,18 @@ void convertBtTransform2Transform(btTransform bulletTransform, Transform *transf
     btVector3 pos = bulletTransform.getOrigin();
     btQuaternion rot = bulletTransform.getRotation();
 
-    transform->set_position(pos.getX(), pos.getY(), pos.getZ());
-    transform->set_rotation(rot.getW(), rot.getX(), rot.getY(), rot.getZ());
+    float trs[10];
+
+    // one update, so the scene object is invalidated once per body
+    transform->get_local(trs);
+    trs[0] = pos.getX();
+    trs[1] = pos.getY();
+    trs[2] = pos.getZ();
+    trs[3] = rot.getW();
+    trs[4] = rot.getX();
+    trs[5] = rot.getY();
+    trs[6] = rot.getZ();
+    transform->set_local(trs, true);
 }
 
 }
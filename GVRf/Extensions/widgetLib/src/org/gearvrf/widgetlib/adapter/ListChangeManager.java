@@ -1,10 +1,9 @@
 package org.gearvrf.widgetlib.adapter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import android.util.LongSparseArray;
-
 public class ListChangeManager {
 
     public enum ACTION_TYPE { ADD, DELETE, MOVE };
@@ -42,57 +41,95 @@ public class ListChangeManager {
      * @return a list of actions to be performed sequentially
      */
     public List<Action> getUpdateActions(List<Long> itemIDs, int firstItemPos) {
-        List<Long> oldIDs = new ArrayList<Long>();
-        final int count = mAdapter.getCount();
+        final int count = itemIDs == null ? 0 : itemIDs.size();
+        final long[] ids = new long[count];
         for(int index = 0; index < count; index++) {
-            long id = mAdapter.getItemId(index);
-            oldIDs.add(Long.valueOf(id));
+            ids[index] = itemIDs.get(index);
         }
+        return getUpdateActions(ids, count, firstItemPos);
+    }
 
-        LongSparseArray<Integer> newMap = new LongSparseArray<Integer>();
-        listToMap(itemIDs, newMap, firstItemPos);
-
-        LongSparseArray<Integer> oldMap = new LongSparseArray<Integer>();
-
+    /**
+     * Same as {@link #getUpdateActions(List, int)} but takes the new item IDs as
+     * primitive longs, so nothing is boxed.
+     *
+     * The actions are the smallest set of deletes, moves and adds: items which are
+     * not in the new list are deleted, the longest run of kept items which are
+     * already in the right order stays in place, every other kept item is moved
+     * exactly once and new items are added. The diff takes O((n + m) log n) time
+     * for n current and m new items.
+     *
+     * IDs before firstItemPos are left alone, so itemIDs should not contain them.
+     *
+     * @param itemIDs: IDs starting from firstItemPos
+     * @param count: number of IDs to use from itemIDs
+     * @param firstItemPos: position of the first item.
+     * @return a list of actions to be performed sequentially
+     */
+    public List<Action> getUpdateActions(long[] itemIDs, int count, int firstItemPos) {
         final List<Action> actions = new ArrayList<Action>();
 
         synchronized(mSyncObject) {
-            if (oldIDs != null) {
-                listToMap(oldIDs, oldMap, 0);
-
-                for(int pos = oldIDs.size() - 1; pos >= firstItemPos; pos--) {
-                    Long id = oldIDs.get(pos);
-                    int newPos = newMap.get(id, -1);
-                    if (newPos == -1) {
-                        oldIDs.remove(pos);
-                        oldMap.delete(id);
-                        updateMap(oldIDs, oldMap, pos, -1);
-                        actions.add(new Action(ACTION_TYPE.DELETE, id, pos, -1));
-                    }
+            final int oldCount = Math.max(mAdapter.getCount() - firstItemPos, 0);
+            final long[] oldIDs = mOldIDs = ensureCapacity(mOldIDs, oldCount);
+            for(int index = 0; index < oldCount; index++) {
+                oldIDs[index] = mAdapter.getItemId(firstItemPos + index);
+            }
+
+            final LongIntMap newMap = mNewMap;
+            newMap.reset(count);
+            for(int index = 0; index < count; index++) {
+                newMap.put(itemIDs[index], index);
+            }
+
+            // Delete from the end, so the positions of the items before stay valid.
+            // oldRank[new index] is the rank of the item among the remaining old items.
+            final int[] oldRank = mOldRank = ensureCapacity(mOldRank, count);
+            Arrays.fill(oldRank, 0, count, -1);
+            int kept = 0;
+            for(int pos = oldCount - 1; pos >= 0; pos--) {
+                final long id = oldIDs[pos];
+                if (newMap.get(id) == -1) {
+                    actions.add(new Action(ACTION_TYPE.DELETE, id, firstItemPos + pos, -1));
+                } else {
+                    kept++;
+                }
+            }
+            int rank = kept;
+            for(int pos = oldCount - 1; pos >= 0; pos--) {
+                final int index = newMap.get(oldIDs[pos]);
+                if (index != -1) {
+                    oldRank[index] = --rank;
                 }
             }
 
-            if (itemIDs != null) {
-                for(int index = 0; index < itemIDs.size(); index++) {
-                    final int pos = firstItemPos + index;
-                    final Long id  = itemIDs.get(index);
-
-                    int oldPos = oldMap.get(id, -1);
-                    if (oldPos != -1) {
-                        if (oldPos != pos) {
-                            oldIDs.remove(oldPos);
-                            oldIDs.add(pos, id);
-                            int min = Math.min(oldPos, pos);
-                            int max = Math.max(oldPos, pos);
-                            updateMap(oldIDs, oldMap, min, max + 1);
-                            actions.add(new Action(ACTION_TYPE.MOVE, id, oldPos, pos));
-                        }
-                    } else {
-                        if (oldIDs != null) {
-                            oldIDs.add(pos, id);
-                            updateMap(oldIDs, oldMap, pos, -1);
-                        }
-                        actions.add(new Action(ACTION_TYPE.ADD, id, -1, pos));
+            final boolean[] stays = markLongestIncreasing(oldRank, count, kept);
+
+            // bucket 0 holds the items added before the first item which stays,
+            // bucket r + 1 holds the remaining old item of rank r followed by
+            // the items added right after it.
+            final FenwickTree buckets = mBuckets;
+            buckets.reset(kept + 1);
+            for(int r = 0; r < kept; r++) {
+                buckets.add(r + 1, 1);
+            }
+            int anchor = 0;
+            for(int index = 0; index < count; index++) {
+                final long id = itemIDs[index];
+                final int r = oldRank[index];
+                if (r == -1) {
+                    final int pos = firstItemPos + buckets.sum(anchor + 1);
+                    actions.add(new Action(ACTION_TYPE.ADD, id, -1, pos));
+                    buckets.add(anchor, 1);
+                } else if (stays[r]) {
+                    anchor = r + 1;
+                } else {
+                    final int fromPos = firstItemPos + buckets.sum(r + 1);
+                    buckets.add(r + 1, -1);
+                    final int toPos = firstItemPos + buckets.sum(anchor + 1);
+                    buckets.add(anchor, 1);
+                    if (fromPos != toPos) {
+                        actions.add(new Action(ACTION_TYPE.MOVE, id, fromPos, toPos));
                     }
                 }
             }
@@ -101,26 +138,146 @@ public class ListChangeManager {
         return actions;
     }
 
-    private static void updateMap(List<Long> list, LongSparseArray<Integer> map, int pos, int end) {
-        if (end == -1) {
-            end = list.size();
+    /*
+     * Find the longest increasing subsequence of the ranks (patience sorting)
+     * and return which ranks belong to it. Entries of -1 are skipped.
+     */
+    private boolean[] markLongestIncreasing(int[] ranks, int count, int rankCount) {
+        final int[] tails = mTails = ensureCapacity(mTails, rankCount);
+        final int[] prev = mPrev = ensureCapacity(mPrev, count);
+        boolean[] stays = mStays;
+        if (stays == null || stays.length < rankCount) {
+            stays = mStays = new boolean[rankCount];
+        } else {
+            Arrays.fill(stays, 0, rankCount, false);
+        }
+
+        int length = 0;
+        for(int index = 0; index < count; index++) {
+            final int r = ranks[index];
+            if (r == -1) {
+                continue;
+            }
+            int lo = 0;
+            int hi = length;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (ranks[tails[mid]] < r) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            prev[index] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = index;
+            if (lo == length) {
+                length++;
+            }
+        }
+        for(int index = length > 0 ? tails[length - 1] : -1; index != -1; index = prev[index]) {
+            stays[ranks[index]] = true;
+        }
+        return stays;
+    }
+
+    private static long[] ensureCapacity(long[] array, int size) {
+        return array == null || array.length < size ? new long[size] : array;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array == null || array.length < size ? new int[size] : array;
+    }
+
+    /**
+     * Open addressing hash map from item ID to index, without boxing.
+     */
+    private static class LongIntMap {
+        void reset(int size) {
+            int capacity = 16;
+            while (capacity < size * 2) {
+                capacity <<= 1;
+            }
+            if (mKeys == null || mKeys.length < capacity) {
+                mKeys = new long[capacity];
+                mValues = new int[capacity];
+            }
+            mMask = capacity - 1;
+            Arrays.fill(mValues, 0, capacity, -1);
         }
-        for(; pos < end; pos++) {
-            Long id = list.get(pos);
-            map.put(id, pos);
+
+        void put(long key, int value) {
+            int slot = slot(key);
+            while (mValues[slot] != -1 && mKeys[slot] != key) {
+                slot = (slot + 1) & mMask;
+            }
+            mKeys[slot] = key;
+            mValues[slot] = value;
         }
+
+        int get(long key) {
+            int slot = slot(key);
+            while (mValues[slot] != -1) {
+                if (mKeys[slot] == key) {
+                    return mValues[slot];
+                }
+                slot = (slot + 1) & mMask;
+            }
+            return -1;
+        }
+
+        private int slot(long key) {
+            final long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mMask;
+        }
+
+        private long[] mKeys;
+        private int[] mValues;
+        private int mMask;
     }
 
-    private static void listToMap(List<Long> list, LongSparseArray<Integer> map, int firstItemPos) {
-        if (list != null) {
-            for(int index = 0; index < list.size(); index++) {
-                Long id = list.get(index);
-                map.put(id, index + firstItemPos);
+    /**
+     * Fenwick (binary indexed) tree of bucket sizes, used to find the current
+     * position of an item while the actions are generated.
+     */
+    private static class FenwickTree {
+        void reset(int size) {
+            if (mTree == null || mTree.length < size + 1) {
+                mTree = new int[size + 1];
+            } else {
+                Arrays.fill(mTree, 0, size + 1, 0);
+            }
+            mSize = size;
+        }
+
+        void add(int bucket, int delta) {
+            for(int i = bucket + 1; i <= mSize; i += i & -i) {
+                mTree[i] += delta;
             }
         }
+
+        /**
+         * @return the total size of the buckets before the given bucket
+         */
+        int sum(int bucket) {
+            int sum = 0;
+            for(int i = bucket; i > 0; i -= i & -i) {
+                sum += mTree[i];
+            }
+            return sum;
+        }
+
+        private int[] mTree;
+        private int mSize;
     }
 
     private final Adapter   mAdapter;
     private final Object    mSyncObject = new Object();
+    private final LongIntMap  mNewMap = new LongIntMap();
+    private final FenwickTree mBuckets = new FenwickTree();
+    private long[]          mOldIDs;
+    private int[]           mOldRank;
+    private int[]           mTails;
+    private int[]           mPrev;
+    private boolean[]       mStays;
     static final String     TAG = ListChangeManager.class.getSimpleName();
 }
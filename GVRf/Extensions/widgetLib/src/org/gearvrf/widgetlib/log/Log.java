@@ -140,6 +140,10 @@ public class Log {
             } else {
                 mEnabledSubsystems.remove(subsystem);
             }
+            if (subsystem instanceof SUBSYSTEM) {
+                final int bit = 1 << ((SUBSYSTEM) subsystem).ordinal();
+                mEnabledMask = enable ? mEnabledMask | bit : mEnabledMask & ~bit;
+            }
         }
     }
 
@@ -154,8 +158,10 @@ public class Log {
                 for (ISubsystem s : SUBSYSTEM.values()) {
                     mEnabledSubsystems.add(s);
                 }
+                mEnabledMask = (1 << SUBSYSTEM.values().length) - 1;
             } else {
                 mEnabledSubsystems.clear();
+                mEnabledMask = 0;
             }
         }
     }
@@ -195,9 +201,44 @@ public class Log {
      * @return true if it is currently enabled; otherwise - false
      */
     public static boolean isEnabled(ISubsystem subsystem) {
+        if (subsystem instanceof SUBSYSTEM) {
+            return (mEnabledMask & (1 << ((SUBSYSTEM) subsystem).ordinal())) != 0;
+        }
         return mEnabledSubsystems.contains(subsystem);
     }
 
+    /**
+     * Keep DEBUG and VERBOSE messages of the enabled subsystems in memory instead of writing
+     * them out. The messages are stored with their unformatted parameters, recording them does
+     * not allocate, and they are only formatted by {@link #dumpRingBuffer()}. Once the buffer
+     * is full the oldest messages are overwritten. Messages with other priorities are logged
+     * as usual.
+     * @param capacity number of messages to keep; 0 switches the ring buffer off and drops
+     *                 the messages still in it
+     */
+    public static void enableRingBuffer(int capacity) {
+        mRingBuffer = capacity > 0 ? new LogRingBuffer(capacity) : null;
+    }
+
+    /**
+     * Check if the DEBUG and VERBOSE messages are kept in the ring buffer
+     * @return true if {@link #enableRingBuffer(int)} has been called with a non-zero capacity
+     */
+    public static boolean isRingBufferEnabled() {
+        return mRingBuffer != null;
+    }
+
+    /**
+     * Format the messages kept in the ring buffer, oldest first, write them to the log and
+     * empty the buffer. Does nothing if the ring buffer is not enabled.
+     */
+    public static void dumpRingBuffer() {
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.drain(mRingBufferSink);
+        }
+    }
+
     /**
      * Pause the logging
      */
@@ -391,8 +432,13 @@ public class Log {
      * @return
      */
     public static int d(ISubsystem subsystem, String tag, String msg) {
-        return isEnabled(subsystem) ?
-                currentLog.d(tag, getMsg(subsystem,msg)) : 0;
+        if (!isEnabled(subsystem)) return 0;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, msg);
+            return 0;
+        }
+        return currentLog.d(tag, getMsg(subsystem,msg));
     }
 
     /**
@@ -481,8 +527,13 @@ public class Log {
      * @return
      */
     public static int v(ISubsystem subsystem, String tag, String msg) {
-        return isEnabled(subsystem) ?
-                currentLog.v(tag, getMsg(subsystem,msg)) : 0;
+        if (!isEnabled(subsystem)) return 0;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.VERBOSE, subsystem, tag, msg);
+            return 0;
+        }
+        return currentLog.v(tag, getMsg(subsystem,msg));
     }
 
     /**
@@ -602,9 +653,347 @@ public class Log {
      */
     public static void d(ISubsystem subsystem, String tag, String pattern, Object... parameters) {
         if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, parameters);
+            return;
+        }
         d(subsystem, tag, format(pattern, parameters));
     }
 
+    /*
+     * DEBUG messages with one or two parameters of any type, and up to four object parameters.
+     * The compiler picks these instead of the varargs version, so a call with a disabled
+     * subsystem allocates neither the parameter array nor boxed primitives.
+     * Integer types are passed as long and floating point types as double.
+     */
+
+    /**
+     * Send a DEBUG log message with one {@code Object} parameter.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, LogRingBuffer.KIND_OBJECT, 0, a);
+        } else {
+            d(subsystem, tag, String.format(pattern, a));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with one {@code long} parameter.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, long a) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, LogRingBuffer.KIND_LONG, a, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with one {@code double} parameter.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, double a) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(a), null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with one {@code boolean} parameter.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, boolean a) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, LogRingBuffer.KIND_BOOLEAN, a ? 1 : 0, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code Object} and {@code Object} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, Object b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_OBJECT, 0, a, LogRingBuffer.KIND_OBJECT, 0, b);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code Object} and {@code long} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, long b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_OBJECT, 0, a, LogRingBuffer.KIND_LONG, b, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code Object} and {@code double} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, double b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_OBJECT, 0, a, LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(b), null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code Object} and {@code boolean} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, boolean b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_OBJECT, 0, a, LogRingBuffer.KIND_BOOLEAN, b ? 1 : 0, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code long} and {@code Object} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, long a, Object b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_LONG, a, null, LogRingBuffer.KIND_OBJECT, 0, b);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code long} and {@code long} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, long a, long b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_LONG, a, null, LogRingBuffer.KIND_LONG, b, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code long} and {@code double} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, long a, double b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_LONG, a, null, LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(b), null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code long} and {@code boolean} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, long a, boolean b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_LONG, a, null, LogRingBuffer.KIND_BOOLEAN, b ? 1 : 0, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code double} and {@code Object} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, double a, Object b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(a), null, LogRingBuffer.KIND_OBJECT, 0, b);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code double} and {@code long} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, double a, long b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(a), null, LogRingBuffer.KIND_LONG, b, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code double} and {@code double} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, double a, double b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(a), null, LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(b), null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code double} and {@code boolean} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, double a, boolean b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(a), null, LogRingBuffer.KIND_BOOLEAN, b ? 1 : 0, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code boolean} and {@code Object} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, boolean a, Object b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_BOOLEAN, a ? 1 : 0, null, LogRingBuffer.KIND_OBJECT, 0, b);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code boolean} and {@code long} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, boolean a, long b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_BOOLEAN, a ? 1 : 0, null, LogRingBuffer.KIND_LONG, b, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code boolean} and {@code double} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, boolean a, double b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_BOOLEAN, a ? 1 : 0, null, LogRingBuffer.KIND_DOUBLE, Double.doubleToRawLongBits(b), null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with {@code boolean} and {@code boolean} parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, boolean a, boolean b) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern,
+                    LogRingBuffer.KIND_BOOLEAN, a ? 1 : 0, null, LogRingBuffer.KIND_BOOLEAN, b ? 1 : 0, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with three object parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, Object b,
+                         Object c) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, 3, a, b, c, null);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b, c));
+        }
+    }
+
+    /**
+     * Send a DEBUG log message with four object parameters.
+     * See {@link #d(ISubsystem, String, String, Object...)}
+     */
+    public static void d(ISubsystem subsystem, String tag, String pattern, Object a, Object b,
+                         Object c, Object d) {
+        if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.DEBUG, subsystem, tag, pattern, 4, a, b, c, d);
+        } else {
+            d(subsystem, tag, String.format(pattern, a, b, c, d));
+        }
+    }
+
     /**
      * Send an ERROR log message with specified subsystem. If subsystem is not enabled the message
      * will not be logged
@@ -659,6 +1048,11 @@ public class Log {
      */
     public static void v(ISubsystem subsystem, String tag, String pattern, Object... parameters) {
         if (!isEnabled(subsystem)) return;
+        final LogRingBuffer ring = mRingBuffer;
+        if (ring != null) {
+            ring.add(android.util.Log.VERBOSE, subsystem, tag, pattern, parameters);
+            return;
+        }
         v(subsystem, tag, format(pattern, parameters));
     }
 
@@ -793,8 +1187,29 @@ public class Log {
     }
 
     private static final String LOG_MSG_FORMAT = "<%s> %s";
+    private static final String RING_BUFFER_MSG_FORMAT = "[%1$tT.%1$tL] %2$s";
 
     private static Set<ISubsystem> mEnabledSubsystems = new HashSet<>();
+    private static volatile int mEnabledMask;
+    private static volatile LogRingBuffer mRingBuffer;
+    private static final LogRingBuffer.Sink mRingBufferSink = new LogRingBuffer.Sink() {
+        @Override
+        public void write(int priority, ISubsystem subsystem, String tag, String msg,
+                          long timeMillis) {
+            msg = String.format(RING_BUFFER_MSG_FORMAT, timeMillis, getMsg(subsystem, msg));
+            switch (priority) {
+                case android.util.Log.VERBOSE:
+                    currentLog.v(tag, msg);
+                    break;
+                case android.util.Log.DEBUG:
+                    currentLog.d(tag, msg);
+                    break;
+                default:
+                    currentLog.w(tag, msg);
+                    break;
+            }
+        }
+    };
     private static MODE mode;
     private static final String TAG = "Log";
 
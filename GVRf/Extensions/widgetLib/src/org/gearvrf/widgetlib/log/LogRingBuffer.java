@@ -0,0 +1,211 @@
+package org.gearvrf.widgetlib.log;
+
+import java.util.IllegalFormatException;
+
+import org.gearvrf.widgetlib.log.Log.ISubsystem;
+
+/**
+ * Fixed size in-memory log sink. Each entry keeps the pattern and the raw parameters instead
+ * of the formatted message: primitives are stored as bits, objects by reference. Nothing is
+ * allocated when an entry is recorded; the messages are only formatted when the buffer is
+ * {@link #drain(Sink) drained}. When the buffer is full the oldest entries are overwritten.
+ *
+ * Object parameters are formatted with their state at drain time, so mutable objects
+ * should be passed as strings or primitives if the state at the time of the call matters.
+ */
+final class LogRingBuffer {
+    static final int MAX_ARGS = 4;
+
+    static final byte KIND_OBJECT = 0;
+    static final byte KIND_LONG = 1;
+    static final byte KIND_DOUBLE = 2;
+    static final byte KIND_BOOLEAN = 3;
+
+    /**
+     * Receives the formatted entries, oldest first
+     */
+    interface Sink {
+        void write(int priority, ISubsystem subsystem, String tag, String msg, long timeMillis);
+    }
+
+    LogRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be positive: " + capacity);
+        }
+        mCapacity = capacity;
+        mPriorities = new int[capacity];
+        mTimes = new long[capacity];
+        mSubsystems = new ISubsystem[capacity];
+        mTags = new String[capacity];
+        mPatterns = new String[capacity];
+        mArgCounts = new byte[capacity];
+        mKinds = new byte[capacity * MAX_ARGS];
+        mBits = new long[capacity * MAX_ARGS];
+        mRefs = new Object[capacity * MAX_ARGS];
+    }
+
+    int getCapacity() {
+        return mCapacity;
+    }
+
+    synchronized void add(int priority, ISubsystem subsystem, String tag, String msg) {
+        begin(priority, subsystem, tag, msg, 0);
+    }
+
+    synchronized void add(int priority, ISubsystem subsystem, String tag, String pattern,
+                          byte kind0, long bits0, Object ref0) {
+        int slot = begin(priority, subsystem, tag, pattern, 1);
+        set(slot, 0, kind0, bits0, ref0);
+    }
+
+    synchronized void add(int priority, ISubsystem subsystem, String tag, String pattern,
+                          byte kind0, long bits0, Object ref0,
+                          byte kind1, long bits1, Object ref1) {
+        int slot = begin(priority, subsystem, tag, pattern, 2);
+        set(slot, 0, kind0, bits0, ref0);
+        set(slot, 1, kind1, bits1, ref1);
+    }
+
+    synchronized void add(int priority, ISubsystem subsystem, String tag, String pattern,
+                          int count, Object ref0, Object ref1, Object ref2, Object ref3) {
+        int slot = begin(priority, subsystem, tag, pattern, count);
+        set(slot, 0, KIND_OBJECT, 0, ref0);
+        set(slot, 1, KIND_OBJECT, 0, ref1);
+        set(slot, 2, KIND_OBJECT, 0, ref2);
+        set(slot, 3, KIND_OBJECT, 0, ref3);
+    }
+
+    /**
+     * Record an entry with a parameter array. Arrays longer than {@link #MAX_ARGS} are
+     * formatted right away.
+     */
+    synchronized void add(int priority, ISubsystem subsystem, String tag, String pattern,
+                          Object[] parameters) {
+        if (parameters == null || parameters.length == 0) {
+            begin(priority, subsystem, tag, pattern, 0);
+        } else if (parameters.length > MAX_ARGS) {
+            begin(priority, subsystem, tag, format(pattern, parameters), 0);
+        } else {
+            int slot = begin(priority, subsystem, tag, pattern, parameters.length);
+            for (int i = 0; i < parameters.length; ++i) {
+                set(slot, i, KIND_OBJECT, 0, parameters[i]);
+            }
+        }
+    }
+
+    /**
+     * Format all of the entries, pass them to the sink in the order they were recorded and
+     * empty the buffer. If older entries were overwritten the sink gets a message with the
+     * number of lost entries first.
+     */
+    synchronized void drain(Sink sink) {
+        if (mDropped > 0) {
+            sink.write(android.util.Log.WARN, Log.SUBSYSTEM.MAIN, TAG,
+                    mDropped + " older messages were dropped", mTimes[oldest()]);
+        }
+        for (int n = 0, slot = oldest(); n < mSize; ++n, slot = (slot + 1) % mCapacity) {
+            sink.write(mPriorities[slot], mSubsystems[slot], mTags[slot], formatEntry(slot),
+                    mTimes[slot]);
+        }
+        clear();
+    }
+
+    synchronized void clear() {
+        for (int slot = 0; slot < mCapacity; ++slot) {
+            release(slot);
+        }
+        mNext = 0;
+        mSize = 0;
+        mDropped = 0;
+    }
+
+    private int oldest() {
+        return (mNext - mSize + mCapacity) % mCapacity;
+    }
+
+    private int begin(int priority, ISubsystem subsystem, String tag, String pattern, int count) {
+        final int slot = mNext;
+        mNext = (slot + 1) % mCapacity;
+        if (mSize < mCapacity) {
+            ++mSize;
+        } else {
+            ++mDropped;
+            release(slot);
+        }
+        mPriorities[slot] = priority;
+        mTimes[slot] = System.currentTimeMillis();
+        mSubsystems[slot] = subsystem;
+        mTags[slot] = tag;
+        mPatterns[slot] = pattern;
+        mArgCounts[slot] = (byte) count;
+        return slot;
+    }
+
+    private void set(int slot, int index, byte kind, long bits, Object ref) {
+        final int i = slot * MAX_ARGS + index;
+        mKinds[i] = kind;
+        mBits[i] = bits;
+        mRefs[i] = ref;
+    }
+
+    private void release(int slot) {
+        mSubsystems[slot] = null;
+        mTags[slot] = null;
+        mPatterns[slot] = null;
+        final int base = slot * MAX_ARGS;
+        for (int i = base; i < base + MAX_ARGS; ++i) {
+            mRefs[i] = null;
+        }
+    }
+
+    private String formatEntry(int slot) {
+        final int count = mArgCounts[slot];
+        if (count == 0) {
+            return mPatterns[slot];
+        }
+        final Object[] parameters = new Object[count];
+        final int base = slot * MAX_ARGS;
+        for (int i = 0; i < count; ++i) {
+            final long bits = mBits[base + i];
+            switch (mKinds[base + i]) {
+                case KIND_LONG:
+                    parameters[i] = bits;
+                    break;
+                case KIND_DOUBLE:
+                    parameters[i] = Double.longBitsToDouble(bits);
+                    break;
+                case KIND_BOOLEAN:
+                    parameters[i] = bits != 0;
+                    break;
+                default:
+                    parameters[i] = mRefs[base + i];
+                    break;
+            }
+        }
+        return format(mPatterns[slot], parameters);
+    }
+
+    private static String format(String pattern, Object[] parameters) {
+        try {
+            return String.format(pattern, parameters);
+        } catch (IllegalFormatException e) {
+            return pattern + " [" + e.getMessage() + "]";
+        }
+    }
+
+    private static final String TAG = LogRingBuffer.class.getSimpleName();
+
+    private final int mCapacity;
+    private final int[] mPriorities;
+    private final long[] mTimes;
+    private final ISubsystem[] mSubsystems;
+    private final String[] mTags;
+    private final String[] mPatterns;
+    private final byte[] mArgCounts;
+    private final byte[] mKinds;
+    private final long[] mBits;
+    private final Object[] mRefs;
+    private int mNext;
+    private int mSize;
+    private long mDropped;
+}
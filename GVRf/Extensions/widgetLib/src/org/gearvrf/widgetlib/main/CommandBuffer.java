@@ -85,6 +85,73 @@ public class CommandBuffer {
             WidgetLib.getCommandBuffer().add(command);
         }
 
+        /**
+         * Same as {@link #buffer(Executor, Object...)} for one parameter, without allocating a
+         * parameter array: the pooled {@code Command} reuses an array of its own.
+         */
+        public static void buffer(Executor executor, Object param0) {
+            Command command = sPool.acquire();
+            command.setup(executor, 1)[0] = param0;
+            WidgetLib.getCommandBuffer().add(command);
+        }
+
+        /**
+         * Same as {@link #buffer(Executor, Object...)} for two parameters, without allocating a
+         * parameter array.
+         */
+        public static void buffer(Executor executor, Object param0, Object param1) {
+            Command command = sPool.acquire();
+            final Object[] args = command.setup(executor, 2);
+            args[0] = param0;
+            args[1] = param1;
+            WidgetLib.getCommandBuffer().add(command);
+        }
+
+        /**
+         * Same as {@link #buffer(Executor, Object...)} for three parameters, without allocating a
+         * parameter array.
+         */
+        public static void buffer(Executor executor, Object param0, Object param1,
+                                  Object param2) {
+            Command command = sPool.acquire();
+            final Object[] args = command.setup(executor, 3);
+            args[0] = param0;
+            args[1] = param1;
+            args[2] = param2;
+            WidgetLib.getCommandBuffer().add(command);
+        }
+
+        /**
+         * Same as {@link #buffer(Executor, Object...)} for four parameters, without allocating a
+         * parameter array.
+         */
+        public static void buffer(Executor executor, Object param0, Object param1,
+                                  Object param2, Object param3) {
+            Command command = sPool.acquire();
+            final Object[] args = command.setup(executor, 4);
+            args[0] = param0;
+            args[1] = param1;
+            args[2] = param2;
+            args[3] = param3;
+            WidgetLib.getCommandBuffer().add(command);
+        }
+
+        /**
+         * Same as {@link #buffer(Executor, Object...)} for five parameters, without allocating a
+         * parameter array.
+         */
+        public static void buffer(Executor executor, Object param0, Object param1,
+                                  Object param2, Object param3, Object param4) {
+            Command command = sPool.acquire();
+            final Object[] args = command.setup(executor, 5);
+            args[0] = param0;
+            args[1] = param1;
+            args[2] = param2;
+            args[3] = param3;
+            args[4] = param4;
+            WidgetLib.getCommandBuffer().add(command);
+        }
+
         /**
          * Construct an instance.
          */
@@ -97,7 +164,16 @@ public class CommandBuffer {
          */
         @Override
         public void run() {
-            mExecutor.exec(mArgs);
+            final Object[] args = mArgs;
+            mExecutor.exec(args);
+            if (args != null && args.length <= MAX_OWN_ARGS && args == mOwnArgs[args.length]) {
+                // don't hold on to the parameters while pooled
+                for (int i = 0; i < args.length; ++i) {
+                    args[i] = null;
+                }
+            }
+            mExecutor = null;
+            mArgs = null;
             sPool.release(this);
         }
 
@@ -106,10 +182,30 @@ public class CommandBuffer {
             mArgs = args;
         }
 
+        /**
+         * Set up the command with one of its own parameter arrays.
+         *
+         * @return The array of {@code count} elements to fill in.
+         */
+        private Object[] setup(Executor executor, int count) {
+            Object[] args = mOwnArgs[count];
+            if (args == null) {
+                args = new Object[count];
+                mOwnArgs[count] = args;
+            }
+            mExecutor = executor;
+            mArgs = args;
+            return args;
+        }
+
         private Executor mExecutor;
         private Object[] mArgs;
+        private final Object[][] mOwnArgs = new Object[MAX_OWN_ARGS + 1][];
+
+        private static final int MAX_OWN_ARGS = 5;
+        private static final int MAX_POOLED_COMMANDS = 1024;
 
-        private static final ConcurrentObjectPool<Command> sPool = new ConcurrentObjectPool<Command>(Command.class.getSimpleName()) {
+        private static final ConcurrentObjectPool<Command> sPool = new ConcurrentObjectPool<Command>(Command.class.getSimpleName(), MAX_POOLED_COMMANDS) {
             @Override
             protected Command create() {
                 return new Command();
@@ -0,0 +1,140 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.util.Random;
+
+import org.gearvrf.GVRColliderTree;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRPicker;
+import org.gearvrf.GVRPicker.GVRPickedObject;
+import org.gearvrf.GVRScene;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRSphereCollider;
+import org.gearvrf.widgetlib.log.Log;
+
+/**
+ * Compares the ray picking throughput of {@link GVRColliderTree} with the brute force native
+ * picker, which tests every collider in the scene, and checks that both pick the same objects.
+ * Rays with zero direction components, like the gaze ray, are included.
+ */
+public class ColliderTreeBenchmark {
+
+    static final String TAG = ColliderTreeBenchmark.class.getSimpleName();
+
+    static final int GRID_SIZES[]   = { 10, 30, 60 };   // colliders per side of the grid
+    static final int RAYS           = 2000;
+    static final float SPACING      = 1.0f;
+    static final float RADIUS       = 0.4f;
+    static final float DEPTH        = -10.0f;
+
+    public ColliderTreeBenchmark(GVRContext gvrContext) {
+        mContext = gvrContext;
+    }
+
+    public void test() {
+        Log.d(TAG, "benchmark starting");
+
+        for (int size : GRID_SIZES) {
+            run(size);
+        }
+
+        Log.d(TAG, "benchmark finished");
+    }
+
+    private void run(int size) {
+        final GVRScene scene = createScene(size);
+        final GVRColliderTree tree = new GVRColliderTree(scene);
+        final float[] rays = createRays(size);
+
+        // build the tree and warm up both paths before timing them
+        tree.pickObjects(0, 0, 0, 0, 0, -1);
+        GVRPicker.pickObjects(scene, 0, 0, 0, 0, 0, -1);
+
+        int bruteHits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rays.length; i += 3) {
+            bruteHits += GVRPicker.pickObjects(scene, 0, 0, 0,
+                    rays[i], rays[i + 1], rays[i + 2]).length;
+        }
+        final long bruteTime = System.nanoTime() - start;
+
+        int treeHits = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < rays.length; i += 3) {
+            treeHits += tree.pickObjects(0, 0, 0, rays[i], rays[i + 1], rays[i + 2]).length;
+        }
+        final long treeTime = System.nanoTime() - start;
+
+        for (int i = 0; i < rays.length; i += 3) {
+            compare(GVRPicker.pickObjects(scene, 0, 0, 0, rays[i], rays[i + 1], rays[i + 2]),
+                    tree.pickObjects(0, 0, 0, rays[i], rays[i + 1], rays[i + 2]), i / 3);
+        }
+
+        final int count = rays.length / 3;
+        Log.d(TAG, String.format("%d colliders: brute force %.0f rays/s (%d hits), " +
+                "tree %.0f rays/s (%d hits)", size * size,
+                count * 1e9 / bruteTime, bruteHits, count * 1e9 / treeTime, treeHits));
+    }
+
+    /*
+     * Spheres in a grid facing the camera, centered on the view axis.
+     */
+    private GVRScene createScene(int size) {
+        final GVRScene scene = new GVRScene(mContext);
+        final float offset = (size / 2) * SPACING;
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                final GVRSceneObject object = new GVRSceneObject(mContext);
+                final GVRSphereCollider collider = new GVRSphereCollider(mContext);
+                collider.setRadius(RADIUS);
+                object.attachComponent(collider);
+                object.getTransform().setPosition(x * SPACING - offset, y * SPACING - offset,
+                        DEPTH);
+                scene.addSceneObject(object);
+            }
+        }
+        return scene;
+    }
+
+    /*
+     * Directions from the origin: random rays towards the grid, one in four in the x = 0 plane
+     * and one in four in the y = 0 plane, and the view axis.
+     */
+    private float[] createRays(int size) {
+        final float[] rays = new float[RAYS * 3];
+        final float extent = size * SPACING / 2;
+
+        rays[0] = 0;
+        rays[1] = 0;
+        rays[2] = -1;
+        for (int i = 3; i < rays.length; i += 3) {
+            float x = (mRandom.nextFloat() * 2 - 1) * extent;
+            float y = (mRandom.nextFloat() * 2 - 1) * extent;
+            if (i % 12 == 0) {
+                x = 0;
+            } else if (i % 12 == 3) {
+                y = 0;
+            }
+            final float length = (float) Math.sqrt(x * x + y * y + DEPTH * DEPTH);
+            rays[i] = x / length;
+            rays[i + 1] = y / length;
+            rays[i + 2] = DEPTH / length;
+        }
+        return rays;
+    }
+
+    private static void compare(GVRPickedObject[] expected, GVRPickedObject[] actual, int ray) {
+        if (expected.length != actual.length) {
+            throw new RuntimeException("ray " + ray + ": brute force picked " + expected.length +
+                    " objects, tree picked " + actual.length);
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i].hitObject != actual[i].hitObject) {
+                throw new RuntimeException("ray " + ray + ": pick " + i + " differs");
+            }
+        }
+    }
+
+    private final GVRContext mContext;
+    private final Random mRandom = new Random(1);
+}
@@ -0,0 +1,191 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.view.KeyEvent;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.io.GVRControllerType;
+import org.gearvrf.io.GVRCursorController;
+import org.gearvrf.widgetlib.log.Log;
+
+/**
+ * Measures the input event throughput of {@link GVRCursorController} while several input threads
+ * queue key events and one thread processes them, the way the frame loop does. The previous
+ * implementation, a list shared by producers and consumer under one lock, is measured as the
+ * baseline.
+ */
+public class CursorEventBenchmark {
+
+    static final String TAG = CursorEventBenchmark.class.getSimpleName();
+
+    static final int PRODUCERS      = 4;
+    static final int EVENTS         = 200000;    // per producer
+    static final int ITERATIONS     = 3;
+
+    public CursorEventBenchmark(GVRContext gvrContext) {
+        mContext = gvrContext;
+    }
+
+    public void test() {
+        Log.d(TAG, "benchmark starting");
+
+        for(int i = 0; i < ITERATIONS; i++) {
+            report("legacy", run(new LegacyQueue()));
+            report("controller", run(new ControllerQueue(mContext)));
+        }
+
+        Log.d(TAG, "benchmark finished");
+    }
+
+    private interface EventQueue {
+        void dispatch(KeyEvent event);
+        void process();
+        long getDropped();
+        void close();
+    }
+
+    /**
+     * The controller under test: producers call
+     * {@link GVRCursorController#dispatchKeyEvent(KeyEvent)}, the consumer
+     * {@link GVRCursorController#invalidate()}, which drains the queued events in one batch.
+     */
+    private static final class ControllerQueue implements EventQueue {
+        ControllerQueue(GVRContext gvrContext) {
+            mController = new GVRCursorController(gvrContext, GVRControllerType.EXTERNAL) {
+            };
+            mController.addControllerEventListener(new GVRCursorController.IControllerEvent() {
+                @Override
+                public void onEvent(GVRCursorController controller, boolean isActive) {
+                    if (controller.getKeyEvent() != null) {
+                        ++mUpdates;
+                    }
+                }
+            });
+            mController.setEnable(true);
+        }
+
+        @Override
+        public void dispatch(KeyEvent event) {
+            mController.dispatchKeyEvent(event);
+        }
+
+        @Override
+        public void process() {
+            mController.invalidate();
+        }
+
+        @Override
+        public long getDropped() {
+            return mController.getDroppedEventCount();
+        }
+
+        @Override
+        public void close() {
+            Log.d(TAG, "controller: %d updates with events", mUpdates);
+            mController.setEnable(false);
+        }
+
+        private final GVRCursorController mController;
+        private int mUpdates;
+    }
+
+    /**
+     * The previous implementation: the producers and the consumer share one list and one lock,
+     * and dispatching is also synchronized on the controller.
+     */
+    private static final class LegacyQueue implements EventQueue {
+        @Override
+        public synchronized void dispatch(KeyEvent event) {
+            synchronized (mLock) {
+                mPending.add(event);
+            }
+        }
+
+        @Override
+        public void process() {
+            synchronized (mLock) {
+                mProcessed.addAll(mPending);
+                mPending.clear();
+            }
+            synchronized (mLock) {
+                mProcessed.clear();
+            }
+        }
+
+        @Override
+        public long getDropped() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final Object mLock = new Object();
+        private final List<KeyEvent> mPending = new ArrayList<KeyEvent>();
+        private final List<KeyEvent> mProcessed = new ArrayList<KeyEvent>();
+    }
+
+    private Result run(final EventQueue queue) {
+        final KeyEvent event = new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_BUTTON_A);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(PRODUCERS);
+        final AtomicLong producerTime = new AtomicLong();
+
+        for(int p = 0; p < PRODUCERS; p++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    final long begin = System.nanoTime();
+                    for(int i = 0; i < EVENTS; i++) {
+                        queue.dispatch(event);
+                    }
+                    producerTime.addAndGet(System.nanoTime() - begin);
+                    done.countDown();
+                }
+            }, TAG + "-producer-" + p).start();
+        }
+
+        final Result result = new Result();
+        final long begin = System.nanoTime();
+        start.countDown();
+        while (done.getCount() > 0) {
+            queue.process();
+            ++result.batches;
+        }
+        queue.process();
+        result.time = System.nanoTime() - begin;
+        result.producerTime = producerTime.get() / PRODUCERS;
+        result.dropped = queue.getDropped();
+        result.delivered = (long) PRODUCERS * EVENTS - result.dropped;
+        queue.close();
+        return result;
+    }
+
+    private static void report(String name, Result result) {
+        Log.d(TAG, String.format("%s: %d producers, %d events delivered, %d dropped, " +
+                "%d batches, %.2f ms, %.0f events/s, %.1f ns per dispatch", name, PRODUCERS,
+                result.delivered, result.dropped, result.batches, result.time / 1e6f,
+                result.delivered * 1e9 / result.time,
+                (double) result.producerTime / EVENTS));
+    }
+
+    private static final class Result {
+        long time;
+        long producerTime;
+        long delivered;
+        long dropped;
+        int batches;
+    }
+
+    private final GVRContext mContext;
+}
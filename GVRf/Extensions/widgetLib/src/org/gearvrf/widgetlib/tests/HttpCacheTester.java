@@ -0,0 +1,359 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRHttpCache;
+import org.gearvrf.widgetlib.log.Log;
+
+/**
+ * Checks the protocol handling of {@link GVRHttpCache} against a minimal HTTP server on the
+ * loopback interface: revalidation answered with 304 and 200, eviction on 404, resuming an
+ * interrupted download with a Range request and coalescing concurrent requests for the same URL.
+ */
+public class HttpCacheTester {
+
+    static final String TAG = HttpCacheTester.class.getSimpleName();
+
+    static final int THREADS            = 8;
+    static final int SLOW_RESPONSE_MS   = 200;
+    static final long MAX_SIZE          = 1024 * 1024;
+
+    public HttpCacheTester(GVRContext gvrContext) {
+        mDirectory = new File(gvrContext.getContext().getCacheDir(), TAG);
+    }
+
+    public void test() throws IOException, InterruptedException {
+        Log.d(TAG, "test starting");
+
+        mServer = new Server();
+        try {
+            clearDirectory();
+            mCache = new GVRHttpCache(mDirectory, MAX_SIZE);
+            mCache.setRevalidateInterval(0);
+
+            caseRevalidate();
+            caseNotFound();
+            caseResume();
+            caseConcurrent();
+        } finally {
+            mServer.close();
+            clearDirectory();
+        }
+
+        Log.d(TAG, "test finished");
+    }
+
+    /**
+     * A cached file is revalidated with its entity tag: 304 keeps it, 200 replaces it.
+     */
+    private void caseRevalidate() throws IOException {
+        Resource resource = mServer.add("/revalidate", "first version", "\"1\"");
+
+        check("download", read(mCache.get(mServer.url(resource))), "first version");
+        check("download requests", resource.requests.get(), 1);
+
+        check("not modified", read(mCache.get(mServer.url(resource))), "first version");
+        check("not modified requests", resource.requests.get(), 2);
+        check("not modified validator", resource.lastIfNoneMatch, "\"1\"");
+        check("not modified status", resource.lastStatus, 304);
+
+        resource.update("second version", "\"2\"");
+        check("modified", read(mCache.get(mServer.url(resource))), "second version");
+        check("modified validator", resource.lastIfNoneMatch, "\"1\"");
+        check("modified status", resource.lastStatus, 200);
+    }
+
+    /**
+     * A resource which is gone is dropped from the cache instead of being served stale.
+     */
+    private void caseNotFound() throws IOException {
+        Resource resource = mServer.add("/gone", "soon gone", "\"1\"");
+        mCache.get(mServer.url(resource));
+        final long size = mCache.getSize();
+
+        resource.status = 404;
+        try {
+            mCache.get(mServer.url(resource));
+            throw new RuntimeException("test failed: 404 served a cached file");
+        } catch (IOException e) {
+            Log.d(TAG, "404: " + e.getMessage());
+        }
+        check("size after 404", mCache.getSize(), size - "soon gone".length());
+    }
+
+    /**
+     * A download cut short is continued from where it stopped with Range and If-Range.
+     */
+    private void caseResume() throws IOException {
+        final String body = "0123456789abcdefghijklmnopqrstuvwxyz";
+        Resource resource = mServer.add("/resume", body, "\"1\"");
+
+        resource.truncate = body.length() / 2;
+        try {
+            mCache.get(mServer.url(resource));
+            throw new RuntimeException("test failed: truncated download accepted");
+        } catch (IOException e) {
+            Log.d(TAG, "truncated: " + e.getMessage());
+        }
+
+        resource.truncate = -1;
+        check("resumed", read(mCache.get(mServer.url(resource))), body);
+        check("resume range", resource.lastRange, "bytes=" + body.length() / 2 + "-");
+        check("resume validator", resource.lastIfRange, "\"1\"");
+        check("resume status", resource.lastStatus, 206);
+    }
+
+    /**
+     * Threads asking for the same URL at the same time share one download.
+     */
+    private void caseConcurrent() throws IOException, InterruptedException {
+        final Resource resource = mServer.add("/concurrent", "shared download", "\"1\"");
+        final URL url = mServer.url(resource);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> threads = new ArrayList<Thread>(THREADS);
+
+        // the first download marks the file valid, so no waiting thread revalidates it
+        mCache.setRevalidateInterval(GVRHttpCache.DEFAULT_REVALIDATE_INTERVAL);
+        resource.delay = SLOW_RESPONSE_MS;
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (!"shared download".equals(read(mCache.get(url)))) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "concurrent get failed", e);
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        mCache.setRevalidateInterval(0);
+
+        check("concurrent failures", failures.get(), 0);
+        check("concurrent requests", resource.requests.get(), 1);
+    }
+
+    private static void check(String what, Object actual, Object expected) {
+        if (expected == null ? actual != null : !expected.equals(actual)) {
+            throw new RuntimeException("test failed: " + what + " is " + actual + ", expected "
+                    + expected);
+        }
+        Log.d(TAG, what + ": " + actual);
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] data = new byte[(int) file.length()];
+            int length = 0;
+            int count;
+            while (length < data.length
+                    && (count = input.read(data, length, data.length - length)) != -1) {
+                length += count;
+            }
+            return new String(data, 0, length, "ISO-8859-1");
+        } finally {
+            input.close();
+        }
+    }
+
+    private void clearDirectory() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Content and behavior of one URL of the test server. The last* fields record the headers of
+     * the latest request.
+     */
+    private static final class Resource {
+        Resource(String path, String body, String etag) {
+            this.path = path;
+            update(body, etag);
+        }
+
+        void update(String body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+
+        final String path;
+        final AtomicInteger requests = new AtomicInteger();
+        volatile String body;
+        volatile String etag;
+        volatile int status = 200;
+        volatile int truncate = -1;  // bytes to send before closing, -1 for all
+        volatile int delay;          // milliseconds to wait before responding
+        volatile int lastStatus;
+        volatile String lastIfNoneMatch;
+        volatile String lastIfRange;
+        volatile String lastRange;
+    }
+
+    /**
+     * HTTP/1.1 server handling each connection on its own thread and closing it after one
+     * response. Only GET and the headers the cache sends are understood.
+     */
+    private static final class Server implements Runnable {
+        Server() throws IOException {
+            mSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            mThread = new Thread(this, TAG);
+            mThread.start();
+        }
+
+        Resource add(String path, String body, String etag) {
+            Resource resource = new Resource(path, body, etag);
+            mResources.put(path, resource);
+            return resource;
+        }
+
+        URL url(Resource resource) throws IOException {
+            return new URL("http", "127.0.0.1", mSocket.getLocalPort(), resource.path);
+        }
+
+        void close() throws IOException, InterruptedException {
+            mSocket.close();
+            mThread.join();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                final Socket socket;
+                try {
+                    socket = mSocket.accept();
+                } catch (IOException e) {
+                    return; // closed
+                }
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            serve(socket);
+                        } catch (IOException e) {
+                            Log.d(TAG, "connection closed: " + e);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException e) {
+                            }
+                        }
+                    }
+                }).start();
+            }
+        }
+
+        private void serve(Socket socket) throws IOException, InterruptedException {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+            String[] request = reader.readLine().split(" ");
+            Map<String, String> headers = new HashMap<String, String>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(),
+                        line.substring(colon + 1).trim());
+            }
+
+            Resource resource = mResources.get(request[1]);
+            if (resource == null) {
+                respond(socket, 404, null, null, -1);
+                return;
+            }
+            resource.requests.incrementAndGet();
+            resource.lastIfNoneMatch = headers.get("if-none-match");
+            resource.lastIfRange = headers.get("if-range");
+            resource.lastRange = headers.get("range");
+            if (resource.delay > 0) {
+                Thread.sleep(resource.delay);
+            }
+
+            final String etag = resource.etag;
+            final byte[] body = resource.body.getBytes("ISO-8859-1");
+            final String range = resource.lastRange;
+            // record the status before responding, the client checks it as soon as it is done
+            if (resource.status != 200) {
+                resource.lastStatus = resource.status;
+                respond(socket, resource.status, null, null, -1);
+            } else if (etag.equals(resource.lastIfNoneMatch)) {
+                resource.lastStatus = 304;
+                respond(socket, 304, new String[] { "ETag", etag }, null, -1);
+            } else if (range != null && etag.equals(resource.lastIfRange)) {
+                int first = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                resource.lastStatus = 206;
+                respond(socket, 206, new String[] {
+                        "ETag", etag,
+                        "Content-Range", "bytes " + first + "-" + (body.length - 1) + "/" + body.length
+                }, Arrays.copyOfRange(body, first, body.length), resource.truncate);
+            } else {
+                resource.lastStatus = 200;
+                respond(socket, 200, new String[] { "ETag", etag }, body, resource.truncate);
+            }
+        }
+
+        private static void respond(Socket socket, int status, String[] headers, byte[] body,
+                int truncate) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            sb.append("HTTP/1.1 ").append(status).append(" Test\r\n");
+            sb.append("Connection: close\r\n");
+            sb.append("Content-Length: ").append(body != null ? body.length : 0).append("\r\n");
+            if (headers != null) {
+                for (int i = 0; i < headers.length; i += 2) {
+                    sb.append(headers[i]).append(": ").append(headers[i + 1]).append("\r\n");
+                }
+            }
+            sb.append("\r\n");
+
+            OutputStream output = socket.getOutputStream();
+            output.write(sb.toString().getBytes("ISO-8859-1"));
+            if (body != null && status != 304) {
+                output.write(body, 0, truncate >= 0 ? Math.min(truncate, body.length) : body.length);
+            }
+            output.flush();
+        }
+
+        private final ServerSocket mSocket;
+        private final Thread mThread;
+        private final Map<String, Resource> mResources = new ConcurrentHashMap<String, Resource>();
+    }
+
+    private final File mDirectory;
+    private Server mServer;
+    private GVRHttpCache mCache;
+}
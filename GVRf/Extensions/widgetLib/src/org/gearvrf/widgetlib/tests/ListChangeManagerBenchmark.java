@@ -0,0 +1,288 @@
+package org.gearvrf.widgetlib.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import android.database.DataSetObserver;
+import android.util.LongSparseArray;
+
+import org.gearvrf.widgetlib.adapter.Adapter;
+import org.gearvrf.widgetlib.adapter.BaseAdapter;
+import org.gearvrf.widgetlib.adapter.ListChangeManager;
+import org.gearvrf.widgetlib.adapter.ListChangeManager.Action;
+import org.gearvrf.widgetlib.log.Log;
+import org.gearvrf.widgetlib.widget.GroupWidget;
+import org.gearvrf.widgetlib.widget.Widget;
+
+/**
+ * Compares {@link ListChangeManager#getUpdateActions(long[], int, int)} with the
+ * previous list based implementation on large data sets, and checks that the
+ * generated actions produce the new list.
+ */
+public class ListChangeManagerBenchmark {
+
+    static final String TAG = ListChangeManagerBenchmark.class.getSimpleName();
+
+    static final int LIST_SIZE      = 10000;
+    static final int ITERATIONS     = 5;
+
+    public void test() {
+        Log.d(TAG, "benchmark starting");
+
+        run("reverse", reversed(LIST_SIZE));
+        run("shuffle", shuffled(LIST_SIZE));
+        run("replace half", replaceHalf(LIST_SIZE));
+        run("few changes", fewChanges(LIST_SIZE));
+
+        Log.d(TAG, "benchmark finished");
+    }
+
+    private void run(String name, long[] newIDs) {
+        long legacyTime = 0;
+        long diffTime = 0;
+        int legacyActions = 0;
+        int diffActions = 0;
+
+        for(int i = 0; i < ITERATIONS; i++) {
+            setCurrent(LIST_SIZE);
+            List<Long> list = toList(newIDs);
+            long start = System.nanoTime();
+            List<Action> actions = legacyUpdateActions(list, 0);
+            legacyTime += System.nanoTime() - start;
+            legacyActions = actions.size();
+
+            start = System.nanoTime();
+            actions = mListChangeManager.getUpdateActions(newIDs, newIDs.length, 0);
+            diffTime += System.nanoTime() - start;
+            diffActions = actions.size();
+
+            execute(actions);
+            compareList(list, mCurrentList);
+        }
+
+        Log.d(TAG, String.format("%s: legacy %d actions %.2f ms, diff %d actions %.2f ms", name,
+              legacyActions, legacyTime / 1e6f / ITERATIONS,
+              diffActions, diffTime / 1e6f / ITERATIONS));
+    }
+
+    private void setCurrent(int size) {
+        mCurrentList.clear();
+        for(int i = 0; i < size; i++) {
+            mCurrentList.add((long) i);
+        }
+    }
+
+    private static long[] reversed(int size) {
+        long[] ids = new long[size];
+        for(int i = 0; i < size; i++) {
+            ids[i] = size - 1 - i;
+        }
+        return ids;
+    }
+
+    private long[] shuffled(int size) {
+        long[] ids = new long[size];
+        for(int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        for(int i = size - 1; i > 0; i--) {
+            int j = mRandom.nextInt(i + 1);
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return ids;
+    }
+
+    private long[] replaceHalf(int size) {
+        long[] ids = new long[size];
+        for(int i = 0; i < size; i++) {
+            ids[i] = mRandom.nextBoolean() ? i : size + i;
+        }
+        return ids;
+    }
+
+    private long[] fewChanges(int size) {
+        long[] ids = new long[size];
+        for(int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        for(int n = 0; n < 10; n++) {
+            int a = mRandom.nextInt(size);
+            int b = mRandom.nextInt(size);
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+        }
+        return ids;
+    }
+
+    private static List<Long> toList(long[] ids) {
+        List<Long> list = new ArrayList<Long>(ids.length);
+        for(long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static void compareList(List<Long> expected, List<Long> list) {
+        if (!expected.equals(list)) {
+            throw new RuntimeException("benchmark failed");
+        }
+    }
+
+    private void execute(List<Action> actions) {
+        for(Action action : actions) {
+            switch(action.action) {
+            case DELETE:
+                mCurrentList.remove(action.pos1);
+                break;
+            case ADD:
+                mCurrentList.add(action.pos2, action.id);
+                break;
+            case MOVE:
+                mCurrentList.remove(action.pos1);
+                mCurrentList.add(action.pos2, action.id);
+            }
+        }
+    }
+
+    /*
+     * The implementation ListChangeManager used before the diff,
+     * kept here as the baseline.
+     */
+    private List<Action> legacyUpdateActions(List<Long> itemIDs, int firstItemPos) {
+        List<Long> oldIDs = new ArrayList<Long>(mCurrentList);
+        LongSparseArray<Integer> newMap = new LongSparseArray<Integer>();
+        listToMap(itemIDs, newMap, firstItemPos);
+        LongSparseArray<Integer> oldMap = new LongSparseArray<Integer>();
+        listToMap(oldIDs, oldMap, 0);
+
+        final List<Action> actions = new ArrayList<Action>();
+        for(int pos = oldIDs.size() - 1; pos >= firstItemPos; pos--) {
+            Long id = oldIDs.get(pos);
+            if (newMap.get(id, -1) == -1) {
+                oldIDs.remove(pos);
+                oldMap.delete(id);
+                updateMap(oldIDs, oldMap, pos, -1);
+                actions.add(null);
+            }
+        }
+
+        for(int index = 0; index < itemIDs.size(); index++) {
+            final int pos = firstItemPos + index;
+            final Long id = itemIDs.get(index);
+
+            int oldPos = oldMap.get(id, -1);
+            if (oldPos != -1) {
+                if (oldPos != pos) {
+                    oldIDs.remove(oldPos);
+                    oldIDs.add(pos, id);
+                    updateMap(oldIDs, oldMap, Math.min(oldPos, pos), Math.max(oldPos, pos) + 1);
+                    actions.add(null);
+                }
+            } else {
+                oldIDs.add(pos, id);
+                updateMap(oldIDs, oldMap, pos, -1);
+                actions.add(null);
+            }
+        }
+        return actions;
+    }
+
+    private static void updateMap(List<Long> list, LongSparseArray<Integer> map, int pos, int end) {
+        if (end == -1) {
+            end = list.size();
+        }
+        for(; pos < end; pos++) {
+            map.put(list.get(pos), pos);
+        }
+    }
+
+    private static void listToMap(List<Long> list, LongSparseArray<Integer> map, int firstItemPos) {
+        for(int index = 0; index < list.size(); index++) {
+            map.put(list.get(index), index + firstItemPos);
+        }
+    }
+
+    Adapter mAdapter = new BaseAdapter() {
+
+        @Override
+        public int getCount() {
+            return mCurrentList.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return null;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mCurrentList.get(position);
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return 0;
+        }
+
+        @Override
+        public Widget getView(int position, Widget convertView,
+                GroupWidget parent) {
+            return null;
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return 0;
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public boolean hasUniformViewSize() {
+            return true;
+        }
+
+        @Override
+        public float getUniformWidth() {
+            return 0;
+        }
+
+        @Override
+        public float getUniformHeight() {
+            return 0;
+        }
+
+        @Override
+        public float getUniformDepth() {
+            return 0;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getCount() < 1;
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+        }
+
+        @Override
+        public void unregisterAllDataSetObservers() {
+        }
+    };
+
+    ListChangeManager mListChangeManager = new ListChangeManager(mAdapter);
+    Random mRandom = new Random();
+    List<Long> mCurrentList = new ArrayList<Long>();
+}
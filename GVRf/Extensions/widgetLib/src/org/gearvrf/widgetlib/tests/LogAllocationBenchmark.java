@@ -0,0 +1,86 @@
+package org.gearvrf.widgetlib.tests;
+
+import android.os.Debug;
+
+import org.gearvrf.widgetlib.log.Log;
+
+/**
+ * Counts the objects allocated by {@link Log} debug calls with primitive and object parameters,
+ * the way they are used on the layout and focus paths. With the subsystem disabled, and with the
+ * subsystem enabled and the ring buffer on, the calls must not allocate. The varargs call is
+ * measured as the baseline.
+ */
+public class LogAllocationBenchmark {
+
+    static final String TAG = LogAllocationBenchmark.class.getSimpleName();
+
+    static final int ITERATIONS = 100000;
+    static final int WARMUP_ITERATIONS = 100;
+    static final Log.SUBSYSTEM SUBSYSTEM = Log.SUBSYSTEM.TRACING;
+
+    public void test() {
+        Log.d(TAG, "benchmark starting");
+        final boolean wasEnabled = Log.isEnabled(SUBSYSTEM);
+        final boolean ringWasEnabled = Log.isRingBufferEnabled();
+
+        Log.enableSubsystem(SUBSYSTEM, false);
+        run("varargs, disabled", true);
+        check("overloads, disabled", run("overloads, disabled", false));
+
+        if (!ringWasEnabled) {
+            Log.enableSubsystem(SUBSYSTEM, true);
+            if (Log.isEnabled(SUBSYSTEM)) {
+                Log.enableRingBuffer(RING_BUFFER_CAPACITY);
+                check("overloads, ring buffer", run("overloads, ring buffer", false));
+                Log.enableRingBuffer(0);
+            }
+        }
+
+        Log.enableSubsystem(SUBSYSTEM, wasEnabled);
+        Log.d(TAG, "benchmark finished");
+    }
+
+    @SuppressWarnings("deprecation")
+    private int run(String name, boolean varargs) {
+        // warm up first so class loading and lazy initialization are not counted
+        call(varargs, WARMUP_ITERATIONS);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        final long start = System.nanoTime();
+        call(varargs, ITERATIONS);
+        final long time = System.nanoTime() - start;
+        Debug.stopAllocCounting();
+        final int allocations = Debug.getThreadAllocCount();
+
+        Log.d(TAG, String.format("%s: %d calls, %d allocations, %.2f ms", name,
+                ITERATIONS * 4, allocations, time / 1e6f));
+        return allocations;
+    }
+
+    private void call(boolean varargs, int count) {
+        for (int i = 0; i < count; ++i) {
+            final float offset = i * 0.5f;
+            if (varargs) {
+                Log.d(SUBSYSTEM, TAG, "index = %d", new Object[] { i });
+                Log.d(SUBSYSTEM, TAG, "offset = %f", new Object[] { offset });
+                Log.d(SUBSYSTEM, TAG, "item [%s] index = %d", new Object[] { TAG, i });
+                Log.d(SUBSYSTEM, TAG, "index = %d visible = %b", new Object[] { i, true });
+            } else {
+                Log.d(SUBSYSTEM, TAG, "index = %d", i);
+                Log.d(SUBSYSTEM, TAG, "offset = %f", offset);
+                Log.d(SUBSYSTEM, TAG, "item [%s] index = %d", TAG, i);
+                Log.d(SUBSYSTEM, TAG, "index = %d visible = %b", i, true);
+            }
+        }
+    }
+
+    private static void check(String name, int allocations) {
+        if (allocations != 0) {
+            throw new RuntimeException("benchmark failed: " + name + " allocated " +
+                    allocations + " objects");
+        }
+    }
+
+    static final int RING_BUFFER_CAPACITY = 1024;
+}
@@ -12,6 +12,10 @@ public class ConcurrentListPool<T> extends ConcurrentObjectPool<List<T>> {
         super(name);
     }
 
+    public ConcurrentListPool(String name, int maxSize) {
+        super(name, maxSize);
+    }
+
     /**
      * Acquire a {@link List} from the pool, copying items from another {@code List} into it.
      * <p>
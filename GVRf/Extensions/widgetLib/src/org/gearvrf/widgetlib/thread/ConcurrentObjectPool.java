@@ -1,12 +1,33 @@
 package org.gearvrf.widgetlib.thread;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.gearvrf.widgetlib.log.Log;
 
 /**
- * A low-feature, thread-safe object pool. Override {@link #create()} to
- * allocate new objects as necessary.
+ * A thread-safe object pool. Override {@link #create()} to allocate new
+ * objects as necessary.
+ * <p>
+ * Each thread using the pool gets a small cache of its own (a "magazine"), so
+ * most {@link #acquire()} and {@link #release(Object)} calls do not touch any
+ * shared state. When a magazine runs empty or full, half of it is exchanged
+ * with a shared stack in one step. Neither the magazines nor the shared stack
+ * allocate anything per operation.
+ * <p>
+ * The shared stack can be bounded by passing a maximum size to the
+ * constructor; objects released while it is full are dropped and left to the
+ * garbage collector. {@link #trim(int)} drops idle objects on demand.
+ * <p>
+ * The pool counts acquires, releases and misses (acquires that had to
+ * {@link #create()} a new object). The counters are kept per thread and added
+ * up when they are read, so the values are approximate while other threads
+ * are using the pool.
+ * <p>
+ * The magazines of threads that have terminated are flushed to the shared
+ * stack and forgotten the next time a thread starts using the pool or the
+ * counters are read, so the pool does not grow with every thread that ever
+ * used it.
  *
  * @param <T>
  *            The type of object held by the pool.
@@ -21,7 +42,23 @@ public abstract class ConcurrentObjectPool<T> {
      */
     // @formatter:on
     public ConcurrentObjectPool(final String name) {
+        this(name, UNBOUNDED);
+    }
+
+    /**
+     * @param name
+     *            Name used when logging the pool's statistics
+     * @param maxSize
+     *            Maximum number of idle objects kept in the shared stack, in
+     *            addition to the per-thread caches.
+     */
+    public ConcurrentObjectPool(final String name, final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
         this.name = name;
+        this.maxSize = maxSize;
+        shared = new Object[Math.min(maxSize, INITIAL_SHARED_CAPACITY)];
     }
 
     /**
@@ -30,15 +67,21 @@ public abstract class ConcurrentObjectPool<T> {
      *
      * @return An instance of type {@code T}.
      */
+    @SuppressWarnings("unchecked")
     public T acquire() {
-        T t = pool.poll();
-        if (t == null) {
-            t = create();
-            ++count;
-        }
-        ++requests;
-        // log();
-        return t;
+        final Magazine magazine = magazines.get();
+        ++magazine.acquires;
+        if (magazine.count == 0) {
+            refill(magazine);
+        }
+        if (magazine.count > 0) {
+            final Object[] objects = magazine.objects;
+            final T t = (T) objects[--magazine.count];
+            objects[magazine.count] = null;
+            return t;
+        }
+        ++magazine.misses;
+        return create();
     }
 
     /**
@@ -48,21 +91,217 @@ public abstract class ConcurrentObjectPool<T> {
      *            An instance of type {@code T}
      */
     public void release(T t) {
-        pool.add(t);
+        final Magazine magazine = magazines.get();
+        ++magazine.releases;
+        if (magazine.count == MAGAZINE_SIZE) {
+            spill(magazine);
+        }
+        magazine.objects[magazine.count++] = t;
+    }
+
+    /**
+     * Drop idle objects from the shared stack and the calling thread's cache
+     * until no more than {@code size} are left in the shared stack. The
+     * caches of other threads are not touched.
+     *
+     * @param size
+     *            The number of idle objects to keep.
+     */
+    public void trim(int size) {
+        final Magazine magazine = magazines.get();
+        for (int i = 0; i < magazine.count; ++i) {
+            magazine.objects[i] = null;
+        }
+        magazine.count = 0;
+
+        synchronized (lock) {
+            for (int i = Math.max(size, 0); i < sharedCount; ++i) {
+                shared[i] = null;
+            }
+            sharedCount = Math.min(sharedCount, Math.max(size, 0));
+        }
+    }
+
+    /**
+     * @return The number of times {@link #acquire()} was called.
+     */
+    public long getAcquireCount() {
+        long count;
+        synchronized (lock) {
+            pruneMagazines();
+            count = retiredAcquires;
+        }
+        for (Magazine magazine : allMagazines) {
+            count += magazine.acquires;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of times {@link #release(Object)} was called.
+     */
+    public long getReleaseCount() {
+        long count;
+        synchronized (lock) {
+            pruneMagazines();
+            count = retiredReleases;
+        }
+        for (Magazine magazine : allMagazines) {
+            count += magazine.releases;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of times {@link #acquire()} found the pool empty and
+     *         had to {@link #create()} a new object.
+     */
+    public long getMissCount() {
+        long count;
+        synchronized (lock) {
+            pruneMagazines();
+            count = retiredMisses;
+        }
+        for (Magazine magazine : allMagazines) {
+            count += magazine.misses;
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of idle objects in the shared stack.
+     */
+    public int getSharedCount() {
+        synchronized (lock) {
+            return sharedCount;
+        }
+    }
+
+    /**
+     * Log the pool's counters.
+     */
+    public void logStats() {
+        final long acquires = getAcquireCount();
+        final long misses = getMissCount();
+        Log.d(TAG, "%s: acquires: %d, releases: %d, misses: %d, hit rate: %.1f%%, shared: %d",
+              name, acquires, getReleaseCount(), misses,
+              acquires > 0 ? 100f * (acquires - misses) / acquires : 0f, getSharedCount());
     }
 
     abstract protected T create();
 
-    @SuppressWarnings("unused")
-    private void log() {
-        Log.d(TAG, "%s: count: %d, requests: %d", name, count, requests);
+    /**
+     * Move up to half a magazine from the shared stack into an empty
+     * magazine.
+     */
+    private void refill(Magazine magazine) {
+        synchronized (lock) {
+            final int count = Math.min(sharedCount, MAGAZINE_SIZE / 2);
+            sharedCount -= count;
+            System.arraycopy(shared, sharedCount, magazine.objects, 0, count);
+            for (int i = sharedCount; i < sharedCount + count; ++i) {
+                shared[i] = null;
+            }
+            magazine.count = count;
+        }
+    }
+
+    /**
+     * Move half of a full magazine to the shared stack. Objects that don't fit
+     * under {@link #maxSize} are dropped.
+     */
+    private void spill(Magazine magazine) {
+        final int keep = MAGAZINE_SIZE / 2;
+        synchronized (lock) {
+            final int count = Math.min(MAGAZINE_SIZE - keep, maxSize - sharedCount);
+            if (count > 0) {
+                if (sharedCount + count > shared.length) {
+                    final int capacity = (int) Math.min((long) maxSize,
+                            Math.max(shared.length * 2L, sharedCount + count));
+                    final Object[] newShared = new Object[capacity];
+                    System.arraycopy(shared, 0, newShared, 0, sharedCount);
+                    shared = newShared;
+                }
+                System.arraycopy(magazine.objects, keep, shared, sharedCount, count);
+                sharedCount += count;
+            }
+        }
+        for (int i = keep; i < MAGAZINE_SIZE; ++i) {
+            magazine.objects[i] = null;
+        }
+        magazine.count = keep;
+    }
+
+    /**
+     * Flush the magazines of terminated threads to the shared stack, add
+     * their counters to the retired totals and drop them. Must be called
+     * with {@link #lock} held.
+     */
+    private void pruneMagazines() {
+        for (Magazine magazine : allMagazines) {
+            final Thread owner = magazine.owner.get();
+            if (owner != null && owner.isAlive()) {
+                continue;
+            }
+            // The owner has terminated, so nothing else touches the magazine
+            final int count = Math.min(magazine.count, maxSize - sharedCount);
+            if (count > 0) {
+                if (sharedCount + count > shared.length) {
+                    final int capacity = (int) Math.min((long) maxSize,
+                            Math.max(shared.length * 2L, sharedCount + count));
+                    final Object[] newShared = new Object[capacity];
+                    System.arraycopy(shared, 0, newShared, 0, sharedCount);
+                    shared = newShared;
+                }
+                System.arraycopy(magazine.objects, 0, shared, sharedCount, count);
+                sharedCount += count;
+            }
+            retiredAcquires += magazine.acquires;
+            retiredReleases += magazine.releases;
+            retiredMisses += magazine.misses;
+            allMagazines.remove(magazine);
+        }
+    }
+
+    /**
+     * Per-thread cache of pooled objects and counters. Only the owning thread
+     * writes to it.
+     */
+    private static final class Magazine {
+        final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+        final Object[] objects = new Object[MAGAZINE_SIZE];
+        int count;
+        volatile long acquires;
+        volatile long releases;
+        volatile long misses;
     }
 
-    private ConcurrentLinkedQueue<T> pool = new ConcurrentLinkedQueue<T>();
-    private long count;
-    private long requests;
+    private final ThreadLocal<Magazine> magazines = new ThreadLocal<Magazine>() {
+        @Override
+        protected Magazine initialValue() {
+            final Magazine magazine = new Magazine();
+            synchronized (lock) {
+                pruneMagazines();
+                allMagazines.add(magazine);
+            }
+            return magazine;
+        }
+    };
+    private final CopyOnWriteArrayList<Magazine> allMagazines = new CopyOnWriteArrayList<Magazine>();
+
+    private final Object lock = new Object();
+    private Object[] shared;
+    private int sharedCount;
+    private long retiredAcquires;
+    private long retiredReleases;
+    private long retiredMisses;
+    private final int maxSize;
     private final String name;
 
+    private static final int MAGAZINE_SIZE = 16;
+    private static final int INITIAL_SHARED_CAPACITY = 32;
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
     private static final String TAG = ConcurrentObjectPool.class
             .getSimpleName();
 }
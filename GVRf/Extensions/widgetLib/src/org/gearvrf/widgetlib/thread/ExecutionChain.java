@@ -1,8 +1,10 @@
 package org.gearvrf.widgetlib.thread;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.gearvrf.GVRContext;
@@ -38,6 +40,21 @@ import static org.gearvrf.utility.Threads.spawn;
  * }
  * </pre>
  * <p>
+ * Independent background tasks can be run concurrently as one stage of the
+ * chain with {@link #runOnBackgroundThreads(List)}; the next task is run once
+ * all of them have finished and gets their results as a list:
+ * <p>
+ *
+ * <pre>
+ * {@code
+ *  new ExecutionChain(gvrContext)
+ *      .runOnBackgroundThreads(bitmapLoadingTasks)
+ *      .setTimeout(5000)
+ *      .runOnGLThread(bitmapTexturesTask)
+ *      .execute();
+ * }
+ * </pre>
+ * <p>
  * The chain of execution can be {@linkplain #cancel() cancelled} at any time (a
  * {@link Runnable} can optionally be called when the cancellation has
  * completed). At a minimum, execution will halt as soon as the current task has
@@ -45,6 +62,13 @@ import static org.gearvrf.utility.Threads.spawn;
  * cancellation by intermittently checking {@link Task#isCancelled()} and
  * returning sooner.
  * <p>
+ * Each stage can be given a {@linkplain #setTimeout(long) timeout}. If the stage
+ * has not finished when the timeout elapses, its task gets a
+ * {@link TimeoutException}, {@link Task#isCancelled()} starts returning
+ * {@code true} for the tasks still running in that stage, and the chain moves
+ * on to the next stage without waiting for them; whatever they return is
+ * discarded.
+ * <p>
  * When a task throws an exception from run(), the exception is caught and
  * saved. If the next task in the chain of execution calls
  * {@link Task#getResult() getResult()}, the exception will be re-thrown. In
@@ -65,6 +89,11 @@ import static org.gearvrf.utility.Threads.spawn;
  * necessary; if appropriate, the callback can {@link #cancel() stop further
  * execution}.
  * <p>
+ * A chain can be {@linkplain #execute() executed} again once it has stopped.
+ * The bookkeeping for each task is pooled and reused, so executing a chain
+ * does not allocate for each step; call {@link #clear()} to return it to the
+ * pool when the chain is no longer needed.
+ * <p>
  * {@code ExecutionChain} supports running tasks on the
  * {@link Activity#runOnUiThread(Runnable) UI thread}, {@link MainThread main
  * thread}, {@link GVRContext#runOnGlThread(Runnable) OpenGL thread}, and on
@@ -166,10 +195,14 @@ public class ExecutionChain {
          * @return Returns {@code true} if the chain of execution has been
          *         cancelled by a call to {@link ExecutionChain#cancel()
          *         cancel()} or {@link ExecutionChain#cancel(Runnable)
-         *         cancel(Runnable)}. Returns {@code false} otherwise.
+         *         cancel(Runnable)}, or if the stage this task is running in
+         *         has {@linkplain ExecutionChain#setTimeout(long) timed out}.
+         *         Returns {@code false} otherwise.
          */
         final public boolean isCancelled() {
-            return state.get() == State.CANCELLED;
+            final AtomicReference<State> currentState = state;
+            return timedOut
+                    || (currentState != null && currentState.get() == State.CANCELLED);
         }
 
         /**
@@ -197,33 +230,57 @@ public class ExecutionChain {
             return t;
         }
 
-        private void execute(Task<U, ?> task, AtomicReference<State> state,
-                ErrorCallback errorCallback) {
+        /**
+         * Run the task and keep its result, unless the stage it belongs to has
+         * timed out in the meantime.
+         *
+         * @return {@code false} if the stage had already timed out
+         */
+        private boolean execute(Task<U, ?> task, AtomicReference<State> state,
+                ErrorCallback errorCallback, AtomicInteger stage, int ticket) {
             this.state = state;
+            T runResult = null;
+            Throwable runError = null;
             try {
-                result = run(task);
-            } catch (Throwable runError) {
-                boolean handled = false;
-                if (errorCallback != null) {
-                    try {
-                        handled = errorCallback.onException(runError, task);
-                    } catch (Throwable callbackError) {
-                        callbackError.printStackTrace();
-                        Log.e(TAG, callbackError, "execute()");
-                    }
-                }
-                if (!handled) {
-                    exception = runError;
-                    runError.printStackTrace();
-                    Log.e(TAG, runError, "execute()");
-                }
+                runResult = run(task);
+            } catch (Throwable t) {
+                runError = t;
             }
             this.state = null;
+
+            if (stage != null && !stage.compareAndSet(ticket, ticket + 1)) {
+                Log.w(TAG, "execute(): task %s finished after its stage timed out", this);
+                return false;
+            }
+            result = runResult;
+            exception = null;
+            if (runError != null) {
+                setError(runError, errorCallback);
+            }
+            return true;
+        }
+
+        private void setError(Throwable runError, ErrorCallback errorCallback) {
+            boolean handled = false;
+            if (errorCallback != null) {
+                try {
+                    handled = errorCallback.onException(runError, this);
+                } catch (Throwable callbackError) {
+                    callbackError.printStackTrace();
+                    Log.e(TAG, callbackError, "execute()");
+                }
+            }
+            if (!handled) {
+                exception = runError;
+                runError.printStackTrace();
+                Log.e(TAG, runError, "execute()");
+            }
         }
 
-        private T result;
-        private Throwable exception;
-        private AtomicReference<State> state;
+        private volatile T result;
+        private volatile Throwable exception;
+        private volatile AtomicReference<State> state;
+        private volatile boolean timedOut;
     }
 
     /**
@@ -304,6 +361,36 @@ public class ExecutionChain {
         return this;
     }
 
+    /**
+     * Add a fork/join stage: each of the {@linkplain Task Tasks} is run on its
+     * own {@link org.gearvrf.utility.Threads#spawn(Runnable) background
+     * thread}, concurrently with the others. They are started after all Tasks
+     * added prior to this call have run, and the next Task is run once all of
+     * them have finished.
+     * <p>
+     * Each of the tasks is passed the Task that was run before the stage. If
+     * that Task has an exception, the tasks are not run and the exception is
+     * passed on to the next Task.
+     * <p>
+     * The next Task is passed a Task whose {@link Task#getResult() result} is
+     * the list of the results, in the same order as {@code tasks}. If any of
+     * the tasks has an exception, the first one is re-thrown by
+     * {@code getResult()}. The list belongs to the chain and is refilled if the
+     * chain is executed again.
+     *
+     * @param tasks
+     *            {@code Tasks} to run concurrently
+     * @return Reference to the {@code ExecutionChain}.
+     * @throws IllegalStateException
+     *             if the chain of execution has already been {@link #execute()
+     *             started}.
+     */
+    public <T, U> ExecutionChain runOnBackgroundThreads(List<? extends Task<T, U>> tasks) {
+        final Context context = runOnThread(Context.Type.FORK, new JoinTask());
+        context.setForks(tasks);
+        return this;
+    }
+
     /**
      * A convenience method to wrap a {@link Runnable} in a {@link Task} to be
      * run on the {@link Activity#runOnUiThread(Runnable) UI thread}.
@@ -368,6 +455,53 @@ public class ExecutionChain {
         return this;
     }
 
+    /**
+     * A convenience method to wrap {@link Runnable Runnables} in
+     * {@link Task Tasks} to be run concurrently as a
+     * {@linkplain #runOnBackgroundThreads(List) fork/join stage}.
+     *
+     * @param runnables
+     *            {@code Runnables} to run concurrently
+     * @return Reference to the {@code ExecutionChain}.
+     * @throws IllegalStateException
+     *             if the chain of execution has already been {@link #execute()
+     *             started}.
+     */
+    public ExecutionChain runOnBackgroundThreads(Runnable... runnables) {
+        final List<RunnableTask> runnableTasks = new ArrayList<RunnableTask>(runnables.length);
+        for (Runnable r : runnables) {
+            runnableTasks.add(new RunnableTask(r));
+        }
+        return runOnBackgroundThreads(runnableTasks);
+    }
+
+    /**
+     * Set a timeout for the stage added last. If the stage has not finished
+     * within {@code timeoutMillis} after it was started, its task gets a
+     * {@link TimeoutException} and the chain of execution continues with the
+     * next stage. Tasks of the stage that are still running see
+     * {@link Task#isCancelled()} return {@code true}, and their results are
+     * discarded.
+     *
+     * @param timeoutMillis
+     *            The timeout in milliseconds; zero or less removes the timeout.
+     * @return Reference to the {@code ExecutionChain}.
+     * @throws IllegalStateException
+     *             if the chain of execution has already been {@link #execute()
+     *             started}, or no task has been added yet.
+     */
+    public ExecutionChain setTimeout(long timeoutMillis) {
+        if (state.get() == State.RUNNING) {
+            throw new IllegalStateException(
+                    "Invalid while ExecutionChain is running");
+        }
+        if (tasks.isEmpty()) {
+            throw new IllegalStateException("No task to set the timeout for");
+        }
+        tasks.get(tasks.size() - 1).timeoutMillis = Math.max(timeoutMillis, 0);
+        return this;
+    }
+
     /**
      * Set a callback to handle any exceptions in the chain of execution.
      *
@@ -387,6 +521,27 @@ public class ExecutionChain {
         return this;
     }
 
+    /**
+     * Remove all of the {@linkplain Task Tasks} from the chain and return its
+     * bookkeeping to the pool. The chain can be filled and executed again
+     * afterwards.
+     *
+     * @return Reference to the {@code ExecutionChain}.
+     * @throws IllegalStateException
+     *             if the chain of execution is running.
+     */
+    public ExecutionChain clear() {
+        if (state.get() == State.RUNNING) {
+            throw new IllegalStateException(
+                    "Invalid while ExecutionChain is running");
+        }
+        for (Context context : tasks) {
+            context.recycle();
+        }
+        tasks.clear();
+        return this;
+    }
+
     /**
      * Start the chain of execution running.
      *
@@ -399,7 +554,10 @@ public class ExecutionChain {
             throw new IllegalStateException(
                     "ExecutionChain is already running!");
         }
-        executeRunnable = new ExecuteRunnable();
+        if (executeRunnable == null) {
+            executeRunnable = new ExecuteRunnable();
+        }
+        executeRunnable.start();
     }
 
     /**
@@ -433,10 +591,14 @@ public class ExecutionChain {
      *         started, or has ended because of an exception.
      */
     public boolean cancel(Runnable r) {
-        executeRunnable.cancelRunnable.compareAndSet(null, r);
+        final ExecuteRunnable runnable = executeRunnable;
+        if (runnable == null) {
+            return false;
+        }
+        runnable.cancelRunnable.compareAndSet(null, r);
         boolean running = state.compareAndSet(State.RUNNING, State.CANCELLED);
         if (!running) {
-            executeRunnable.cancelRunnable.set(null);
+            runnable.cancelRunnable.set(null);
             return false;
         }
         return true;
@@ -451,16 +613,18 @@ public class ExecutionChain {
         return state.get();
     }
 
-    private <T, U> void runOnThread(Context.Type type, Task<T, U> task) {
+    private <T, U> Context runOnThread(Context.Type type, Task<T, U> task) {
         State currentState = state.get();
         if (currentState == State.RUNNING) {
             throw new IllegalStateException(
                     "Execution chain is already running!");
         }
-        tasks.add(new Context<T, U>(type, task));
+        final Context context = Context.obtain(type, task);
+        tasks.add(context);
+        return context;
     }
 
-    private class RunnableTask extends Task<Void, Void> {
+    private static class RunnableTask extends Task<Void, Void> {
         public RunnableTask(Runnable r) {
             runnable = r;
         }
@@ -474,110 +638,420 @@ public class ExecutionChain {
         private Runnable runnable;
     }
 
-    private static class Context<T, U> {
-        private enum Type {
-            UI, MAIN, GL, BACKGROUND
+    /**
+     * Stands for a fork/join stage in the chain: its result is the list of the
+     * results of the forked tasks. The chain fills in its result when the
+     * forks have finished instead of running it.
+     */
+    private static final class JoinTask extends Task<List<Object>, Object> {
+        @Override
+        public List<Object> run(Task<Object, ?> task) {
+            throw new IllegalStateException(
+                    "The join of a fork/join stage is completed by its forks, not run");
         }
 
-        final Type type;
-        final Task<T, U> task;
+        private void reset() {
+            results.clear();
+            super.result = null;
+            super.exception = null;
+            super.timedOut = false;
+        }
 
-        Context(Type type, Task<T, U> task) {
-            this.type = type;
-            this.task = task;
+        private void addResult(Task<?, ?> task) {
+            results.add(task.result);
+            setException(task.exception);
         }
 
-        @SuppressWarnings("unchecked")
-        void run(Task<?, ?> previousTask, AtomicReference<State> state,
-                ErrorCallback errorCallback) {
-            task.execute((Task<U, ?>) previousTask, state, errorCallback);
+        private void setException(Throwable t) {
+            if (super.exception == null) {
+                super.exception = t;
+            }
         }
+
+        private void complete() {
+            super.result = readOnlyResults;
+        }
+
+        private final List<Object> results = new ArrayList<Object>();
+        private final List<Object> readOnlyResults = Collections.unmodifiableList(results);
     }
 
-    private final class ExecuteRunnable implements Runnable {
-        Context<?, ?> currentContext;
-        Context<?, ?> previousContext;
-        AtomicReference<Runnable> cancelRunnable = new AtomicReference<Runnable>();
-        Iterator<Context<?, ?>> taskIter;
+    /**
+     * Runs one task of a fork/join stage.
+     * <p>
+     * A fork keeps what it needs for the execution it was spawned for, and is
+     * not reused while it is running. It only counts towards the join if it
+     * can still advance its {@link #ticket} from the {@link #generation} it
+     * was spawned with: a time-out, or the recycling of its stage, advances
+     * the ticket first so that a late fork is ignored.
+     */
+    private static final class Fork implements Runnable {
+        Context context;
+        Task<?, ?> task;
+        ExecuteRunnable owner;
+        int generation;
+        volatile boolean inFlight;
+        final AtomicInteger ticket = new AtomicInteger();
 
-        private ExecuteRunnable() {
-            Log.d(TAG, "ExecuteRunnable(): tasks: %d", tasks.size());
-            taskIter = tasks.iterator();
-            runNext();
+        boolean isStale() {
+            return ticket.get() != generation;
+        }
+
+        void expire() {
+            ticket.incrementAndGet();
         }
 
         @Override
         public void run() {
+            try {
+                owner.runFork(this);
+            } finally {
+                inFlight = false;
+            }
+        }
+    }
+
+    /**
+     * A stage of the chain. Contexts are pooled, together with the
+     * {@link Fork forks} and the timeout runnable they own, so that neither
+     * building nor executing a chain allocates for each step. The context
+     * itself is the {@link Runnable} posted to the thread the stage runs on.
+     */
+    private static final class Context implements Runnable {
+        private enum Type {
+            UI, MAIN, GL, BACKGROUND, FORK
+        }
+
+        Type type;
+        Task<?, ?> task;
+        long timeoutMillis;
+
+        // state of the current execution, set when the stage is started
+        ExecuteRunnable owner;
+        Task<?, ?> previousTask;
+        int ticket;
+
+        Fork[] forks = NO_FORKS;
+        int forkCount;
+        final AtomicInteger pending = new AtomicInteger();
+
+        final Runnable timeout = new Runnable() {
+            @Override
+            public void run() {
+                owner.onTimeout(Context.this);
+            }
+        };
+
+        private Context nextFree;
+
+        static Context obtain(Type type, Task<?, ?> task) {
+            Context context;
+            synchronized (freeLock) {
+                context = freeContexts;
+                if (context != null) {
+                    freeContexts = context.nextFree;
+                    context.nextFree = null;
+                    --freeContextCount;
+                }
+            }
+            if (context == null) {
+                context = new Context();
+            }
+            context.type = type;
+            context.task = task;
+            return context;
+        }
+
+        void recycle() {
+            boolean forksInFlight = false;
+            for (int i = 0; i < forkCount; ++i) {
+                final Fork fork = forks[i];
+                fork.expire();
+                if (fork.inFlight) {
+                    forksInFlight = true;
+                } else {
+                    fork.task = null;
+                    fork.owner = null;
+                }
+            }
+            forkCount = 0;
+            type = null;
+            task = null;
+            timeoutMillis = 0;
+            owner = null;
+            previousTask = null;
+            if (forksInFlight) {
+                // late forks still refer to this context; leave it to them
+                return;
+            }
+            synchronized (freeLock) {
+                if (freeContextCount < MAX_FREE_CONTEXTS) {
+                    nextFree = freeContexts;
+                    freeContexts = this;
+                    ++freeContextCount;
+                }
+            }
+        }
+
+        void setForks(List<? extends Task<?, ?>> tasks) {
+            final int count = tasks.size();
+            if (forks.length < count) {
+                Fork[] newForks = new Fork[count];
+                System.arraycopy(forks, 0, newForks, 0, forks.length);
+                for (int i = forks.length; i < count; ++i) {
+                    newForks[i] = new Fork();
+                }
+                forks = newForks;
+            }
+            for (int i = 0; i < count; ++i) {
+                forks[i].context = this;
+                forks[i].task = tasks.get(i);
+            }
+            forkCount = count;
+        }
+
+        @Override
+        public void run() {
+            owner.runStage(this);
+        }
+
+        private static final Fork[] NO_FORKS = new Fork[0];
+        private static final int MAX_FREE_CONTEXTS = 64;
+        private static final Object freeLock = new Object();
+        private static Context freeContexts;
+        private static int freeContextCount;
+    }
+
+    /**
+     * Drives one execution of the chain. A single instance is kept for each
+     * chain and reused every time the chain is executed.
+     * <p>
+     * Every stage completes by advancing {@link #stage} from the ticket it was
+     * started with: whichever of the task, the last fork or the timeout gets
+     * there first moves the chain on, and the others are ignored.
+     */
+    private final class ExecuteRunnable {
+        final AtomicReference<Runnable> cancelRunnable = new AtomicReference<Runnable>();
+        final AtomicInteger stage = new AtomicInteger();
+        int nextIndex;
+
+        private void start() {
+            Log.d(Log.SUBSYSTEM.TRACING, TAG, "execute(): tasks: %d", tasks.size());
+            nextIndex = 0;
+            runNext(null);
+        }
+
+        private void runStage(Context context) {
+            if (stage.get() != context.ticket) {
+                // timed out before it got a chance to run
+                return;
+            }
             if (state.get() == State.CANCELLED) {
-                Log.d(TAG,
+                Log.d(Log.SUBSYSTEM.TRACING, TAG,
                       "Execution was cancelled; skipping task %s on thread %s",
-                      currentContext, Thread.currentThread().getName());
-                handleCancel();
+                      context.task, Thread.currentThread().getName());
+                if (stage.compareAndSet(context.ticket, context.ticket + 1)) {
+                    removeTimeout(context);
+                    handleCancel();
+                }
                 return;
             }
 
+            Log.d(Log.SUBSYSTEM.TRACING, TAG, "run(%s): running task %s",
+                  Thread.currentThread().getName(), context.task);
+            timeCheck(context, " <START>, ");
+            final boolean completed = execute(context.task, context.previousTask,
+                    stage, context.ticket);
+            timeCheck(context, " <END>, ");
+
+            if (completed) {
+                removeTimeout(context);
+                runNext(context.task);
+            }
+        }
 
-            Log.d(TAG, "run(%s): running task %s", Thread.currentThread()
-                    .getName(), currentContext);
-            Task<?, ?> previousTask = previousContext != null ? previousContext.task
-                    : null;
+        private void runNext(Task<?, ?> previousTask) {
+            if (state.get() == State.CANCELLED) {
+                Log.d(Log.SUBSYSTEM.TRACING, TAG, "runNext(%s): execution was cancelled",
+                      Thread.currentThread().getName());
+                handleCancel();
+                return;
+            }
+            if (nextIndex >= tasks.size()) {
+                finish(previousTask);
+                return;
+            }
 
-            FPSCounter.timeCheck("ExecutionChain. " + currentContext.type + " <START>, " + currentContext);
-            currentContext.run(previousTask, state, errorCallback);
-            FPSCounter.timeCheck("ExecutionChain. " + currentContext.type + " <END>, " + currentContext);
+            final Context context = tasks.get(nextIndex++);
+            context.owner = this;
+            context.previousTask = previousTask;
+            context.ticket = stage.get();
+            context.task.timedOut = false;
+            Log.d(Log.SUBSYSTEM.TRACING, TAG, "runNext(%s): next task is %s",
+                  Thread.currentThread().getName(), context.task);
 
-            runNext();
+            if (context.timeoutMillis > 0) {
+                WidgetLib.getMainThread().runOnMainThreadDelayed(context.timeout,
+                        context.timeoutMillis);
+            }
+            switch (context.type) {
+                case UI:
+                    ((Activity) gvrContext.getContext())
+                            .runOnUiThread(context);
+                    break;
+                case MAIN:
+                    WidgetLib.getMainThread().runOnMainThread(context);
+                    break;
+                case GL:
+                    gvrContext.runOnGlThread(context);
+                    break;
+                case BACKGROUND:
+                    spawn(context);
+                    break;
+                case FORK:
+                    fork(context);
+                    break;
+            }
         }
 
-        private void runNext() {
-            previousContext = currentContext;
-            if (taskIter.hasNext()) {
-                currentContext = taskIter.next();
-                Log.d(TAG, "runNext(%s): next task is %s", Thread
-                        .currentThread().getName(), currentContext);
-
-                switch (currentContext.type) {
-                    case UI:
-                        ((Activity) gvrContext.getContext())
-                                .runOnUiThread(this);
-                        break;
-                    case MAIN:
-                        WidgetLib.getMainThread().runOnMainThread(this);
-                        break;
-                    case GL:
-                        gvrContext.runOnGlThread(this);
+        private void fork(Context context) {
+            final JoinTask join = (JoinTask) context.task;
+            join.reset();
+            final Task<?, ?> previousTask = context.previousTask;
+            if (context.forkCount == 0
+                    || (previousTask != null && previousTask.hasException())) {
+                if (stage.compareAndSet(context.ticket, context.ticket + 1)) {
+                    removeTimeout(context);
+                    if (previousTask != null) {
+                        join.setException(previousTask.getException());
+                    }
+                    join.complete();
+                    runNext(join);
+                }
+                return;
+            }
 
-                        break;
-                    case BACKGROUND:
-                        spawn(this);
-                        break;
+            context.pending.set(context.forkCount);
+            for (int i = 0; i < context.forkCount; ++i) {
+                Fork fork = context.forks[i];
+                if (fork.inFlight) {
+                    // still running for an execution that timed out
+                    final Fork stale = fork;
+                    fork = new Fork();
+                    fork.context = context;
+                    fork.task = stale.task;
+                    context.forks[i] = fork;
                 }
+                fork.owner = this;
+                fork.generation = fork.ticket.get();
+                fork.inFlight = true;
+                fork.task.timedOut = false;
+            }
+            for (int i = 0; i < context.forkCount; ++i) {
+                spawn(context.forks[i]);
+            }
+        }
+
+        private void runFork(Fork fork) {
+            if (fork.isStale()) {
+                return;
+            }
+            final Context context = fork.context;
+            final boolean counted;
+            if (state.get() != State.CANCELLED) {
+                Log.d(Log.SUBSYSTEM.TRACING, TAG, "runFork(%s): running task %s",
+                      Thread.currentThread().getName(), fork.task);
+                counted = execute(fork.task, context.previousTask, fork.ticket,
+                        fork.generation);
             } else {
-                if (previousContext != null
-                        && previousContext.task.hasException()) {
-                    state.set(State.ERROR);
+                counted = fork.ticket.compareAndSet(fork.generation, fork.generation + 1);
+            }
+            if (counted && context.pending.decrementAndGet() == 0) {
+                join(context);
+            }
+        }
+
+        private void join(Context context) {
+            if (!stage.compareAndSet(context.ticket, context.ticket + 1)) {
+                // the stage has timed out
+                return;
+            }
+            removeTimeout(context);
+
+            final JoinTask join = (JoinTask) context.task;
+            for (int i = 0; i < context.forkCount; ++i) {
+                join.addResult(context.forks[i].task);
+            }
+            join.complete();
+            runNext(join);
+        }
+
+        private void onTimeout(Context context) {
+            if (!stage.compareAndSet(context.ticket, context.ticket + 1)) {
+                return;
+            }
+            Log.w(TAG, "Stage timed out after %d ms: %s", context.timeoutMillis, context.task);
+
+            final Task<?, ?> task = context.task;
+            task.timedOut = true;
+            for (int i = 0; i < context.forkCount; ++i) {
+                context.forks[i].task.timedOut = true;
+                context.forks[i].expire();
+            }
+            task.result = null;
+            task.exception = null;
+            task.setError(new TimeoutException("Timed out after " + context.timeoutMillis
+                    + " ms"), errorCallback);
+            runNext(task);
+        }
+
+        private void removeTimeout(Context context) {
+            if (context.timeoutMillis > 0) {
+                WidgetLib.getMainThread().removeCallbacks(context.timeout);
+            }
+        }
+
+        private void finish(Task<?, ?> lastTask) {
+            if (lastTask != null && lastTask.hasException()) {
+                if (state.compareAndSet(State.RUNNING, State.ERROR)) {
                     Log.e(TAG, "Exception in the execution chain: %s",
-                          previousContext.task.exception);
-                    previousContext.task.exception.printStackTrace();
-                } else {
-                    state.set(State.STOPPED);
+                          lastTask.exception);
+                    lastTask.exception.printStackTrace();
+                    return;
                 }
+            } else if (state.compareAndSet(State.RUNNING, State.STOPPED)) {
+                return;
             }
+            // cancelled while the last stage was finishing
+            handleCancel();
         }
 
         private void handleCancel() {
             try {
-                final Runnable runnable = cancelRunnable.get();
+                final Runnable runnable = cancelRunnable.getAndSet(null);
                 if (runnable != null) {
                     runnable.run();
                 }
             } catch (Throwable t) {
             }
         }
+
+        private void timeCheck(Context context, String label) {
+            if (Log.isEnabled(Log.SUBSYSTEM.TRACING)) {
+                FPSCounter.timeCheck("ExecutionChain. " + context.type + label + context.task);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean execute(Task<?, ?> task, Task<?, ?> previousTask, AtomicInteger stage,
+            int ticket) {
+        return ((Task<Object, Object>) task).execute((Task<Object, ?>) previousTask, state,
+                errorCallback, stage, ticket);
     }
 
     private final GVRContext gvrContext;
-    private final List<Context<?, ?>> tasks = new ArrayList<Context<?, ?>>();
+    private final List<Context> tasks = new ArrayList<Context>();
     private final AtomicReference<State> state = new AtomicReference<State>(
             State.STOPPED);
     private ExecuteRunnable executeRunnable;
@@ -68,7 +68,9 @@ public class FPSCounter {
             long now = System.currentTimeMillis();
             long diff = now - nextCheckTime;
             nextCheckTime = now;
-            Log.d(Log.SUBSYSTEM.TRACING, "FPSCounter", "[%d, %d] timeCheck: %s", now, diff, extra);
+            if (Log.isEnabled(Log.SUBSYSTEM.TRACING)) {
+                Log.d(Log.SUBSYSTEM.TRACING, "FPSCounter", "[%d, %d] timeCheck: %s", now, diff, extra);
+            }
         }
     }
 
@@ -80,7 +82,9 @@ public class FPSCounter {
         if (startCheckTime > 0) {
             long now = System.currentTimeMillis();
             long diff = now - startCheckTime;
-            Log.d(Log.SUBSYSTEM.TRACING, "FPSCounter", "[%d, %d] stopCheck: %s", now, diff, extra);
+            if (Log.isEnabled(Log.SUBSYSTEM.TRACING)) {
+                Log.d(Log.SUBSYSTEM.TRACING, "FPSCounter", "[%d, %d] stopCheck: %s", now, diff, extra);
+            }
         }
         startCheckTime = 0;
         nextCheckTime = 0;
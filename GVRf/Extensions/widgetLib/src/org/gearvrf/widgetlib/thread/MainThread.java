@@ -34,7 +34,7 @@ public final class MainThread {
                 latch.countDown();
                 Looper.loop();
                 terminated = true;
-                sanityCheck(null);
+                sanityCheck(null, null);
             }
         };
         mainThread.start();
@@ -45,7 +45,7 @@ public final class MainThread {
      * Shuts down the main thread's looper using {@code Looper#quitSafely()}.
      */
     public void quit() {
-        if (!sanityCheck("quit")) {
+        if (!sanityCheck("quit", null)) {
             return;
         }
         handler.getLooper().quitSafely();
@@ -70,7 +70,7 @@ public final class MainThread {
      */
     public void removeCallbacks(Runnable r) {
         assert handler != null;
-        if (!sanityCheck("removeCallbacks " + r)) {
+        if (!sanityCheck("removeCallbacks", r)) {
             return;
         }
         handler.removeCallbacks(r);
@@ -89,10 +89,20 @@ public final class MainThread {
      */
     public boolean runOnMainThread(final Runnable r) {
         assert handler != null;
-        if (!sanityCheck("runOnMainThread " + r)) {
+        if (!sanityCheck("runOnMainThread", r)) {
             return false;
         }
 
+        if (!Log.isEnabled(Log.SUBSYSTEM.TRACING)) {
+            // no time checks to wrap the runnable with
+            if (isMainThread()) {
+                r.run();
+                return true;
+            } else {
+                return runOnMainThreadNext(r);
+            }
+        }
+
         Runnable wrapper =  new Runnable() {
             public void run() {
                 FPSCounter.timeCheck("runOnMainThread <START> " + r);
@@ -123,7 +133,7 @@ public final class MainThread {
     public boolean runOnMainThreadNext(Runnable r) {
         assert handler != null;
 
-        if (!sanityCheck("runOnMainThreadNext " + r)) {
+        if (!sanityCheck("runOnMainThreadNext", r)) {
             return false;
         }
         return handler.post(r);
@@ -146,7 +156,7 @@ public final class MainThread {
     public boolean runOnMainThreadAtTime(Runnable r, long uptimeMillis) {
         assert handler != null;
 
-        if (!sanityCheck("runOnMainThreadAtTime " + r)) {
+        if (!sanityCheck("runOnMainThreadAtTime", r)) {
             return false;
         }
         return handler.postAtTime(r, uptimeMillis);
@@ -167,7 +177,7 @@ public final class MainThread {
     public boolean runOnMainThreadDelayed(Runnable r, long delayMillis) {
         assert handler != null;
 
-        if (!sanityCheck("runOnMainThreadDelayed " + r + " delayMillis = " + delayMillis)) {
+        if (!sanityCheck("runOnMainThreadDelayed", r)) {
             return false;
         }
         return handler.postDelayed(r, delayMillis);
@@ -196,10 +206,10 @@ public final class MainThread {
         }
     }
 
-    private boolean sanityCheck(String taskName) {
+    private boolean sanityCheck(String operation, Runnable task) {
         if (terminated) {
             Log.d(TAG, "MainThread " + threadId + " already terminated" +
-                    (taskName == null ? "" : ", rejecting task " + taskName));
+                    (operation == null ? "" : ", rejecting " + operation + " " + task));
             return false;
         }
         return true;
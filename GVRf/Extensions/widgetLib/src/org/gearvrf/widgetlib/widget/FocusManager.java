@@ -6,7 +6,6 @@ import org.gearvrf.widgetlib.thread.FPSCounter;
 
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
-import org.gearvrf.GVRPicker;
 import org.gearvrf.GVRPicker.GVRPickedObject;
 import org.gearvrf.GVRScene;
 import org.gearvrf.GVRSceneObject;
@@ -237,7 +236,9 @@ public class FocusManager {
             FPSCounter.timeCheck("onDrawFrame <START>: " + this + " frameTime = " + frameTime);
 
             final GVRScene mainScene = mContext.getMainScene();
-            mPickedObjects = GVRPicker.pickObjects(mainScene, 0, 0, 0, 0, 0, -1.0f);
+            // shared with the gaze pickers casting the same ray this frame
+            mPickedObjects = mContext.getPickService().pickObjects(mainScene, null,
+                    0, 0, 0, 0, 0, -1.0f);
 
             WidgetLib.getMainThread().runOnMainThread(mFocusRunnable);
             FPSCounter.timeCheck("onDrawFrame <END>: " + this + " frameTime = " + frameTime);
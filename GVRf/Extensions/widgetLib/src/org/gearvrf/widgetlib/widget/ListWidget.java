@@ -678,6 +678,7 @@ public class ListWidget extends GroupWidget implements ScrollableList {
         private boolean mScrolling = false;
         private LayoutScroller.OnScrollListener mListener;
         private boolean mForce = false;
+        private final List<Widget> mMeasuredChildren = new ArrayList<>();
 
         private class ScrollAnimation extends Animation {
             private final float mShiftBy;
@@ -698,7 +699,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                 float shifted  = mShiftedBy;
                 mShiftedBy = ratio * mShiftBy;
                 mLayout.shiftBy(mShiftedBy - shifted, mAxis);
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "animate: target <%s> shift = %f axis = %s", target.getName(), mShiftedBy, mAxis);
+                if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "animate: target <%s> shift = %f axis = %s", target.getName(), mShiftedBy, mAxis);
+                }
 
                 switch(mAxis) {
                     case X:
@@ -759,7 +762,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                     }
                 }
             }
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "preMeasure direction = %s offset = %f axis = %s", direction, offset, axis);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "preMeasure direction = %s offset = %f axis = %s", direction, offset, axis);
+            }
             return offset;
         }
 
@@ -823,7 +828,8 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             for (Layout layout: mContent.mLayouts) {
                 // measure all directions. Finally measuredChildren has to contain all
                 // views required for shifting toward the scrolling position.
-                List<Widget> measuredChildren = new ArrayList<>();
+                List<Widget> measuredChildren = mMeasuredChildren;
+                measuredChildren.clear();
                 float xOffset = preMeasure(layout, Axis.X, measuredChildren);
                 float yOffset = preMeasure(layout, Axis.Y, measuredChildren);
                 float zOffset = preMeasure(layout, Axis.Z, measuredChildren);
@@ -832,9 +838,11 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                     continue;
                 }
 
-                for (Widget view: measuredChildren) {
-                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measured item: %s set in layout xOffset= %f yOffset= %f zOffset= %f",
-                          view.getName(), xOffset, yOffset, zOffset);
+                if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                    for (Widget view : measuredChildren) {
+                        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measured item: %s set in layout xOffset= %f yOffset= %f zOffset= %f",
+                              view.getName(), xOffset, yOffset, zOffset);
+                    }
                 }
 
                 startShifting(builder, layout, xOffset, Axis.X);
@@ -934,11 +942,15 @@ public class ListWidget extends GroupWidget implements ScrollableList {
         host.requestLayout();
 
         if (mContent.getChildren().contains(host)) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setupItem(%s): added item(%s) at dataIndex [%d]",
-                    getName(), view.getName(), dataIndex);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setupItem(%s): added item(%s) at dataIndex [%d]",
+                        getName(), view.getName(), dataIndex);
+            }
         } else {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setupItem(%s): reuse item(%s) at dataIndex [%d]",
-                    getName(), view.getName(), dataIndex);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setupItem(%s): reuse item(%s) at dataIndex [%d]",
+                        getName(), view.getName(), dataIndex);
+            }
         }
     }
 
@@ -1054,9 +1066,11 @@ public class ListWidget extends GroupWidget implements ScrollableList {
          * @param dataIndex data index in adapter
          */
         public void setGuest(Widget guest, int dataIndex) {
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setHostedWidget(%s): hosting [%s], same: %b", getName(),
-                        guest == null ? "<null>" : guest.getName(),
-                        guest == mGuestWidget);
+                if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setHostedWidget(%s): hosting [%s], same: %b", getName(),
+                            guest == null ? "<null>" : guest.getName(),
+                            guest == mGuestWidget);
+                }
             if (guest != mGuestWidget) {
                 if (mGuestWidget != null && mGuestWidget.getParent() == this) {
                     removeChild(mGuestWidget, true);
@@ -1116,8 +1130,10 @@ public class ListWidget extends GroupWidget implements ScrollableList {
                 Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onTransformChanged inViewPort [%s], visible = %b",
                         getName(), inViewport);
                 if (inViewport) {
-                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onTransformChanged: FULLY_VISIBLE [%s] position = [%f, %f, %f]",
-                            getName(), getPositionX(), getPositionY(), getPositionZ());
+                    if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onTransformChanged: FULLY_VISIBLE [%s] position = [%f, %f, %f]",
+                                getName(), getPositionX(), getPositionY(), getPositionZ());
+                    }
                     setViewPortVisibility(ViewPortVisibility.FULLY_VISIBLE);
 
                 } else if (getViewPortVisibility() != ViewPortVisibility.INVISIBLE) {
@@ -1146,8 +1162,10 @@ public class ListWidget extends GroupWidget implements ScrollableList {
 
         @Override
         public void setSelected(final boolean selected) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "host.setSelected [%s] index = %d selected [%b]",
-                    this, getDataIndex(), selected);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "host.setSelected [%s] index = %d selected [%b]",
+                        this, getDataIndex(), selected);
+            }
 
             super.setSelected(selected);
             if (!isRecycled()) {
@@ -1275,9 +1293,11 @@ public class ListWidget extends GroupWidget implements ScrollableList {
             listener.onChangedStart(this);
         }
 
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedImpl(%s): items [%d] views [%d] mLayouts.size() = %d " +
-                        "preferableCenterPosition = %d",
-                getName(), getDataCount(), getViewCount(), mContent.mLayouts.size(), preferableCenterPosition);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedImpl(%s): items [%d] views [%d] mLayouts.size() = %d " +
+                            "preferableCenterPosition = %d",
+                    getName(), getDataCount(), getViewCount(), mContent.mLayouts.size(), preferableCenterPosition);
+        }
 
         // TODO: selectively recycle data based on the changes in the data set
         mPreferableCenterPosition = preferableCenterPosition;
@@ -1383,8 +1403,10 @@ public class ListWidget extends GroupWidget implements ScrollableList {
         @Override
         public void onTransformChanged() {
             super.onTransformChanged();
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "mContent onTransformChanged: position = [%f, %f, %f]",
-                    getPositionX(), getPositionY(), getPositionZ());
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "mContent onTransformChanged: position = [%f, %f, %f]",
+                        getPositionX(), getPositionY(), getPositionZ());
+            }
 
         }
     }
@@ -1486,7 +1508,9 @@ public class ListWidget extends GroupWidget implements ScrollableList {
     private OnFocusListener mOnFocusListener = new OnFocusListener() {
         @Override
         public boolean onFocus(final Widget widget, final boolean focused) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onFocus(%s) widget= %s focused [%b]", getName(), widget, focused);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onFocus(%s) widget= %s focused [%b]", getName(), widget, focused);
+            }
             Widget parent = widget.getParent();
             if (parent instanceof ListItemHostWidget) {
                 int dataIndex = ((ListItemHostWidget) parent).getDataIndex();
@@ -1521,8 +1545,10 @@ public class ListWidget extends GroupWidget implements ScrollableList {
     private OnTouchListener mOnTouchListener = new OnTouchListener() {
         @Override
         public boolean onTouch(Widget widget, final float[] coords) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onTouch(%s) widget= %s mSelectOnTouchEnabled=%b ",
-                    getName(), widget, mSelectOnTouchEnabled);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onTouch(%s) widget= %s mSelectOnTouchEnabled=%b ",
+                        getName(), widget, mSelectOnTouchEnabled);
+            }
             Widget parent = widget.getParent();
             if (parent instanceof ListItemHostWidget) {
                 ListItemHostWidget host = (ListItemHostWidget) parent;
@@ -233,9 +233,11 @@ public class TouchManager {
                             h.touch(sceneObject, hit) :
                             h.onBackKey(sceneObject, hit);
 
-                    Log.d(Log.SUBSYSTEM.INPUT, TAG,
-                            "handleClick(): handler for '%s' hit = %s handled event: %b",
-                            sceneObject.getName(), hit, isClickableItem);
+                    if (Log.isEnabled(Log.SUBSYSTEM.INPUT)) {
+                        Log.d(Log.SUBSYSTEM.INPUT, TAG,
+                                "handleClick(): handler for '%s' hit = %s handled event: %b",
+                                sceneObject.getName(), hit, isClickableItem);
+                    }
 
                 } else {
                     Log.e(Log.SUBSYSTEM.INPUT, TAG, "handleClick(): No handler or displayID for %s",
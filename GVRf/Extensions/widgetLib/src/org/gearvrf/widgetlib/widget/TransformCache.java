@@ -29,28 +29,22 @@ public class TransformCache {
     }
 
     public boolean save(GVRTransform transform, boolean notify) {
+        final float[] trs = transform.getLocal(mTrs);
         if (notify) {
-            return setPosX(transform.getPositionX())
-                    | setPosY(transform.getPositionY())
-                    | setPosZ(transform.getPositionZ())
-                    | setRotW(transform.getRotationW())
-                    | setRotX(transform.getRotationX())
-                    | setRotY(transform.getRotationY())
-                    | setRotZ(transform.getRotationZ())
-                    | setScaleX(transform.getScaleX())
-                    | setScaleY(transform.getScaleY())
-                    | setScaleZ(transform.getScaleZ());
+            return setPosX(trs[0])
+                    | setPosY(trs[1])
+                    | setPosZ(trs[2])
+                    | setRotW(trs[3])
+                    | setRotX(trs[4])
+                    | setRotY(trs[5])
+                    | setRotZ(trs[6])
+                    | setScaleX(trs[7])
+                    | setScaleY(trs[8])
+                    | setScaleZ(trs[9]);
         } else {
-            mPosition.x = transform.getPositionX();
-            mPosition.y = transform.getPositionY();
-            mPosition.z = transform.getPositionZ();
-            mRotation.w = transform.getRotationW();
-            mRotation.x = transform.getRotationX();
-            mRotation.y = transform.getRotationY();
-            mRotation.z = transform.getRotationZ();
-            mScale.x = transform.getScaleX();
-            mScale.y = transform.getScaleY();
-            mScale.z = transform.getScaleZ();
+            mPosition.set(trs[0], trs[1], trs[2]);
+            mRotation.set(trs[4], trs[5], trs[6], trs[3]);
+            mScale.set(trs[7], trs[8], trs[9]);
             return false;
         }
     }
@@ -62,16 +56,17 @@ public class TransformCache {
     }
 
     public boolean changed(final GVRTransform transform) {
-        return !(equal(getPosX(), transform.getPositionX())
-                && equal(getPosY(), transform.getPositionY())
-                && equal(getPosZ(), transform.getPositionZ())
-                && equal(getRotW(), transform.getRotationW())
-                && equal(getRotX(), transform.getRotationX())
-                && equal(getRotY(), transform.getRotationY())
-                && equal(getRotZ(), transform.getRotationZ())
-                && equal(getScaleX(), transform.getScaleX())
-                && equal(getScaleY(), transform.getScaleY())
-                && equal(getScaleZ(), transform.getScaleZ()));
+        final float[] trs = transform.getLocal(mTrs);
+        return !(equal(getPosX(), trs[0])
+                && equal(getPosY(), trs[1])
+                && equal(getPosZ(), trs[2])
+                && equal(getRotW(), trs[3])
+                && equal(getRotX(), trs[4])
+                && equal(getRotY(), trs[5])
+                && equal(getRotZ(), trs[6])
+                && equal(getScaleX(), trs[7])
+                && equal(getScaleY(), trs[8])
+                && equal(getScaleZ(), trs[9]));
     }
 
     public void save(final Widget widget) {
@@ -358,4 +353,7 @@ public class TransformCache {
     private Quaternionf mRotation = new Quaternionf();
 
     private Vector3f mScale = new Vector3f();
+
+    // scratch for GVRTransform.getLocal()
+    private final float[] mTrs = new float[GVRTransform.TRS_SIZE];
 }
@@ -886,8 +886,10 @@ public class Widget implements Layout.WidgetContainer {
             Log.w(TAG, "Clipping has been enabled already for %s!", getName());
             return;
         }
-        Log.d(Log.SUBSYSTEM.WIDGET, TAG, "enableClipping for %s [%f, %f, %f]",
-                getName(), getViewPortWidth(), getViewPortHeight(), getViewPortDepth());
+        if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+            Log.d(Log.SUBSYSTEM.WIDGET, TAG, "enableClipping for %s [%f, %f, %f]",
+                    getName(), getViewPortWidth(), getViewPortHeight(), getViewPortDepth());
+        }
 
         mClippingEnabled = true;
 
@@ -994,7 +996,9 @@ public class Widget implements Layout.WidgetContainer {
         for (Layout layout : mLayouts) {
             size = Math.max(size, layout.getSize(axis));
         }
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getLayoutSize [%s] axis [%s] size [%f]", getName(), axis, size);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getLayoutSize [%s] axis [%s] size [%f]", getName(), axis, size);
+        }
         return size;
     }
 
@@ -1843,10 +1847,12 @@ public class Widget implements Layout.WidgetContainer {
     public void requestLayout() {
         mLayoutRequested = true;
 
-        Log.v(Log.SUBSYSTEM.LAYOUT, TAG,
-                "requestLayout(%s): mParent: '%s', mParent.isLayoutRequested: %b",
-                getName(), mParent == null ? "<NULL>" : mParent.getName(),
-                mParent != null && mParent.isLayoutRequested());
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.v(Log.SUBSYSTEM.LAYOUT, TAG,
+                    "requestLayout(%s): mParent: '%s', mParent.isLayoutRequested: %b",
+                    getName(), mParent == null ? "<NULL>" : mParent.getName(),
+                    mParent != null && mParent.isLayoutRequested());
+        }
 
         if (mParent != null && !mParent.isLayoutRequested()) {
             Log.v(Log.SUBSYSTEM.LAYOUT, TAG, "requestLayout(%s) requesting", getName());
@@ -2205,9 +2211,11 @@ public class Widget implements Layout.WidgetContainer {
         final boolean hasStates = has(metaData, Properties.states);
         final boolean hasLevels = has(metaData, Properties.levels);
         final boolean hasLevel = has(metaData, Properties.level);
-        Log.d(Log.SUBSYSTEM.WIDGET, TAG,
-                "setupStatesAndLevels(): for '%s'; states: %b, levels %b, level %b",
-                getName(), hasStates, hasLevels, hasLevel);
+        if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+            Log.d(Log.SUBSYSTEM.WIDGET, TAG,
+                    "setupStatesAndLevels(): for '%s'; states: %b, levels %b, level %b",
+                    getName(), hasStates, hasLevels, hasLevel);
+        }
         if (hasStates) {
             if (hasLevels || hasLevel) {
                 throw RuntimeAssertion("Invalid metadata for '%s': both 'states' and 'levels' are present",
@@ -2353,9 +2361,11 @@ public class Widget implements Layout.WidgetContainer {
             mTransformCache = new TransformCache(this);
             mRenderDataCache = new RenderDataCache(mSceneObject);
 
-            Log.v(Log.SUBSYSTEM.WIDGET, TAG,
-                    "Widget(context, properties): %s (%s) width = %f height = %f depth = %f",
-                    getName(), mSceneObject.getName(), getWidth(), getHeight(), getDepth());
+            if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+                Log.v(Log.SUBSYSTEM.WIDGET, TAG,
+                        "Widget(context, properties): %s (%s) width = %f height = %f depth = %f",
+                        getName(), mSceneObject.getName(), getWidth(), getHeight(), getDepth());
+            }
 
             Log.d(Log.SUBSYSTEM.WIDGET, TAG,
                     "Widget(context, properties): setting up metadata for %s: %s",
@@ -2492,8 +2502,10 @@ public class Widget implements Layout.WidgetContainer {
 
         final boolean oldFocus = mIsFocused;
 
-        Log.v(Log.SUBSYSTEM.WIDGET, TAG, "doOnFocus(%s): mIsFocused: %b, focused: %b", getName(),
-                mIsFocused, focused);
+        if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+            Log.v(Log.SUBSYSTEM.WIDGET, TAG, "doOnFocus(%s): mIsFocused: %b, focused: %b", getName(),
+                    mIsFocused, focused);
+        }
 
 
         final List<OnFocusListener> focusListeners;
@@ -2676,8 +2688,10 @@ public class Widget implements Layout.WidgetContainer {
         if (getSceneObject() == sceneObject) {
             final boolean handlesEvent = !handler.followsParentEvent(this)
                     && !handler.isInFollowEventGroup();
-            Log.d(Log.SUBSYSTEM.WIDGET, TAG, "handlesEventFor(%s): handles '%s' for scene object %s",
-                    getName(), handler.getName(), sceneObject.getName());
+            if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+                Log.d(Log.SUBSYSTEM.WIDGET, TAG, "handlesEventFor(%s): handles '%s' for scene object %s",
+                        getName(), handler.getName(), sceneObject.getName());
+            }
             return handlesEvent;
         } else {
             final boolean childrenFollowEvent = handler
@@ -2686,9 +2700,11 @@ public class Widget implements Layout.WidgetContainer {
                 if ((childrenFollowEvent || handler.followsParentEvent(child))
                         && (child.isSceneObject(sceneObject) || handler
                         .handlesEvent(child, sceneObject))) {
-                    Log.d(Log.SUBSYSTEM.WIDGET, TAG,
-                            "handlesEventFor(%s): handles '%s' for child '%s'",
-                            getName(), handler.getName(), child.getName());
+                    if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+                        Log.d(Log.SUBSYSTEM.WIDGET, TAG,
+                                "handlesEventFor(%s): handles '%s' for child '%s'",
+                                getName(), handler.getName(), child.getName());
+                    }
                     return true;
                 }
             }
@@ -2765,9 +2781,11 @@ public class Widget implements Layout.WidgetContainer {
             mTouchHandler = new OnTouchImpl();
         }
 
-        Log.d(Log.SUBSYSTEM.INPUT, TAG,
-                "registerPickable(%s): mParent: %s, hasRenderData: %b, mIsTouchable: %b, mFocusEnabled: %b",
-                getName(), mParent, hasRenderData, mIsTouchable, mFocusEnabled);
+        if (Log.isEnabled(Log.SUBSYSTEM.INPUT)) {
+            Log.d(Log.SUBSYSTEM.INPUT, TAG,
+                    "registerPickable(%s): mParent: %s, hasRenderData: %b, mIsTouchable: %b, mFocusEnabled: %b",
+                    getName(), mParent, hasRenderData, mIsTouchable, mFocusEnabled);
+        }
         if (mParent != null && hasRenderData && (mIsTouchable || mFocusEnabled)) {
             if (mIsTouchable) {
                 Log.d(Log.SUBSYSTEM.INPUT, TAG, "registerPickable(%s): making touchable", getName());
@@ -3420,7 +3438,7 @@ public class Widget implements Layout.WidgetContainer {
 
         for (Widget child : getChildren()) {
             if (child.layout()) {
-                invalidateAllLayouts();
+                invalidateAllLayoutSizes(child);
                 runLayout = true;
             }
         }
@@ -3443,10 +3461,12 @@ public class Widget implements Layout.WidgetContainer {
                     !equal(oldHeight, newHeight) ||
                     !equal(oldDepth, newDepth);
 
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onLayout: layout changed %s " +
-                            "old = [%f, %f, %f] new [%f, %f, %f]!",
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onLayout: layout changed %s " +
+                                "old = [%f, %f, %f] new [%f, %f, %f]!",
 
-                    getName(), oldWidth, oldHeight, oldDepth, newWidth, newHeight, newDepth);
+                        getName(), oldWidth, oldHeight, oldDepth, newWidth, newHeight, newDepth);
+            }
         } else {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onLayout: layout is not changed %s!", getName());
         }
@@ -3501,8 +3521,10 @@ public class Widget implements Layout.WidgetContainer {
     @SuppressLint("WrongCall")
     protected boolean layout() {
         boolean relaidout = false;
-        Log.v(Log.SUBSYSTEM.LAYOUT, TAG, "layout(%s): changed: %b, requested: %b", getName(),
-                isChanged(), mLayoutRequested);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.v(Log.SUBSYSTEM.LAYOUT, TAG, "layout(%s): changed: %b, requested: %b", getName(),
+                    isChanged(), mLayoutRequested);
+        }
 
         if (isChanged() || mLayoutRequested) {
             Log.v(Log.SUBSYSTEM.LAYOUT, TAG, "layout(%s): calling onLayout", getName());
@@ -3578,6 +3600,18 @@ public class Widget implements Layout.WidgetContainer {
         });
     }
 
+    protected void invalidateLayoutSize(final Layout layout, final Widget child) {
+        runOnGlThread(new Runnable() {
+            @Override
+            public void run() {
+                int dataIndex = getDataIndex(child);
+                if (dataIndex != -1 && mLayouts.contains(layout)) {
+                    layout.invalidateSize(dataIndex);
+                }
+            }
+        });
+    }
+
     public void invalidateAllLayouts() {
         for (Layout layout: mLayouts) {
             invalidateLayout(layout);
@@ -3590,6 +3624,17 @@ public class Widget implements Layout.WidgetContainer {
         }
     }
 
+    /**
+     * Invalidate the size of the child in all layouts after the child has changed its size. The
+     * child stays measured in the layouts which can update its size in place.
+     * @param child {@link Widget} whose size has changed
+     */
+    protected void invalidateAllLayoutSizes(Widget child) {
+        for (Layout layout : mLayouts) {
+            invalidateLayoutSize(layout, child);
+        }
+    }
+
     /**
      * Any layout is valid by default. Subclass can override the method to add new check
      */
@@ -3646,7 +3691,9 @@ public class Widget implements Layout.WidgetContainer {
     }
 
     private void updateViewPort(float size, Layout.Axis axis) {
-        Log.d(Log.SUBSYSTEM.WIDGET, TAG, "Widget[%s] setViewPort : viewport = %s size = %f", this, mViewPort, size);
+        if (Log.isEnabled(Log.SUBSYSTEM.WIDGET)) {
+            Log.d(Log.SUBSYSTEM.WIDGET, TAG, "Widget[%s] setViewPort : viewport = %s size = %f", this, mViewPort, size);
+        }
         if (mViewPort.get(axis) != size) {
             mViewPort.set(size, axis);
             for (Layout layout : mLayouts) {
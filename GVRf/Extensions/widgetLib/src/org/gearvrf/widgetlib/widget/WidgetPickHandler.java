@@ -307,8 +307,10 @@ class WidgetPickHandler implements GVRInputManager.ICursorControllerSelectListen
 
             public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX,
                                    float velocityY) {
-                Log.d(Log.SUBSYSTEM.INPUT, TAG, "onFling event1: " + e1 + " event2: " + e2
-                        + " velocityX = " + velocityX + " velocityY = " + velocityY);
+                if (Log.isEnabled(Log.SUBSYSTEM.INPUT)) {
+                    Log.d(Log.SUBSYSTEM.INPUT, TAG, "onFling event1: %s event2: %s velocityX = %f velocityY = %f",
+                            e1, e2, velocityX, velocityY);
+                }
                 setFling(e1, e2, velocityX, velocityY);
                 return true;
             }
@@ -319,8 +321,10 @@ class WidgetPickHandler implements GVRInputManager.ICursorControllerSelectListen
 
             public boolean onScroll(MotionEvent e1, MotionEvent e2,
                                     float distanceX, float distanceY) {
-                Log.d(Log.SUBSYSTEM.INPUT, TAG, "onScroll e1 = %s, e2 = %s distanceX = %f, distanceY = %f",
-                        e1, e2, distanceX, distanceY);
+                if (Log.isEnabled(Log.SUBSYSTEM.INPUT)) {
+                    Log.d(Log.SUBSYSTEM.INPUT, TAG, "onScroll e1 = %s, e2 = %s distanceX = %f, distanceY = %f",
+                            e1, e2, distanceX, distanceY);
+                }
                 return true;
             }
 
@@ -453,9 +453,11 @@ public class MultiPageWidget extends ListWidget {
      * @param adapter
      */
     protected void recalculateViewPort(final Adapter adapter) {
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "recalculateViewPort mMaxVisiblePageCount = %d mAdapter =%s " +
-                        "mAdapter.hasUniformViewSize() = %b",
-                mMaxVisiblePageCount, adapter, (adapter != null ? adapter.hasUniformViewSize() : false));
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "recalculateViewPort mMaxVisiblePageCount = %d mAdapter =%s " +
+                            "mAdapter.hasUniformViewSize() = %b",
+                    mMaxVisiblePageCount, adapter, (adapter != null ? adapter.hasUniformViewSize() : false));
+        }
 
         if (mMaxVisiblePageCount < Integer.MAX_VALUE && adapter != null && adapter.hasUniformViewSize()) {
             int num = Math.min(mMaxVisiblePageCount, adapter.getCount());
@@ -628,8 +630,10 @@ public class MultiPageWidget extends ListWidget {
 
     private void setAdapter(ListWidget page, final int pageIndex, final Adapter adapter) {
         if (adapter == null) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setAdapter page[%d] = %s adapter = %s",
-                    pageIndex, page, adapter);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setAdapter page[%d] = %s adapter = %s",
+                        pageIndex, page, adapter);
+            }
 
             page.setAdapter(null);
         } else if (page.mAdapter == null ||
@@ -678,8 +682,10 @@ public class MultiPageWidget extends ListWidget {
                     ListWidget prevPage = (ListWidget)getItem(mPageIndex - 1);
                     start = prevPage.getAllViews().size();
                 }
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedStart list = %s , index = %d start = %d",
-                        list, mPageIndex, start);
+                if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedStart list = %s , index = %d start = %d",
+                            list, mPageIndex, start);
+                }
                 adapter.setStart(start);
             } else {
                 Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedStart list = %s , index = %d adapter is null ",
@@ -692,8 +698,10 @@ public class MultiPageWidget extends ListWidget {
             if (list.mAdapter != null && numOfMeasuredViews > 0) {
                 SelectingAdapter adapter = ((SelectingAdapter) list.mAdapter);
 
-                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedFinished list = %s , index = %d end = %d",
-                        list, mPageIndex, numOfMeasuredViews);
+                if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                    Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "onChangedFinished list = %s , index = %d end = %d",
+                            list, mPageIndex, numOfMeasuredViews);
+                }
                 adapter.setLength(numOfMeasuredViews);
                 selectItems(list, getLocalSelectedItemsList(adapter), true);
 
@@ -731,22 +739,28 @@ public class MultiPageWidget extends ListWidget {
 
         void setBounds(int start, int length) {
             int end = start + length - 1;
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setBounds  old [%d, %d] new [%d, %d]",
-                    mStart, mEnd, start, end);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setBounds  old [%d, %d] new [%d, %d]",
+                        mStart, mEnd, start, end);
+            }
             mStart = start;
             mEnd = end;
         }
 
         void setStart(int start) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setStart  old [%d, %d] new [%d, %d]",
-                    mStart, mEnd, start, mEnd);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setStart  old [%d, %d] new [%d, %d]",
+                        mStart, mEnd, start, mEnd);
+            }
             mStart = start;
         }
 
         void setLength(int length) {
             int end = mStart + length - 1;
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setLength  old [%d, %d] new [%d, %d]",
-                    mStart, mEnd, mStart, end);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "setLength  old [%d, %d] new [%d, %d]",
+                        mStart, mEnd, mStart, end);
+            }
             mEnd = end;
         }
 
@@ -785,8 +799,10 @@ public class MultiPageWidget extends ListWidget {
 
         @Override
         public Widget getView(int position, Widget convertView, GroupWidget parent) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getView pos = %d, realPos = %d start = %d, end = %d",
-                    position, getGlobalPosition(position), mStart, mEnd);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getView pos = %d, realPos = %d start = %d, end = %d",
+                        position, getGlobalPosition(position), mStart, mEnd);
+            }
             return mAdapter.getView(getGlobalPosition(position), convertView, parent);
         }
 
@@ -859,8 +875,10 @@ public class MultiPageWidget extends ListWidget {
 
         boolean select = !isSelected(globalPosition);
 
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "selectItem dataIndex [%d] global [%d]  select [%b]",
-                dataIndex, globalPosition, select);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "selectItem dataIndex [%d] global [%d]  select [%b]",
+                    dataIndex, globalPosition, select);
+        }
 
         return updateSelectedItemsList(globalPosition, select) ?
                 page.selectItem(dataIndex, select) : false;
@@ -177,6 +177,23 @@ public interface CacheDataSet {
      */
     float setDataAfter(final int id, float alignment);
 
+    /**
+     * Calculates and sets the offsets for all CacheData, positioning them one after another
+     * starting at the alignment
+     * @param alignment start offset of the first CacheData
+     * @return end offset of the last CacheData
+     */
+    float setAllDataAfter(float alignment);
+
+    /**
+     * Changes the size of the data record in place. The offsets of the records after it
+     * are moved by the size difference.
+     * @param id CacheData id
+     * @param size new size
+     * @return true if the record exists, false otherwise
+     */
+    boolean setDataSize(final int id, final float size);
+
     /**
      * Gets data record id by position
      * @param pos
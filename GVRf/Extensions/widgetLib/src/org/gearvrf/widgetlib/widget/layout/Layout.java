@@ -11,11 +11,11 @@ import static org.gearvrf.widgetlib.main.Utility.equal;
 
 
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransformBatch;
 import org.gearvrf.utility.RuntimeAssertion;
 
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -135,6 +135,16 @@ abstract public class Layout {
         }
     }
 
+    /**
+     * Invalidate the size of the item in layout. The item stays measured, its cached size is
+     * updated and the items after it are moved. Layouts which cannot update the size in place
+     * remove the item like {@link #invalidate(int)} does.
+     * @param dataIndex data index
+     */
+    public void invalidateSize(final int dataIndex) {
+        invalidate(dataIndex);
+    }
+
     /**
      * Gets layout name
      * @return layout name
@@ -336,7 +346,7 @@ abstract public class Layout {
      * @param dataIndex
      * @return
      */
-    synchronized public boolean isChildMeasured(final int dataIndex) {
+    public boolean isChildMeasured(final int dataIndex) {
         boolean ret;
         synchronized (mMeasuredChildren) {
             ret = mMeasuredChildren.contains(dataIndex);
@@ -381,10 +391,12 @@ abstract public class Layout {
                 }
             }
 
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measureUntilFull: measureChild view = %s " +
-                            "isBounds = %b  dataIndex = %d childChanged = %b, viewport = %s",
-                    view == null ? "<null>" : view.getName(), inBounds,
-                    i, childChanged, mViewPort);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measureUntilFull: measureChild view = %s " +
+                                "isBounds = %b  dataIndex = %d childChanged = %b, viewport = %s",
+                        view == null ? "<null>" : view.getName(), inBounds,
+                        i, childChanged, mViewPort);
+            }
 
             if (view != null && inBounds) {
                 if (measuredChildren != null) {
@@ -421,21 +433,35 @@ abstract public class Layout {
      */
     public void layoutChildren() {
 
-        Set<Integer> copySet;
+        int[] measured;
+        int count = 0;
         synchronized (mMeasuredChildren) {
             Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "layoutChildren [%d] layout = %s",
                     mMeasuredChildren.size(), this);
-            copySet = new HashSet<>(mMeasuredChildren);
-        }
-        for (int nextMeasured: copySet) {
-            Widget child = mContainer.get(nextMeasured);
-            if (child != null) {
-                child.preventTransformChanged(true);
-                layoutChild(nextMeasured);
-                postLayoutChild(nextMeasured);
-                child.preventTransformChanged(false);
+            measured = mLayoutSnapshot;
+            if (measured.length < mMeasuredChildren.size()) {
+                measured = mLayoutSnapshot = new int[mMeasuredChildren.size() * 2];
+            }
+            for (int dataIndex : mMeasuredChildren) {
+                measured[count++] = dataIndex;
             }
+        }
+        // the children's transforms go to native code in one call
+        mTransformBatch.begin();
+        try {
+            for (int i = 0; i < count; ++i) {
+                final int nextMeasured = measured[i];
+                Widget child = mContainer.get(nextMeasured);
+                if (child != null) {
+                    child.preventTransformChanged(true);
+                    layoutChild(nextMeasured);
+                    postLayoutChild(nextMeasured);
+                    child.preventTransformChanged(false);
+                }
 
+            }
+        } finally {
+            mTransformBatch.end();
         }
     }
 
@@ -705,6 +731,8 @@ abstract public class Layout {
     protected Vector3Axis mOffset = new Vector3Axis();
     protected WidgetContainer mContainer;
     protected Set<Integer> mMeasuredChildren = new LinkedHashSet<>();
+    private int[] mLayoutSnapshot = new int[0];
+    private final GVRTransformBatch mTransformBatch = new GVRTransformBatch();
 
     protected Layout() {
     }
@@ -739,7 +767,9 @@ abstract public class Layout {
      */
     protected float getViewPortSize(final Axis axis) {
         float size =  mViewPort == null ? 0 : mViewPort.get(axis);
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getViewPortSize for %s %f mViewPort = %s", axis, size, mViewPort);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getViewPortSize for %s %f mViewPort = %s", axis, size, mViewPort);
+        }
         return size;
     }
 
@@ -833,17 +863,21 @@ abstract public class Layout {
     }
 
     protected void updateTransform(Widget child, Axis axis, float offset) {
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "updateTransform [%s], offset = [%f], axis = [%s]",
-                child.getName(), offset, axis);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "updateTransform [%s], offset = [%f], axis = [%s]",
+                    child.getName(), offset, axis);
+        }
 
         if (Float.isNaN(offset)) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Position is NaN" + axis);
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Position is NaN for axis %s", axis);
         } else {
             offset -= mViewPort.getShift(axis);
             offset *= getFactor(axis);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "child [%s] position = [%f, %f, %f] offset = %f, axis = %s",
-                    child.getName(), child.getPositionX(), child.getPositionY(), child.getPositionZ(),
-                    offset, axis);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "child [%s] position = [%f, %f, %f] offset = %f, axis = %s",
+                        child.getName(), child.getPositionX(), child.getPositionY(), child.getPositionZ(),
+                        offset, axis);
+            }
 
             switch (axis) {
                 case X:
@@ -223,9 +223,11 @@ public class LayoutScroller {
         float xOffset = (maxX * velocityX)/VELOCITY_MAX;
         float yOffset = (maxY * velocityY)/VELOCITY_MAX;
 
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "fling() velocity = [%f, %f, %f] offset = [%f, %f]",
-                velocityX, velocityY, velocityZ,
-                xOffset, yOffset);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "fling() velocity = [%f, %f, %f] offset = [%f, %f]",
+                    velocityX, velocityY, velocityZ,
+                    xOffset, yOffset);
+        }
 
         if (equal(xOffset, 0)) {
             xOffset = Float.NaN;
@@ -110,8 +110,10 @@ public abstract class OrientedLayout extends AbsoluteLayout {
         Widget child = mContainer.get(dataIndex);
         if (child != null) {
             final float childOffset = getDataOffset(dataIndex);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "positionChild [%d] %s : childOffset = [%f] factor: [%f] layout: %s",
-                    dataIndex, child.getName(), childOffset, getFactor(getOrientationAxis()), this);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "positionChild [%d] %s : childOffset = [%f] factor: [%f] layout: %s",
+                        dataIndex, child.getName(), childOffset, getFactor(getOrientationAxis()), this);
+            }
 
             updateTransform(child, getOrientationAxis(), childOffset + mOffset.get(getOrientationAxis()));
         } else {
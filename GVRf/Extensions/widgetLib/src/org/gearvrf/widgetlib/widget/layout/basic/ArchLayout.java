@@ -141,11 +141,13 @@ public class ArchLayout extends OrientedLayout {
     }
 
     protected void updateTransform(Widget child, final Axis axis, float offset) {
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "updateTransform [%s], offset = [%f], axis = [%s]",
-                child.getName(), offset, axis);
+        if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "updateTransform [%s], offset = [%f], axis = [%s]",
+                    child.getName(), offset, axis);
+        }
 
         if (Float.isNaN(offset)) {
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Position is NaN for axis " + axis);
+            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "Position is NaN for axis %s", axis);
         } else {
             float factor = getFactor(axis);
             switch (axis) {
@@ -152,8 +152,10 @@ public class GridLayout extends OrientedLayout {
                 cache = new LinearCacheDataSet(mOuterPaddingEnabled);
                 mCaches.put(cacheId, cache);
             }
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measureChild [%d] orientation = %s cacheId = %d cache.count = %d",
-                    dataIndex, getOrientation(), cacheId, cache.count());
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "measureChild [%d] orientation = %s cacheId = %d cache.count = %d",
+                        dataIndex, getOrientation(), cacheId, cache.count());
+            }
 
             Widget w = measureChild(dataIndex, calculateOffset, cache);
             if (mForcePostMeasurement) {
@@ -215,6 +217,7 @@ public class GridLayout extends OrientedLayout {
             return ret;
         }
 
+        @Override
         protected CacheDataSet getCache(final int dataIndex) {
             for (int i = mCaches.size(); --i >=0; ) {
                 CacheDataSet cache = mCaches.valueAt(i);
@@ -305,7 +308,9 @@ public class GridLayout extends OrientedLayout {
         @Override
         public void shiftBy(final float offset, final Axis axis) {
             super.shiftBy(offset, axis);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy offset = %f axis = %s layout = %s", offset, axis, this);
+            if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
+                Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy offset = %f axis = %s layout = %s", offset, axis, this);
+            }
 
             if (!Float.isNaN(offset) && axis == getOrientationAxis()) {
                 for (int i = mCaches.size(); --i >=0; ) {
@@ -520,6 +525,12 @@ public class GridLayout extends OrientedLayout {
         super.invalidate(dataIndex);
     }
 
+    @Override
+    public void invalidateSize(final int dataIndex) {
+        mRowLayout.invalidateSize(dataIndex);
+        mColumnLayout.invalidateSize(dataIndex);
+    }
+
 
     @Override
     public void layoutChild(final int dataIndex) {
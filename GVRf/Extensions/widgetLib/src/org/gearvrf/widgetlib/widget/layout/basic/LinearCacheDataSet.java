@@ -6,12 +6,19 @@ import org.gearvrf.widgetlib.log.Log;
 import org.gearvrf.widgetlib.widget.layout.CacheData;
 import org.gearvrf.widgetlib.widget.layout.CacheDataSet;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Implementation of CacheDataSet for LinearLayout
+ *
+ * Records are kept in an array of slots in layout order. New records are usually added at
+ * either end, so there is free space on both sides of the used slots. Two Fenwick trees over
+ * the slots keep the number of records and the size with padding of the records before each
+ * slot, so the position, offset and total size of any record is found in O(log n).
+ *
+ * The offsets are not stored per record. Only the start offset of the first record is stored,
+ * the others are derived from the sizes before them. Shifting the content, setting the offset
+ * of one record or changing the size of one record is O(log n) and moves the records after it.
  */
 
 class LinearCacheDataSet implements CacheDataSet {
@@ -19,14 +26,18 @@ class LinearCacheDataSet implements CacheDataSet {
     synchronized public void copyTo(CacheDataSet to) {
         if (to != null && to instanceof LinearCacheDataSet) {
             LinearCacheDataSet copy = (LinearCacheDataSet) to;
-            copy.mTotalPadding = mTotalPadding;
-            copy.mTotalSize = mTotalSize;
+            boolean empty = copy.count() == 0;
             copy.mOuterPaddingEnabled = mOuterPaddingEnabled;
 
-            for (int pos = 0; pos < count(); ++pos) {
-                copy.mCacheDataSet.put(mCacheDataSet.keyAt(pos),
-                        new CacheData(mCacheDataSet.valueAt(pos)));
-                copy.mIdsSet.add(pos, mIdsSet.get(pos));
+            for (int slot = mHead; slot < mTail; ++slot) {
+                LinearCacheData data = mSlotData[slot];
+                if (data != null) {
+                    copy.addData(data.getId(), copy.count(), data.getSize(),
+                            data.getStartPadding(), data.getEndPadding());
+                }
+            }
+            if (empty) {
+                copy.mOrigin = mOrigin;
             }
             if (Log.isEnabled(Log.SUBSYSTEM.LAYOUT)) {
                 to.dump();
@@ -41,11 +52,15 @@ class LinearCacheDataSet implements CacheDataSet {
     synchronized public void dump() {
         Log.d(TAG, "\n==== DUMP CACHE start ======\nCache size = %d " +
                         "totalSize = %f totalPadding = %f mOuterPaddingEnabled = %b",
-                count(), mTotalSize, mTotalPadding, mOuterPaddingEnabled);
+                count(), mTotalSize, getTotalSizeWithPadding() - mTotalSize, mOuterPaddingEnabled);
 
-        for (int pos = 0; pos < count(); ++pos) {
-            Log.d(TAG, "data[%d, %d]: %s", mIdsSet.get(pos), pos,
-                    mCacheDataSet.valueAt(pos));
+        int pos = 0;
+        for (int slot = mHead; slot < mTail; ++slot) {
+            LinearCacheData data = mSlotData[slot];
+            if (data != null) {
+                Log.d(TAG, "data[%d, %d]: %s offset [%f]", data.getId(), pos++, data,
+                        getOffset(slot, data));
+            }
         }
 
         Log.d(TAG, "\n==== DUMP CACHE end ======\n");
@@ -59,15 +74,14 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float addData(final int id, final int pos,
                                       final float size, final float startPadding, final float endPadding) {
-        CacheData data = new CacheData(id);
+        if (contains(id)) {
+            removeData(id);
+        }
+        LinearCacheData data = new LinearCacheData(id);
 
         data.setSize(size);
         data.setPadding(startPadding, endPadding);
 
-        mCacheDataSet.append(id, data);
-
-        mTotalSize += data.getSize();
-
         int actualPos = pos;
         if (actualPos < 0) {
             actualPos = 0;
@@ -75,37 +89,53 @@ class LinearCacheDataSet implements CacheDataSet {
             actualPos = count();
         }
         Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "addData id = %d pos = %d", id, actualPos);
-        mIdsSet.add(actualPos, id);
 
-        // update total padding
-        float paddingSpace = updateTotalPadding(actualPos, data, true);
+        // a record added in front must not move the records which are already laid out
+        LinearCacheData anchor = actualPos == 0 && mCount > 0 ? mSlotData[mHead] : null;
+        float anchorOffset = anchor != null ? getOffset(anchor.mSlot, anchor) : Float.NaN;
 
+        data.mSlot = insertSlot(actualPos);
+        mSlotData[data.mSlot] = data;
+        mCacheDataSet.put(id, data);
+        mCount++;
+        mCountTree.add(data.mSlot, 1);
+        mExtentTree.add(data.mSlot, extent(data));
+        mTotalSize += data.getSize();
+
+        if (anchor != null) {
+            setOffset(anchor.mSlot, anchor, anchorOffset);
+        }
+
+        // padding space added by the new record, including the padding it enables on its neighbor
+        float paddingSpace = getStartPadding(actualPos, data) + getEndPadding(actualPos, data);
+        if (count() > 1 && !mOuterPaddingEnabled) {
+            if (actualPos == 0) {
+                paddingSpace += mSlotData[nextSlot(data.mSlot)].getStartPadding();
+            }
+            if (actualPos == count() - 1) {
+                paddingSpace += mSlotData[prevSlot(data.mSlot)].getEndPadding();
+            }
+        }
         return paddingSpace + size;
     }
 
     @Override
     synchronized public int getId(final int pos) {
-        return pos < 0 || pos >= mIdsSet.size() ? -1 : mIdsSet.get(pos);
+        return pos < 0 || pos >= mCount ? -1 : mSlotData[slotAt(pos)].getId();
     }
 
     @Override
     synchronized public int getPos(final int id) {
-        int pos = 0;
-        for (int nextId : mIdsSet) {
-            if (nextId == id) {
-                break;
-            }
-            pos++;
-        }
-        return pos == mIdsSet.size() ? -1 : pos;
+        LinearCacheData data = mCacheDataSet.get(id);
+        return data == null ? -1 : mCountTree.sum(data.mSlot);
     }
 
     @Override
     synchronized public float getDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
-            offset = data.getOffset();
+            offset = getOffset(data.mSlot, data);
         }
         return offset;
     }
@@ -113,7 +143,7 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getSizeWithPadding(final int id) {
         float sizeWithPadding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
             sizeWithPadding = getStartPadding(pos, data) + data.getSize() + getEndPadding(pos, data);
@@ -125,10 +155,9 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getStartDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
-            int pos = getPos(id);
-            offset = data.getOffset() - getStartPadding(pos, data) - data.getSize() / 2;
+            offset = getStart(data.mSlot);
         }
         return offset;
     }
@@ -136,25 +165,58 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float getEndDataOffset(final int id) {
         float offset = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
-            offset = data.getOffset() + data.getSize() / 2 + getEndPadding(pos, data);
+            offset = getStart(data.mSlot) + getStartPadding(pos, data) + data.getSize() +
+                    getEndPadding(pos, data);
         }
         return offset;
     }
 
     @Override
     synchronized public void removeData(final int id) {
-        CacheData data = mCacheDataSet.get(id);
-        int pos = getPos(id);
-        if (data != null && pos >= 0) {
-            mTotalSize -= data.getSize();
-            updateTotalPadding(pos, data, false);
+        LinearCacheData data = mCacheDataSet.get(id);
+        if (data != null) {
+            // keep the records after the first one in place when the first one is removed
+            LinearCacheData anchor = data.mSlot == mHead && mCount > 1 ?
+                    mSlotData[nextSlot(mHead)] : null;
+            float anchorOffset = anchor != null ? getOffset(anchor.mSlot, anchor) : Float.NaN;
 
+            mTotalSize -= data.getSize();
+            mCountTree.add(data.mSlot, -1);
+            mExtentTree.add(data.mSlot, -extent(data));
+            mSlotData[data.mSlot] = null;
             mCacheDataSet.remove(id);
-            mIdsSet.remove(pos);
+            mCount--;
+
+            if (mCount == 0) {
+                reset();
+            } else {
+                while (mSlotData[mHead] == null) {
+                    mHead++;
+                }
+                while (mSlotData[mTail - 1] == null) {
+                    mTail--;
+                }
+                if (anchor != null) {
+                    setOffset(anchor.mSlot, anchor, anchorOffset);
+                }
+            }
+        }
+    }
+
+    @Override
+    synchronized public boolean setDataSize(final int id, final float size) {
+        LinearCacheData data = mCacheDataSet.get(id);
+        if (data != null) {
+            float delta = size - data.getSize();
+            data.setSize(size);
+            mExtentTree.add(data.mSlot, delta);
+            mTotalSize += delta;
+            return true;
         }
+        return false;
     }
 
     @Override
@@ -167,32 +229,21 @@ class LinearCacheDataSet implements CacheDataSet {
         switch (op) {
             case ALL:
                 mCacheDataSet.clear();
-                mIdsSet.clear();
-                mTotalSize = 0;
-                mTotalPadding = 0;
+                reset();
+                mOrigin = 0;
                 break;
             case OFFSET:
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
-                }
+            case PADDING:
+                mOrigin = Float.NaN;
                 break;
             case SIZE:
-                mTotalSize = 0;
-                mTotalPadding = 0;
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
-                    data.setSize(0);
-                }
-                break;
-            case PADDING:
-                mTotalSize = 0;
-                mTotalPadding = 0;
-                for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-                    CacheData data = mCacheDataSet.valueAt(pos);
-                    data.setOffset(Float.NaN);
+                for (int slot = mHead; slot < mTail; ++slot) {
+                    if (mSlotData[slot] != null) {
+                        mSlotData[slot].setSize(0);
+                    }
                 }
+                rebuildTrees();
+                mOrigin = Float.NaN;
                 break;
             case POSITION:
             default:
@@ -203,17 +254,18 @@ class LinearCacheDataSet implements CacheDataSet {
     @Override
     synchronized public float uniformSize() {
         float maxSize = 0;
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
-            maxSize = Math.max(maxSize, data.getSize());
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mSlotData[slot] != null) {
+                maxSize = Math.max(maxSize, mSlotData[slot].getSize());
+            }
         }
 
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
-            data.setSize(maxSize);
-            mCacheDataSet.setValueAt(pos, data);
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mSlotData[slot] != null) {
+                mSlotData[slot].setSize(maxSize);
+            }
         }
-        mTotalSize = mCacheDataSet.size() * maxSize;
+        rebuildTrees();
         invalidate(InvalidateOp.OFFSET);
 
         return maxSize;
@@ -225,12 +277,12 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public float uniformPadding(final float uniformPadding) {
-        for (int pos = mCacheDataSet.size(); --pos >= 0; ) {
-            CacheData data = mCacheDataSet.valueAt(pos);
-            data.setPadding(uniformPadding / 2, uniformPadding / 2);
-            mCacheDataSet.setValueAt(pos, data);
+        for (int slot = mHead; slot < mTail; ++slot) {
+            if (mSlotData[slot] != null) {
+                mSlotData[slot].setPadding(uniformPadding / 2, uniformPadding / 2);
+            }
         }
-        mTotalPadding = (mCacheDataSet.size() - 1) * uniformPadding;
+        rebuildTrees();
         invalidate(InvalidateOp.OFFSET);
 
         return uniformPadding;
@@ -238,40 +290,37 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public float setDataAfter(final int id, float alignment) {
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
-            float startPadding = getStartPadding(pos, data);
-            float offset = alignment + (startPadding + data.getSize() / 2);
-            data.setOffset(offset);
-            mCacheDataSet.put(id, data);
-
-            float endPadding = getEndPadding(pos, data);
-            return alignment + (startPadding + data.getSize() + endPadding);
+            mOrigin = alignment - getExtentBefore(data.mSlot);
+            return alignment + (getStartPadding(pos, data) + data.getSize() + getEndPadding(pos, data));
         }
         return Float.NaN;
     }
 
     @Override
     synchronized public float setDataBefore(final int id, float alignment) {
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
-            float endPadding = getEndPadding(pos, data);
-            float offset = alignment - (endPadding + data.getSize() / 2);
-            data.setOffset(offset);
-            mCacheDataSet.put(id, data);
-
-            float startPadding = getStartPadding(pos, data);
-            return alignment - (startPadding + data.getSize() + endPadding);
+            float start = alignment - (getStartPadding(pos, data) + data.getSize() + getEndPadding(pos, data));
+            mOrigin = start - getExtentBefore(data.mSlot);
+            return start;
         }
         return Float.NaN;
     }
 
     @Override
-    public float getStartPadding(final int id) {
+    synchronized public float setAllDataAfter(float alignment) {
+        mOrigin = alignment;
+        return alignment + getTotalSizeWithPadding();
+    }
+
+    @Override
+    synchronized public float getStartPadding(final int id) {
         float padding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
             padding = getStartPadding(pos, data);
@@ -280,9 +329,9 @@ class LinearCacheDataSet implements CacheDataSet {
     }
 
     @Override
-    public float getEndPadding(final int id) {
+    synchronized public float getEndPadding(final int id) {
         float padding = Float.NaN;
-        CacheData data = mCacheDataSet.get(id);
+        LinearCacheData data = mCacheDataSet.get(id);
         if (data != null) {
             int pos = getPos(id);
             padding = getEndPadding(pos, data);
@@ -292,22 +341,24 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public void shiftBy(final float amount) {
-        for (int pos = mCacheDataSet.size(); --pos >= 0;) {
-            CacheData data =  mCacheDataSet.valueAt(pos);
-            Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy item[%s] newOffset = %f",
-                    data, (data.getOffset() + amount));
-
-            data.setOffset(data.getOffset() + amount);
-            mCacheDataSet.setValueAt(pos, data);
-        }
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "shiftBy amount = %f newOrigin = %f",
+                amount, (mOrigin + amount));
+        mOrigin += amount;
     }
 
 
     @Override
     synchronized public float getTotalSizeWithPadding() {
-        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getTotalSizeWithPadding = %f", (mTotalPadding + mTotalSize));
+        float total = 0;
+        if (mCount > 0) {
+            total = (float) mExtentTree.sum(mTail);
+            if (!mOuterPaddingEnabled) {
+                total -= mSlotData[mHead].getStartPadding() + mSlotData[mTail - 1].getEndPadding();
+            }
+        }
+        Log.d(Log.SUBSYSTEM.LAYOUT, TAG, "getTotalSizeWithPadding = %f", total);
 
-        return mTotalPadding + mTotalSize;
+        return total;
     }
 
     @Override
@@ -319,28 +370,45 @@ class LinearCacheDataSet implements CacheDataSet {
 
     @Override
     synchronized public int count() {
-        return mCacheDataSet.size();
+        return mCount;
     }
 
-    synchronized private float updateTotalPadding(final int pos, final CacheData data,
-                                                  final boolean addPadding) {
+    /**
+     * Size with padding of the records before the slot, measured from the start of the first one
+     */
+    private float getExtentBefore(final int slot) {
+        if (slot == mHead) {
+            return 0;
+        }
+        float extent = (float) mExtentTree.sum(slot);
+        if (!mOuterPaddingEnabled) {
+            extent -= mSlotData[mHead].getStartPadding();
+        }
+        return extent;
+    }
 
-        // update total padding
-        float paddingSpace = getStartPadding(pos, data) + getEndPadding(pos, data);
+    /**
+     * Start offset of the record in the slot, including its start padding
+     */
+    private float getStart(final int slot) {
+        return mOrigin + getExtentBefore(slot);
+    }
 
-        // exclude the start padding for new first item and end padding for new last item
-        if (count() > 1) {
-            // first item updated
-            if (pos == 0 && !mOuterPaddingEnabled) {
-                paddingSpace += mCacheDataSet.get(mIdsSet.get(pos + 1)).getStartPadding();
-            }
-            // last item updated
-            if (pos == count() - 1 && !mOuterPaddingEnabled) {
-                paddingSpace += mCacheDataSet.get(mIdsSet.get(pos - 1)).getEndPadding();
-            }
-        }
-        mTotalPadding += (addPadding ? 1 : -1) * paddingSpace;
-        return paddingSpace;
+    private float getOffset(final int slot, final CacheData data) {
+        int pos = mCountTree.sum(slot);
+        return getStart(slot) + getStartPadding(pos, data) + data.getSize() / 2;
+    }
+
+    /**
+     * Move all of the records so the record in the slot gets the offset
+     */
+    private void setOffset(final int slot, final CacheData data, final float offset) {
+        int pos = mCountTree.sum(slot);
+        mOrigin = offset - (getExtentBefore(slot) + getStartPadding(pos, data) + data.getSize() / 2);
+    }
+
+    private static float extent(final CacheData data) {
+        return data.getStartPadding() + data.getSize() + data.getEndPadding();
     }
 
     private float getStartPadding(final int pos, final CacheData data) {
@@ -353,16 +421,239 @@ class LinearCacheDataSet implements CacheDataSet {
         return endPadding;
     }
 
+    private int slotAt(final int pos) {
+        return mCountTree.find(pos);
+    }
+
+    private int nextSlot(int slot) {
+        do {
+            slot++;
+        } while (mSlotData[slot] == null);
+        return slot;
+    }
+
+    private int prevSlot(int slot) {
+        do {
+            slot--;
+        } while (mSlotData[slot] == null);
+        return slot;
+    }
+
+    /**
+     * Find a free slot for a record added at the position. Adding at either end takes
+     * the next free slot, adding in the middle or running out of slots compacts the records.
+     */
+    private int insertSlot(final int pos) {
+        if (mCount == 0) {
+            mTail = mHead + 1;
+            return mHead;
+        }
+        if (pos == 0 && mHead > 0) {
+            return --mHead;
+        }
+        if (pos == mCount && mTail < mSlotData.length) {
+            return mTail++;
+        }
+        return compact(pos);
+    }
+
+    /**
+     * Move the records to a new slot array, leaving a free slot at the position
+     * and free space on both sides
+     */
+    private int compact(final int pos) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(mCount + 1) * 4);
+        final LinearCacheData[] slots = new LinearCacheData[capacity];
+        final int head = (capacity - mCount - 1) / 2;
+        int next = head;
+        int freeSlot = -1;
+
+        for (int slot = mHead; slot < mTail; ++slot) {
+            LinearCacheData data = mSlotData[slot];
+            if (data != null) {
+                if (next - head == pos) {
+                    freeSlot = next++;
+                }
+                data.mSlot = next;
+                slots[next++] = data;
+            }
+        }
+        if (freeSlot == -1) {
+            freeSlot = next++;
+        }
+        mSlotData = slots;
+        mHead = head;
+        mTail = next;
+        rebuildTrees();
+        return freeSlot;
+    }
+
+    private void reset() {
+        Arrays.fill(mSlotData, null);
+        mHead = mSlotData.length / 2;
+        mTail = mHead;
+        mCount = 0;
+        mTotalSize = 0;
+        mCountTree.reset(mSlotData.length);
+        mExtentTree.reset(mSlotData.length);
+    }
+
+    private void rebuildTrees() {
+        mCountTree.reset(mSlotData.length);
+        mExtentTree.reset(mSlotData.length);
+        mTotalSize = 0;
+        for (int slot = mHead; slot < mTail; ++slot) {
+            LinearCacheData data = mSlotData[slot];
+            if (data != null) {
+                mCountTree.set(slot, 1);
+                mExtentTree.set(slot, extent(data));
+                mTotalSize += data.getSize();
+            }
+        }
+        mCountTree.build();
+        mExtentTree.build();
+    }
+
+    /**
+     * CacheData which knows its slot
+     */
+    private static class LinearCacheData extends CacheData {
+        LinearCacheData(final int id) {
+            super(id);
+        }
+
+        int getId() {
+            return mId;
+        }
+
+        int mSlot;
+    }
+
+    /**
+     * Fenwick tree of record counts per slot
+     */
+    private static class CountTree {
+        void reset(final int size) {
+            if (mTree.length != size + 1) {
+                mTree = new int[size + 1];
+            } else {
+                Arrays.fill(mTree, 0);
+            }
+        }
+
+        void set(final int slot, final int value) {
+            mTree[slot + 1] = value;
+        }
+
+        /**
+         * Turn values stored with {@link #set} into a tree in O(n)
+         */
+        void build() {
+            for (int i = 1; i < mTree.length; ++i) {
+                int parent = i + (i & -i);
+                if (parent < mTree.length) {
+                    mTree[parent] += mTree[i];
+                }
+            }
+        }
+
+        void add(final int slot, final int delta) {
+            for (int i = slot + 1; i < mTree.length; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+
+        /**
+         * @return number of records in the slots before the slot
+         */
+        int sum(final int slot) {
+            int sum = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                sum += mTree[i];
+            }
+            return sum;
+        }
+
+        /**
+         * @return the slot of the record at the position
+         */
+        int find(int pos) {
+            int slot = 0;
+            for (int step = Integer.highestOneBit(mTree.length - 1); step > 0; step >>= 1) {
+                int next = slot + step;
+                if (next < mTree.length && mTree[next] <= pos) {
+                    slot = next;
+                    pos -= mTree[next];
+                }
+            }
+            return slot;
+        }
+
+        private int[] mTree = new int[1];
+    }
+
+    /**
+     * Fenwick tree of the size with padding per slot
+     */
+    private static class ExtentTree {
+        void reset(final int size) {
+            if (mTree.length != size + 1) {
+                mTree = new double[size + 1];
+            } else {
+                Arrays.fill(mTree, 0);
+            }
+        }
+
+        void set(final int slot, final double value) {
+            mTree[slot + 1] = value;
+        }
+
+        void build() {
+            for (int i = 1; i < mTree.length; ++i) {
+                int parent = i + (i & -i);
+                if (parent < mTree.length) {
+                    mTree[parent] += mTree[i];
+                }
+            }
+        }
+
+        void add(final int slot, final double delta) {
+            for (int i = slot + 1; i < mTree.length; i += i & -i) {
+                mTree[i] += delta;
+            }
+        }
+
+        /**
+         * @return size with padding of the records in the slots before the slot
+         */
+        double sum(final int slot) {
+            double sum = 0;
+            for (int i = slot; i > 0; i -= i & -i) {
+                sum += mTree[i];
+            }
+            return sum;
+        }
+
+        private double[] mTree = new double[1];
+    }
+
     private static final String TAG = "CacheDataSet";
+    private static final int MIN_CAPACITY = 32;
     protected float mTotalSize;
-    protected float mTotalPadding;
     private boolean mOuterPaddingEnabled;
+    private float mOrigin;
 
-    SparseArray<CacheData> mCacheDataSet = new SparseArray<>();
-    List<Integer> mIdsSet = new ArrayList<>();
+    SparseArray<LinearCacheData> mCacheDataSet = new SparseArray<>();
+    private LinearCacheData[] mSlotData = new LinearCacheData[MIN_CAPACITY];
+    private int mHead;
+    private int mTail;
+    private int mCount;
+    private final CountTree mCountTree = new CountTree();
+    private final ExtentTree mExtentTree = new ExtentTree();
 
     LinearCacheDataSet(boolean outerPaddingEnabled) {
         mOuterPaddingEnabled = outerPaddingEnabled;
+        reset();
     }
 
-}
\ No newline at end of file
+}
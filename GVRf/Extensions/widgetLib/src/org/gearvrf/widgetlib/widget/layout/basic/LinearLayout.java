@@ -256,6 +256,16 @@ public class LinearLayout extends OrientedLayout {
         super.invalidate(dataIndex);
     }
 
+    @Override
+    public void invalidateSize(final int dataIndex) {
+        CacheDataSet cache = getCache(dataIndex);
+        float size = getChildSize(dataIndex, getOrientationAxis());
+        Log.d(LAYOUT, TAG, "invalidateSize item [%d] size = %f", dataIndex, size);
+        if (cache == null || !cache.setDataSize(dataIndex, size)) {
+            super.invalidateSize(dataIndex);
+        }
+    }
+
     protected LinearLayout(final LinearLayout rhs) {
         super(rhs);
         mGravity = rhs.mGravity;
@@ -657,17 +667,18 @@ public class LinearLayout extends OrientedLayout {
 
         boolean inBounds = startDataOffset < -layoutOffset;
 
-        for (int pos = 0; pos < cache.count(); ++pos) {
-            int id = cache.getId(pos);
-            if (id != -1) {
-                float endDataOffset = cache.setDataAfter(id, startDataOffset);
-                inBounds = inBounds &&
-                        endDataOffset > layoutOffset &&
-                        startDataOffset < -layoutOffset;
-                startDataOffset = endDataOffset;
-                Log.d(LAYOUT, TAG, "computeOffset [%d] = %f" , id, cache.getDataOffset(id));
-            }
+        cache.setAllDataAfter(startDataOffset);
+
+        // offsets grow with the position: the first item has the smallest end offset
+        // and the last item has the largest start offset
+        final int count = cache.count();
+        if (count > 0) {
+            inBounds = inBounds &&
+                    cache.getEndDataOffset(cache.getId(0)) > layoutOffset &&
+                    cache.getStartDataOffset(cache.getId(count - 1)) < -layoutOffset;
         }
+        Log.d(LAYOUT, TAG, "computeOffset count = %d startDataOffset = %f inBounds = %b",
+                count, startDataOffset, inBounds);
 
         return inBounds;
     }
@@ -725,6 +736,15 @@ public class LinearLayout extends OrientedLayout {
         mCache.removeData(dataIndex);
     }
 
+    /**
+     * Get the cache data set containing the item
+     * @param dataIndex data index of the item
+     * @return cache data set or null if the item is not cached
+     */
+    protected CacheDataSet getCache(final int dataIndex) {
+        return mCache != null && mCache.contains(dataIndex) ? mCache : null;
+    }
+
     @Override
     protected void resetChildLayout(final int dataIndex) {
         Widget child = mContainer.get(dataIndex);
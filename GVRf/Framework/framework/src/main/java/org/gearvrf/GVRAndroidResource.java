@@ -16,6 +16,7 @@
 package org.gearvrf;
 
 import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.util.TypedValue;
@@ -27,10 +28,14 @@ import org.gearvrf.utility.MarkingFileInputStream;
 
 import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * A class to minimize overload fan-out.
@@ -234,11 +239,105 @@ public class GVRAndroidResource {
         return resourceType;
     }
 
+    /*
+     * A string which changes when the contents of the resource may have
+     * changed, for caches of data derived from it. Null if the resource
+     * cannot be identified: network resources and input streams.
+     */
+    String getCacheIdentity() {
+        switch (resourceType) {
+        case ANDROID_ASSETS:
+            return "asset:" + assetPath + "@" + getPackageStamp();
+
+        case ANDROID_RESOURCE:
+            return "resource:" + resourceId + ":" + resourceFilePath + "@" + getPackageStamp();
+
+        case LINUX_FILESYSTEM:
+            File file = new File(filePath);
+            return "file:" + file.getAbsolutePath() + "@" + file.lastModified() + ":" + file.length();
+
+        default:
+            return null;
+        }
+    }
+
+    /*
+     * Assets and resources change only when the application is updated.
+     */
+    private long getPackageStamp() {
+        return new File(context.getApplicationInfo().sourceDir).lastModified();
+    }
+
+    /**
+     * Map the resource into memory instead of reading it.
+     *
+     * Files are mapped directly. Assets and raw resources can only be mapped
+     * when they are stored uncompressed in the APK (for example, by listing
+     * their extension in {@code aaptOptions.noCompress}). URLs are mapped
+     * from the {@link GVRHttpCache} when local caching is enabled.
+     *
+     * @return a read-only buffer with the contents of the resource, or
+     *         {@code null} if the resource cannot be mapped.
+     * @throws IOException if the file cannot be opened
+     */
+    public ByteBuffer map() throws IOException {
+        switch (resourceType) {
+        case LINUX_FILESYSTEM:
+        case NETWORK:
+            if (resourceType == ResourceType.NETWORK && !enableUrlLocalCache) {
+                return null;
+            }
+            RandomAccessFile file = new RandomAccessFile(
+                    resourceType == ResourceType.NETWORK
+                            ? GVRHttpCache.getDefault(context).get(url).getPath()
+                            : filePath, "r");
+            try {
+                FileChannel channel = file.getChannel();
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } finally {
+                file.close();
+            }
+
+        case ANDROID_ASSETS:
+        case ANDROID_RESOURCE:
+            AssetFileDescriptor descriptor;
+            try {
+                descriptor = resourceType == ResourceType.ANDROID_ASSETS
+                        ? context.getAssets().openFd(assetPath)
+                        : context.getResources().openRawResourceFd(resourceId);
+            } catch (FileNotFoundException e) {
+                return null; // compressed in the APK
+            } catch (Resources.NotFoundException e) {
+                return null;
+            }
+            if (descriptor == null) {
+                return null;
+            }
+            try {
+                FileInputStream in = descriptor.createInputStream();
+                try {
+                    return in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                            descriptor.getStartOffset(), descriptor.getLength());
+                } finally {
+                    in.close();
+                }
+            } finally {
+                descriptor.close();
+            }
+
+        default:
+            return null;
+        }
+    }
+
     /*
      * A {@link URLBufferedInputStream} that supports {@link
      * InputStream#mark(int)} and {@link InputStream#reset()}
      */
     static class URLBufferedInputStream extends InputStream {
+        // most bytes kept in memory to rewind without downloading again
+        private static final int MAX_MARK_LIMIT = 1024 * 1024;
+
         private URL url;
         private BufferedInputStream in;
 
@@ -252,15 +351,29 @@ public class GVRAndroidResource {
             return true;
         }
 
+        @Override
+        public void mark(int readlimit) {
+            // Callers mark with Integer.MAX_VALUE, which would let the
+            // buffer grow to the size of the whole resource
+            in.mark(Math.min(readlimit, MAX_MARK_LIMIT));
+        }
+
         @Override
         public void reset() throws IOException {
-            // Since the bufferInputStream resets the offset within the internal
-            // buffer while may not resets the url's stream correctly
-            // it could easily causes OOM error when decoding it after some
-            // initial read and reset.
-            // Here we tackle it by opening a new connection to the url and
-            // restart from beginning
-            in = new BufferedInputStream(url.openStream());
+            // Rewind within the buffer when the mark is still valid; this
+            // covers reading a header then starting over. Past the limit,
+            // open a new connection to the url and restart from beginning
+            try {
+                in.reset();
+            } catch (IOException e) {
+                in.close();
+                in = new BufferedInputStream(url.openStream());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
         }
 
         @Override
@@ -387,8 +500,7 @@ public class GVRAndroidResource {
             } else {
                 Log.d(TAG,
                         "Allow local caching, download the resource to local cache");
-                File file = GVRAssetLoader.downloadFile(context,
-                        url.toString());
+                File file = GVRHttpCache.getDefault(context).get(url);
                 stream = new MarkingFileInputStream(file);
                 streamState = StreamStates.OPEN;
             }
@@ -35,14 +35,11 @@ import org.gearvrf.utility.ResourceCache;
 import org.gearvrf.utility.ResourceCacheBase;
 import org.gearvrf.utility.Threads;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -52,7 +49,6 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * {@link GVRAssetLoader} provides methods for importing 3D models and textures.
@@ -1875,6 +1871,13 @@ public final class GVRAssetLoader {
         }
     }
 
+    /**
+     * Download a file into the {@link GVRHttpCache} of the application.
+     *
+     * @param context    An Android Context
+     * @param urlString  URL of the file
+     * @return the cached file, or null if it cannot be downloaded
+     */
     public static File downloadFile(Context context, String urlString) {
         URL url = null;
         try {
@@ -1884,54 +1887,12 @@ public final class GVRAssetLoader {
             return null;
         }
 
-        String directoryPath = context.getCacheDir().getAbsolutePath();
-        // add a uuid value for the url to prevent aliasing from files sharing
-        // same name inside one given app
-        String outputFilename = directoryPath + File.separator
-                + UUID.nameUUIDFromBytes(urlString.getBytes()).toString()
-                + FileNameUtils.getURLFilename(urlString);
-
-        Log.d(TAG, "URL filename: %s", outputFilename);
-
-        File localCopy = new File(outputFilename);
-        if (localCopy.exists()) {
-            return localCopy;
-        }
-
-        InputStream input = null;
-        // Output stream to write file
-        OutputStream output = null;
-
         try {
-            input = new BufferedInputStream(url.openStream(), 8192);
-            output = new FileOutputStream(outputFilename);
-
-            byte data[] = new byte[1024];
-            int count;
-            while ((count = input.read(data)) != -1) {
-                // writing data to file
-                output.write(data, 0, count);
-            }
+            return GVRHttpCache.getDefault(context).get(url);
         } catch (IOException e) {
             Log.e(TAG, "Failed to download: ", urlString);
             return null;
-        } finally {
-            if (input != null) {
-                try {
-                    input.close();
-                } catch (IOException e) {
-                }
-            }
-
-            if (output != null) {
-                try {
-                    output.close();
-                } catch (IOException e) {
-                }
-            }
         }
-
-        return new File(outputFilename);
     }
 
     public GVRTextureParameters getDefaultTextureParameters() {
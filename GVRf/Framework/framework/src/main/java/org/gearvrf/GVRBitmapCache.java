@@ -0,0 +1,479 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A disk cache of decoded bitmaps.
+ *
+ * Decoding a large JPEG or PNG, and downsampling it to fit the texture size
+ * limits, takes much longer than reading the decoded pixels back. The cache
+ * keeps the pixels of decoded bitmaps, keyed by the identity of the source
+ * (its path and modification time, or the application version for assets
+ * and resources) and by the decoding parameters, so the same image decoded
+ * at another size is another entry.
+ *
+ * Cached bitmaps are read by mapping the file and copying the pixels into a
+ * new {@link Bitmap}, without decoding. The cache is bounded in size and
+ * drops the least recently used bitmaps first; it counts hits and misses to
+ * check it is worth its disk space.
+ *
+ * The bitmap textures loaded by {@link GVRAssetLoader} use the
+ * {@linkplain #setTextureCache(GVRBitmapCache) texture cache}, if one is set:
+ * <pre>
+ *     GVRBitmapCache.setTextureCache(GVRBitmapCache.getDefault(context));
+ * </pre>
+ * Network resources and input streams have no stable identity, and are not
+ * cached.
+ */
+public final class GVRBitmapCache {
+    private static final String TAG = Log.tag(GVRBitmapCache.class);
+
+    /** Default maximum size of the cache, in bytes */
+    public static final long DEFAULT_MAX_SIZE = 128L * 1024 * 1024;
+
+    private static final String DIRECTORY = "gvrf_bitmaps";
+    private static final String DATA = ".bmp";
+    private static final String TEMP = ".tmp";
+
+    private static final int MAGIC = 0x47424d43; // "GBMC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final Bitmap.Config[] CONFIGS = {
+            Bitmap.Config.ARGB_8888, Bitmap.Config.RGB_565, Bitmap.Config.ALPHA_8
+    };
+
+    private static GVRBitmapCache sDefault;
+    private static volatile GVRBitmapCache sTextureCache;
+
+    private final File mDirectory;
+    private final Object mLock = new Object();
+    // cached files and their sizes, least recently used first
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long mSize;
+    private volatile long mMaxSize;
+    private long mHits;
+    private long mMisses;
+    private long mWrites;
+
+    /**
+     * Get the cache shared by the whole application, in its cache directory.
+     *
+     * @param context An Android Context
+     * @return the application's bitmap cache
+     */
+    public static synchronized GVRBitmapCache getDefault(Context context) {
+        if (sDefault == null) {
+            sDefault = new GVRBitmapCache(new File(context.getCacheDir(), DIRECTORY),
+                    DEFAULT_MAX_SIZE);
+        }
+        return sDefault;
+    }
+
+    /**
+     * Set the cache used for the bitmap textures loaded by the
+     * {@link GVRAssetLoader}.
+     *
+     * @param cache the cache, or null to decode the textures every time
+     *              (the default)
+     */
+    public static void setTextureCache(GVRBitmapCache cache) {
+        sTextureCache = cache;
+    }
+
+    /**
+     * @return the cache used for bitmap textures, or null
+     * @see #setTextureCache(GVRBitmapCache)
+     */
+    public static GVRBitmapCache getTextureCache() {
+        return sTextureCache;
+    }
+
+    /**
+     * Open a cache. The bitmaps already in {@code directory} are kept, most
+     * recently used last.
+     *
+     * @param directory where to store the bitmaps
+     * @param maxSize   maximum size of the cache, in bytes
+     */
+    public GVRBitmapCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Cannot create cache directory %s", directory);
+        }
+        loadIndex();
+        trim(null);
+    }
+
+    /**
+     * Get a cached bitmap.
+     *
+     * @param resource the source of the bitmap
+     * @param variant  describes how the bitmap was decoded from the source,
+     *                 for instance its maximum size and quality
+     * @return a new bitmap, or null if it is not cached
+     */
+    public Bitmap get(GVRAndroidResource resource, String variant) {
+        String key = keyOf(resource, variant);
+        if (key == null) {
+            return null;
+        }
+        File file = file(key, DATA);
+        synchronized (mLock) {
+            if (mEntries.get(key) == null) {
+                ++mMisses;
+                return null;
+            }
+            file.setLastModified(System.currentTimeMillis());
+        }
+        Bitmap bitmap = read(file);
+        synchronized (mLock) {
+            if (bitmap != null) {
+                ++mHits;
+            } else {
+                ++mMisses;
+            }
+        }
+        if (bitmap == null) {
+            remove(key);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Add a bitmap to the cache, replacing the previous one for the same
+     * source and variant. Bitmaps in other configurations than
+     * {@code ARGB_8888}, {@code RGB_565} and {@code ALPHA_8} are not cached.
+     *
+     * @param resource the source of the bitmap
+     * @param variant  describes how the bitmap was decoded from the source
+     * @param bitmap   the decoded bitmap
+     * @return true if the bitmap was stored
+     */
+    public boolean put(GVRAndroidResource resource, String variant, Bitmap bitmap) {
+        String key = keyOf(resource, variant);
+        int config = Arrays.asList(CONFIGS).indexOf(bitmap.getConfig());
+        long size = HEADER_SIZE + (long) bitmap.getRowBytes() * bitmap.getHeight();
+        if (key == null || config < 0 || bitmap.isRecycled() || size > mMaxSize) {
+            return false;
+        }
+        File temp = file(key, TEMP);
+        try {
+            write(temp, bitmap, config, size);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot cache bitmap of %s: %s", resource, e);
+            temp.delete();
+            return false;
+        }
+        synchronized (mLock) {
+            if (!temp.renameTo(file(key, DATA))) {
+                temp.delete();
+                return false;
+            }
+            Long previous = mEntries.put(key, size);
+            if (previous != null) {
+                mSize -= previous;
+            }
+            mSize += size;
+            ++mWrites;
+        }
+        trim(key);
+        return true;
+    }
+
+    /**
+     * Add a bitmap to the cache on a background thread, so the caller does
+     * not wait for the file to be written. The bitmap must not be changed
+     * or recycled until then.
+     *
+     * @param resource the source of the bitmap
+     * @param variant  describes how the bitmap was decoded from the source
+     * @param bitmap   the decoded bitmap
+     * @see #put(GVRAndroidResource, String, Bitmap)
+     */
+    public void putLater(final GVRAndroidResource resource, final String variant,
+            final Bitmap bitmap) {
+        Threads.spawnIdle(new Runnable() {
+            @Override
+            public void run() {
+                put(resource, variant, bitmap);
+            }
+        });
+    }
+
+    /**
+     * Set the maximum size of the cache. Least recently used bitmaps are
+     * dropped right away if needed.
+     *
+     * @param maxSize size in bytes
+     */
+    public void setMaxSize(long maxSize) {
+        mMaxSize = maxSize;
+        trim(null);
+    }
+
+    /**
+     * @return maximum size of the cache, in bytes
+     */
+    public long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * @return total size of the cached bitmaps, in bytes
+     */
+    public long getSize() {
+        synchronized (mLock) {
+            return mSize;
+        }
+    }
+
+    /**
+     * @return number of {@link #get(GVRAndroidResource, String)} calls which
+     * found the bitmap
+     */
+    public long getHitCount() {
+        synchronized (mLock) {
+            return mHits;
+        }
+    }
+
+    /**
+     * @return number of {@link #get(GVRAndroidResource, String)} calls which
+     * did not find the bitmap
+     */
+    public long getMissCount() {
+        synchronized (mLock) {
+            return mMisses;
+        }
+    }
+
+    /**
+     * @return number of bitmaps added to the cache
+     */
+    public long getWriteCount() {
+        synchronized (mLock) {
+            return mWrites;
+        }
+    }
+
+    /**
+     * @return fraction of the lookups which found the bitmap, 0 before the
+     * first lookup
+     */
+    public float getHitRate() {
+        synchronized (mLock) {
+            long lookups = mHits + mMisses;
+            return lookups == 0 ? 0.0f : (float) mHits / lookups;
+        }
+    }
+
+    /**
+     * Reset the hit, miss and write counters.
+     */
+    public void resetCounters() {
+        synchronized (mLock) {
+            mHits = 0;
+            mMisses = 0;
+            mWrites = 0;
+        }
+    }
+
+    /**
+     * Delete all the cached bitmaps.
+     */
+    public void clear() {
+        synchronized (mLock) {
+            mEntries.clear();
+            mSize = 0;
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(DATA)) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * The file holds a header and the pixels as Bitmap.copyPixelsToBuffer
+     * writes them:
+     *     int magic, version, width, height, row bytes, config, has alpha
+     */
+    private static void write(File file, Bitmap bitmap, int config, long size) throws IOException {
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            output.setLength(size);
+            MappedByteBuffer buffer = output.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putInt(bitmap.getWidth()).putInt(bitmap.getHeight())
+                    .putInt(bitmap.getRowBytes()).putInt(config)
+                    .putInt(bitmap.hasAlpha() ? 1 : 0);
+            buffer.position(HEADER_SIZE);
+            bitmap.copyPixelsToBuffer(buffer.slice());
+            buffer.force();
+        } finally {
+            output.close();
+        }
+    }
+
+    private static Bitmap read(File file) {
+        try {
+            RandomAccessFile input = new RandomAccessFile(file, "r");
+            try {
+                long size = input.length();
+                if (size < HEADER_SIZE) {
+                    return null;
+                }
+                ByteBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                    return null;
+                }
+                int width = buffer.getInt();
+                int height = buffer.getInt();
+                int rowBytes = buffer.getInt();
+                int config = buffer.getInt();
+                boolean hasAlpha = buffer.getInt() != 0;
+                if (width <= 0 || height <= 0 || config < 0 || config >= CONFIGS.length
+                        || size != HEADER_SIZE + (long) rowBytes * height) {
+                    return null;
+                }
+                Bitmap bitmap = Bitmap.createBitmap(width, height, CONFIGS[config]);
+                if (bitmap.getRowBytes() != rowBytes) {
+                    bitmap.recycle();
+                    return null;
+                }
+                buffer.position(HEADER_SIZE);
+                bitmap.copyPixelsFromBuffer(buffer);
+                bitmap.setHasAlpha(hasAlpha);
+                return bitmap;
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot read cached bitmap %s: %s", file, e);
+            return null;
+        } catch (OutOfMemoryError e) {
+            Log.w(TAG, "No memory for cached bitmap %s", file);
+            return null;
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (mLock) {
+            Long size = mEntries.remove(key);
+            if (size != null) {
+                mSize -= size;
+            }
+            file(key, DATA).delete();
+        }
+    }
+
+    /*
+     * Drop least recently used bitmaps until the cache fits, keeping the one
+     * that was just added.
+     */
+    private void trim(String keep) {
+        synchronized (mLock) {
+            Iterator<Map.Entry<String, Long>> it = mEntries.entrySet().iterator();
+            while (mSize > mMaxSize && it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                String key = entry.getKey();
+                if (key.equals(keep)) {
+                    continue;
+                }
+                Log.d(TAG, "Evicting %s: %d bytes", key, entry.getValue());
+                it.remove();
+                mSize -= entry.getValue();
+                file(key, DATA).delete();
+            }
+        }
+    }
+
+    private void loadIndex() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long ta = a.lastModified();
+                long tb = b.lastModified();
+                return ta < tb ? -1 : (ta == tb ? 0 : 1);
+            }
+        });
+        synchronized (mLock) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(TEMP)) {
+                    file.delete();
+                } else if (name.endsWith(DATA)) {
+                    String key = name.substring(0, name.length() - DATA.length());
+                    mEntries.put(key, file.length());
+                    mSize += file.length();
+                }
+            }
+        }
+    }
+
+    private File file(String key, String suffix) {
+        return new File(mDirectory, key + suffix);
+    }
+
+    private static String keyOf(GVRAndroidResource resource, String variant) {
+        String identity = resource.getCacheIdentity();
+        if (identity == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest((identity + "|" + variant).getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16));
+                key.append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
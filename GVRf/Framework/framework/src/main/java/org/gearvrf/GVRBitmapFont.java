@@ -0,0 +1,466 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.GVRMaterial.GVRShaderType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bitmap font: the glyphs of a font packed in one texture, described by an
+ * <a href="http://www.angelcode.com/products/bmfont/doc/file_format.html">
+ * AngelCode BMFont</a> text descriptor ({@code .fnt} file).
+ * <p>
+ * The descriptor can come from BMFont, Hiero or any other tool writing the
+ * same format, including signed distance field fonts; call
+ * {@link #setDistanceFieldSmoothing(float)} for those.
+ * <p>
+ * Load a font once and share it: all the
+ * {@link org.gearvrf.scene_objects.GVRBitmapTextSceneObject text objects}
+ * using it share its texture and, unless they change their color, its
+ * {@linkplain #getMaterial() material}.
+ */
+public final class GVRBitmapFont
+{
+    /**
+     * Placement of one glyph in the font texture. Distances are in font
+     * pixels, with y going down; texture coordinates are in [0, 1].
+     */
+    public static final class Glyph
+    {
+        /** Unicode code point of the glyph */
+        public final int id;
+        /** Size of the glyph image */
+        public final float width, height;
+        /** Offset of the glyph image from the pen position */
+        public final float xOffset, yOffset;
+        /** Distance the pen moves after the glyph */
+        public final float xAdvance;
+        /** Texture coordinates of the top left and bottom right corners */
+        public final float u0, v0, u1, v1;
+
+        Glyph(int id, float width, float height, float xOffset, float yOffset, float xAdvance,
+              float u0, float v0, float u1, float v1)
+        {
+            this.id = id;
+            this.width = width;
+            this.height = height;
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+            this.xAdvance = xAdvance;
+            this.u0 = u0;
+            this.v0 = v0;
+            this.u1 = u1;
+            this.v1 = v1;
+        }
+    }
+
+    // glyphs below this code point are looked up in an array
+    private static final int DIRECT_GLYPHS = 256;
+
+    private final GVRContext mContext;
+    private final String mFace;
+    private final float mSize;
+    private final float mLineHeight;
+    private final float mBase;
+    private final Glyph[] mDirectGlyphs = new Glyph[DIRECT_GLYPHS];
+    private final Map<Integer, Glyph> mGlyphs = new HashMap<Integer, Glyph>();
+    private final Map<Long, Float> mKernings = new HashMap<Long, Float>();
+    private final GVRTexture mTexture;
+    private Glyph mFallback;
+    private GVRMaterial mMaterial;
+    private float mSmoothing;
+
+    private GVRBitmapFont(GVRContext gvrContext, Descriptor descriptor, GVRTexture texture)
+    {
+        mContext = gvrContext;
+        mFace = descriptor.face;
+        mSize = descriptor.size;
+        mLineHeight = descriptor.lineHeight;
+        mBase = descriptor.base;
+        mTexture = texture;
+        for (Glyph glyph : descriptor.glyphs)
+        {
+            if (glyph.id >= 0 && glyph.id < DIRECT_GLYPHS)
+            {
+                mDirectGlyphs[glyph.id] = glyph;
+            }
+            else
+            {
+                mGlyphs.put(glyph.id, glyph);
+            }
+        }
+        mKernings.putAll(descriptor.kernings);
+        mFallback = getGlyph('?');
+        if (mFallback == null)
+        {
+            // BMFont writes the glyph for missing characters with id -1
+            mFallback = mGlyphs.get(-1);
+        }
+    }
+
+    /**
+     * Load a font. The texture of the font is loaded asynchronously with the
+     * {@linkplain GVRAssetLoader#loadTexture(GVRAndroidResource) asset loader}
+     * from the file named in the descriptor, next to the descriptor.
+     *
+     * @param gvrContext current {@link GVRContext}
+     * @param descriptor the {@code .fnt} file, in BMFont text format
+     * @return the font
+     * @throws IOException if the descriptor cannot be read, or the font has
+     *                     more than one texture page
+     */
+    public static GVRBitmapFont load(GVRContext gvrContext, GVRAndroidResource descriptor) throws IOException
+    {
+        Descriptor parsed = parse(descriptor);
+        GVRResourceVolume volume = new GVRResourceVolume(gvrContext, descriptor);
+        GVRTexture texture = gvrContext.getAssetLoader().loadTexture(volume.openResource(parsed.page));
+        return new GVRBitmapFont(gvrContext, parsed, texture);
+    }
+
+    /**
+     * Load a font whose texture is already available, for instance packed
+     * in a {@link GVRTextureAtlas} with other images.
+     *
+     * @param gvrContext current {@link GVRContext}
+     * @param descriptor the {@code .fnt} file, in BMFont text format
+     * @param texture    the texture page named in the descriptor
+     * @return the font
+     * @throws IOException if the descriptor cannot be read, or the font has
+     *                     more than one texture page
+     */
+    public static GVRBitmapFont load(GVRContext gvrContext, GVRAndroidResource descriptor, GVRTexture texture) throws IOException
+    {
+        return new GVRBitmapFont(gvrContext, parse(descriptor), texture);
+    }
+
+    /**
+     * @return the name of the font
+     */
+    public String getFace()
+    {
+        return mFace;
+    }
+
+    /**
+     * @return the size the font was rendered at, in pixels
+     */
+    public float getSize()
+    {
+        return mSize;
+    }
+
+    /**
+     * @return the distance between two lines of text, in font pixels
+     */
+    public float getLineHeight()
+    {
+        return mLineHeight;
+    }
+
+    /**
+     * @return the distance from the top of a line to the base line, in font
+     * pixels
+     */
+    public float getBase()
+    {
+        return mBase;
+    }
+
+    /**
+     * @return the texture holding the glyphs
+     */
+    public GVRTexture getTexture()
+    {
+        return mTexture;
+    }
+
+    /**
+     * Get the glyph of a character.
+     *
+     * @param codePoint Unicode code point
+     * @return the glyph, or {@code null} if the font does not have it
+     */
+    public Glyph getGlyph(int codePoint)
+    {
+        if (codePoint >= 0 && codePoint < DIRECT_GLYPHS)
+        {
+            return mDirectGlyphs[codePoint];
+        }
+        return mGlyphs.get(codePoint);
+    }
+
+    /**
+     * @return the glyph drawn for the characters the font does not have: the
+     * question mark or the BMFont "missing character" glyph, if any
+     */
+    public Glyph getFallbackGlyph()
+    {
+        return mFallback;
+    }
+
+    /**
+     * Get the adjustment of the pen position between two characters.
+     *
+     * @return the distance to add to the advance of the first character, in
+     * font pixels
+     */
+    public float getKerning(int first, int second)
+    {
+        if (mKernings.isEmpty())
+        {
+            return 0.0f;
+        }
+        Float amount = mKernings.get(kerningKey(first, second));
+        return amount == null ? 0.0f : amount;
+    }
+
+    /**
+     * Treat the glyphs as a signed distance field, where the edge of the
+     * glyphs has alpha 0.5.
+     *
+     * @param smoothing half the width of the anti-aliased edge, in alpha
+     *                  units; typically between 0.05 and 0.25 depending on
+     *                  the spread of the field and the size of the text. 0
+     *                  draws the alpha channel as is.
+     */
+    public void setDistanceFieldSmoothing(float smoothing)
+    {
+        mSmoothing = smoothing;
+        if (mMaterial != null)
+        {
+            mMaterial.setFloat("u_smoothing", smoothing);
+        }
+    }
+
+    /**
+     * @return the smoothing of signed distance field glyphs, 0 for regular
+     * glyphs
+     */
+    public float getDistanceFieldSmoothing()
+    {
+        return mSmoothing;
+    }
+
+    /**
+     * Get the material shared by the text drawn with this font in the
+     * default color.
+     *
+     * @return a {@link GVRShaderType.BitmapText} material with the font
+     * texture
+     */
+    public synchronized GVRMaterial getMaterial()
+    {
+        if (mMaterial == null)
+        {
+            mMaterial = createMaterial();
+        }
+        return mMaterial;
+    }
+
+    /**
+     * Create a new material drawing this font, for text which does not use
+     * the shared {@linkplain #getMaterial() material}.
+     *
+     * @return a {@link GVRShaderType.BitmapText} material with the font
+     * texture
+     */
+    public GVRMaterial createMaterial()
+    {
+        GVRMaterial material = new GVRMaterial(mContext, GVRShaderType.BitmapText.ID);
+        material.setMainTexture(mTexture);
+        material.setFloat("u_smoothing", mSmoothing);
+        return material;
+    }
+
+    private static long kerningKey(int first, int second)
+    {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /*
+     * The contents of a descriptor file
+     */
+    private static final class Descriptor
+    {
+        String face = "";
+        float size;
+        float lineHeight;
+        float base;
+        float scaleW = 1;
+        float scaleH = 1;
+        String page;
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+        final Map<Long, Float> kernings = new HashMap<Long, Float>();
+    }
+
+    private static Descriptor parse(GVRAndroidResource resource) throws IOException
+    {
+        Descriptor descriptor = new Descriptor();
+        Map<String, String> attributes = new HashMap<String, String>();
+        try
+        {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getStream(), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                String tag = parseLine(line, attributes);
+                if ("info".equals(tag))
+                {
+                    descriptor.face = getString(attributes, "face", "");
+                    descriptor.size = Math.abs(getFloat(attributes, "size", 0));
+                }
+                else if ("common".equals(tag))
+                {
+                    descriptor.lineHeight = getFloat(attributes, "lineHeight", 0);
+                    descriptor.base = getFloat(attributes, "base", 0);
+                    descriptor.scaleW = getFloat(attributes, "scaleW", 1);
+                    descriptor.scaleH = getFloat(attributes, "scaleH", 1);
+                    if (getFloat(attributes, "pages", 1) > 1)
+                    {
+                        throw new IOException("Only single page bitmap fonts are supported: " + resource);
+                    }
+                }
+                else if ("page".equals(tag))
+                {
+                    if (getFloat(attributes, "id", 0) != 0)
+                    {
+                        throw new IOException("Only single page bitmap fonts are supported: " + resource);
+                    }
+                    descriptor.page = getString(attributes, "file", null);
+                }
+                else if ("char".equals(tag))
+                {
+                    float x = getFloat(attributes, "x", 0);
+                    float y = getFloat(attributes, "y", 0);
+                    float width = getFloat(attributes, "width", 0);
+                    float height = getFloat(attributes, "height", 0);
+                    descriptor.glyphs.add(new Glyph((int) getFloat(attributes, "id", -1),
+                            width, height,
+                            getFloat(attributes, "xoffset", 0), getFloat(attributes, "yoffset", 0),
+                            getFloat(attributes, "xadvance", 0),
+                            x / descriptor.scaleW, y / descriptor.scaleH,
+                            (x + width) / descriptor.scaleW, (y + height) / descriptor.scaleH));
+                }
+                else if ("kerning".equals(tag))
+                {
+                    float amount = getFloat(attributes, "amount", 0);
+                    if (amount != 0)
+                    {
+                        descriptor.kernings.put(kerningKey((int) getFloat(attributes, "first", 0),
+                                (int) getFloat(attributes, "second", 0)), amount);
+                    }
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Malformed bitmap font " + resource + ": " + e.getMessage());
+        }
+        finally
+        {
+            resource.closeStream();
+        }
+        if (descriptor.page == null)
+        {
+            throw new IOException("No texture page in bitmap font " + resource);
+        }
+        if (descriptor.lineHeight <= 0)
+        {
+            throw new IOException("No line height in bitmap font " + resource);
+        }
+        return descriptor;
+    }
+
+    /*
+     * Split a descriptor line like
+     *     char id=65 x=10 y=20 ...
+     *     page id=0 file="font.png"
+     * into its tag, which is returned, and its attributes.
+     */
+    private static String parseLine(String line, Map<String, String> attributes)
+    {
+        attributes.clear();
+        final int length = line.length();
+        int i = 0;
+        while (i < length && line.charAt(i) == ' ')
+        {
+            ++i;
+        }
+        int start = i;
+        while (i < length && line.charAt(i) != ' ')
+        {
+            ++i;
+        }
+        String tag = line.substring(start, i);
+        while (i < length)
+        {
+            while (i < length && line.charAt(i) == ' ')
+            {
+                ++i;
+            }
+            start = i;
+            while (i < length && line.charAt(i) != '=' && line.charAt(i) != ' ')
+            {
+                ++i;
+            }
+            if (i >= length || line.charAt(i) != '=')
+            {
+                continue;
+            }
+            String key = line.substring(start, i++);
+            String value;
+            if (i < length && line.charAt(i) == '"')
+            {
+                start = ++i;
+                while (i < length && line.charAt(i) != '"')
+                {
+                    ++i;
+                }
+                value = line.substring(start, i++);
+            }
+            else
+            {
+                start = i;
+                while (i < length && line.charAt(i) != ' ')
+                {
+                    ++i;
+                }
+                value = line.substring(start, i);
+            }
+            attributes.put(key, value);
+        }
+        return tag;
+    }
+
+    private static String getString(Map<String, String> attributes, String key, String defaultValue)
+    {
+        String value = attributes.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    private static float getFloat(Map<String, String> attributes, String key, float defaultValue)
+    {
+        String value = attributes.get(key);
+        return value == null ? defaultValue : Float.parseFloat(value);
+    }
+}
@@ -260,6 +260,7 @@ class NativeBitmapImage {
     static native void updateFromMemory(long pointer, int width, int height, byte[] data);
     static native void updateFromBitmap(long pointer, Bitmap bitmap, boolean hasAlpha, String format);
     static native void updateFromBuffer(long pointer, int xoffset, int yoffset, int width, int height, int format, int type, Buffer pixels);
-    static native void updateCompressed(long pointer, int width, int height, int imageSize, byte[] data, int levels, int[] offsets);
+    static native void updateCompressed(long pointer, int width, int height, int imageSize, byte[] data, int levels, int[] offsets, int[] sizes);
+    static native void updateCompressedBuffer(long pointer, int width, int height, int imageSize, Buffer data, int levels, int[] offsets, int[] sizes);
 
 }
\ No newline at end of file
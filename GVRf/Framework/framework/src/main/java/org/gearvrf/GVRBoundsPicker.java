@@ -204,7 +204,14 @@ public class GVRBoundsPicker extends GVRPicker
 
             synchronized (mCollidables)
             {
-                picked = pickBounds(mScene, mCollidables);
+                if (mColliderTree != null)
+                {
+                    picked = mColliderTree.pickBounds(mCollidables);
+                }
+                else
+                {
+                    picked = pickBounds(mScene, mCollidables);
+                }
             }
             if (mPickClosest && (picked.length > 0))
             {
@@ -201,6 +201,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
      */
     public void setCameraSeparationDistance(float distance) {
         NativeCameraRig.setCameraSeparationDistance(getNative(), distance);
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -321,6 +322,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
         leftCameraObject.attachCamera(camera);
         leftCamera = camera;
         NativeCameraRig.attachLeftCamera(getNative(), camera.getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -337,6 +339,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
         rightCameraObject.attachCamera(camera);
         rightCamera = camera;
         NativeCameraRig.attachRightCamera(getNative(), camera.getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -353,6 +356,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
         centerCameraObject.attachCamera(camera);
         centerCamera = camera;
         NativeCameraRig.attachCenterCamera(getNative(), camera.getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     public void attachToParent(GVRSceneObject parentObject) {
@@ -372,6 +376,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
      */
     public void reset() {
         NativeCameraRig.reset(getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -383,6 +388,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
      */
     public void resetYaw() {
         NativeCameraRig.resetYaw(getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -394,6 +400,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
      */
     public void resetYawPitch() {
         NativeCameraRig.resetYawPitch(getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
@@ -538,6 +545,7 @@ public class GVRCameraRig extends GVRComponent implements PrettyPrint {
      */
     void updateRotation() {
         NativeCameraRig.updateRotation(getNative());
+        GVRTransform.invalidateMirrors();
     }
 
     /**
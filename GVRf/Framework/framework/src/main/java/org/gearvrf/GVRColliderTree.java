@@ -0,0 +1,712 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.gearvrf.GVRPicker.GVRPickedObject;
+
+/**
+ * Bounding volume hierarchy of the colliders in a scene
+ * which speeds up picking in scenes with many colliders.
+ * <p>
+ * The native picker tests every collider in the scene against
+ * each pick ray. The collider tree keeps the world space bounding
+ * boxes of the colliders in a binary tree so that only
+ * the colliders whose bounds are hit are tested
+ * against the actual collision geometry.
+ * <p>
+ * The tree is built from all of the colliders in the scene
+ * when it is constructed. When something in the scene which
+ * affects picking changes, the bounds of the colliders are
+ * fetched again (in a single native call) and only the
+ * branches of the tree containing colliders which
+ * moved are refit. Colliders added to or removed from
+ * the scene after the tree is built are only seen
+ * after {@link #rebuild()} or if they are explicitly added
+ * with {@link #addCollider(GVRCollider)} or removed with
+ * {@link #removeCollider(GVRCollider)}.
+ * <p>
+ * To use the tree for picking, give it to a {@link GVRPicker}
+ * or {@link GVRBoundsPicker} with {@link GVRPicker#setColliderTree(GVRColliderTree)}.
+ * You can also call {@link #pickObjects(float, float, float, float, float, float)},
+ * {@link #pickClosest(float, float, float, float, float, float)}
+ * or {@link #pickBounds(List)} directly.
+ * @see GVRPicker#setColliderTree(GVRColliderTree)
+ * @see GVRCollider
+ */
+public class GVRColliderTree
+{
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final GVRPickedObject[] sEmptyList = new GVRPickedObject[0];
+
+    protected final GVRScene mScene;
+    private final ArrayList<GVRCollider> mColliderList = new ArrayList<GVRCollider>();
+    private boolean mNeedsBuild = true;
+    private int mPickVersion;
+
+    private int mNumColliders = 0;
+    private long[] mNativeColliders = new long[0];
+    private float[] mColliderBounds = new float[0];
+    private float[] mNewBounds = new float[0];
+    private int[] mColliderLeaf = new int[0];
+    private float[] mCentroids = new float[0];
+    private int[] mOrder = new int[0];
+
+    private int mNumNodes = 0;
+    private float[] mNodeBounds = new float[0];
+    private int[] mNodeLeft = new int[0];
+    private int[] mNodeRight = new int[0];
+    private int[] mNodeParent = new int[0];
+    private int[] mNodeStart = new int[0];
+    private int[] mNodeCount = new int[0];
+    private boolean[] mNodeDirty = new boolean[0];
+
+    private int[] mStack = new int[64];
+    private long[] mCandidates = new long[64];
+    private int mNumCandidates = 0;
+
+    /**
+     * Construct a collider tree from all of the colliders in a scene.
+     * @param scene scene whose colliders should be in the tree.
+     */
+    public GVRColliderTree(GVRScene scene)
+    {
+        mScene = scene;
+        collectColliders();
+    }
+
+    /**
+     * Get the scene whose colliders are in this tree.
+     * @return {@link GVRScene} the tree was built from
+     */
+    public GVRScene getScene() { return mScene; }
+
+    /**
+     * Get the number of colliders in the tree.
+     * @return collider count
+     */
+    public synchronized int getColliderCount()
+    {
+        return mColliderList.size();
+    }
+
+    /**
+     * Collect all of the colliders in the scene again and
+     * rebuild the tree the next time it is used.
+     * This should be called after many colliders
+     * have been added to or removed from the scene.
+     */
+    public synchronized void rebuild()
+    {
+        collectColliders();
+    }
+
+    /**
+     * Add a collider to the tree.
+     * <p>
+     * The tree is rebuilt the next time it is used.
+     * @param collider collider to add, it should be attached
+     *                 to a scene object in the scene.
+     * @see #removeCollider(GVRCollider)
+     */
+    public synchronized void addCollider(GVRCollider collider)
+    {
+        if (!mColliderList.contains(collider))
+        {
+            mColliderList.add(collider);
+            mNeedsBuild = true;
+        }
+    }
+
+    /**
+     * Remove a collider from the tree.
+     * <p>
+     * The tree is rebuilt the next time it is used.
+     * @param collider collider to remove
+     * @see #addCollider(GVRCollider)
+     */
+    public synchronized void removeCollider(GVRCollider collider)
+    {
+        if (mColliderList.remove(collider))
+        {
+            mNeedsBuild = true;
+        }
+    }
+
+    /**
+     * Casts a ray into the tree and returns the objects it intersects.
+     * <p>
+     * Only the colliders whose bounds are hit by the ray
+     * are tested against the collision geometry.
+     * @param ox    X coordinate of the ray origin in world coordinates.
+     * @param oy    Y coordinate of the ray origin in world coordinates.
+     * @param oz    Z coordinate of the ray origin in world coordinates.
+     * @param dx    X coordinate of the ray direction in world coordinates.
+     * @param dy    Y coordinate of the ray direction in world coordinates.
+     * @param dz    Z coordinate of the ray direction in world coordinates.
+     * @return A list of {@link GVRPickedObject}, sorted by distance from the
+     *         pick ray origin.
+     * @see GVRPicker#pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public synchronized GVRPickedObject[] pickObjects(float ox, float oy, float oz,
+                                                      float dx, float dy, float dz)
+    {
+        update();
+        mNumCandidates = 0;
+        collectRay(ox, oy, oz, dx, dy, dz);
+        if (mNumCandidates == 0)
+        {
+            return sEmptyList;
+        }
+        GVRPicker.sFindObjectsLock.lock();
+        try
+        {
+            GVRPickedObject[] picked = NativePicker.pickColliders(mCandidates, mNumCandidates,
+                                                                  ox, oy, oz, dx, dy, dz);
+            return (picked != null) ? picked : sEmptyList;
+        }
+        finally
+        {
+            GVRPicker.sFindObjectsLock.unlock();
+        }
+    }
+
+    /**
+     * Casts a ray into the tree and returns the closest object
+     * to the origin of the pick ray.
+     * @param ox    X coordinate of the ray origin in world coordinates.
+     * @param oy    Y coordinate of the ray origin in world coordinates.
+     * @param oz    Z coordinate of the ray origin in world coordinates.
+     * @param dx    X coordinate of the ray direction in world coordinates.
+     * @param dy    Y coordinate of the ray direction in world coordinates.
+     * @param dz    Z coordinate of the ray direction in world coordinates.
+     * @return The {@link GVRPickedObject} closest to the ray origin or null if nothing picked.
+     * @see GVRPicker#pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public GVRPickedObject pickClosest(float ox, float oy, float oz,
+                                       float dx, float dy, float dz)
+    {
+        GVRPickedObject[] picked = pickObjects(ox, oy, oz, dx, dy, dz);
+
+        for (GVRPickedObject hit : picked)
+        {
+            if (hit != null)
+            {
+                return hit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tests the bounding spheres of a set of scene objects
+     * against the colliders in the tree.
+     * <p>
+     * Only the colliders whose bounds overlap the bounds
+     * of a collidable are tested against the collision geometry.
+     * @param collidables scene objects to test against the colliders.
+     * @return A list of {@link GVRPickedObject}, the index of the collidable
+     *         hit is in the {@link GVRPickedObject#collidableIndex} field.
+     * @see GVRBoundsPicker#pickBounds(GVRScene, List)
+     */
+    public synchronized GVRPickedObject[] pickBounds(List<GVRSceneObject> collidables)
+    {
+        update();
+        mNumCandidates = 0;
+        for (GVRSceneObject collidable : collidables)
+        {
+            if ((collidable != null) && collidable.isEnabled())
+            {
+                GVRSceneObject.BoundingVolume bv = collidable.getBoundingVolume();
+                collectSphere(bv.center.x, bv.center.y, bv.center.z, bv.radius);
+            }
+        }
+        if (mNumCandidates == 0)
+        {
+            return sEmptyList;
+        }
+        removeDuplicateCandidates();
+        GVRPicker.sFindObjectsLock.lock();
+        try
+        {
+            GVRPickedObject[] picked = NativePicker.pickColliderBounds(mCandidates, mNumCandidates,
+                                                                       collidables);
+            return (picked != null) ? picked : sEmptyList;
+        }
+        finally
+        {
+            GVRPicker.sFindObjectsLock.unlock();
+        }
+    }
+
+    private void collectColliders()
+    {
+        final ArrayList<GVRCollider> colliders = mColliderList;
+
+        colliders.clear();
+        mScene.getRoot().forAllComponents(new GVRSceneObject.ComponentVisitor()
+        {
+            public boolean visit(GVRComponent comp)
+            {
+                colliders.add((GVRCollider) comp);
+                return true;
+            }
+        }, GVRCollider.getComponentType());
+        mNeedsBuild = true;
+    }
+
+    /*
+     * Rebuilds the tree if colliders were added or removed,
+     * otherwise refits the tree if anything which affects
+     * picking changed since the last time it was used.
+     */
+    private void update()
+    {
+        int version = NativePicker.getPickVersion();
+
+        if (mNeedsBuild)
+        {
+            mPickVersion = version;
+            build();
+        }
+        else if (version != mPickVersion)
+        {
+            mPickVersion = version;
+            refit();
+        }
+    }
+
+    private void build()
+    {
+        int n = mColliderList.size();
+
+        mNeedsBuild = false;
+        mNumColliders = n;
+        if (mNativeColliders.length < n)
+        {
+            mNativeColliders = new long[n];
+            mColliderBounds = new float[n * 6];
+            mNewBounds = new float[n * 6];
+            mCentroids = new float[n * 3];
+            mColliderLeaf = new int[n];
+            mOrder = new int[n];
+        }
+        for (int i = 0; i < n; ++i)
+        {
+            mNativeColliders[i] = mColliderList.get(i).getNative();
+            mOrder[i] = i;
+        }
+        NativePicker.getColliderBounds(mNativeColliders, n, mColliderBounds);
+        for (int i = 0; i < n; ++i)
+        {
+            int b = i * 6;
+            mCentroids[i * 3] = (mColliderBounds[b] + mColliderBounds[b + 3]) * 0.5f;
+            mCentroids[i * 3 + 1] = (mColliderBounds[b + 1] + mColliderBounds[b + 4]) * 0.5f;
+            mCentroids[i * 3 + 2] = (mColliderBounds[b + 2] + mColliderBounds[b + 5]) * 0.5f;
+        }
+        int maxNodes = Math.max(1, 2 * n);
+        if (mNodeLeft.length < maxNodes)
+        {
+            mNodeBounds = new float[maxNodes * 6];
+            mNodeLeft = new int[maxNodes];
+            mNodeRight = new int[maxNodes];
+            mNodeParent = new int[maxNodes];
+            mNodeStart = new int[maxNodes];
+            mNodeCount = new int[maxNodes];
+            mNodeDirty = new boolean[maxNodes];
+        }
+        mNumNodes = 0;
+        if (n > 0)
+        {
+            buildNode(-1, 0, n, 0);
+        }
+    }
+
+    /*
+     * Builds the subtree for the colliders in mOrder[start, start + count)
+     * by splitting them at the median centroid along the longest
+     * axis of the centroid bounds. Returns the index of the new node.
+     */
+    private int buildNode(int parent, int start, int count, int depth)
+    {
+        int node = mNumNodes++;
+
+        mNodeParent[node] = parent;
+        mNodeStart[node] = start;
+        mNodeCount[node] = count;
+        mNodeLeft[node] = -1;
+        mNodeRight[node] = -1;
+        mNodeDirty[node] = false;
+        if ((count <= MAX_LEAF_SIZE) || (depth >= mStack.length - 2))
+        {
+            setLeafBounds(node);
+            for (int i = start; i < start + count; ++i)
+            {
+                mColliderLeaf[mOrder[i]] = node;
+            }
+            return node;
+        }
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+
+        for (int i = start; i < start + count; ++i)
+        {
+            int c = mOrder[i] * 3;
+            minX = Math.min(minX, mCentroids[c]);
+            minY = Math.min(minY, mCentroids[c + 1]);
+            minZ = Math.min(minZ, mCentroids[c + 2]);
+            maxX = Math.max(maxX, mCentroids[c]);
+            maxY = Math.max(maxY, mCentroids[c + 1]);
+            maxZ = Math.max(maxZ, mCentroids[c + 2]);
+        }
+        int axis = 0;
+        float extent = maxX - minX;
+        if ((maxY - minY) > extent)
+        {
+            axis = 1;
+            extent = maxY - minY;
+        }
+        if ((maxZ - minZ) > extent)
+        {
+            axis = 2;
+        }
+        int half = count / 2;
+        selectMedian(start, start + count - 1, start + half, axis);
+        int left = buildNode(node, start, half, depth + 1);
+        int right = buildNode(node, start + half, count - half, depth + 1);
+        mNodeLeft[node] = left;
+        mNodeRight[node] = right;
+        unionBounds(node, left, right);
+        return node;
+    }
+
+    /*
+     * Partially sorts mOrder[lo, hi] so that the element at index k
+     * is the one which would be there if the range were sorted by
+     * centroid along the given axis.
+     */
+    private void selectMedian(int lo, int hi, int k, int axis)
+    {
+        while (hi > lo)
+        {
+            float pivot = mCentroids[mOrder[(lo + hi) >>> 1] * 3 + axis];
+            int i = lo;
+            int j = hi;
+
+            while (i <= j)
+            {
+                while (mCentroids[mOrder[i] * 3 + axis] < pivot)
+                {
+                    ++i;
+                }
+                while (mCentroids[mOrder[j] * 3 + axis] > pivot)
+                {
+                    --j;
+                }
+                if (i <= j)
+                {
+                    int t = mOrder[i];
+                    mOrder[i++] = mOrder[j];
+                    mOrder[j--] = t;
+                }
+            }
+            if (k <= j)
+            {
+                hi = j;
+            }
+            else if (k >= i)
+            {
+                lo = i;
+            }
+            else
+            {
+                return;
+            }
+        }
+    }
+
+    private void setLeafBounds(int node)
+    {
+        int n = node * 6;
+        int start = mNodeStart[node];
+        int end = start + mNodeCount[node];
+
+        mNodeBounds[n] = mNodeBounds[n + 1] = mNodeBounds[n + 2] = Float.POSITIVE_INFINITY;
+        mNodeBounds[n + 3] = mNodeBounds[n + 4] = mNodeBounds[n + 5] = Float.NEGATIVE_INFINITY;
+        for (int i = start; i < end; ++i)
+        {
+            int b = mOrder[i] * 6;
+            for (int j = 0; j < 3; ++j)
+            {
+                mNodeBounds[n + j] = Math.min(mNodeBounds[n + j], mColliderBounds[b + j]);
+                mNodeBounds[n + j + 3] = Math.max(mNodeBounds[n + j + 3], mColliderBounds[b + j + 3]);
+            }
+        }
+    }
+
+    private void unionBounds(int node, int left, int right)
+    {
+        int n = node * 6;
+        int l = left * 6;
+        int r = right * 6;
+
+        for (int j = 0; j < 3; ++j)
+        {
+            mNodeBounds[n + j] = Math.min(mNodeBounds[l + j], mNodeBounds[r + j]);
+            mNodeBounds[n + j + 3] = Math.max(mNodeBounds[l + j + 3], mNodeBounds[r + j + 3]);
+        }
+    }
+
+    /*
+     * Fetches the current bounds of all the colliders and refits
+     * only the leaves whose colliders moved and their ancestors.
+     * The shape of the tree is not changed.
+     */
+    private void refit()
+    {
+        int n = mNumColliders;
+
+        if (n == 0)
+        {
+            return;
+        }
+        NativePicker.getColliderBounds(mNativeColliders, n, mNewBounds);
+        for (int i = 0; i < n; ++i)
+        {
+            int b = i * 6;
+            boolean changed = false;
+
+            for (int j = 0; j < 6; ++j)
+            {
+                if (mNewBounds[b + j] != mColliderBounds[b + j])
+                {
+                    changed = true;
+                    break;
+                }
+            }
+            if (changed)
+            {
+                System.arraycopy(mNewBounds, b, mColliderBounds, b, 6);
+                mNodeDirty[mColliderLeaf[i]] = true;
+            }
+        }
+        /*
+         * Children always have larger indices than their parents
+         * so walking backwards refits the children first.
+         */
+        for (int node = mNumNodes - 1; node >= 0; --node)
+        {
+            if (!mNodeDirty[node])
+            {
+                continue;
+            }
+            mNodeDirty[node] = false;
+            if (mNodeLeft[node] < 0)
+            {
+                setLeafBounds(node);
+            }
+            else
+            {
+                unionBounds(node, mNodeLeft[node], mNodeRight[node]);
+            }
+            if (mNodeParent[node] >= 0)
+            {
+                mNodeDirty[mNodeParent[node]] = true;
+            }
+        }
+    }
+
+    /*
+     * Adds the colliders in all the leaves whose bounds
+     * are hit by the ray to the candidate list.
+     */
+    private void collectRay(float ox, float oy, float oz, float dx, float dy, float dz)
+    {
+        if (mNumNodes == 0)
+        {
+            return;
+        }
+        float ix = 1.0f / dx;
+        float iy = 1.0f / dy;
+        float iz = 1.0f / dz;
+        int sp = 0;
+
+        mStack[sp++] = 0;
+        while (sp > 0)
+        {
+            int node = mStack[--sp];
+
+            if (!rayHitsBox(node * 6, ox, oy, oz, ix, iy, iz))
+            {
+                continue;
+            }
+            if (mNodeLeft[node] < 0)
+            {
+                addLeafCandidates(node);
+            }
+            else
+            {
+                mStack[sp++] = mNodeLeft[node];
+                mStack[sp++] = mNodeRight[node];
+            }
+        }
+    }
+
+    /*
+     * Adds the colliders in all the leaves whose bounds
+     * overlap the sphere to the candidate list.
+     */
+    private void collectSphere(float cx, float cy, float cz, float radius)
+    {
+        if ((mNumNodes == 0) || !(radius > 0) || Float.isInfinite(radius))
+        {
+            return;
+        }
+        int sp = 0;
+
+        mStack[sp++] = 0;
+        while (sp > 0)
+        {
+            int node = mStack[--sp];
+
+            if (!sphereHitsBox(node * 6, cx, cy, cz, radius))
+            {
+                continue;
+            }
+            if (mNodeLeft[node] < 0)
+            {
+                addLeafCandidates(node);
+            }
+            else
+            {
+                mStack[sp++] = mNodeLeft[node];
+                mStack[sp++] = mNodeRight[node];
+            }
+        }
+    }
+
+    private void addLeafCandidates(int node)
+    {
+        int start = mNodeStart[node];
+        int end = start + mNodeCount[node];
+
+        for (int i = start; i < end; ++i)
+        {
+            int c = mOrder[i];
+            int b = c * 6;
+
+            if (mColliderBounds[b] > mColliderBounds[b + 3])
+            {
+                continue;               // collider has no bounds
+            }
+            if (mNumCandidates >= mCandidates.length)
+            {
+                mCandidates = Arrays.copyOf(mCandidates, mCandidates.length * 2);
+            }
+            mCandidates[mNumCandidates++] = mNativeColliders[c];
+        }
+    }
+
+    private void removeDuplicateCandidates()
+    {
+        Arrays.sort(mCandidates, 0, mNumCandidates);
+        int n = 0;
+        for (int i = 0; i < mNumCandidates; ++i)
+        {
+            if ((n == 0) || (mCandidates[n - 1] != mCandidates[i]))
+            {
+                mCandidates[n++] = mCandidates[i];
+            }
+        }
+        mNumCandidates = n;
+    }
+
+    /*
+     * Slab test of the ray against the bounds of a node.
+     * A direction component of zero has an infinite inverse:
+     * the ray is parallel to that slab and only hits the box if
+     * its origin is between the planes. Computing the distances
+     * would give 0 * Inf = NaN for an origin on a plane.
+     */
+    private boolean rayHitsBox(int b, float ox, float oy, float oz,
+                               float ix, float iy, float iz)
+    {
+        float tmin = 0.0f;
+        float tmax = Float.POSITIVE_INFINITY;
+        float t1, t2;
+
+        if (Float.isInfinite(ix))
+        {
+            if ((ox < mNodeBounds[b]) || (ox > mNodeBounds[b + 3]))
+            {
+                return false;
+            }
+        }
+        else
+        {
+            t1 = (mNodeBounds[b] - ox) * ix;
+            t2 = (mNodeBounds[b + 3] - ox) * ix;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        if (Float.isInfinite(iy))
+        {
+            if ((oy < mNodeBounds[b + 1]) || (oy > mNodeBounds[b + 4]))
+            {
+                return false;
+            }
+        }
+        else
+        {
+            t1 = (mNodeBounds[b + 1] - oy) * iy;
+            t2 = (mNodeBounds[b + 4] - oy) * iy;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        if (Float.isInfinite(iz))
+        {
+            if ((oz < mNodeBounds[b + 2]) || (oz > mNodeBounds[b + 5]))
+            {
+                return false;
+            }
+        }
+        else
+        {
+            t1 = (mNodeBounds[b + 2] - oz) * iz;
+            t2 = (mNodeBounds[b + 5] - oz) * iz;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        return (tmax >= tmin);
+    }
+
+    private boolean sphereHitsBox(int b, float cx, float cy, float cz, float radius)
+    {
+        float d = 0;
+        float e;
+
+        e = Math.max(mNodeBounds[b] - cx, Math.max(0, cx - mNodeBounds[b + 3]));
+        d += e * e;
+        e = Math.max(mNodeBounds[b + 1] - cy, Math.max(0, cy - mNodeBounds[b + 4]));
+        d += e * e;
+        e = Math.max(mNodeBounds[b + 2] - cz, Math.max(0, cz - mNodeBounds[b + 5]));
+        d += e * e;
+        return d <= radius * radius;
+    }
+}
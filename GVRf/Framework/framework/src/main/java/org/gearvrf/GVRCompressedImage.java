@@ -17,6 +17,8 @@ package org.gearvrf;
 
 import org.gearvrf.utility.Log;
 
+import java.nio.ByteBuffer;
+
 /**
  * Describes a compressed bitmap texture.
  * <p>
@@ -74,10 +76,73 @@ public class GVRCompressedImage extends GVRImage
     public void setDataOffsets(int[] offsets)
     {
         assert(mLevels == offsets.length);
-        NativeBitmapImage.updateCompressed(getNative(), mWidth, mHeight, mImageSize, mData, mLevels, offsets);
+        NativeBitmapImage.updateCompressed(getNative(), mWidth, mHeight, mImageSize, mData, mLevels, offsets, null);
+        mData = null;
+    }
+
+    /**
+     * Replace the image data. The texture is uploaded again on the next frame.
+     * @param width     pixel width of the first level.
+     * @param height    pixel height of the first level.
+     * @param imageSize number of bytes in the first level.
+     * @param data      image data bytes
+     * @param levels    number of mip-map levels
+     * @param offsets   offset of each level in {@code data}
+     * @param sizes     number of bytes in each level, or null if the levels
+     *                  follow each other without any gap
+     */
+    public void update(int width, int height, int imageSize, byte[] data, int levels, int[] offsets, int[] sizes)
+    {
+        mWidth = width;
+        mHeight = height;
+        mImageSize = imageSize;
+        mLevels = levels;
+        NativeBitmapImage.updateCompressed(getNative(), width, height, imageSize, data, levels, offsets, sizes);
         mData = null;
     }
 
+    /**
+     * Replace the image data with the contents of a direct buffer, such as
+     * a memory mapped file. The buffer is read in place when the texture is
+     * uploaded on the next frame, so it must not change until then.
+     * @param width     pixel width of the first level.
+     * @param height    pixel height of the first level.
+     * @param imageSize number of bytes in the first level.
+     * @param data      direct buffer holding the image data
+     * @param levels    number of mip-map levels
+     * @param offsets   offset of each level from the start of {@code data}
+     * @param sizes     number of bytes in each level, or null if the levels
+     *                  follow each other without any gap
+     */
+    public void update(int width, int height, int imageSize, ByteBuffer data, int levels, int[] offsets, int[] sizes)
+    {
+        if (!data.isDirect())
+        {
+            throw new IllegalArgumentException("Compressed image data must be a direct buffer");
+        }
+        mWidth = width;
+        mHeight = height;
+        mImageSize = imageSize;
+        mLevels = levels;
+        NativeBitmapImage.updateCompressedBuffer(getNative(), width, height, imageSize, data, levels, offsets, sizes);
+        mData = null;
+    }
+
+    /**
+     * @return pixel width of the first level
+     */
+    public int getWidth()           { return mWidth; }
+
+    /**
+     * @return pixel height of the first level
+     */
+    public int getHeight()          { return mHeight; }
+
+    /**
+     * @return number of mip-map levels
+     */
+    public int getLevels()          { return mLevels; }
+
     /**
      * Get compression quality
      * @return compression quality
@@ -38,9 +38,11 @@ import org.gearvrf.utility.Threads;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Like the Android {@link Context} class, {@code GVRContext} provides core
@@ -386,6 +388,15 @@ public abstract class GVRContext implements IEventReceiver {
      */
     public abstract GVREventManager getEventManager();
 
+    /**
+     * Returns the {@link GVRPickService}.
+     *
+     * @return A {@link GVRPickService} which shares pick results between
+     * the pickers and other consumers during a frame.
+     *
+     */
+    public abstract GVRPickService getPickService();
+
     /**
      * Returns the {@link IScriptManager}.
      *
@@ -416,6 +427,54 @@ public abstract class GVRContext implements IEventReceiver {
      */
     public abstract void runOnGlThread(Runnable runnable);
 
+    /**
+     * Enqueues a callback to be run in the GL thread with the given priority.
+     * <p>
+     * High priority callbacks are always run in the next frame. Normal and
+     * low priority callbacks are run while there is time left in the
+     * {@linkplain GVRGlTaskScheduler#setFrameBudget(long) frame budget},
+     * the rest are run in the following frames.
+     * {@link #runOnGlThread(Runnable)} uses normal priority.
+     *
+     * @param runnable
+     *            A bit of code that must run on the GL thread
+     * @param priority
+     *            {@link GVRGlTaskScheduler#PRIORITY_HIGH},
+     *            {@link GVRGlTaskScheduler#PRIORITY_NORMAL} or
+     *            {@link GVRGlTaskScheduler#PRIORITY_LOW}
+     */
+    public abstract void runOnGlThread(Runnable runnable, int priority);
+
+    /**
+     * Enqueues a callback to be run in the GL thread, replacing a pending
+     * callback for the same key.
+     * <p>
+     * If a callback posted with the same key (compared by identity) has not
+     * run yet, it is replaced by this one so only the latest update to an
+     * object is applied. Usually the key is the object being updated.
+     * When called on the GL thread the callback runs immediately and a
+     * pending callback for the same key is discarded.
+     *
+     * @param key
+     *            Object the callback applies to, null for no coalescing
+     * @param runnable
+     *            A bit of code that must run on the GL thread
+     * @param priority
+     *            {@link GVRGlTaskScheduler#PRIORITY_HIGH},
+     *            {@link GVRGlTaskScheduler#PRIORITY_NORMAL} or
+     *            {@link GVRGlTaskScheduler#PRIORITY_LOW}
+     */
+    public abstract void runOnGlThread(Object key, Runnable runnable, int priority);
+
+    /**
+     * Get the scheduler which runs the {@linkplain #runOnGlThread(Runnable) GL callbacks}.
+     * <p>
+     * Use it to change the per frame time budget
+     * or to read the queue length and timing counters.
+     * @return {@link GVRGlTaskScheduler} for this context
+     */
+    public abstract GVRGlTaskScheduler getGlTaskScheduler();
+
     /**
      * Enqueues a callback to be run in the GL thread after rendering a frame.
      *
@@ -447,6 +506,35 @@ public abstract class GVRContext implements IEventReceiver {
     public abstract void registerDrawFrameListener(
             GVRDrawFrameListener frameListener);
 
+    /**
+     * Subscribes a {@link GVRDrawFrameListener} with a priority and an
+     * interval, or changes how a subscribed listener is called.
+     * <p>
+     * Listeners are called by priority, then in subscription order. A
+     * listener called every few frames receives the time elapsed since its
+     * previous call. A deferrable listener may be skipped when the listeners
+     * before it used up the
+     * {@linkplain GVRDrawFrameScheduler#setFrameBudget(long) frame budget};
+     * it then runs in a later frame.
+     *
+     * @param frameListener
+     *            A callback that will fire until it is
+     *            {@linkplain #unregisterDrawFrameListener(GVRDrawFrameListener)
+     *            unregistered}
+     * @param priority
+     *            {@link GVRDrawFrameScheduler#PRIORITY_HIGH},
+     *            {@link GVRDrawFrameScheduler#PRIORITY_NORMAL} or
+     *            {@link GVRDrawFrameScheduler#PRIORITY_LOW}
+     * @param interval
+     *            Number of frames between two calls, 1 for every frame
+     * @param deferrable
+     *            true if the listener may be skipped to keep the frame in
+     *            budget
+     */
+    public abstract void registerDrawFrameListener(
+            GVRDrawFrameListener frameListener, int priority, int interval,
+            boolean deferrable);
+
     /**
      * Remove a previously-subscribed {@link GVRDrawFrameListener}.
      * 
@@ -458,6 +546,17 @@ public abstract class GVRContext implements IEventReceiver {
     public abstract void unregisterDrawFrameListener(
             GVRDrawFrameListener frameListener);
 
+    /**
+     * Get the scheduler which calls the
+     * {@linkplain #registerDrawFrameListener(GVRDrawFrameListener) frame
+     * listeners}.
+     * <p>
+     * Use it to change the frame budget of the deferrable listeners or to
+     * read the timing counters of the listeners.
+     * @return {@link GVRDrawFrameScheduler} for this context
+     */
+    public abstract GVRDrawFrameScheduler getDrawFrameScheduler();
+
     /**
      * The {@linkplain GVRShaderManager object shader manager}
      * singleton.
@@ -642,6 +741,20 @@ public abstract class GVRContext implements IEventReceiver {
      */
     public abstract void captureScreen3D(GVRScreenshot3DCallback callback);
 
+    /**
+     * Scale down the bitmaps returned by the screen capture functions.
+     *
+     * The width and height of each screenshot are divided by the factor.
+     * Scaling is done in the background before the bitmap is created,
+     * which makes periodic captures (e.g. for thumbnails or streaming)
+     * much cheaper than scaling the full size bitmap afterwards.
+     *
+     * @param factor
+     *            1 to capture at full size (the default), 2 for half size
+     *            and so on.
+     */
+    public abstract void setScreenshotScaleFactor(int factor);
+
     private Object mTag;
 
     /**
@@ -761,17 +874,62 @@ public abstract class GVRContext implements IEventReceiver {
     /**
      * We need hard references to {@linkplain GVRReference our references} -
      * otherwise, the references get garbage collected (usually before their
-     * objects) and never get enqueued.
+     * objects) and never get enqueued. They are kept in a registry keyed
+     * by native pointer so {@link #findReference(long)} does not have to search.
      */
-    private Set<GVRReference> mReferenceSet = new HashSet<GVRReference>();
+    private ReferenceRegistry mReferenceSet = new ReferenceRegistry();
+
+    /**
+     * Maximum number of unreachable objects released in one frame.
+     * Anything left over is released on the following frames.
+     */
+    private static final int MAX_RECLAIM_PER_FRAME = 2048;
+    private final GVRReference[] mReclaimBatch = new GVRReference[64];
 
     protected final void finalizeUnreachableObjects() {
-        GVRReference reference;
-        while (null != (reference = (GVRReference)mReferenceQueue.poll())) {
-            reference.close(mReferenceSet);
+        final ReferenceRegistry registry = mReferenceSet;
+        int total = 0;
+
+        while (total < MAX_RECLAIM_PER_FRAME) {
+            int n = 0;
+            GVRReference reference;
+
+            while ((n < mReclaimBatch.length)
+                    && (null != (reference = (GVRReference) mReferenceQueue.poll()))) {
+                mReclaimBatch[n++] = reference;
+            }
+            if (n == 0) {
+                break;
+            }
+            registry.reclaim(mReclaimBatch, n);
+            total += n;
         }
     }
 
+    /**
+     * Get the number of native objects that are currently owned by
+     * Java objects in this context, by class of the owner.
+     * <p>
+     * This is a snapshot meant for diagnostics.
+     * @return map of class name to live native object count.
+     * @see #getReclaimedNativeObjectCounts()
+     */
+    public Map<String, Long> getLiveNativeObjectCounts() {
+        return mReferenceSet.getCounts(true);
+    }
+
+    /**
+     * Get the number of native objects which have been released
+     * since this context was created, by class of the owner.
+     * <p>
+     * This is a snapshot meant for diagnostics.
+     * @return map of class name to released native object count.
+     * @see #getLiveNativeObjectCounts()
+     */
+    public Map<String, Long> getReclaimedNativeObjectCounts() {
+        return mReferenceSet.getCounts(false);
+    }
+
     /**
      *
      * @return
@@ -782,9 +940,9 @@ public abstract class GVRContext implements IEventReceiver {
 
     final static class UndertakerThread extends Thread {
         private final ReferenceQueue<GVRHybridObject> referenceQueue;
-        private final Set<GVRReference> referenceSet;
+        private final ReferenceRegistry referenceSet;
 
-        UndertakerThread(final ReferenceQueue<GVRHybridObject> referenceQueue, final Set<GVRReference> referenceSet, final String threadName) {
+        UndertakerThread(final ReferenceQueue<GVRHybridObject> referenceQueue, final ReferenceRegistry referenceSet, final String threadName) {
             super(threadName);
             this.referenceQueue = referenceQueue;
             this.referenceSet = referenceSet;
@@ -792,16 +950,12 @@ public abstract class GVRContext implements IEventReceiver {
 
         @Override
         public void run() {
-            while (true) {
-                try {
-                    GVRReference reference = (GVRReference)referenceQueue.remove();
-                    reference.close(referenceSet);
+            final GVRReference[] batch = new GVRReference[1];
 
-                    synchronized (referenceSet) {
-                        if (0 == referenceSet.size()) {
-                            break;
-                        }
-                    }
+            while (0 != referenceSet.size()) {
+                try {
+                    batch[0] = (GVRReference)referenceQueue.remove();
+                    referenceSet.reclaim(batch, 1);
                 } catch (InterruptedException e) {
                     //ignore; nobody has a handle to this thread, nobody can and is supposed to interrupt it
                 }
@@ -822,58 +976,289 @@ public abstract class GVRContext implements IEventReceiver {
     }
 
     static final class GVRReference extends PhantomReference<GVRHybridObject> {
-        private long mNativePointer;
+        private final long mNativePointer;
         private final List<NativeCleanupHandler> mCleanupHandlers;
+        private final TypeCounter mCounter;
+        private GVRReference mNext;     // next reference with the same native pointer
 
-        private GVRReference(GVRHybridObject object, long nativePointer, List<NativeCleanupHandler> cleanupHandlers, final ReferenceQueue<GVRHybridObject> referenceQueue) {
+        private GVRReference(GVRHybridObject object, long nativePointer, List<NativeCleanupHandler> cleanupHandlers,
+                             TypeCounter counter, final ReferenceQueue<GVRHybridObject> referenceQueue) {
             super(object, referenceQueue);
 
             mNativePointer = nativePointer;
             mCleanupHandlers = cleanupHandlers;
+            mCounter = counter;
         }
 
-        private void close(final Set<GVRReference> referenceSet) {
-            close(referenceSet, true);
+        /*
+         * Only called by the thread that removed this reference
+         * from the registry, so it runs once per reference.
+         */
+        private void close() {
+            if (mNativePointer != 0) {
+                if (mCleanupHandlers != null) {
+                    for (NativeCleanupHandler handler : mCleanupHandlers) {
+                        handler.nativeCleanup(mNativePointer);
+                    }
+                }
+                NativeHybridObject.delete(mNativePointer);
+            }
+            mCounter.mLive.decrementAndGet();
+            mCounter.mReclaimed.incrementAndGet();
+            clear();
         }
+    }
 
-        private void close(final Set<GVRReference> referenceSet, boolean removeFromSet) {
-            synchronized (referenceSet) {
-                if (mNativePointer != 0) {
-                    if (mCleanupHandlers != null) {
-                        for (NativeCleanupHandler handler : mCleanupHandlers) {
-                            handler.nativeCleanup(mNativePointer);
-                        }
+    /**
+     * Live and reclaimed native object counts for one owner class.
+     */
+    static final class TypeCounter {
+        final AtomicLong mLive = new AtomicLong();
+        final AtomicLong mReclaimed = new AtomicLong();
+    }
+
+    /**
+     * Set of live {@link GVRReference}s keyed by native pointer.
+     * <p>
+     * The references are spread over independently locked stripes
+     * so loader threads registering objects at the same time rarely
+     * contend. Each stripe is an open addressing hash table with
+     * primitive long keys, so lookup and removal are O(1) and
+     * registering an object does not allocate a map entry.
+     */
+    static final class ReferenceRegistry {
+        private static final int STRIPE_COUNT = 16;
+        private final Stripe[] mStripes = new Stripe[STRIPE_COUNT];
+        private final ConcurrentHashMap<Class<?>, TypeCounter> mCounters =
+                new ConcurrentHashMap<Class<?>, TypeCounter>();
+
+        ReferenceRegistry() {
+            for (int i = 0; i < STRIPE_COUNT; ++i) {
+                mStripes[i] = new Stripe();
+            }
+        }
+
+        private static int hash(long nativePointer) {
+            long h = nativePointer * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private Stripe stripeFor(int hash) {
+            return mStripes[(hash >>> 28) & (STRIPE_COUNT - 1)];
+        }
+
+        TypeCounter counterFor(Class<?> type) {
+            TypeCounter counter = mCounters.get(type);
+            if (counter == null) {
+                counter = new TypeCounter();
+                TypeCounter prev = mCounters.putIfAbsent(type, counter);
+                if (prev != null) {
+                    counter = prev;
+                }
+            }
+            return counter;
+        }
+
+        void add(GVRReference reference) {
+            int h = hash(reference.mNativePointer);
+            Stripe stripe = stripeFor(h);
+
+            synchronized (stripe) {
+                stripe.put(reference, h);
+            }
+            reference.mCounter.mLive.incrementAndGet();
+        }
+
+        GVRReference find(long nativePointer) {
+            int h = hash(nativePointer);
+            Stripe stripe = stripeFor(h);
+
+            synchronized (stripe) {
+                int slot = stripe.indexOf(nativePointer, h);
+                return (slot >= 0) ? stripe.mValues[slot] : null;
+            }
+        }
+
+        /**
+         * Release the native objects for a batch of enqueued references.
+         * References that are no longer registered are skipped.
+         */
+        void reclaim(GVRReference[] references, int count) {
+            for (int i = 0; i < count; ++i) {
+                GVRReference reference = references[i];
+                references[i] = null;
+                if (remove(reference)) {
+                    reference.close();
+                }
+            }
+        }
+
+        private boolean remove(GVRReference reference) {
+            int h = hash(reference.mNativePointer);
+            Stripe stripe = stripeFor(h);
+
+            synchronized (stripe) {
+                return stripe.remove(reference, h);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (Stripe stripe : mStripes) {
+                synchronized (stripe) {
+                    size += stripe.mReferenceCount;
+                }
+            }
+            return size;
+        }
+
+        Map<String, Long> getCounts(boolean live) {
+            Map<String, Long> counts = new HashMap<String, Long>();
+            for (Map.Entry<Class<?>, TypeCounter> entry : mCounters.entrySet()) {
+                TypeCounter counter = entry.getValue();
+                long n = live ? counter.mLive.get() : counter.mReclaimed.get();
+                if (n != 0) {
+                    counts.put(entry.getKey().getName(), n);
+                }
+            }
+            return counts;
+        }
+
+        /**
+         * Linear probing hash table from native pointer to the
+         * newest reference for that pointer. Older references to the
+         * same pointer are chained through {@link GVRReference#mNext}.
+         * Must be accessed with the stripe locked.
+         */
+        private static final class Stripe {
+            private long[] mKeys = new long[64];
+            private GVRReference[] mValues = new GVRReference[64];
+            private int mKeyCount;
+            private int mReferenceCount;
+
+            int indexOf(long key, int hash) {
+                int mask = mKeys.length - 1;
+                int i = hash & mask;
+
+                while (mValues[i] != null) {
+                    if (mKeys[i] == key) {
+                        return i;
+                    }
+                    i = (i + 1) & mask;
+                }
+                return -1;
+            }
+
+            void put(GVRReference reference, int hash) {
+                long key = reference.mNativePointer;
+                int slot = indexOf(key, hash);
+
+                ++mReferenceCount;
+                if (slot >= 0) {
+                    reference.mNext = mValues[slot];
+                    mValues[slot] = reference;
+                    return;
+                }
+                if ((mKeyCount + 1) * 4 > mKeys.length * 3) {
+                    grow();
+                }
+                insert(key, reference, hash);
+                ++mKeyCount;
+            }
+
+            boolean remove(GVRReference reference, int hash) {
+                int slot = indexOf(reference.mNativePointer, hash);
+
+                if (slot < 0) {
+                    return false;
+                }
+                GVRReference head = mValues[slot];
+                if (head == reference) {
+                    if (head.mNext != null) {
+                        mValues[slot] = head.mNext;
+                    } else {
+                        deleteSlot(slot);
+                        --mKeyCount;
                     }
-                    NativeHybridObject.delete(mNativePointer);
-                    mNativePointer = 0;
+                } else {
+                    GVRReference prev = head;
+                    while ((prev.mNext != null) && (prev.mNext != reference)) {
+                        prev = prev.mNext;
+                    }
+                    if (prev.mNext == null) {
+                        return false;
+                    }
+                    prev.mNext = reference.mNext;
                 }
+                reference.mNext = null;
+                --mReferenceCount;
+                return true;
+            }
 
-                if (removeFromSet) {
-                    referenceSet.remove(this);
+            private void insert(long key, GVRReference value, int hash) {
+                int mask = mKeys.length - 1;
+                int i = hash & mask;
+
+                while (mValues[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = key;
+                mValues[i] = value;
+            }
+
+            /*
+             * Backward shift deletion keeps the probe sequences
+             * intact without leaving tombstones behind.
+             */
+            private void deleteSlot(int slot) {
+                int mask = mKeys.length - 1;
+                int hole = slot;
+                int i = (slot + 1) & mask;
+
+                while (mValues[i] != null) {
+                    int home = hash(mKeys[i]) & mask;
+                    if (((i - home) & mask) >= ((i - hole) & mask)) {
+                        mKeys[hole] = mKeys[i];
+                        mValues[hole] = mValues[i];
+                        hole = i;
+                    }
+                    i = (i + 1) & mask;
+                }
+                mKeys[hole] = 0;
+                mValues[hole] = null;
+            }
+
+            private void grow() {
+                long[] oldKeys = mKeys;
+                GVRReference[] oldValues = mValues;
+
+                mKeys = new long[oldKeys.length * 2];
+                mValues = new GVRReference[oldValues.length * 2];
+                for (int i = 0; i < oldKeys.length; ++i) {
+                    if (oldValues[i] != null) {
+                        insert(oldKeys[i], oldValues[i], hash(oldKeys[i]));
+                    }
                 }
             }
         }
     }
 
     final void registerHybridObject(GVRHybridObject gvrHybridObject, long nativePointer, List<NativeCleanupHandler> cleanupHandlers) {
-        synchronized (mReferenceSet) {
-            mReferenceSet.add(new GVRReference(gvrHybridObject, nativePointer, cleanupHandlers, mReferenceQueue));
-        }
+        final ReferenceRegistry registry = mReferenceSet;
+        final TypeCounter counter = registry.counterFor(gvrHybridObject.getClass());
+
+        registry.add(new GVRReference(gvrHybridObject, nativePointer, cleanupHandlers, counter, mReferenceQueue));
     }
 
     /**
      * Explicitly close()ing an object is going to be relatively rare - most
      * native memory will be freed when the owner-objects are garbage collected.
-     * Doing a lookup in these rare cases means that we can avoid giving every @link
-     * {@link GVRHybridObject} a hard reference to its {@link GVRReference}.
+     * The registry is keyed by native pointer, so the lookup is O(1) and we
+     * can still avoid giving every {@link GVRHybridObject} a hard reference
+     * to its {@link GVRReference}.
      */
     final GVRReference findReference(long nativePointer) {
-        for (GVRReference reference : mReferenceSet) {
-            if (reference.mNativePointer == nativePointer) {
-                return reference;
-            }
-        }
-        return null;
+        return mReferenceSet.find(nativePointer);
     }
 
 }
@@ -28,12 +28,15 @@ package org.gearvrf;
  */
 public interface GVRDrawFrameListener {
     /**
-     * Called each time a frame is drawn. Callbacks are called in subscription-order, after any
+     * Called each time a frame is drawn, or every few frames if the listener was
+     * {@linkplain GVRContext#registerDrawFrameListener(GVRDrawFrameListener, int, int, boolean)
+     * registered with an interval}. Callbacks are called by priority then in subscription-order, after any
      * {@linkplain GVRContext#runOnGlThread(Runnable) 'one shot' callbacks} and before
      * {@link GVRMain#onStep()}.
      * 
      * @param frameTime
-     *            Seconds since the previous frame - see
+     *            Seconds since the previous call: the time since the previous
+     *            frame for listeners called every frame - see
      *            {@link GVRContext#getFrameTime()}
      */
     public void onDrawFrame(float frameTime);
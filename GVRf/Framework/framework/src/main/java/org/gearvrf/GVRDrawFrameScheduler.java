@@ -0,0 +1,661 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.utility.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Calls the {@linkplain GVRDrawFrameListener frame listeners} registered with
+ * {@link GVRContext#registerDrawFrameListener(GVRDrawFrameListener)}.
+ * <p>
+ * Listeners are called by priority, then in registration order. A listener
+ * can ask to be called only every few frames; it then receives the time
+ * elapsed since its previous call. Listeners with the same interval are
+ * spread over the frames instead of all running in the same frame.
+ * <p>
+ * Deferrable listeners are skipped when the listeners called before them
+ * used up the {@linkplain #setFrameBudget(long) frame budget}. They run in
+ * a later frame, at the latest one interval after they were due.
+ * <p>
+ * Registering and unregistering take constant time and can be done from
+ * any thread, including from a listener. An unregistered listener is not
+ * called anymore; a listener registered by another listener is first called
+ * in the next frame.
+ * <p>
+ * The scheduler keeps timing counters for every listener, to find out which
+ * listener makes frames late. The counters are updated on the GL thread
+ * without locking, so they are approximate when read from other threads.
+ * @see GVRContext#registerDrawFrameListener(GVRDrawFrameListener, int, int, boolean)
+ * @see GVRContext#getDrawFrameScheduler()
+ */
+public final class GVRDrawFrameScheduler
+{
+    private static final String TAG = Log.tag(GVRDrawFrameScheduler.class);
+
+    /**
+     * Listener is called before the normal priority listeners.
+     */
+    public static final int PRIORITY_HIGH = 0;
+
+    /**
+     * Default priority.
+     */
+    public static final int PRIORITY_NORMAL = 1;
+
+    /**
+     * Listener is called after the normal priority listeners.
+     */
+    public static final int PRIORITY_LOW = 2;
+
+    /**
+     * Default time budget per frame before deferrable listeners are skipped
+     * (2 milliseconds).
+     */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 2000000L;
+
+    private static final int NUM_PRIORITIES = 3;
+
+    /**
+     * Timing counters of one listener.
+     * @see #getStats(GVRDrawFrameListener)
+     */
+    public static final class ListenerStats
+    {
+        private final GVRDrawFrameListener mListener;
+        private final int mPriority;
+        private final int mInterval;
+        private final boolean mDeferrable;
+        private final long mCallCount;
+        private final long mTotalTime;
+        private final long mMaxTime;
+        private final long mLastTime;
+        private final long mDeferredCount;
+
+        private ListenerStats(Entry entry)
+        {
+            mListener = entry.mListener;
+            mPriority = entry.mPriority;
+            mInterval = entry.mInterval;
+            mDeferrable = entry.mDeferrable;
+            mCallCount = entry.mCallCount;
+            mTotalTime = entry.mTotalTime;
+            mMaxTime = entry.mMaxTime;
+            mLastTime = entry.mLastTime;
+            mDeferredCount = entry.mDeferredCount;
+        }
+
+        /**
+         * @return the listener these counters belong to.
+         */
+        public GVRDrawFrameListener getListener()
+        {
+            return mListener;
+        }
+
+        /**
+         * @return {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+         */
+        public int getPriority()
+        {
+            return mPriority;
+        }
+
+        /**
+         * @return number of frames between two calls of the listener.
+         */
+        public int getInterval()
+        {
+            return mInterval;
+        }
+
+        /**
+         * @return true if the listener may be skipped when the frame is over budget.
+         */
+        public boolean isDeferrable()
+        {
+            return mDeferrable;
+        }
+
+        /**
+         * @return number of times the listener was called.
+         */
+        public long getCallCount()
+        {
+            return mCallCount;
+        }
+
+        /**
+         * @return total time spent in the listener, in nanoseconds.
+         */
+        public long getTotalTime()
+        {
+            return mTotalTime;
+        }
+
+        /**
+         * @return longest call of the listener, in nanoseconds.
+         */
+        public long getMaxTime()
+        {
+            return mMaxTime;
+        }
+
+        /**
+         * @return duration of the last call of the listener, in nanoseconds.
+         */
+        public long getLastTime()
+        {
+            return mLastTime;
+        }
+
+        /**
+         * @return number of frames the listener was due but skipped to stay in budget.
+         */
+        public long getDeferredCount()
+        {
+            return mDeferredCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s priority=%d interval=%d%s calls=%d total=%.3fms max=%.3fms last=%.3fms deferred=%d",
+                    mListener, mPriority, mInterval, mDeferrable ? " deferrable" : "",
+                    mCallCount, mTotalTime / 1e6, mMaxTime / 1e6, mLastTime / 1e6, mDeferredCount);
+        }
+    }
+
+    private static final class Entry
+    {
+        final GVRDrawFrameListener mListener;
+        // requested settings, written under the scheduler lock
+        volatile int mPriority;
+        volatile int mInterval;
+        volatile boolean mDeferrable;
+        volatile boolean mRemoved;
+
+        // list links and scheduling state, GL thread only
+        Entry mPrev;
+        Entry mNext;
+        int mLinkedPriority = -1;
+        int mCountdown;
+        int mLateFrames;
+        float mElapsed;
+
+        long mCallCount;
+        long mTotalTime;
+        long mMaxTime;
+        long mLastTime;
+        long mDeferredCount;
+
+        Entry(GVRDrawFrameListener listener)
+        {
+            mListener = listener;
+        }
+    }
+
+    private final Object mLock = new Object();
+    private final IdentityHashMap<GVRDrawFrameListener, Entry> mEntries = new IdentityHashMap<GVRDrawFrameListener, Entry>();
+    // entries added, removed or changed since the last frame
+    private final ArrayDeque<Entry> mChanges = new ArrayDeque<Entry>();
+    private final Entry[] mHeads = new Entry[NUM_PRIORITIES];
+    private final Entry[] mTails = new Entry[NUM_PRIORITIES];
+    private int mRegistrations;
+
+    private volatile long mFrameBudget = DEFAULT_FRAME_BUDGET_NANOS;
+    private volatile long mSlowFrameThreshold;
+    private int mLastFrameCalls;
+    private long mLastFrameTime;
+    private GVRDrawFrameListener mLastFrameSlowest;
+    private long mLastFrameSlowestTime;
+    private long mDeferredFrames;
+
+    GVRDrawFrameScheduler()
+    {
+    }
+
+    /**
+     * Register a normal priority listener called every frame. Registering
+     * a listener twice does nothing.
+     * @param listener listener to call
+     */
+    public void register(GVRDrawFrameListener listener)
+    {
+        synchronized (mLock)
+        {
+            if (!mEntries.containsKey(listener))
+            {
+                register(listener, PRIORITY_NORMAL, 1, false);
+            }
+        }
+    }
+
+    /**
+     * Register a listener, or change how a registered listener is called.
+     * @param listener   listener to call
+     * @param priority   {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+     * @param interval   number of frames between two calls, 1 to be called every frame
+     * @param deferrable true if the listener may be skipped when the frame budget is used up
+     */
+    public void register(GVRDrawFrameListener listener, int priority, int interval, boolean deferrable)
+    {
+        if (listener == null)
+        {
+            throw new IllegalArgumentException("GVRDrawFrameScheduler: listener cannot be null");
+        }
+        if ((priority < PRIORITY_HIGH) || (priority > PRIORITY_LOW))
+        {
+            throw new IllegalArgumentException("GVRDrawFrameScheduler: invalid priority " + priority);
+        }
+        if (interval < 1)
+        {
+            throw new IllegalArgumentException("GVRDrawFrameScheduler: invalid interval " + interval);
+        }
+        synchronized (mLock)
+        {
+            Entry entry = mEntries.get(listener);
+            if (entry != null)
+            {
+                if ((entry.mPriority == priority) && (entry.mInterval == interval)
+                        && (entry.mDeferrable == deferrable))
+                {
+                    return;
+                }
+            }
+            else
+            {
+                entry = new Entry(listener);
+                mEntries.put(listener, entry);
+                // spread the listeners with the same interval over the frames
+                entry.mCountdown = 1 + (mRegistrations++ % interval);
+            }
+            entry.mPriority = priority;
+            entry.mInterval = interval;
+            entry.mDeferrable = deferrable;
+            mChanges.addLast(entry);
+        }
+    }
+
+    /**
+     * Stop calling a listener. Unregistering a listener which is not
+     * registered does nothing.
+     * @param listener listener to remove
+     */
+    public void unregister(GVRDrawFrameListener listener)
+    {
+        synchronized (mLock)
+        {
+            Entry entry = mEntries.remove(listener);
+            if (entry != null)
+            {
+                entry.mRemoved = true;
+                mChanges.addLast(entry);
+            }
+        }
+    }
+
+    /**
+     * @param listener a listener
+     * @return true if the listener is registered.
+     */
+    public boolean isRegistered(GVRDrawFrameListener listener)
+    {
+        synchronized (mLock)
+        {
+            return mEntries.containsKey(listener);
+        }
+    }
+
+    /**
+     * @return number of registered listeners.
+     */
+    public int getListenerCount()
+    {
+        synchronized (mLock)
+        {
+            return mEntries.size();
+        }
+    }
+
+    /**
+     * Set the time the listeners can take in a frame before the deferrable
+     * listeners are skipped.
+     * @param nanos time in nanoseconds, 0 to never skip listeners.
+     * @see #getFrameBudget()
+     */
+    public void setFrameBudget(long nanos)
+    {
+        mFrameBudget = (nanos < 0) ? 0 : nanos;
+    }
+
+    /**
+     * @return time budget per frame in nanoseconds, 0 if unlimited.
+     * @see #setFrameBudget(long)
+     */
+    public long getFrameBudget()
+    {
+        return mFrameBudget;
+    }
+
+    /**
+     * Log a warning naming the slowest listener of the frames where the
+     * listeners take longer than a threshold.
+     * @param nanos threshold in nanoseconds, 0 to disable the warning.
+     */
+    public void setSlowFrameThreshold(long nanos)
+    {
+        mSlowFrameThreshold = (nanos < 0) ? 0 : nanos;
+    }
+
+    /**
+     * @return slow frame warning threshold in nanoseconds, 0 if disabled.
+     * @see #setSlowFrameThreshold(long)
+     */
+    public long getSlowFrameThreshold()
+    {
+        return mSlowFrameThreshold;
+    }
+
+    /**
+     * @return number of listeners called in the last frame.
+     */
+    public int getLastFrameCallCount()
+    {
+        return mLastFrameCalls;
+    }
+
+    /**
+     * @return time spent in the listeners in the last frame, in nanoseconds.
+     */
+    public long getLastFrameTime()
+    {
+        return mLastFrameTime;
+    }
+
+    /**
+     * @return the listener which took the longest in the last frame, or null.
+     */
+    public GVRDrawFrameListener getLastFrameSlowestListener()
+    {
+        return mLastFrameSlowest;
+    }
+
+    /**
+     * @return time spent in the slowest listener of the last frame, in nanoseconds.
+     */
+    public long getLastFrameSlowestTime()
+    {
+        return mLastFrameSlowestTime;
+    }
+
+    /**
+     * @return number of frames in which deferrable listeners were skipped.
+     */
+    public long getDeferredFrameCount()
+    {
+        return mDeferredFrames;
+    }
+
+    /**
+     * Get the timing counters of a listener.
+     * @param listener a registered listener
+     * @return the counters, or null if the listener is not registered.
+     */
+    public ListenerStats getStats(GVRDrawFrameListener listener)
+    {
+        synchronized (mLock)
+        {
+            Entry entry = mEntries.get(listener);
+            return (entry != null) ? new ListenerStats(entry) : null;
+        }
+    }
+
+    /**
+     * Get the timing counters of all the registered listeners.
+     * @return the counters, the listeners which took the most time first.
+     */
+    public List<ListenerStats> getStats()
+    {
+        List<ListenerStats> stats;
+        synchronized (mLock)
+        {
+            stats = new ArrayList<ListenerStats>(mEntries.size());
+            for (Entry entry : mEntries.values())
+            {
+                stats.add(new ListenerStats(entry));
+            }
+        }
+        Collections.sort(stats, new Comparator<ListenerStats>()
+        {
+            @Override
+            public int compare(ListenerStats a, ListenerStats b)
+            {
+                return (a.mTotalTime < b.mTotalTime) ? 1 : ((a.mTotalTime > b.mTotalTime) ? -1 : 0);
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Reset the timing counters of all the listeners.
+     */
+    public void resetStats()
+    {
+        synchronized (mLock)
+        {
+            for (Entry entry : mEntries.values())
+            {
+                entry.mCallCount = 0;
+                entry.mTotalTime = 0;
+                entry.mMaxTime = 0;
+                entry.mLastTime = 0;
+                entry.mDeferredCount = 0;
+            }
+            mDeferredFrames = 0;
+        }
+    }
+
+    /**
+     * Call the listeners due in this frame.
+     * Must be called on the GL thread.
+     * @param frameTime seconds since the previous frame
+     */
+    void runFrame(float frameTime)
+    {
+        applyChanges();
+
+        final long budget = mFrameBudget;
+        final long start = System.nanoTime();
+        long now = start;
+        int calls = 0;
+        boolean deferred = false;
+        GVRDrawFrameListener slowest = null;
+        long slowestTime = 0;
+
+        for (int priority = 0; priority < NUM_PRIORITIES; ++priority)
+        {
+            for (Entry entry = mHeads[priority]; entry != null; entry = entry.mNext)
+            {
+                if (entry.mRemoved)
+                {
+                    continue;
+                }
+                entry.mElapsed += frameTime;
+                if (--entry.mCountdown > 0)
+                {
+                    continue;
+                }
+                if (entry.mDeferrable && (budget > 0) && (now - start > budget)
+                        && (entry.mLateFrames < entry.mInterval))
+                {
+                    ++entry.mLateFrames;
+                    ++entry.mDeferredCount;
+                    deferred = true;
+                    continue;
+                }
+                final float elapsed = entry.mElapsed;
+                entry.mElapsed = 0;
+                entry.mCountdown = entry.mInterval;
+                entry.mLateFrames = 0;
+                try
+                {
+                    entry.mListener.onDrawFrame(elapsed);
+                }
+                catch (final Exception exc)
+                {
+                    Log.e(TAG, "DrawFrameListener %s threw %s", entry.mListener, exc.toString());
+                    exc.printStackTrace();
+                }
+                final long end = System.nanoTime();
+                final long time = end - now;
+                now = end;
+                ++calls;
+                ++entry.mCallCount;
+                entry.mTotalTime += time;
+                entry.mLastTime = time;
+                if (time > entry.mMaxTime)
+                {
+                    entry.mMaxTime = time;
+                }
+                if (time > slowestTime)
+                {
+                    slowestTime = time;
+                    slowest = entry.mListener;
+                }
+            }
+        }
+
+        final long elapsed = now - start;
+        mLastFrameCalls = calls;
+        mLastFrameTime = elapsed;
+        mLastFrameSlowest = slowest;
+        mLastFrameSlowestTime = slowestTime;
+        if (deferred)
+        {
+            ++mDeferredFrames;
+        }
+        final long threshold = mSlowFrameThreshold;
+        if ((threshold > 0) && (elapsed > threshold))
+        {
+            Log.w(TAG, "Frame listeners took %.3f ms, slowest %s took %.3f ms",
+                    elapsed / 1e6, slowest, slowestTime / 1e6);
+        }
+    }
+
+    /**
+     * Unregister all of the listeners, when the view manager shuts down.
+     *
+     * No frame may follow to unlink the entries, so the lists are dropped
+     * right away. A frame in progress skips the removed entries.
+     */
+    void clear()
+    {
+        synchronized (mLock)
+        {
+            for (Entry entry : mEntries.values())
+            {
+                entry.mRemoved = true;
+            }
+            mEntries.clear();
+            mChanges.clear();
+            Arrays.fill(mHeads, null);
+            Arrays.fill(mTails, null);
+        }
+    }
+
+    /*
+     * Link the new entries and unlink the removed ones, on the GL thread,
+     * so the lists are not changed while the listeners are called.
+     */
+    private void applyChanges()
+    {
+        synchronized (mLock)
+        {
+            Entry entry;
+            while ((entry = mChanges.pollFirst()) != null)
+            {
+                if (entry.mRemoved)
+                {
+                    unlink(entry);
+                }
+                else
+                {
+                    if (entry.mLinkedPriority != entry.mPriority)
+                    {
+                        unlink(entry);
+                        link(entry, entry.mPriority);
+                    }
+                    if (entry.mCountdown > entry.mInterval)
+                    {
+                        entry.mCountdown = entry.mInterval;
+                    }
+                }
+            }
+        }
+    }
+
+    private void link(Entry entry, int priority)
+    {
+        entry.mPrev = mTails[priority];
+        entry.mNext = null;
+        if (mTails[priority] != null)
+        {
+            mTails[priority].mNext = entry;
+        }
+        else
+        {
+            mHeads[priority] = entry;
+        }
+        mTails[priority] = entry;
+        entry.mLinkedPriority = priority;
+    }
+
+    private void unlink(Entry entry)
+    {
+        final int priority = entry.mLinkedPriority;
+        if (priority < 0)
+        {
+            return;
+        }
+        if (entry.mPrev != null)
+        {
+            entry.mPrev.mNext = entry.mNext;
+        }
+        else
+        {
+            mHeads[priority] = entry.mNext;
+        }
+        if (entry.mNext != null)
+        {
+            entry.mNext.mPrev = entry.mPrev;
+        }
+        else
+        {
+            mTails[priority] = entry.mPrev;
+        }
+        entry.mPrev = null;
+        entry.mNext = null;
+        entry.mLinkedPriority = -1;
+    }
+}
@@ -172,7 +172,9 @@ public class GVRFrustumPicker extends GVRPicker {
     public void doPick()
     {
         GVRSceneObject owner = getOwnerObject();
-        GVRPickedObject[] picked = pickVisible(mScene);
+        GVRPickedObject[] picked = mSharedPicking ?
+                copyPicks(getGVRContext().getPickService().pickVisible(mScene)) :
+                pickVisible(mScene);
 
         if (mProjection != null)
         {
@@ -0,0 +1,464 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import org.gearvrf.utility.Log;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+/**
+ * Schedules the tasks posted with {@link GVRContext#runOnGlThread(Runnable)}.
+ * <p>
+ * Tasks are kept in one queue per priority. Each frame all of the
+ * {@link #PRIORITY_HIGH high priority} tasks are run. Normal and low
+ * priority tasks are run until the per frame time budget is used up,
+ * the rest roll over to the next frame. At least one budgeted task
+ * runs every frame so the queue always makes progress.
+ * <p>
+ * A task may be posted with a key (usually the object it updates).
+ * If a task with the same key is still waiting, the new task replaces it
+ * and keeps its place in the queue, so repeated updates to the same
+ * object only run once.
+ * <p>
+ * The scheduler also keeps counters which can be used
+ * to monitor the GL thread load.
+ * @see GVRContext#runOnGlThread(Object, Runnable, int)
+ * @see GVRContext#getGlTaskScheduler()
+ */
+public final class GVRGlTaskScheduler
+{
+    private static final String TAG = Log.tag(GVRGlTaskScheduler.class);
+
+    /**
+     * Task is always run in the next frame, regardless of the time budget.
+     */
+    public static final int PRIORITY_HIGH = 0;
+
+    /**
+     * Default priority, task is run when there is time left in the frame budget.
+     */
+    public static final int PRIORITY_NORMAL = 1;
+
+    /**
+     * Task is run after all normal priority tasks, when there is time left in the frame budget.
+     */
+    public static final int PRIORITY_LOW = 2;
+
+    /**
+     * Default time budget per frame for normal and low priority tasks (4 milliseconds).
+     */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 4000000L;
+
+    private static final class Task
+    {
+        Runnable mRunnable;
+        Object   mKey;
+        Task     mNext;     // link in the free list
+
+        void clear()
+        {
+            mRunnable = null;
+            mKey = null;
+        }
+    }
+
+    private static final int NUM_PRIORITIES = 3;
+    private static final int MAX_FREE_TASKS = 256;
+
+    private final Object mLock = new Object();
+    private final ArrayDeque<Task>[] mQueues;
+    private final IdentityHashMap<Object, Task> mPending = new IdentityHashMap<Object, Task>();
+    private Task mFreeTasks;
+    private int mFreeCount;
+    private int mQueueLength;
+
+    private volatile long mFrameBudget = DEFAULT_FRAME_BUDGET_NANOS;
+    private int mMaxQueueLength;
+    private int mLastFrameTasks;
+    private long mLastFrameTime;
+    private long mTotalTasks;
+    private long mTotalTime;
+    private long mCoalescedTasks;
+    private long mDeferredFrames;
+
+    @SuppressWarnings("unchecked")
+    GVRGlTaskScheduler()
+    {
+        mQueues = new ArrayDeque[NUM_PRIORITIES];
+        for (int i = 0; i < NUM_PRIORITIES; ++i)
+        {
+            mQueues[i] = new ArrayDeque<Task>();
+        }
+    }
+
+    /**
+     * Add a normal priority task to the queue.
+     * @param runnable task to run on the GL thread.
+     */
+    public void post(Runnable runnable)
+    {
+        post(null, runnable, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Add a task to the queue.
+     * @param runnable task to run on the GL thread.
+     * @param priority {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+     */
+    public void post(Runnable runnable, int priority)
+    {
+        post(null, runnable, priority);
+    }
+
+    /**
+     * Add a task to the queue, replacing a waiting task with the same key.
+     * <p>
+     * If a task with the same key has not been run yet, its runnable is
+     * replaced by this one. The task keeps its original position and priority.
+     * @param key      object the task applies to, compared by identity.
+     *                 If null the task is not coalesced.
+     * @param runnable task to run on the GL thread.
+     * @param priority {@link #PRIORITY_HIGH}, {@link #PRIORITY_NORMAL} or {@link #PRIORITY_LOW}
+     */
+    public void post(Object key, Runnable runnable, int priority)
+    {
+        if (runnable == null)
+        {
+            throw new IllegalArgumentException("GVRGlTaskScheduler: runnable cannot be null");
+        }
+        if ((priority < PRIORITY_HIGH) || (priority > PRIORITY_LOW))
+        {
+            throw new IllegalArgumentException("GVRGlTaskScheduler: invalid priority " + priority);
+        }
+        synchronized (mLock)
+        {
+            if (key != null)
+            {
+                Task pending = mPending.get(key);
+                if (pending != null)
+                {
+                    pending.mRunnable = runnable;
+                    ++mCoalescedTasks;
+                    return;
+                }
+            }
+            Task task = obtainTask();
+            task.mRunnable = runnable;
+            task.mKey = key;
+            if (key != null)
+            {
+                mPending.put(key, task);
+            }
+            mQueues[priority].addLast(task);
+            if (++mQueueLength > mMaxQueueLength)
+            {
+                mMaxQueueLength = mQueueLength;
+            }
+        }
+    }
+
+    /**
+     * Remove the waiting task with the given key, if there is one.
+     * <p>
+     * Call this before doing the work of a keyed task directly, so an
+     * older task for the same key does not run after it.
+     * @param key object the task applies to, compared by identity.
+     * @return true if a waiting task was removed.
+     */
+    public boolean cancel(Object key)
+    {
+        if (key == null)
+        {
+            return false;
+        }
+        synchronized (mLock)
+        {
+            Task task = mPending.remove(key);
+            if (task == null)
+            {
+                return false;
+            }
+            for (ArrayDeque<Task> queue : mQueues)
+            {
+                if (queue.removeFirstOccurrence(task))
+                {
+                    --mQueueLength;
+                    break;
+                }
+            }
+            releaseTask(task);
+            return true;
+        }
+    }
+
+    /**
+     * Set the time budget per frame for normal and low priority tasks.
+     * @param nanos maximum time in nanoseconds, 0 to run all tasks every frame.
+     * @see #getFrameBudget()
+     */
+    public void setFrameBudget(long nanos)
+    {
+        mFrameBudget = (nanos < 0) ? 0 : nanos;
+    }
+
+    /**
+     * @return time budget per frame in nanoseconds, 0 if unlimited.
+     * @see #setFrameBudget(long)
+     */
+    public long getFrameBudget()
+    {
+        return mFrameBudget;
+    }
+
+    /**
+     * @return number of tasks waiting to run.
+     */
+    public int getQueueLength()
+    {
+        synchronized (mLock)
+        {
+            return mQueueLength;
+        }
+    }
+
+    /**
+     * @return largest number of tasks which have been waiting at the same time.
+     */
+    public int getMaxQueueLength()
+    {
+        synchronized (mLock)
+        {
+            return mMaxQueueLength;
+        }
+    }
+
+    /**
+     * @return number of tasks run in the last frame.
+     */
+    public int getLastFrameTaskCount()
+    {
+        synchronized (mLock)
+        {
+            return mLastFrameTasks;
+        }
+    }
+
+    /**
+     * @return time spent running tasks in the last frame, in nanoseconds.
+     */
+    public long getLastFrameTime()
+    {
+        synchronized (mLock)
+        {
+            return mLastFrameTime;
+        }
+    }
+
+    /**
+     * @return total number of tasks run.
+     */
+    public long getTotalTaskCount()
+    {
+        synchronized (mLock)
+        {
+            return mTotalTasks;
+        }
+    }
+
+    /**
+     * @return total time spent running tasks, in nanoseconds.
+     */
+    public long getTotalTime()
+    {
+        synchronized (mLock)
+        {
+            return mTotalTime;
+        }
+    }
+
+    /**
+     * @return number of tasks which were merged into a waiting task with the same key.
+     */
+    public long getCoalescedTaskCount()
+    {
+        synchronized (mLock)
+        {
+            return mCoalescedTasks;
+        }
+    }
+
+    /**
+     * @return number of frames which ran out of budget and left tasks for the next frame.
+     */
+    public long getDeferredFrameCount()
+    {
+        synchronized (mLock)
+        {
+            return mDeferredFrames;
+        }
+    }
+
+    /**
+     * Run the tasks for one frame.
+     * All high priority tasks are run, the others are
+     * run until the frame budget is used up.
+     * Must be called on the GL thread.
+     */
+    void runFrame()
+    {
+        final long budget = mFrameBudget;
+        final long start = System.nanoTime();
+        int count = 0;
+        Runnable task;
+
+        while ((task = nextTask(PRIORITY_HIGH, PRIORITY_HIGH)) != null)
+        {
+            runTask(task);
+            ++count;
+        }
+        final long deadline = System.nanoTime() + budget;
+        boolean first = true;
+        while ((budget == 0) || first || (System.nanoTime() < deadline))
+        {
+            task = nextTask(PRIORITY_NORMAL, PRIORITY_LOW);
+            if (task == null)
+            {
+                break;
+            }
+            runTask(task);
+            ++count;
+            first = false;
+        }
+        endFrame(start, count);
+    }
+
+    /**
+     * Run all of the waiting tasks, ignoring the frame budget.
+     * Must be called on the GL thread.
+     */
+    void runAll()
+    {
+        final long start = System.nanoTime();
+        int count = 0;
+        Runnable task;
+
+        while ((task = nextTask(PRIORITY_HIGH, PRIORITY_LOW)) != null)
+        {
+            runTask(task);
+            ++count;
+        }
+        endFrame(start, count);
+    }
+
+    /**
+     * Discard all of the waiting tasks.
+     */
+    void clear()
+    {
+        synchronized (mLock)
+        {
+            for (ArrayDeque<Task> queue : mQueues)
+            {
+                queue.clear();
+            }
+            mPending.clear();
+            mQueueLength = 0;
+        }
+    }
+
+    /*
+     * Remove the first task from the given range of priorities.
+     * The task is returned to the pool, only its runnable is kept.
+     */
+    private Runnable nextTask(int firstPriority, int lastPriority)
+    {
+        synchronized (mLock)
+        {
+            for (int i = firstPriority; i <= lastPriority; ++i)
+            {
+                Task task = mQueues[i].pollFirst();
+                if (task != null)
+                {
+                    --mQueueLength;
+                    if (task.mKey != null)
+                    {
+                        mPending.remove(task.mKey);
+                    }
+                    Runnable runnable = task.mRunnable;
+                    releaseTask(task);
+                    return runnable;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void runTask(Runnable runnable)
+    {
+        try
+        {
+            runnable.run();
+        }
+        catch (final Exception exc)
+        {
+            Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
+            exc.printStackTrace();
+        }
+    }
+
+    private void endFrame(long start, int count)
+    {
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (mLock)
+        {
+            mLastFrameTasks = count;
+            mLastFrameTime = elapsed;
+            mTotalTasks += count;
+            mTotalTime += elapsed;
+            if (mQueueLength > 0)
+            {
+                ++mDeferredFrames;
+            }
+        }
+    }
+
+    private Task obtainTask()
+    {
+        Task task = mFreeTasks;
+
+        if (task == null)
+        {
+            return new Task();
+        }
+        mFreeTasks = task.mNext;
+        task.mNext = null;
+        --mFreeCount;
+        return task;
+    }
+
+    private void releaseTask(Task task)
+    {
+        task.clear();
+        if (mFreeCount < MAX_FREE_TASKS)
+        {
+            task.mNext = mFreeTasks;
+            mFreeTasks = task;
+            ++mFreeCount;
+        }
+    }
+}
@@ -0,0 +1,623 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.content.Context;
+
+import org.gearvrf.utility.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A disk cache for resources downloaded over HTTP.
+ *
+ * Each URL is stored under the SHA-1 of its text, so the cache can be shared
+ * by all the {@link GVRResourceVolume}s and loaders of an application. The
+ * cache is bounded in size and drops the least recently used files first.
+ *
+ * <ul>
+ * <li>Cached files are revalidated with {@code If-None-Match} and
+ * {@code If-Modified-Since}, at most once per
+ * {@linkplain #setRevalidateInterval(long) revalidation interval}. When the
+ * server cannot be reached, the cached copy is used; when it answers that
+ * the file is gone, the copy is dropped.</li>
+ * <li>Concurrent requests for the same URL share a single download.</li>
+ * <li>An interrupted download is resumed with a {@code Range} request, if
+ * the server supports it and the file did not change in between. Partial
+ * downloads count towards the size of the cache, and are evicted first.</li>
+ * </ul>
+ *
+ * Plain {@link HttpURLConnection}s are used, so any HTTP server will do,
+ * including a local stand-in.
+ */
+public final class GVRHttpCache {
+    private static final String TAG = Log.tag(GVRHttpCache.class);
+
+    /** Default maximum size of the cache, in bytes */
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+    /** Default time during which a file is used without revalidation, in milliseconds */
+    public static final long DEFAULT_REVALIDATE_INTERVAL = 60 * 1000;
+
+    private static final String DIRECTORY = "gvrf_http";
+    private static final String DATA = ".data";
+    private static final String PART = ".part";
+    private static final String META = ".meta";
+    private static final String TEMP = ".tmp";
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+
+    private static final int CONNECT_TIMEOUT = 15 * 1000;
+    private static final int READ_TIMEOUT = 30 * 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static GVRHttpCache sDefault;
+
+    private final File mDirectory;
+    private final Object mLock = new Object();
+    // complete files and their sizes, least recently used first
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    // partial downloads and their sizes, oldest first
+    private final LinkedHashMap<String, Long> mPartials = new LinkedHashMap<String, Long>();
+    // when each file was last validated by this process
+    private final Map<String, Long> mValidated = new HashMap<String, Long>();
+    private final ConcurrentHashMap<String, FutureTask<File>> mPending = new ConcurrentHashMap<String, FutureTask<File>>();
+    private long mSize;
+    private volatile long mMaxSize;
+    private volatile long mRevalidateInterval = DEFAULT_REVALIDATE_INTERVAL;
+
+    /**
+     * Get the cache shared by the whole application, in its cache directory.
+     *
+     * @param context An Android Context
+     * @return the application's HTTP cache
+     */
+    public static synchronized GVRHttpCache getDefault(Context context) {
+        if (sDefault == null) {
+            sDefault = new GVRHttpCache(new File(context.getCacheDir(), DIRECTORY),
+                    DEFAULT_MAX_SIZE);
+        }
+        return sDefault;
+    }
+
+    /**
+     * Open a cache. The files already in {@code directory} are kept, most
+     * recently used last.
+     *
+     * @param directory where to store the files
+     * @param maxSize   maximum size of the cache, in bytes
+     */
+    public GVRHttpCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(TAG, "Cannot create cache directory %s", directory);
+        }
+        loadIndex();
+        trim(null);
+    }
+
+    /**
+     * Get a local copy of a URL, downloading it if needed.
+     *
+     * The file is only valid until it is evicted by later downloads, so open
+     * it right away.
+     *
+     * @param url the resource to download
+     * @return the cached file
+     * @throws IOException if the resource is not cached and cannot be
+     *         downloaded
+     */
+    public File get(final URL url) throws IOException {
+        final String key = keyOf(url);
+        FutureTask<File> task = new FutureTask<File>(new Callable<File>() {
+            @Override
+            public File call() throws IOException {
+                return fetch(url, key);
+            }
+        });
+        FutureTask<File> pending = mPending.putIfAbsent(key, task);
+        if (pending == null) {
+            try {
+                task.run();
+            } finally {
+                mPending.remove(key, task);
+            }
+            pending = task;
+        } else {
+            Log.d(TAG, "Waiting for download of %s", url);
+        }
+
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + url);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Cannot download " + url, cause);
+        }
+    }
+
+    /**
+     * Set the maximum size of the cache. Least recently used files are
+     * dropped right away if needed.
+     *
+     * @param maxSize size in bytes
+     */
+    public void setMaxSize(long maxSize) {
+        mMaxSize = maxSize;
+        trim(null);
+    }
+
+    /**
+     * Set how long a downloaded file is used before asking the server whether
+     * it changed.
+     *
+     * @param interval time in milliseconds; 0 to revalidate on every
+     *                 {@link #get(URL)}
+     */
+    public void setRevalidateInterval(long interval) {
+        mRevalidateInterval = interval;
+    }
+
+    /**
+     * @return total size of the cached files and partial downloads, in bytes
+     */
+    public long getSize() {
+        synchronized (mLock) {
+            return mSize;
+        }
+    }
+
+    /**
+     * Delete all the cached files, including partial downloads.
+     */
+    public void clear() {
+        synchronized (mLock) {
+            mEntries.clear();
+            mPartials.clear();
+            mValidated.clear();
+            mSize = 0;
+            File[] files = mDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    int dot = name.indexOf('.');
+                    // leave the files of downloads in progress alone
+                    if (!mPending.containsKey(dot > 0 ? name.substring(0, dot) : name)) {
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    private File fetch(URL url, String key) throws IOException {
+        File data = file(key, DATA);
+        synchronized (mLock) {
+            Long validated = mValidated.get(key);
+            if (validated != null
+                    && System.currentTimeMillis() - validated < mRevalidateInterval
+                    && touch(key, data)) {
+                return data;
+            }
+        }
+
+        Properties meta = readMeta(key);
+        if (isCached(key) && meta != null) {
+            HttpURLConnection connection = null;
+            try {
+                int code;
+                try {
+                    connection = open(url);
+                    String etag = meta.getProperty(KEY_ETAG);
+                    String lastModified = meta.getProperty(KEY_LAST_MODIFIED);
+                    if (etag != null) {
+                        connection.setRequestProperty("If-None-Match", etag);
+                    }
+                    if (lastModified != null) {
+                        connection.setRequestProperty("If-Modified-Since", lastModified);
+                    }
+                    code = connection.getResponseCode();
+                } catch (IOException e) {
+                    // the server cannot be reached
+                    synchronized (mLock) {
+                        if (touch(key, data)) {
+                            Log.w(TAG, "Using cached %s: %s", url, e);
+                            return data;
+                        }
+                    }
+                    throw e;
+                }
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    Log.d(TAG, "Not modified: %s", url);
+                    synchronized (mLock) {
+                        if (touch(key, data)) {
+                            mValidated.put(key, System.currentTimeMillis());
+                            return data;
+                        }
+                    }
+                    connection.disconnect();
+                    connection = null;
+                } else if (code == HttpURLConnection.HTTP_OK) {
+                    Log.d(TAG, "Modified: %s", url);
+                    remove(key);
+                    return download(url, key, connection, 0);
+                } else {
+                    if (code == HttpURLConnection.HTTP_NOT_FOUND
+                            || code == HttpURLConnection.HTTP_GONE) {
+                        Log.d(TAG, "Gone: %s", url);
+                        remove(key);
+                        file(key, PART).delete();
+                        file(key, META).delete();
+                        updatePartial(key);
+                    }
+                    throw new IOException("HTTP " + code + " revalidating " + url);
+                }
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+        return resume(url, key, meta);
+    }
+
+    /*
+     * Download a file, continuing a partial download if there is one and its
+     * validators allow it.
+     */
+    private File resume(URL url, String key, Properties meta) throws IOException {
+        File part = file(key, PART);
+        String validator = null;
+        if (meta != null) {
+            String etag = meta.getProperty(KEY_ETAG);
+            // weak entity tags cannot be used in If-Range
+            validator = (etag != null && !etag.startsWith("W/"))
+                    ? etag : meta.getProperty(KEY_LAST_MODIFIED);
+        }
+        long offset = (validator != null && part.isFile()) ? part.length() : 0;
+
+        HttpURLConnection connection = open(url);
+        try {
+            if (offset > 0) {
+                connection.setRequestProperty("Range", "bytes=" + offset + "-");
+                connection.setRequestProperty("If-Range", validator);
+            }
+            int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_PARTIAL
+                    && offset > 0 && getRangeStart(connection) == offset) {
+                Log.d(TAG, "Resuming %s at %d", url, offset);
+                return download(url, key, connection, offset);
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                return download(url, key, connection, 0);
+            } else if (code == 416 && offset > 0) {
+                // the partial file does not match the resource any more
+                part.delete();
+                file(key, META).delete();
+                updatePartial(key);
+                connection.disconnect();
+                connection = null;
+                return resume(url, key, null);
+            }
+            throw new IOException("HTTP " + code + " downloading " + url);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /*
+     * Write a response body to the partial file, from offset on, and move it
+     * into the cache once complete. The partial file is kept when the
+     * download fails so it can be resumed.
+     */
+    private File download(URL url, String key, HttpURLConnection connection, long offset)
+            throws IOException {
+        File part = file(key, PART);
+        if (offset == 0) {
+            Properties meta = new Properties();
+            meta.setProperty(KEY_URL, url.toString());
+            String etag = connection.getHeaderField("ETag");
+            String lastModified = connection.getHeaderField("Last-Modified");
+            if (etag != null) {
+                meta.setProperty(KEY_ETAG, etag);
+            }
+            if (lastModified != null) {
+                meta.setProperty(KEY_LAST_MODIFIED, lastModified);
+            }
+            writeMeta(key, meta);
+        }
+
+        long expected = getContentLength(connection);
+        long length = 0;
+        File data = file(key, DATA);
+        try {
+            InputStream input = connection.getInputStream();
+            try {
+                OutputStream output = new FileOutputStream(part, offset > 0);
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int count;
+                    while ((count = input.read(buffer)) != -1) {
+                        output.write(buffer, 0, count);
+                        length += count;
+                    }
+                } finally {
+                    output.close();
+                }
+            } finally {
+                input.close();
+            }
+            if (expected >= 0 && length != expected) {
+                throw new IOException("Download of " + url + " stopped after "
+                        + (offset + length) + " bytes");
+            }
+
+            synchronized (mLock) {
+                if (!part.renameTo(data)) {
+                    throw new IOException("Cannot move " + part + " to " + data);
+                }
+                Long previous = mEntries.put(key, data.length());
+                mSize += data.length() - (previous != null ? previous : 0);
+                mValidated.put(key, System.currentTimeMillis());
+            }
+        } finally {
+            // account for what is left of a failed download
+            updatePartial(key);
+        }
+        Log.d(TAG, "Downloaded %s: %d bytes", url, data.length());
+        trim(key);
+        return data;
+    }
+
+    private HttpURLConnection open(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof HttpURLConnection)) {
+            throw new IOException("Not an HTTP URL: " + url);
+        }
+        HttpURLConnection http = (HttpURLConnection) connection;
+        http.setConnectTimeout(CONNECT_TIMEOUT);
+        http.setReadTimeout(READ_TIMEOUT);
+        // validation is done here, not by the platform's own cache
+        http.setUseCaches(false);
+        return http;
+    }
+
+    private static long getContentLength(URLConnection connection) {
+        String length = connection.getHeaderField("Content-Length");
+        try {
+            return length != null ? Long.parseLong(length.trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Content-Range: bytes <first>-<last>/<length>
+    private static long getRangeStart(URLConnection connection) {
+        String range = connection.getHeaderField("Content-Range");
+        if (range == null || !range.startsWith("bytes ")) {
+            return -1;
+        }
+        int dash = range.indexOf('-');
+        try {
+            return dash > 6 ? Long.parseLong(range.substring(6, dash).trim()) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean isCached(String key) {
+        synchronized (mLock) {
+            return mEntries.containsKey(key);
+        }
+    }
+
+    /*
+     * Mark a file as most recently used, here and on disk so the order
+     * survives a restart. Must hold mLock.
+     */
+    private boolean touch(String key, File data) {
+        if (mEntries.get(key) == null) {
+            return false;
+        }
+        data.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /*
+     * Update the size of the partial download of a file, after it was
+     * written, completed or deleted.
+     */
+    private void updatePartial(String key) {
+        File part = file(key, PART);
+        synchronized (mLock) {
+            Long previous = mPartials.remove(key);
+            if (previous != null) {
+                mSize -= previous;
+            }
+            if (part.isFile()) {
+                mPartials.put(key, part.length());
+                mSize += part.length();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (mLock) {
+            Long size = mEntries.remove(key);
+            if (size != null) {
+                mSize -= size;
+            }
+            mValidated.remove(key);
+            file(key, DATA).delete();
+        }
+    }
+
+    /*
+     * Drop partial downloads, oldest first, then least recently used files
+     * until the cache fits, keeping the file that was just downloaded.
+     */
+    private void trim(String keep) {
+        synchronized (mLock) {
+            Iterator<Map.Entry<String, Long>> parts = mPartials.entrySet().iterator();
+            while (mSize > mMaxSize && parts.hasNext()) {
+                Map.Entry<String, Long> entry = parts.next();
+                String key = entry.getKey();
+                if (key.equals(keep) || mPending.containsKey(key)) {
+                    continue;
+                }
+                Log.d(TAG, "Evicting partial %s: %d bytes", key, entry.getValue());
+                parts.remove();
+                mSize -= entry.getValue();
+                file(key, PART).delete();
+                if (!mEntries.containsKey(key)) {
+                    file(key, META).delete();
+                }
+            }
+
+            Iterator<Map.Entry<String, Long>> it = mEntries.entrySet().iterator();
+            while (mSize > mMaxSize && it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                String key = entry.getKey();
+                if (key.equals(keep) || mPending.containsKey(key)) {
+                    continue;
+                }
+                Log.d(TAG, "Evicting %s: %d bytes", key, entry.getValue());
+                it.remove();
+                mSize -= entry.getValue();
+                mValidated.remove(key);
+                file(key, DATA).delete();
+                file(key, META).delete();
+            }
+        }
+    }
+
+    private void loadIndex() {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long ta = a.lastModified();
+                long tb = b.lastModified();
+                return ta < tb ? -1 : (ta == tb ? 0 : 1);
+            }
+        });
+        synchronized (mLock) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(TEMP)) {
+                    file.delete();
+                } else if (name.endsWith(DATA)) {
+                    String key = name.substring(0, name.length() - DATA.length());
+                    mEntries.put(key, file.length());
+                    mSize += file.length();
+                } else if (name.endsWith(PART)) {
+                    String key = name.substring(0, name.length() - PART.length());
+                    mPartials.put(key, file.length());
+                    mSize += file.length();
+                }
+            }
+        }
+    }
+
+    private Properties readMeta(String key) {
+        File file = file(key, META);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try {
+            InputStream input = new FileInputStream(file);
+            try {
+                meta.load(input);
+            } finally {
+                input.close();
+            }
+            return meta;
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot read %s: %s", file, e);
+            return null;
+        }
+    }
+
+    private void writeMeta(String key, Properties meta) throws IOException {
+        File temp = file(key, META + TEMP);
+        OutputStream output = new FileOutputStream(temp);
+        try {
+            meta.store(output, null);
+        } finally {
+            output.close();
+        }
+        if (!temp.renameTo(file(key, META))) {
+            throw new IOException("Cannot write " + file(key, META));
+        }
+    }
+
+    private File file(String key, String suffix) {
+        return new File(mDirectory, key + suffix);
+    }
+
+    private static String keyOf(URL url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.toString().getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16));
+                key.append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
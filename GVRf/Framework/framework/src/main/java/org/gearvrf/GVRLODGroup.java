@@ -105,6 +105,9 @@ public final class GVRLODGroup extends GVRBehavior {
 
         final int size = mRanges.size();
         final GVRTransform t = getGVRContext().getMainScene().getMainCameraRig().getCenterCamera().getTransform();
+        final float cameraX = t.getPositionX();
+        final float cameraY = t.getPositionY();
+        final float cameraZ = t.getPositionZ();
 
         for (final Object[] range : mRanges) {
             ((GVRSceneObject)range[1]).setEnable(false);
@@ -120,7 +123,7 @@ public final class GVRLODGroup extends GVRBehavior {
 
             final float[] values = child.getBoundingVolumeRawValues();
             mCenter.set(values[0], values[1], values[2], 1.0f);
-            mVector.set(t.getPositionX(), t.getPositionY(), t.getPositionZ(), 1.0f);
+            mVector.set(cameraX, cameraY, cameraZ, 1.0f);
 
             mVector.sub(mCenter);
             mVector.negate();
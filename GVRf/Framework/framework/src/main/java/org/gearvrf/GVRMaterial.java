@@ -15,6 +15,7 @@
 
 package org.gearvrf;
 
+import org.gearvrf.shaders.GVRBitmapTextShader;
 import org.gearvrf.shaders.GVRColorBlendShader;
 import org.gearvrf.shaders.GVRColorShader;
 import org.gearvrf.shaders.GVRCubemapReflectionShader;
@@ -144,6 +145,10 @@ public class GVRMaterial extends  GVRShaderData
             public static final GVRShaderId ID = new GVRShaderId(GVRColorBlendShader.class);
         }
 
+        public abstract static class BitmapText {
+            public static final GVRShaderId ID = new GVRShaderId(GVRBitmapTextShader.class);
+        }
+
     };
 
     /**
@@ -17,6 +17,7 @@ package org.gearvrf;
 
 import org.gearvrf.utility.Log;
 
+import java.util.Arrays;
 import java.util.StringTokenizer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -58,6 +59,16 @@ import static android.opengl.GLES30.GL_RGB32F;
  * The blend shape texture is put in the <b>blendShapeTexture</b> sampler
  * in the vertex shader. The blend weights are in the <b>u_blendweights</b> uniform.
  * </p>
+ * The blend shape texture only depends on the blend shapes,
+ * so it is uploaded once after the shapes change. Changing
+ * the weights only updates the small <b>u_blendweights</b>
+ * uniform array and nothing is sent if the weights are the same.
+ * <p>
+ * If most of the weights are usually zero, {@link #setCPUBlending(boolean)}
+ * will combine the non-zero blend shapes on the CPU into a single
+ * shape whenever the weights change. The texture is then only
+ * one blend shape wide and the shader does a single lookup per vertex.
+ * </p>
  */
 public class GVRMeshMorph extends GVRBehavior
 {
@@ -77,6 +88,12 @@ public class GVRMeshMorph extends GVRBehavior
     protected String[] descriptors = new String[2];
     protected float[] mBaseBlendShape;
     protected GVRVertexBuffer mbaseShape;
+    protected boolean mShapesDirty = false;
+    protected boolean mWeightsDirty = false;
+    protected boolean mCPUBlending = false;
+    protected float[] mCombinedDiffs;
+    protected GVRFloatImage mBlendShapeImage;
+    private final float[] mCombinedWeight = new float[] { 1.0f };
 
 
     /**
@@ -133,17 +150,64 @@ public class GVRMeshMorph extends GVRBehavior
             throw new IllegalStateException("Scene object shader does not support morphing");
         }
         copyBaseShape(mesh.getVertexBuffer());
-        mtl.setInt("u_numblendshapes", mNumBlendShapes);
-        mtl.setFloatArray("u_blendweights", mWeights);
+        mBlendShapeImage = null;
+        mShapesDirty = true;
+        mWeightsDirty = true;
     }
 
     public void onDetach(GVRSceneObject sceneObj)
     {
+        super.onDetach(sceneObj);
         mBlendShapeDiffs = null;
         mBaseBlendShape = null;
+        mCombinedDiffs = null;
+        mBlendShapeImage = null;
         mNumVerts = 0;
     }
 
+    /**
+     * Uploads whatever changed since the last frame.
+     * Nothing is sent to the GPU if the blend shapes
+     * and the weights have not changed.
+     */
+    @Override
+    public void onDrawFrame(float frameTime)
+    {
+        update();
+    }
+
+    /**
+     * Enable or disable blending the shapes on the CPU.
+     * <p>
+     * When enabled, only blend shapes with a non-zero weight
+     * are combined into a single shape and the texture
+     * uploaded is one blend shape wide. This is cheaper
+     * than the GPU path when only a few of many blend
+     * shapes are active, at the cost of an upload
+     * every time the weights change.
+     * @param flag true to blend on the CPU, false to blend in the shader.
+     */
+    public void setCPUBlending(boolean flag)
+    {
+        if (flag != mCPUBlending)
+        {
+            mCPUBlending = flag;
+            mBlendShapeImage = null;
+            mShapesDirty = true;
+            mWeightsDirty = true;
+        }
+    }
+
+    /**
+     * Determine whether blend shapes are combined on the CPU.
+     * @return true if blending on the CPU, false if blending in the shader.
+     * @see #setCPUBlending(boolean)
+     */
+    public boolean isCPUBlending()
+    {
+        return mCPUBlending;
+    }
+
     protected void copyBaseShape(GVRVertexBuffer baseShape)
     {
         String baseDescriptor = baseShape.getDescriptor();
@@ -213,6 +277,7 @@ public class GVRMeshMorph extends GVRBehavior
             mBlendShapeDiffs[s + 1] = (vec3data[i * 3 + 1] - mBaseBlendShape[b + 1]);
             mBlendShapeDiffs[s + 2] = (vec3data[i * 3 + 2] - mBaseBlendShape[b + 2]);
         }
+        mShapesDirty = true;
     }
 
     public float getWeight(int index)
@@ -225,13 +290,27 @@ public class GVRMeshMorph extends GVRBehavior
         return mWeights;
     }
 
+    /**
+     * Set the blend weights for all of the blend shapes.
+     * <p>
+     * The weights are only sent to the GPU if they
+     * differ from the current weights.
+     * @param weights array with one weight per blend shape.
+     */
     public void setWeights(float[] weights)
     {
-        GVRMaterial mtl = getMaterial();
-        System.arraycopy(weights, 0, mWeights, 0, mWeights.length);
-        if (mtl != null)
+        for (int i = 0; i < mWeights.length; ++i)
         {
-            mtl.setFloatArray("u_blendweights", mWeights);
+            if (mWeights[i] != weights[i])
+            {
+                System.arraycopy(weights, i, mWeights, i, mWeights.length - i);
+                mWeightsDirty = true;
+                break;
+            }
+        }
+        if (mWeightsDirty && !mCPUBlending)
+        {
+            updateWeights();
         }
     }
 
@@ -295,33 +374,127 @@ public class GVRMeshMorph extends GVRBehavior
         return mNumBlendShapes;
     }
 
+    /**
+     * Send the blend shapes and weights which changed
+     * since the last update to the GPU.
+     * <p>
+     * The blend shape texture is only uploaded after the
+     * blend shapes change (or, when blending on the CPU,
+     * after the weights change). The weights are only
+     * uploaded if they changed.
+     * @return true if the morph is ready to render, false if
+     *         it is not attached to a mesh with a material.
+     */
     public boolean update()
     {
-        GVRTexture blendshapeTex;
-        GVRFloatImage blendshapeImage;
         GVRMaterial mtl = getMaterial();
 
         if ((mBlendShapeDiffs == null) || (mtl == null))
         {
             return false;
         }
+        if (mCPUBlending)
+        {
+            if (mShapesDirty || mWeightsDirty)
+            {
+                combineBlendShapes();
+                getBlendShapeImage(mtl).update(mFloatsPerVertex / 3, mNumVerts, mCombinedDiffs);
+                mtl.setInt("u_numblendshapes", 1);
+                mtl.setFloatArray("u_blendweights", mCombinedWeight);
+                mShapesDirty = false;
+                mWeightsDirty = false;
+            }
+            return true;
+        }
+        if (mShapesDirty)
+        {
+            getBlendShapeImage(mtl).update(mTexWidth / 3, mNumVerts, mBlendShapeDiffs);
+            mtl.setInt("u_numblendshapes", mNumBlendShapes);
+            mShapesDirty = false;
+            mWeightsDirty = true;
+        }
+        if (mWeightsDirty)
+        {
+            updateWeights();
+        }
+        return true;
+    }
+
+    private void updateWeights()
+    {
+        GVRMaterial mtl = getMaterial();
+
+        if (mtl != null)
+        {
+            mtl.setFloatArray("u_blendweights", mWeights);
+            mWeightsDirty = false;
+        }
+    }
+
+    /*
+     * Returns the image for the blend shape texture,
+     * creating the texture the first time it is needed.
+     */
+    private GVRFloatImage getBlendShapeImage(GVRMaterial mtl)
+    {
+        if (mBlendShapeImage != null)
+        {
+            return mBlendShapeImage;
+        }
         if (mtl.hasTexture("blendshapeTexture"))
         {
-            blendshapeTex = mtl.getTexture("blendshapeTexture");
-            blendshapeImage = (GVRFloatImage) blendshapeTex.getImage();
+            GVRTexture blendshapeTex = mtl.getTexture("blendshapeTexture");
+            mBlendShapeImage = (GVRFloatImage) blendshapeTex.getImage();
         }
         else
         {
             GVRTextureParameters texparams = new GVRTextureParameters(getGVRContext());
             texparams.setMinFilterType(GVRTextureParameters.TextureFilterType.GL_NEAREST);
             texparams.setMagFilterType(GVRTextureParameters.TextureFilterType.GL_NEAREST);
-            blendshapeImage = new GVRFloatImage(getGVRContext(), GL_RGB);
-            blendshapeTex = new GVRTexture(getGVRContext(), texparams);
-            blendshapeTex.setImage(blendshapeImage);
+            GVRTexture blendshapeTex = new GVRTexture(getGVRContext(), texparams);
+            mBlendShapeImage = new GVRFloatImage(getGVRContext(), GL_RGB);
+            blendshapeTex.setImage(mBlendShapeImage);
             mtl.setTexture("blendshapeTexture", blendshapeTex);
         }
-        blendshapeImage.update(mTexWidth / 3, mNumVerts, mBlendShapeDiffs);
-        return true;
+        return mBlendShapeImage;
+    }
+
+    /*
+     * Sums the blend shapes with a non-zero weight
+     * into a single blend shape for CPU blending.
+     */
+    private void combineBlendShapes()
+    {
+        int size = mFloatsPerVertex * mNumVerts;
+
+        if ((mCombinedDiffs == null) || (mCombinedDiffs.length != size))
+        {
+            mCombinedDiffs = new float[size];
+        }
+        else
+        {
+            Arrays.fill(mCombinedDiffs, 0.0f);
+        }
+        for (int shape = 0; shape < mNumBlendShapes; ++shape)
+        {
+            float weight = mWeights[shape];
+
+            if (weight == 0.0f)
+            {
+                continue;
+            }
+            int shapeofs = shape * mFloatsPerVertex;
+            for (int v = 0; v < mNumVerts; ++v)
+            {
+                int s = v * mTexWidth + shapeofs;
+                int d = v * mFloatsPerVertex;
+
+                for (int j = 0; j < mFloatsPerVertex; ++j)
+                {
+                    mCombinedDiffs[d + j] += weight * mBlendShapeDiffs[s + j];
+                }
+            }
+        }
     }
 
     private String dumpDiffs(int numVerts)
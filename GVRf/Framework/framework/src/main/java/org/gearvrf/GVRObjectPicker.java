@@ -82,7 +82,9 @@ public class GVRObjectPicker extends GVRPicker
     protected void doPick()
     {
         GVRSceneObject owner = getOwnerObject();
-        GVRPickedObject[] picked = GVRFrustumPicker.pickVisible(mScene);
+        GVRPickedObject[] picked = mSharedPicking ?
+                copyPicks(getGVRContext().getPickService().pickVisible(mScene)) :
+                GVRFrustumPicker.pickVisible(mScene);
 
         if (owner != null)
         {
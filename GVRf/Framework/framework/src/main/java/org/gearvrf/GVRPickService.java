@@ -0,0 +1,560 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.util.ArrayList;
+
+import org.gearvrf.GVRPicker.GVRPickedObject;
+
+/**
+ * Shares pick results between the consumers of a {@link GVRContext}
+ * for the duration of a frame.
+ * <p/>
+ * Several consumers often cast the same ray in the same frame, for example
+ * the gaze picker of a cursor controller and an application that tracks
+ * what the user is looking at. The pick service identifies each query by its
+ * scene, its kind and its ray in world coordinates (the camera view for
+ * {@link #pickVisible(GVRScene) visibility} queries), together with the
+ * {@linkplain GVRCollider collider} pick version. A query which is identical
+ * to one already executed in the current frame gets the same results without
+ * scanning the scene again. A query for the closest object hit by a ray is
+ * answered from a query for all of the objects hit by the same ray: when
+ * both are made for the same ray, the full query is executed once for both.
+ * <p/>
+ * Consumers which query every frame can {@linkplain #registerRay register}
+ * their queries up front. The first time a registered query is read in a
+ * frame, all of the registered queries which have not been executed yet in
+ * that frame are executed together.
+ * <p/>
+ * The arrays returned by the pick service and the {@link GVRPickedObject}s
+ * in them are shared by all of the consumers and must not be modified.
+ * Use {@link GVRPickedObject#GVRPickedObject(GVRPickedObject)} to get a
+ * private copy.
+ * <p/>
+ * The pick service counts the queries requested and the scans actually
+ * executed in each frame.
+ * @see GVRContext#getPickService()
+ * @see GVRPicker#setSharedPicking(boolean)
+ */
+public final class GVRPickService
+{
+    /**
+     * A query registered with {@link GVRPickService#registerRay} or
+     * {@link GVRPickService#registerVisible}. Identical registrations
+     * share the same query.
+     */
+    public static final class PickQuery
+    {
+        private final GVRPickService mService;
+        private int mKind;
+        private GVRScene mScene;
+        private GVRTransform mTransform;
+        private final float[] mRay = new float[6];
+        private final float[] mKey = new float[16];
+        private int mVersion;
+        private long mFrame = -1;
+        private long mLastUsedFrame;
+        private int mRefCount;
+        private GVRPickedObject[] mPicked = GVRPicker.sNoPicks;
+
+        private PickQuery(GVRPickService service)
+        {
+            mService = service;
+        }
+
+        /**
+         * Get the results of the query for the current frame, executing
+         * the query if necessary.
+         * @return objects hit, sorted by distance. The array is shared
+         *         and must not be modified.
+         */
+        public GVRPickedObject[] getPicked()
+        {
+            return mService.resolve(this);
+        }
+
+        /**
+         * @return the closest object hit, or null if nothing was hit.
+         */
+        public GVRPickedObject getClosest()
+        {
+            GVRPickedObject[] picked = getPicked();
+            return (picked.length > 0) ? picked[0] : null;
+        }
+    }
+
+    private static final int KIND_RAY = 0;
+    private static final int KIND_RAY_CLOSEST = 1;
+    private static final int KIND_VISIBLE = 2;
+
+    private final Object mLock = new Object();
+    private final ArrayList<PickQuery> mQueries = new ArrayList<PickQuery>();
+    private final ArrayList<PickQuery> mFreeQueries = new ArrayList<PickQuery>();
+    private final float[] mMatrix = new float[16];
+    private final float[] mKey = new float[16];
+    private long mFrame;
+    private int mRequested;
+    private int mExecuted;
+    private int mLastRequested;
+    private int mLastExecuted;
+
+    GVRPickService()
+    {
+    }
+
+    /**
+     * Casts a ray into the scene graph and returns the objects it intersects,
+     * sharing the results with identical queries made in the same frame.
+     * The ray is in the coordinate system of {@code trans}, or of the
+     * main camera's head if {@code trans} is null.
+     * @return objects hit, sorted by distance. The array is shared
+     *         and must not be modified.
+     * @see GVRPicker#pickObjects(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public GVRPickedObject[] pickObjects(GVRScene scene, GVRTransform trans,
+                                         float ox, float oy, float oz,
+                                         float dx, float dy, float dz)
+    {
+        return pick(KIND_RAY, scene, trans, ox, oy, oz, dx, dy, dz);
+    }
+
+    /**
+     * Casts a ray into the scene graph and returns the closest object hit,
+     * sharing the result with identical queries made in the same frame.
+     * @return closest object hit or null if nothing was hit. The object is
+     *         shared and must not be modified.
+     * @see GVRPicker#pickClosest(GVRScene, GVRTransform, float, float, float, float, float, float)
+     */
+    public GVRPickedObject pickClosest(GVRScene scene, GVRTransform trans,
+                                       float ox, float oy, float oz,
+                                       float dx, float dy, float dz)
+    {
+        GVRPickedObject[] picked = pick(KIND_RAY_CLOSEST, scene, trans, ox, oy, oz, dx, dy, dz);
+        return (picked.length > 0) ? picked[0] : null;
+    }
+
+    /**
+     * Returns the colliders visible from the main camera of the scene,
+     * sharing the results with the other visibility queries made in the same frame.
+     * @return objects visible. The array is shared and must not be modified.
+     * @see GVRFrustumPicker#pickVisible(GVRScene)
+     */
+    public GVRPickedObject[] pickVisible(GVRScene scene)
+    {
+        return pick(KIND_VISIBLE, scene, null, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Register a ray query to be read every frame.
+     * The ray is in the coordinate system of {@code trans}, or of the
+     * main camera's head if {@code trans} is null.
+     * @param closest true to only keep the closest object hit
+     * @return query to read the results from, shared with identical registrations
+     * @see #unregister(PickQuery)
+     */
+    public PickQuery registerRay(GVRScene scene, GVRTransform trans,
+                                 float ox, float oy, float oz,
+                                 float dx, float dy, float dz, boolean closest)
+    {
+        return register(closest ? KIND_RAY_CLOSEST : KIND_RAY, scene, trans, ox, oy, oz, dx, dy, dz);
+    }
+
+    /**
+     * Register a visibility query to be read every frame.
+     * @return query to read the results from, shared with identical registrations
+     * @see #unregister(PickQuery)
+     */
+    public PickQuery registerVisible(GVRScene scene)
+    {
+        return register(KIND_VISIBLE, scene, null, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Release a registered query. The query is dropped once
+     * all of the identical registrations are released.
+     */
+    public void unregister(PickQuery query)
+    {
+        synchronized (mLock)
+        {
+            if (query.mRefCount > 0)
+            {
+                --query.mRefCount;
+            }
+        }
+    }
+
+    /**
+     * @return number of queries requested in the last frame
+     */
+    public int getRequestedCount()
+    {
+        synchronized (mLock)
+        {
+            return mLastRequested;
+        }
+    }
+
+    /**
+     * @return number of scene scans executed in the last frame
+     */
+    public int getExecutedCount()
+    {
+        synchronized (mLock)
+        {
+            return mLastExecuted;
+        }
+    }
+
+    /**
+     * Called at the start of every frame, before the frame listeners,
+     * to expire the results of the previous frame.
+     */
+    void beginFrame()
+    {
+        synchronized (mLock)
+        {
+            mLastRequested = mRequested;
+            mLastExecuted = mExecuted;
+            mRequested = 0;
+            mExecuted = 0;
+
+            for (int i = mQueries.size() - 1; i >= 0; --i)
+            {
+                PickQuery query = mQueries.get(i);
+                query.mPicked = GVRPicker.sNoPicks;
+                if ((query.mRefCount == 0) && (query.mLastUsedFrame < mFrame))
+                {
+                    // not registered and not used during the last frame
+                    query.mScene = null;
+                    query.mTransform = null;
+                    mQueries.remove(i);
+                    mFreeQueries.add(query);
+                }
+            }
+            ++mFrame;
+        }
+    }
+
+    private PickQuery register(int kind, GVRScene scene, GVRTransform trans,
+                               float ox, float oy, float oz,
+                               float dx, float dy, float dz)
+    {
+        synchronized (mLock)
+        {
+            for (PickQuery query : mQueries)
+            {
+                if ((query.mRefCount > 0) && (query.mKind == kind) &&
+                    (query.mScene == scene) && (query.mTransform == trans) &&
+                    sameRay(query.mRay, ox, oy, oz, dx, dy, dz))
+                {
+                    ++query.mRefCount;
+                    return query;
+                }
+            }
+            PickQuery query = obtainQuery(kind, scene, trans, ox, oy, oz, dx, dy, dz);
+            query.mRefCount = 1;
+            return query;
+        }
+    }
+
+    private GVRPickedObject[] pick(int kind, GVRScene scene, GVRTransform trans,
+                                   float ox, float oy, float oz,
+                                   float dx, float dy, float dz)
+    {
+        synchronized (mLock)
+        {
+            ++mRequested;
+            final int version = NativePicker.getPickVersion();
+            computeKey(kind, scene, trans, ox, oy, oz, dx, dy, dz, mKey);
+
+            PickQuery query = findExecuted(kind, scene, version, mKey);
+            if (query == null)
+            {
+                query = obtainQuery(kind, scene, trans, ox, oy, oz, dx, dy, dz);
+                if ((kind != KIND_RAY_CLOSEST) || !shareClosest(query, version, mKey))
+                {
+                    execute(query, version, mKey);
+                }
+            }
+            query.mLastUsedFrame = mFrame;
+            return query.mPicked;
+        }
+    }
+
+    /*
+     * Answers a closest query from the full query for the same ray.
+     * If the full query has not been executed yet in this frame but
+     * was made in the last one, it is executed now so the consumer
+     * making it later in the frame gets its results without a scan.
+     */
+    private boolean shareClosest(PickQuery query, int version, float[] key)
+    {
+        PickQuery full = findExecuted(KIND_RAY, query.mScene, version, key);
+
+        if (full == null)
+        {
+            full = findRecentRayQuery(query);
+            if (full == null)
+            {
+                return false;
+            }
+            execute(full, version, key);
+        }
+        full.mLastUsedFrame = mFrame;
+        System.arraycopy(key, 0, query.mKey, 0, key.length);
+        query.mVersion = version;
+        query.mFrame = mFrame;
+        if (full.mPicked.length <= 1)
+        {
+            query.mPicked = full.mPicked;
+        }
+        else
+        {
+            query.mPicked = new GVRPickedObject[] { full.mPicked[0] };
+        }
+        return true;
+    }
+
+    /*
+     * Finds a full query made in this frame or the last one for the same
+     * ray in the same coordinate system as a closest query.
+     */
+    private PickQuery findRecentRayQuery(PickQuery closest)
+    {
+        final GVRTransform head = closest.mScene.getMainCameraRig().getHeadTransform();
+        final GVRTransform trans = (closest.mTransform != null) ? closest.mTransform : head;
+        final float[] ray = closest.mRay;
+
+        for (PickQuery query : mQueries)
+        {
+            if ((query.mKind == KIND_RAY) && (query.mScene == closest.mScene) &&
+                (query.mLastUsedFrame >= mFrame - 1) &&
+                (((query.mTransform != null) ? query.mTransform : head) == trans) &&
+                sameRay(query.mRay, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]))
+            {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    private GVRPickedObject[] resolve(PickQuery query)
+    {
+        synchronized (mLock)
+        {
+            ++mRequested;
+            query.mLastUsedFrame = mFrame;
+            if (query.mScene == null)
+            {
+                return GVRPicker.sNoPicks;
+            }
+            final int version = NativePicker.getPickVersion();
+            computeKey(query.mKind, query.mScene, query.mTransform, query.mRay, mKey);
+            if (isCurrent(query, query.mKind, query.mScene, version, mKey))
+            {
+                return query.mPicked;
+            }
+
+            /*
+             * Execute all of the registered queries which are out of date
+             * while the scene is locked for picking.
+             */
+            GVRPicker.sFindObjectsLock.lock();
+            try
+            {
+                // full ray queries first, so closest queries can share them
+                final boolean closest = (query.mKind == KIND_RAY_CLOSEST);
+                if (!closest)
+                {
+                    refresh(query, version, mKey);
+                }
+                refreshRegistered(query, version, false);
+                if (closest)
+                {
+                    computeKey(query.mKind, query.mScene, query.mTransform, query.mRay, mKey);
+                    refresh(query, version, mKey);
+                }
+                refreshRegistered(query, version, true);
+            }
+            finally
+            {
+                GVRPicker.sFindObjectsLock.unlock();
+            }
+            return query.mPicked;
+        }
+    }
+
+    /*
+     * Brings the registered closest or full ray queries which have not
+     * been executed in this frame up to date, except for the one given.
+     */
+    private void refreshRegistered(PickQuery skip, int version, boolean closest)
+    {
+        for (int i = 0; i < mQueries.size(); ++i)
+        {
+            PickQuery query = mQueries.get(i);
+            if ((query != skip) && (query.mRefCount > 0) && (query.mFrame != mFrame) &&
+                ((query.mKind == KIND_RAY_CLOSEST) == closest))
+            {
+                computeKey(query.mKind, query.mScene, query.mTransform, query.mRay, mKey);
+                refresh(query, version, mKey);
+            }
+        }
+    }
+
+    /*
+     * Brings a query up to date, sharing the results of an identical
+     * query if there is one.
+     */
+    private void refresh(PickQuery query, int version, float[] key)
+    {
+        PickQuery same = findExecuted(query.mKind, query.mScene, version, key);
+        if (same != null)
+        {
+            System.arraycopy(key, 0, query.mKey, 0, key.length);
+            query.mVersion = version;
+            query.mFrame = mFrame;
+            query.mPicked = same.mPicked;
+        }
+        else if ((query.mKind != KIND_RAY_CLOSEST) || !shareClosest(query, version, key))
+        {
+            execute(query, version, key);
+        }
+    }
+
+    private PickQuery findExecuted(int kind, GVRScene scene, int version, float[] key)
+    {
+        for (PickQuery query : mQueries)
+        {
+            if (isCurrent(query, kind, scene, version, key))
+            {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    private boolean isCurrent(PickQuery query, int kind, GVRScene scene, int version, float[] key)
+    {
+        if ((query.mFrame != mFrame) || (query.mVersion != version) ||
+            (query.mKind != kind) || (query.mScene != scene))
+        {
+            return false;
+        }
+        final int length = (kind == KIND_VISIBLE) ? 16 : 6;
+        for (int i = 0; i < length; ++i)
+        {
+            if (query.mKey[i] != key[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void execute(PickQuery query, int version, float[] key)
+    {
+        final float[] ray = query.mRay;
+        GVRPickedObject[] picked;
+
+        ++mExecuted;
+        switch (query.mKind)
+        {
+            case KIND_RAY_CLOSEST:
+                GVRPickedObject closest = GVRPicker.pickClosest(query.mScene, query.mTransform,
+                        ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]);
+                picked = (closest != null) ? new GVRPickedObject[] { closest } : GVRPicker.sNoPicks;
+                break;
+
+            case KIND_VISIBLE:
+                picked = GVRFrustumPicker.pickVisible(query.mScene);
+                break;
+
+            default:
+                picked = GVRPicker.pickObjects(query.mScene, query.mTransform,
+                        ray[0], ray[1], ray[2], ray[3], ray[4], ray[5]);
+                break;
+        }
+        System.arraycopy(key, 0, query.mKey, 0, key.length);
+        query.mVersion = version;
+        query.mFrame = mFrame;
+        query.mPicked = (picked != null) ? picked : GVRPicker.sNoPicks;
+    }
+
+    private PickQuery obtainQuery(int kind, GVRScene scene, GVRTransform trans,
+                                  float ox, float oy, float oz,
+                                  float dx, float dy, float dz)
+    {
+        final int last = mFreeQueries.size() - 1;
+        PickQuery query = (last >= 0) ? mFreeQueries.remove(last) : new PickQuery(this);
+
+        query.mKind = kind;
+        query.mScene = scene;
+        query.mTransform = trans;
+        query.mRay[0] = ox;
+        query.mRay[1] = oy;
+        query.mRay[2] = oz;
+        query.mRay[3] = dx;
+        query.mRay[4] = dy;
+        query.mRay[5] = dz;
+        query.mFrame = -1;
+        query.mRefCount = 0;
+        query.mLastUsedFrame = mFrame;
+        query.mPicked = GVRPicker.sNoPicks;
+        mQueries.add(query);
+        return query;
+    }
+
+    private void computeKey(int kind, GVRScene scene, GVRTransform trans, float[] ray, float[] key)
+    {
+        computeKey(kind, scene, trans, ray[0], ray[1], ray[2], ray[3], ray[4], ray[5], key);
+    }
+
+    /*
+     * The key of a ray query is the ray in world coordinates, the key
+     * of a visibility query is the model matrix of the camera.
+     */
+    private void computeKey(int kind, GVRScene scene, GVRTransform trans,
+                            float ox, float oy, float oz,
+                            float dx, float dy, float dz, float[] key)
+    {
+        if ((trans == null) || (kind == KIND_VISIBLE))
+        {
+            trans = scene.getMainCameraRig().getHeadTransform();
+        }
+        final float[] m = trans.getModelMatrix(mMatrix);
+
+        if (kind == KIND_VISIBLE)
+        {
+            System.arraycopy(m, 0, key, 0, 16);
+            return;
+        }
+        key[0] = m[0] * ox + m[4] * oy + m[8] * oz + m[12];
+        key[1] = m[1] * ox + m[5] * oy + m[9] * oz + m[13];
+        key[2] = m[2] * ox + m[6] * oy + m[10] * oz + m[14];
+        key[3] = m[0] * dx + m[4] * dy + m[8] * dz;
+        key[4] = m[1] * dx + m[5] * dy + m[9] * dz;
+        key[5] = m[2] * dx + m[6] * dy + m[10] * dz;
+    }
+
+    private static boolean sameRay(float[] ray, float ox, float oy, float oz,
+                                   float dx, float dy, float dz)
+    {
+        return (ray[0] == ox) && (ray[1] == oy) && (ray[2] == oz) &&
+               (ray[3] == dx) && (ray[4] == dy) && (ray[5] == dz);
+    }
+}
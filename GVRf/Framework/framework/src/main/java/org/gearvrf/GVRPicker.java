@@ -93,6 +93,26 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             EventOptions.SEND_TO_SCENE,
             EventOptions.SEND_TO_HIT_OBJECT,
             EventOptions.SEND_TO_LISTENERS);
+    protected GVRColliderTree mColliderTree = null;
+    protected boolean mCoherentPicking = false;
+    protected boolean mSharedPicking = true;
+    protected float mCoherenceTolerance = 0.0001f;
+    private boolean mLastPickValid = false;
+    private boolean mLastPickClosest = true;
+    private int mLastPickVersion = 0;
+    private final float[] mModelMatrix = new float[16];
+    private final Matrix4f mTempMatrix = new Matrix4f();
+    private final Vector3f mWorldOrigin = new Vector3f();
+    private final Vector3f mWorldDirection = new Vector3f();
+    private final Vector3f mLastWorldOrigin = new Vector3f();
+    private final Vector3f mLastWorldDirection = new Vector3f();
+    private final GVRPickedObject[][] mClosestPicks = new GVRPickedObject[][] { new GVRPickedObject[1], new GVRPickedObject[1] };
+    private int mClosestIndex = 0;
+    private final GVRPickedObject[][] mSharedCopies = new GVRPickedObject[2][];
+    private int mSharedCopyIndex = 0;
+    private PickMap mPrevPicks = new PickMap();
+    private PickMap mCurPicks = new PickMap();
+    static final GVRPickedObject[] sNoPicks = new GVRPickedObject[0];
 
     /**
      * One or more of these options may be combined to control
@@ -479,6 +499,101 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         mPickClosest = flag;
     }
 
+    /**
+     * Get the collider tree used to accelerate picking.
+     * @return {@link GVRColliderTree} used for picking or null if
+     *         the picker tests every collider in the scene.
+     * @see #setColliderTree(GVRColliderTree)
+     */
+    public GVRColliderTree getColliderTree() { return mColliderTree; }
+
+    /**
+     * Use a collider tree to accelerate picking.
+     * <p>
+     * Instead of testing every collider in the scene, the picker
+     * will only test the colliders in the tree whose bounds
+     * are hit. This is much faster for scenes with many colliders.
+     * The tree should be built from the same scene the picker
+     * is picking against.
+     * @param tree {@link GVRColliderTree} to use for picking or null
+     *             to test every collider in the scene.
+     * @see #getColliderTree()
+     */
+    public void setColliderTree(GVRColliderTree tree)
+    {
+        mColliderTree = tree;
+    }
+
+    /**
+     * Query if the picker skips picking when nothing has changed.
+     * @return true if coherent picking is enabled, false if the
+     *         picker scans the scene every frame.
+     * @see #setCoherentPicking(boolean, float)
+     */
+    public boolean isCoherentPicking() { return mCoherentPicking; }
+
+    /**
+     * Enable or disable coherent picking.
+     * <p>
+     * When coherent picking is enabled, the picker does not
+     * scan the scene if the world space pick ray is within
+     * the given tolerance of the last one and no collider
+     * has been added, removed, enabled, disabled or moved
+     * since the last pick. The previous pick list is used
+     * instead and the same pick events are generated.
+     * The arrays returned by {@link #getPicked()} are
+     * reused by the picker in this mode so they should
+     * not be kept across frames.
+     * <p>
+     * Changing the geometry of a {@link GVRMeshCollider} is not
+     * detected, call {@link #invalidatePick()} after doing so.
+     * @param flag      true to enable coherent picking, false to scan every frame.
+     * @param tolerance how much the ray origin or direction may change
+     *                  before the scene is scanned again.
+     * @see #invalidatePick()
+     */
+    public void setCoherentPicking(boolean flag, float tolerance)
+    {
+        mCoherentPicking = flag;
+        mCoherenceTolerance = tolerance;
+        mLastPickValid = false;
+    }
+
+    /**
+     * Determines whether the picker shares its scene scans with the other
+     * consumers of the {@link GVRPickService pick service}.
+     * @return true if shared picking is enabled, false if not.
+     * @see #setSharedPicking(boolean)
+     */
+    public boolean isSharedPicking() { return mSharedPicking; }
+
+    /**
+     * Enables or disables shared picking.
+     * <p/>
+     * With shared picking, the picker gets its results from the
+     * {@link GVRContext#getPickService() pick service} of the context, so that
+     * the scene is only scanned once per frame for each distinct pick ray
+     * (or view, for visibility based pickers) even if several pickers and
+     * other consumers use the same one. The picker gets its own copies of the
+     * shared results. Shared picking is enabled by default; it is not used when
+     * the picker has a {@linkplain #setColliderTree(GVRColliderTree) collider tree}.
+     * @param flag true to enable shared picking, false to disable it.
+     */
+    public void setSharedPicking(boolean flag)
+    {
+        mSharedPicking = flag;
+    }
+
+    /**
+     * Force the picker to scan the scene on the next pick
+     * even if coherent picking is enabled.
+     * @see #setCoherentPicking(boolean, float)
+     */
+    public void invalidatePick()
+    {
+        mLastPickValid = false;
+    }
+
     /**
      * Called every frame if the picker is enabled
      * to generate pick events.
@@ -515,19 +630,60 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         GVRTransform trans = (owner != null) ? owner.getTransform() : null;
         GVRPickedObject[] picked;
 
+        if (mCoherentPicking || (mColliderTree != null))
+        {
+            computeWorldPickRay(trans);
+            if (mCoherentPicking && isPickCoherent())
+            {
+                generatePickEvents((mPicked != null) ? mPicked : sNoPicks);
+                mMotionEvent = null;
+                return;
+            }
+        }
         if (mPickClosest)
         {
-            GVRPickedObject closest = pickClosest(mScene, trans,
-                mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
-                mRayDirection.x, mRayDirection.y, mRayDirection.z);
-            if (closest != null)
+            GVRPickedObject closest;
+
+            if (mColliderTree != null)
             {
-                picked = new GVRPickedObject[] { closest };
+                closest = mColliderTree.pickClosest(
+                    mWorldOrigin.x, mWorldOrigin.y, mWorldOrigin.z,
+                    mWorldDirection.x, mWorldDirection.y, mWorldDirection.z);
+            }
+            else if (mSharedPicking)
+            {
+                closest = copyPick(getGVRContext().getPickService().pickClosest(mScene, trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z));
             }
             else
             {
-                picked = new GVRPickedObject[0];
+                closest = pickClosest(mScene, trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z);
             }
+            if (closest == null)
+            {
+                picked = sNoPicks;
+            }
+            else
+            {
+                mClosestIndex ^= 1;
+                picked = mClosestPicks[mClosestIndex];
+                picked[0] = closest;
+            }
+        }
+        else if (mColliderTree != null)
+        {
+            picked = mColliderTree.pickObjects(
+                    mWorldOrigin.x, mWorldOrigin.y, mWorldOrigin.z,
+                    mWorldDirection.x, mWorldDirection.y, mWorldDirection.z);
+        }
+        else if (mSharedPicking)
+        {
+            picked = copyPicks(getGVRContext().getPickService().pickObjects(mScene, trans,
+                    mRayOrigin.x, mRayOrigin.y, mRayOrigin.z,
+                    mRayDirection.x, mRayDirection.y, mRayDirection.z));
         }
         else
         {
@@ -539,6 +695,87 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
         mMotionEvent = null;
     }
 
+    /*
+     * Makes private copies of results shared by the pick service
+     * since generating pick events modifies them.
+     * The arrays are reused on alternate frames, like the arrays
+     * for the closest pick, so the previous picks stay intact.
+     */
+    static GVRPickedObject copyPick(GVRPickedObject shared)
+    {
+        return (shared != null) ? new GVRPickedObject(shared) : null;
+    }
+
+    GVRPickedObject[] copyPicks(GVRPickedObject[] shared)
+    {
+        if (shared.length == 0)
+        {
+            return sNoPicks;
+        }
+        mSharedCopyIndex ^= 1;
+        GVRPickedObject[] picked = mSharedCopies[mSharedCopyIndex];
+        if ((picked == null) || (picked.length != shared.length))
+        {
+            picked = new GVRPickedObject[shared.length];
+            mSharedCopies[mSharedCopyIndex] = picked;
+        }
+        for (int i = 0; i < shared.length; ++i)
+        {
+            picked[i] = copyPick(shared[i]);
+        }
+        return picked;
+    }
+
+    /*
+     * Computes the pick ray in world coordinates
+     * without allocating any memory.
+     */
+    private void computeWorldPickRay(GVRTransform trans)
+    {
+        if (trans == null)
+        {
+            trans = mScene.getMainCameraRig().getHeadTransform();
+        }
+        trans.getModelMatrix(mModelMatrix);
+        mTempMatrix.set(mModelMatrix);
+        synchronized (this)
+        {
+            mWorldOrigin.set(mRayOrigin);
+            mWorldDirection.set(mRayDirection);
+        }
+        mWorldOrigin.mulPosition(mTempMatrix);
+        mWorldDirection.mulDirection(mTempMatrix);
+        mWorldDirection.normalize();
+    }
+
+    /*
+     * Determines whether the last pick is still valid.
+     * It is valid if the world space pick ray has not moved
+     * more than the coherence tolerance and nothing which
+     * affects picking has changed in the scene.
+     * This function remembers the current pick state
+     * for the next call.
+     */
+    private boolean isPickCoherent()
+    {
+        int version = NativePicker.getPickVersion();
+        boolean coherent = mLastPickValid &&
+                (version == mLastPickVersion) &&
+                (mPickClosest == mLastPickClosest) &&
+                (mWorldOrigin.distanceSquared(mLastWorldOrigin) <= mCoherenceTolerance * mCoherenceTolerance) &&
+                (mWorldDirection.distanceSquared(mLastWorldDirection) <= mCoherenceTolerance * mCoherenceTolerance);
+
+        if (!coherent)
+        {
+            mLastWorldOrigin.set(mWorldOrigin);
+            mLastWorldDirection.set(mWorldDirection);
+            mLastPickVersion = version;
+            mLastPickClosest = mPickClosest;
+            mLastPickValid = true;
+        }
+        return coherent;
+    }
+
     /**
      * Scans the scene graph to collect picked items
      * and generates appropriate pick and touch events.
@@ -563,6 +800,17 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
 
     protected void generatePickEvents(GVRPickedObject[] picked)
     {
+        PickMap prevPicks = mPrevPicks;
+        PickMap curPicks = mCurPicks;
+
+        curPicks.clear();
+        for (GVRPickedObject collision : picked)
+        {
+            if (collision != null)
+            {
+                curPicks.put(collision.hitCollider, collision);
+            }
+        }
     /*
      * Send "onExit" events for colliders that were picked but
      * are not picked anymore.
@@ -576,7 +824,7 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
                     continue;
                 }
                 GVRCollider collider = collision.hitCollider;
-                GVRPickedObject temp = findCollider(picked, collider);
+                GVRPickedObject temp = curPicks.get(collider);
                 if (temp == null)
                 {
                     collision.touched = mTouched;
@@ -603,7 +851,7 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             }
             pickedCount++;
             GVRCollider collider = collision.hitCollider;
-            GVRPickedObject prevHit = findCollider(mPicked, collider);
+            GVRPickedObject prevHit = prevPicks.get(collider);
 
             collision.picker = this;
             collision.touched = mTouched;
@@ -649,6 +897,8 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             }
         }
         mPickListChanged = false;
+        mPrevPicks = curPicks;
+        mCurPicks = prevPicks;
     }
 
     //@todo anything that sets nativePointer to 0 needs this otherwise GVRHybridObject's hashCode
@@ -1322,6 +1572,31 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
             this.motionEvent = null;
         }
 
+        /**
+         * Creates a copy of a {@link GVRPickedObject}, including the
+         * picker and touch state. The hit location and the coordinate
+         * arrays are shared with the original.
+         *
+         * @param other
+         *            The {@link GVRPickedObject} to copy.
+         *
+         * @see GVRPickService
+         */
+        public GVRPickedObject(GVRPickedObject other) {
+            this.hitObject = other.hitObject;
+            this.hitCollider = other.hitCollider;
+            this.hitLocation = other.hitLocation;
+            this.hitDistance = other.hitDistance;
+            this.faceIndex = other.faceIndex;
+            this.barycentricCoords = other.barycentricCoords;
+            this.textureCoords = other.textureCoords;
+            this.normalCoords = other.normalCoords;
+            this.picker = other.picker;
+            this.touched = other.touched;
+            this.collidableIndex = other.collidableIndex;
+            this.motionEvent = other.motionEvent;
+        }
+
         public GVRPickedObject(GVRSceneObject hitObject, float[] hitLocation) {
             this.hitObject = hitObject;
             this.hitLocation = hitLocation;
@@ -1434,6 +1709,86 @@ public class GVRPicker extends GVRBehavior implements IEventReceiver {
     }
 
     static final ReentrantLock sFindObjectsLock = new ReentrantLock();
+
+    /*
+     * Small open addressing hash map from collider to collision
+     * which uses object identity. It is used to compute which
+     * colliders were entered or exited without scanning the
+     * pick lists and does not allocate once it has grown
+     * to the size of the largest pick list.
+     */
+    private static final class PickMap
+    {
+        private GVRCollider[] mKeys = new GVRCollider[8];
+        private GVRPickedObject[] mValues = new GVRPickedObject[8];
+        private int mSize = 0;
+
+        void clear()
+        {
+            if (mSize > 0)
+            {
+                Arrays.fill(mKeys, null);
+                Arrays.fill(mValues, null);
+                mSize = 0;
+            }
+        }
+
+        GVRPickedObject get(GVRCollider key)
+        {
+            int mask = mKeys.length - 1;
+            int i = System.identityHashCode(key) & mask;
+
+            while (mKeys[i] != null)
+            {
+                if (mKeys[i] == key)
+                {
+                    return mValues[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(GVRCollider key, GVRPickedObject value)
+        {
+            if ((mSize + 1) * 2 > mKeys.length)
+            {
+                grow();
+            }
+            int mask = mKeys.length - 1;
+            int i = System.identityHashCode(key) & mask;
+
+            while (mKeys[i] != null)
+            {
+                if (mKeys[i] == key)
+                {
+                    mValues[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            mKeys[i] = key;
+            mValues[i] = value;
+            ++mSize;
+        }
+
+        private void grow()
+        {
+            GVRCollider[] oldKeys = mKeys;
+            GVRPickedObject[] oldValues = mValues;
+
+            mKeys = new GVRCollider[oldKeys.length * 2];
+            mValues = new GVRPickedObject[oldKeys.length * 2];
+            mSize = 0;
+            for (int i = 0; i < oldKeys.length; ++i)
+            {
+                if (oldKeys[i] != null)
+                {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
 }
 
 final class NativePicker {
@@ -1451,6 +1806,17 @@ final class NativePicker {
 
     static native GVRPicker.GVRPickedObject[] pickVisible(long scene);
 
+    static native int getPickVersion();
+
+    static native GVRPicker.GVRPickedObject[] pickColliders(long[] colliders, int count,
+                                                            float ox, float oy, float oz,
+                                                            float dx, float dy, float dz);
+
+    static native GVRPicker.GVRPickedObject[] pickColliderBounds(long[] colliders, int count,
+                                                                 List<GVRSceneObject> collidables);
+
+    static native int getColliderBounds(long[] colliders, int count, float[] bounds);
+
     static native boolean pickSceneObjectAgainstBoundingBox(long sceneObject,
                                                             float ox, float oy, float oz, float dx, float dy, float dz, ByteBuffer readbackBuffer);
 }
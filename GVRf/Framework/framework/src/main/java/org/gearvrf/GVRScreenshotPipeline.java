@@ -0,0 +1,301 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.graphics.Bitmap;
+import android.os.Process;
+
+import org.gearvrf.utility.Log;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Turns the pixels read back from the GL thread into bitmaps
+ * for the screenshot callbacks.
+ * <p>
+ * Readback buffers are direct byte buffers taken from a small pool.
+ * The GL thread reads a frame into a buffer and hands it to this class,
+ * which does the vertical flip, alpha fix up and optional down scaling in place
+ * on a background thread, copies the result into a bitmap, returns the buffer
+ * to the pool and calls the callback once. With two pooled buffers periodic
+ * captures alternate between them and never allocate.
+ */
+final class GVRScreenshotPipeline
+{
+    private static final String TAG = Log.tag(GVRScreenshotPipeline.class);
+    private static final int MAX_POOLED_BUFFERS = 2;
+    private static final int ALPHA_MASK =
+            (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) ? 0xFF000000 : 0x000000FF;
+
+    private final ArrayDeque<ByteBuffer> mPool = new ArrayDeque<ByteBuffer>();
+    private final ExecutorService mExecutor;
+    private int mBufferSize;
+    private volatile int mScaleFactor = 1;
+    private int[] mRowA;
+    private int[] mRowB;
+
+    GVRScreenshotPipeline()
+    {
+        mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(final Runnable r)
+            {
+                Thread t = new Thread(new Runnable()
+                {
+                    public void run()
+                    {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "GVRScreenshot");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Set how much screenshots are scaled down.
+     * @param factor the width and height of the screenshot are divided
+     *               by this value, 1 captures at full size.
+     */
+    void setScaleFactor(int factor)
+    {
+        if (factor < 1)
+        {
+            throw new IllegalArgumentException("Screenshot scale factor must be at least 1");
+        }
+        mScaleFactor = factor;
+    }
+
+    int getScaleFactor()
+    {
+        return mScaleFactor;
+    }
+
+    /**
+     * Get a direct buffer large enough for a readback of the given size.
+     * Called on the GL thread.
+     */
+    ByteBuffer acquireBuffer(int width, int height)
+    {
+        int size = width * height * 4;
+
+        synchronized (mPool)
+        {
+            if (size != mBufferSize)
+            {
+                mPool.clear();
+                mBufferSize = size;
+            }
+            ByteBuffer buffer = mPool.pollFirst();
+            if (buffer != null)
+            {
+                buffer.clear();
+                return buffer;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    /**
+     * Return a buffer to the pool.
+     */
+    void releaseBuffer(ByteBuffer buffer)
+    {
+        synchronized (mPool)
+        {
+            if ((buffer.capacity() == mBufferSize) && (mPool.size() < MAX_POOLED_BUFFERS))
+            {
+                mPool.addLast(buffer);
+            }
+        }
+    }
+
+    /**
+     * Discard the pooled buffers to free memory when screenshots are not being taken.
+     */
+    void trim()
+    {
+        synchronized (mPool)
+        {
+            mPool.clear();
+        }
+    }
+
+    /**
+     * Convert a readback buffer into a bitmap in the background
+     * and pass it to the callback.
+     * @param buffer    pixels read back in RGBA order, given up by the caller.
+     * @param width     width of the readback in pixels.
+     * @param height    height of the readback in pixels.
+     * @param flip      true to flip the image vertically and make it opaque.
+     * @param callback  called with the bitmap on the background thread.
+     */
+    void deliver(final ByteBuffer buffer, final int width, final int height,
+                 final boolean flip, final GVRScreenshotCallback callback)
+    {
+        final int factor = mScaleFactor;
+
+        mExecutor.execute(new Runnable()
+        {
+            public void run()
+            {
+                Bitmap bitmap = makeBitmap(buffer, width, height, flip, factor);
+                callback.onScreenCaptured(bitmap);
+            }
+        });
+    }
+
+    /**
+     * Convert six readback buffers into bitmaps in the background
+     * and pass them to the callback in one call.
+     * @param buffers   pixels for each cube face, given up by the caller.
+     * @param width     width of each readback in pixels.
+     * @param height    height of each readback in pixels.
+     * @param callback  called with the six bitmaps on the background thread.
+     */
+    void deliver3D(final ByteBuffer[] buffers, final int width, final int height,
+                   final GVRScreenshot3DCallback callback)
+    {
+        final int factor = mScaleFactor;
+
+        mExecutor.execute(new Runnable()
+        {
+            public void run()
+            {
+                Bitmap[] bitmaps = new Bitmap[buffers.length];
+
+                for (int i = 0; i < buffers.length; ++i)
+                {
+                    bitmaps[i] = makeBitmap(buffers[i], width, height, false, factor);
+                    buffers[i] = null;
+                }
+                callback.onScreenCaptured(bitmaps);
+            }
+        });
+    }
+
+    private Bitmap makeBitmap(ByteBuffer buffer, int width, int height, boolean flip, int factor)
+    {
+        try
+        {
+            IntBuffer pixels = buffer.asIntBuffer();
+
+            if (flip)
+            {
+                flipOpaque(pixels, width, height);
+            }
+            if (factor > 1)
+            {
+                downsample(pixels, width, height, factor);
+                width /= factor;
+                height /= factor;
+            }
+            Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            buffer.position(0);
+            buffer.limit(width * height * 4);
+            bitmap.copyPixelsFromBuffer(buffer);
+            return bitmap;
+        }
+        catch (Exception ex)
+        {
+            Log.e(TAG, "Screenshot conversion failed: %s", ex.toString());
+            return null;
+        }
+        finally
+        {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /*
+     * Flip the image vertically by swapping rows
+     * and set the alpha of every pixel to 1.
+     * Only called on the executor thread.
+     */
+    private void flipOpaque(IntBuffer pixels, int width, int height)
+    {
+        if ((mRowA == null) || (mRowA.length != width))
+        {
+            mRowA = new int[width];
+            mRowB = new int[width];
+        }
+        for (int top = 0, bottom = height - 1; top <= bottom; ++top, --bottom)
+        {
+            pixels.position(top * width);
+            pixels.get(mRowA);
+            pixels.position(bottom * width);
+            pixels.get(mRowB);
+            for (int x = 0; x < width; ++x)
+            {
+                mRowA[x] |= ALPHA_MASK;
+                mRowB[x] |= ALPHA_MASK;
+            }
+            pixels.position(top * width);
+            pixels.put(mRowB);
+            if (top != bottom)
+            {
+                pixels.position(bottom * width);
+                pixels.put(mRowA);
+            }
+        }
+    }
+
+    /*
+     * Scale the image down by averaging blocks of factor x factor pixels.
+     * The result is packed at the start of the same buffer. Each output pixel
+     * is written before any pixel it overwrites is needed again.
+     */
+    private static void downsample(IntBuffer pixels, int width, int height, int factor)
+    {
+        final int outWidth = width / factor;
+        final int outHeight = height / factor;
+        final int area = factor * factor;
+
+        for (int y = 0; y < outHeight; ++y)
+        {
+            for (int x = 0; x < outWidth; ++x)
+            {
+                int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+
+                for (int j = 0; j < factor; ++j)
+                {
+                    int row = (y * factor + j) * width + x * factor;
+                    for (int i = 0; i < factor; ++i)
+                    {
+                        int p = pixels.get(row + i);
+                        c0 += p & 0xFF;
+                        c1 += (p >>> 8) & 0xFF;
+                        c2 += (p >>> 16) & 0xFF;
+                        c3 += (p >>> 24) & 0xFF;
+                    }
+                }
+                pixels.put(y * outWidth + x,
+                           (c0 / area) | ((c1 / area) << 8) | ((c2 / area) << 16) | ((c3 / area) << 24));
+            }
+        }
+    }
+}
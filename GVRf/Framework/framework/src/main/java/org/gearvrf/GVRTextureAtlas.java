@@ -0,0 +1,542 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.util.Pair;
+
+import org.gearvrf.utility.Log;
+import org.gearvrf.utility.Threads;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A set of images (usually the frames of a sprite or cursor animation) packed
+ * into a single {@link GVRTexture}.
+ * <p>
+ * Each image is described by a {@link GVRAtlasInformation} holding its
+ * offset and scale in UV space. To display one image, set the atlas texture
+ * as the main texture of a material and select the image with
+ * {@link GVRMaterial#setTextureAtlasInfo(String, GVRAtlasInformation)} using
+ * the {@link #MAIN_TEXTURE_KEY} key. The built-in texture shader applies the
+ * offset and scale to the texture coordinates, so switching images only
+ * updates two uniforms instead of binding another texture.
+ * <p>
+ * {@link #loadZip(GVRContext, String)} packs the images of a zip file from the
+ * assets folder, and keeps the packed atlas in the application cache
+ * directory so later runs skip decoding and packing the images.
+ *
+ * @see org.gearvrf.animation.GVRAtlasFrameAnimation
+ */
+public final class GVRTextureAtlas
+{
+    private static final String TAG = GVRTextureAtlas.class.getSimpleName();
+
+    /**
+     * Key of the offset and scale uniforms of the main texture
+     * ({@code u_texture_offset} and {@code u_texture_scale}).
+     */
+    public static final String MAIN_TEXTURE_KEY = "u_texture";
+
+    /**
+     * Largest width or height of a packed atlas, in pixels. Current OpenGL ES
+     * 3.0 devices report at least this {@code GL_MAX_TEXTURE_SIZE}.
+     */
+    public static final int MAX_ATLAS_SIZE = 4096;
+
+    /** Transparent pixels left between images so filtering does not bleed. */
+    private static final int PADDING = 2;
+
+    private static final String CACHE_DIRECTORY = "gvrf_atlas";
+    private static final int CACHE_MAGIC = 0x53415447; // "GTAS"
+    private static final int CACHE_VERSION = 1;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final GVRTexture mTexture;
+    private final List<GVRAtlasInformation> mImages;
+    private final int mWidth;
+    private final int mHeight;
+
+    private GVRTextureAtlas(GVRContext gvrContext, Bitmap bitmap, List<GVRAtlasInformation> images)
+    {
+        mTexture = new GVRTexture(new GVRBitmapImage(gvrContext, bitmap));
+        mImages = Collections.unmodifiableList(images);
+        mWidth = bitmap.getWidth();
+        mHeight = bitmap.getHeight();
+    }
+
+    /**
+     * @return the texture holding all the images
+     */
+    public GVRTexture getTexture()
+    {
+        return mTexture;
+    }
+
+    /**
+     * @return the UV rectangles of the images, in the order they were added
+     */
+    public List<GVRAtlasInformation> getAtlasInformation()
+    {
+        return mImages;
+    }
+
+    /**
+     * @return the number of images in the atlas
+     */
+    public int getImageCount()
+    {
+        return mImages.size();
+    }
+
+    /**
+     * @return the width of the atlas texture, in pixels
+     */
+    public int getWidth()
+    {
+        return mWidth;
+    }
+
+    /**
+     * @return the height of the atlas texture, in pixels
+     */
+    public int getHeight()
+    {
+        return mHeight;
+    }
+
+    /**
+     * Pack bitmaps into a new atlas. The bitmaps are copied and can be
+     * recycled by the caller afterwards.
+     *
+     * @param gvrContext current {@link GVRContext}
+     * @param names      names of the images, used for
+     *                   {@link GVRAtlasInformation#getName()}
+     * @param bitmaps    the images to pack
+     * @return the packed atlas
+     * @throws IllegalArgumentException if the images do not fit in a
+     *         {@link #MAX_ATLAS_SIZE} square texture
+     */
+    public static GVRTextureAtlas create(GVRContext gvrContext, List<String> names, List<Bitmap> bitmaps)
+    {
+        if (names.size() != bitmaps.size())
+        {
+            throw new IllegalArgumentException("There must be one name per bitmap");
+        }
+        final int[] size = new int[2];
+        final int[] rects = pack(bitmaps, size);
+        return new GVRTextureAtlas(gvrContext, draw(bitmaps, rects, size, false),
+                makeInformation(names, rects, size[0], size[1]));
+    }
+
+    /**
+     * Load all the images in a zip file from the assets folder into one
+     * atlas.
+     * <p>
+     * The first call packs the images and saves the atlas (layout and
+     * pixels) in the application cache directory in the background. Later
+     * calls, until the application is updated, read the saved atlas in one
+     * step instead of decoding every image.
+     *
+     * @param gvrContext  current {@link GVRContext}
+     * @param zipFileName name of a zip file in the assets folder
+     * @return the packed atlas
+     * @throws IOException if the zip file cannot be read, or if its images do
+     *         not fit in a {@link #MAX_ATLAS_SIZE} square texture
+     */
+    public static GVRTextureAtlas loadZip(GVRContext gvrContext, String zipFileName) throws IOException
+    {
+        final Context context = gvrContext.getContext();
+        final long stamp = getPackageStamp(context);
+        final File cacheFile = getCacheFile(context, zipFileName);
+
+        if (cacheFile.exists())
+        {
+            try
+            {
+                GVRTextureAtlas atlas = readCache(gvrContext, cacheFile, zipFileName, stamp);
+                if (atlas != null)
+                {
+                    return atlas;
+                }
+            }
+            catch (IOException e)
+            {
+                Log.w(TAG, "Ignoring unreadable atlas cache %s: %s", cacheFile, e);
+            }
+        }
+
+        final List<Pair<String, Bitmap>> images = ZipLoader.load(gvrContext, zipFileName,
+                new ZipLoader.ZipEntryProcessor<Pair<String, Bitmap>>()
+                {
+                    @Override
+                    public Pair<String, Bitmap> getItem(GVRContext context, GVRAndroidResource resource)
+                    {
+                        try
+                        {
+                            Bitmap bitmap = BitmapFactory.decodeStream(resource.getStream());
+                            return bitmap != null ? Pair.create(resource.getResourceFilename(), bitmap) : null;
+                        }
+                        catch (IOException e)
+                        {
+                            Log.w(TAG, "Cannot read %s: %s", resource, e);
+                            return null;
+                        }
+                        finally
+                        {
+                            resource.closeStream();
+                        }
+                    }
+                });
+        final List<String> names = new ArrayList<String>(images.size());
+        final List<Bitmap> bitmaps = new ArrayList<Bitmap>(images.size());
+        for (Pair<String, Bitmap> image : images)
+        {
+            if (image != null)
+            {
+                names.add(image.first);
+                bitmaps.add(image.second);
+            }
+        }
+
+        final int[] size = new int[2];
+        final int[] rects;
+        try
+        {
+            rects = pack(bitmaps, size);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException(zipFileName + ": " + e.getMessage());
+        }
+        final Bitmap atlasBitmap = draw(bitmaps, rects, size, true);
+
+        final GVRTextureAtlas atlas = new GVRTextureAtlas(gvrContext, atlasBitmap,
+                makeInformation(names, rects, size[0], size[1]));
+        Threads.spawnLow(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    writeCache(cacheFile, zipFileName, stamp, names, rects, atlasBitmap);
+                }
+                catch (IOException e)
+                {
+                    Log.w(TAG, "Cannot write atlas cache %s: %s", cacheFile, e);
+                }
+            }
+        });
+        return atlas;
+    }
+
+    private static int[] pack(List<Bitmap> bitmaps, int[] size)
+    {
+        final int count = bitmaps.size();
+        final int[] widths = new int[count];
+        final int[] heights = new int[count];
+        for (int i = 0; i < count; ++i)
+        {
+            widths[i] = bitmaps.get(i).getWidth();
+            heights[i] = bitmaps.get(i).getHeight();
+        }
+        return pack(widths, heights, size);
+    }
+
+    private static Bitmap draw(List<Bitmap> bitmaps, int[] rects, int[] size, boolean recycle)
+    {
+        final Bitmap atlas = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+        final Canvas canvas = new Canvas(atlas);
+        for (int i = 0; i < bitmaps.size(); ++i)
+        {
+            final Bitmap bitmap = bitmaps.get(i);
+            canvas.drawBitmap(bitmap, rects[i * 4], rects[i * 4 + 1], null);
+            if (recycle)
+            {
+                bitmap.recycle();
+            }
+        }
+        return atlas;
+    }
+
+    /**
+     * Shelf packing: images are sorted by height and placed left to right in
+     * rows. The atlas width starts at the smallest power of two that could
+     * hold all the images in a square and doubles until the rows fit under
+     * {@link #MAX_ATLAS_SIZE}.
+     *
+     * @param widths  image widths
+     * @param heights image heights
+     * @param size    receives the width and height of the atlas
+     * @return x, y, width and height of each image, in input order
+     */
+    static int[] pack(final int[] widths, final int[] heights, int[] size)
+    {
+        final int count = widths.length;
+        if (count == 0)
+        {
+            throw new IllegalArgumentException("No images to pack");
+        }
+        final Integer[] order = new Integer[count];
+        long area = 0;
+        int maxWidth = 0;
+        for (int i = 0; i < count; ++i)
+        {
+            order[i] = i;
+            area += (long) (widths[i] + PADDING) * (heights[i] + PADDING);
+            maxWidth = Math.max(maxWidth, widths[i] + PADDING);
+        }
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                return heights[b] != heights[a] ? heights[b] - heights[a] : a - b;
+            }
+        });
+
+        int width = 1;
+        while (width < maxWidth || (long) width * width < area)
+        {
+            width <<= 1;
+        }
+
+        final int[] rects = new int[count * 4];
+        for (; width <= MAX_ATLAS_SIZE; width <<= 1)
+        {
+            int x = 0;
+            int y = 0;
+            int rowHeight = 0;
+            for (Integer index : order)
+            {
+                final int w = widths[index] + PADDING;
+                if (x + w > width)
+                {
+                    x = 0;
+                    y += rowHeight;
+                    rowHeight = 0;
+                }
+                rects[index * 4] = x;
+                rects[index * 4 + 1] = y;
+                rects[index * 4 + 2] = widths[index];
+                rects[index * 4 + 3] = heights[index];
+                x += w;
+                rowHeight = Math.max(rowHeight, heights[index] + PADDING);
+            }
+            final int height = y + rowHeight - PADDING;
+            if (height <= MAX_ATLAS_SIZE)
+            {
+                size[0] = width;
+                size[1] = height;
+                return rects;
+            }
+        }
+        throw new IllegalArgumentException("Images do not fit in a " + MAX_ATLAS_SIZE
+                + "x" + MAX_ATLAS_SIZE + " atlas");
+    }
+
+    private static List<GVRAtlasInformation> makeInformation(List<String> names, int[] rects,
+                                                             int width, int height)
+    {
+        final List<GVRAtlasInformation> images = new ArrayList<GVRAtlasInformation>(names.size());
+        for (int i = 0; i < names.size(); ++i)
+        {
+            images.add(new GVRAtlasInformation(names.get(i),
+                    new float[] { (float) rects[i * 4] / width, (float) rects[i * 4 + 1] / height },
+                    new float[] { (float) rects[i * 4 + 2] / width, (float) rects[i * 4 + 3] / height }));
+        }
+        return images;
+    }
+
+    /*
+     * Cache file layout, all values big endian:
+     *
+     * int    magic, version
+     * long   package update time
+     * int    zip name byte length, UTF-8 bytes
+     * int    atlas width, height
+     * int    image count
+     * per image: int name byte length, UTF-8 bytes, int x, y, width, height
+     * ARGB_8888 pixels of the atlas, as written by Bitmap.copyPixelsToBuffer
+     */
+
+    private static File getCacheFile(Context context, String zipFileName)
+    {
+        return new File(new File(context.getCacheDir(), CACHE_DIRECTORY),
+                zipFileName.replaceAll("[^A-Za-z0-9._-]", "_") + ".atlas");
+    }
+
+    private static long getPackageStamp(Context context)
+    {
+        try
+        {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        }
+        catch (PackageManager.NameNotFoundException e)
+        {
+            return 0;
+        }
+    }
+
+    private static GVRTextureAtlas readCache(GVRContext gvrContext, File cacheFile, String zipFileName,
+                                             long stamp) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            if (buffer.remaining() < 16 || buffer.getInt() != CACHE_MAGIC
+                    || buffer.getInt() != CACHE_VERSION || buffer.getLong() != stamp
+                    || !zipFileName.equals(readString(buffer)))
+            {
+                return null;
+            }
+            final int width = buffer.getInt();
+            final int height = buffer.getInt();
+            final int count = buffer.getInt();
+            if (width <= 0 || height <= 0 || width > MAX_ATLAS_SIZE || height > MAX_ATLAS_SIZE
+                    || count < 0)
+            {
+                throw new IOException("Invalid atlas size");
+            }
+            final List<String> names = new ArrayList<String>(count);
+            final int[] rects = new int[count * 4];
+            for (int i = 0; i < count; ++i)
+            {
+                names.add(readString(buffer));
+                for (int j = 0; j < 4; ++j)
+                {
+                    rects[i * 4 + j] = buffer.getInt();
+                }
+            }
+
+            final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            if (buffer.remaining() < bitmap.getByteCount())
+            {
+                bitmap.recycle();
+                throw new IOException("Truncated atlas pixels");
+            }
+            bitmap.copyPixelsFromBuffer(buffer);
+            return new GVRTextureAtlas(gvrContext, bitmap, makeInformation(names, rects, width, height));
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    private static void writeCache(File cacheFile, String zipFileName, long stamp, List<String> names,
+                                   int[] rects, Bitmap bitmap) throws IOException
+    {
+        final File directory = cacheFile.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Cannot create " + directory);
+        }
+
+        final List<byte[]> strings = new ArrayList<byte[]>(names.size() + 1);
+        int headerSize = 4 * 2 + 8 + 4 * 3;
+        strings.add(zipFileName.getBytes(UTF8));
+        for (String name : names)
+        {
+            strings.add(name.getBytes(UTF8));
+        }
+        for (byte[] bytes : strings)
+        {
+            headerSize += 4 + bytes.length;
+        }
+        headerSize += names.size() * 4 * 4;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(headerSize + bitmap.getByteCount());
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(CACHE_MAGIC);
+        buffer.putInt(CACHE_VERSION);
+        buffer.putLong(stamp);
+        writeString(buffer, strings.get(0));
+        buffer.putInt(bitmap.getWidth());
+        buffer.putInt(bitmap.getHeight());
+        buffer.putInt(names.size());
+        for (int i = 0; i < names.size(); ++i)
+        {
+            writeString(buffer, strings.get(i + 1));
+            for (int j = 0; j < 4; ++j)
+            {
+                buffer.putInt(rects[i * 4 + j]);
+            }
+        }
+        bitmap.copyPixelsToBuffer(buffer);
+        buffer.flip();
+
+        // write to a temporary file first so a reader never sees a partial cache
+        final File tempFile = new File(directory, cacheFile.getName() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try
+        {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        if (!tempFile.renameTo(cacheFile))
+        {
+            tempFile.delete();
+            throw new IOException("Cannot rename " + tempFile + " to " + cacheFile);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException
+    {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+        {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] bytes)
+    {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+}
@@ -17,6 +17,8 @@ package org.gearvrf;
 
 import org.joml.Matrix4f;
 
+import java.nio.Buffer;
+
 /**
  * One of the key GVRF classes: Encapsulates a 4x4 matrix that controls how GL
  * draws a mesh.
@@ -26,11 +28,42 @@ import org.joml.Matrix4f;
  * translation, rotation and scaling. Rotations can be made in either quaternion
  * or angle/axis terms; rotation values can be retrieved as either quaternion
  * components or as Euler angles.
+ * <p>
+ * The getters read a Java side copy of the local position, rotation and
+ * scale (see {@link #setMirrorEnabled(boolean)}). The copy is only coherent
+ * on the GL thread: a transform changed on another thread while the GL
+ * thread refreshes the copy may briefly read back the older values until
+ * the next frame. Change transforms from the GL thread, or batch them with
+ * {@link GVRTransformBatch}, when another thread must read them right away.
  */
 public class GVRTransform extends GVRComponent {
     final float TO_DEGREES = (float) (180.0/Math.PI);
     final float TO_RADIANS = 1/TO_DEGREES;
 
+    /**
+     * Number of floats filled by {@link #getLocal(float[])}: position,
+     * rotation quaternion (w, x, y, z) and scale.
+     */
+    public static final int TRS_SIZE = 10;
+
+    private static final int POSITION = 0;
+    private static final int ROTATION = 3;
+    private static final int SCALE = 7;
+
+    /*
+     * Local position, rotation and scale, mirrored from the native transform
+     * so the getters don't each cross JNI. Setters write through; the mirror
+     * is read again in one call when mMirrorGeneration falls behind
+     * sGeneration, which moves on once per frame and whenever native code
+     * may have changed transforms.
+     */
+    private final float[] mTRS = new float[TRS_SIZE];
+    private int mMirrorGeneration;
+    private static volatile int sGeneration = 1;
+    private static volatile boolean sMirrorEnabled = true;
+    // batch holding changes to this transform that are not applied yet
+    GVRTransformBatch mPendingBatch;
+
     GVRTransform(GVRContext gvrContext) {
         super(gvrContext, NativeTransform.ctor());
     }
@@ -55,7 +88,7 @@ public class GVRTransform extends GVRComponent {
      * @return 'X' component of the transform's position.
      */
     public float getPositionX() {
-        return NativeTransform.getPositionX(getNative());
+        return mirror()[POSITION];
     }
 
     /**
@@ -64,7 +97,7 @@ public class GVRTransform extends GVRComponent {
      * @return 'Y' component of the transform's position.
      */
     public float getPositionY() {
-        return NativeTransform.getPositionY(getNative());
+        return mirror()[POSITION + 1];
     }
 
     /**
@@ -73,7 +106,7 @@ public class GVRTransform extends GVRComponent {
      * @return 'Z' component of the transform's position.
      */
     public float getPositionZ() {
-        return NativeTransform.getPositionZ(getNative());
+        return mirror()[POSITION + 2];
     }
 
     /**
@@ -89,7 +122,14 @@ public class GVRTransform extends GVRComponent {
      *            'Z' component of the absolute position.
      */
     public GVRTransform setPosition(float x, float y, float z) {
-        NativeTransform.setPosition(getNative(), x, y, z);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setPosition(this, x, y, z);
+        } else {
+            applyPending();
+            NativeTransform.setPosition(getNative(), x, y, z);
+            mirrorPosition(x, y, z);
+        }
         return this;
     }
 
@@ -102,7 +142,16 @@ public class GVRTransform extends GVRComponent {
      *            New 'X' component of the absolute position.
      */
     public GVRTransform setPositionX(float x) {
-        NativeTransform.setPositionX(getNative(), x);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_POSITION_X, x);
+        } else {
+            applyPending();
+            NativeTransform.setPositionX(getNative(), x);
+        }
+        if (isMirrorValid()) {
+            mTRS[POSITION] = x;
+        }
         return this;
     }
 
@@ -115,7 +164,16 @@ public class GVRTransform extends GVRComponent {
      *            New 'Y' component of the absolute position.
      */
     public GVRTransform setPositionY(float y) {
-        NativeTransform.setPositionY(getNative(), y);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_POSITION_Y, y);
+        } else {
+            applyPending();
+            NativeTransform.setPositionY(getNative(), y);
+        }
+        if (isMirrorValid()) {
+            mTRS[POSITION + 1] = y;
+        }
         return this;
     }
 
@@ -128,7 +186,16 @@ public class GVRTransform extends GVRComponent {
      *            New 'Z' component of the absolute position.
      */
     public GVRTransform setPositionZ(float z) {
-        NativeTransform.setPositionZ(getNative(), z);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_POSITION_Z, z);
+        } else {
+            applyPending();
+            NativeTransform.setPositionZ(getNative(), z);
+        }
+        if (isMirrorValid()) {
+            mTRS[POSITION + 2] = z;
+        }
         return this;
     }
 
@@ -139,7 +206,7 @@ public class GVRTransform extends GVRComponent {
      *         quaternion.
      */
     public float getRotationW() {
-        return NativeTransform.getRotationW(getNative());
+        return mirror()[ROTATION];
     }
 
     /**
@@ -149,7 +216,7 @@ public class GVRTransform extends GVRComponent {
      *         quaternion.
      */
     public float getRotationX() {
-        return NativeTransform.getRotationX(getNative());
+        return mirror()[ROTATION + 1];
     }
 
     /**
@@ -159,7 +226,7 @@ public class GVRTransform extends GVRComponent {
      *         quaternion.
      */
     public float getRotationY() {
-        return NativeTransform.getRotationY(getNative());
+        return mirror()[ROTATION + 2];
     }
 
     /**
@@ -169,7 +236,7 @@ public class GVRTransform extends GVRComponent {
      *         quaternion.
      */
     public float getRotationZ() {
-        return NativeTransform.getRotationZ(getNative());
+        return mirror()[ROTATION + 3];
     }
 
     /**
@@ -178,7 +245,11 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's current rotation around the 'Y' axis, in degrees.
      */
     public float getRotationYaw() {
-        return NativeTransform.getRotationYaw(getNative()) * TO_DEGREES;
+        float[] trs = mirror();
+        float w = trs[ROTATION], x = trs[ROTATION + 1], y = trs[ROTATION + 2], z = trs[ROTATION + 3];
+        // same as glm::yaw
+        float sin = Math.max(-1f, Math.min(1f, -2f * (x * z - w * y)));
+        return (float) Math.asin(sin) * TO_DEGREES;
     }
 
     /**
@@ -187,7 +258,10 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's rotation around the 'X' axis, in degrees.
      */
     public float getRotationPitch() {
-        return NativeTransform.getRotationPitch(getNative()) * TO_DEGREES;
+        float[] trs = mirror();
+        float w = trs[ROTATION], x = trs[ROTATION + 1], y = trs[ROTATION + 2], z = trs[ROTATION + 3];
+        // same as glm::pitch
+        return (float) Math.atan2(2f * (y * z + w * x), w * w - x * x - y * y + z * z) * TO_DEGREES;
     }
 
     /**
@@ -196,7 +270,10 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's rotation around the 'Z' axis, in degrees.
      */
     public float getRotationRoll() {
-        return NativeTransform.getRotationRoll(getNative()) * TO_DEGREES;
+        float[] trs = mirror();
+        float w = trs[ROTATION], x = trs[ROTATION + 1], y = trs[ROTATION + 2], z = trs[ROTATION + 3];
+        // same as glm::roll
+        return (float) Math.atan2(2f * (x * y + w * z), w * w + x * x - y * y - z * z) * TO_DEGREES;
     }
 
     /**
@@ -219,7 +296,14 @@ public class GVRTransform extends GVRComponent {
      *            'Z' component of the quaternion.
      */
     public GVRTransform setRotation(float w, float x, float y, float z) {
-        NativeTransform.setRotation(getNative(), w, x, y, z);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setRotation(this, w, x, y, z);
+        } else {
+            applyPending();
+            NativeTransform.setRotation(getNative(), w, x, y, z);
+            mirrorRotation(w, x, y, z);
+        }
         return this;
     }
 
@@ -229,7 +313,7 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's current scaling on the 'X' axis.
      */
     public float getScaleX() {
-        return NativeTransform.getScaleX(getNative());
+        return mirror()[SCALE];
     }
 
     /**
@@ -238,7 +322,7 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's current scaling on the 'Y' axis.
      */
     public float getScaleY() {
-        return NativeTransform.getScaleY(getNative());
+        return mirror()[SCALE + 1];
     }
 
     /**
@@ -247,7 +331,7 @@ public class GVRTransform extends GVRComponent {
      * @return The transform's current scaling on the 'Z' axis.
      */
     public float getScaleZ() {
-        return NativeTransform.getScaleZ(getNative());
+        return mirror()[SCALE + 2];
     }
 
     /**
@@ -261,7 +345,14 @@ public class GVRTransform extends GVRComponent {
      *            Scaling factor on the 'Z' axis.
      */
     public GVRTransform setScale(float x, float y, float z) {
-        NativeTransform.setScale(getNative(), x, y, z);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setScale(this, x, y, z);
+        } else {
+            applyPending();
+            NativeTransform.setScale(getNative(), x, y, z);
+            mirrorScale(x, y, z);
+        }
         return this;
     }
 
@@ -272,7 +363,16 @@ public class GVRTransform extends GVRComponent {
      *            Scaling factor on the 'X' axis.
      */
     public GVRTransform setScaleX(float x) {
-        NativeTransform.setScaleX(getNative(), x);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_SCALE_X, x);
+        } else {
+            applyPending();
+            NativeTransform.setScaleX(getNative(), x);
+        }
+        if (isMirrorValid()) {
+            mTRS[SCALE] = x;
+        }
         return this;
     }
 
@@ -283,7 +383,16 @@ public class GVRTransform extends GVRComponent {
      *            Scaling factor on the 'Y' axis.
      */
     public GVRTransform setScaleY(float y) {
-        NativeTransform.setScaleY(getNative(), y);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_SCALE_Y, y);
+        } else {
+            applyPending();
+            NativeTransform.setScaleY(getNative(), y);
+        }
+        if (isMirrorValid()) {
+            mTRS[SCALE + 1] = y;
+        }
         return this;
     }
 
@@ -294,10 +403,35 @@ public class GVRTransform extends GVRComponent {
      *            Scaling factor on the 'Z' axis.
      */
     public GVRTransform setScaleZ(float z) {
-        NativeTransform.setScaleZ(getNative(), z);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setComponent(this, GVRTransformBatch.SET_SCALE_Z, z);
+        } else {
+            applyPending();
+            NativeTransform.setScaleZ(getNative(), z);
+        }
+        if (isMirrorValid()) {
+            mTRS[SCALE + 2] = z;
+        }
         return this;
     }
 
+    /**
+     * Get the local position, rotation and scale in one call.
+     *
+     * @param trs array of at least {@link #TRS_SIZE} {@code float}s which
+     *            gets the position (x, y, z), the rotation quaternion
+     *            (w, x, y, z) and the scale (x, y, z), in that order.
+     * @return the input array
+     */
+    public float[] getLocal(float[] trs) {
+        if (trs.length < TRS_SIZE) {
+            throw new IllegalArgumentException("Size less than " + TRS_SIZE + ".");
+        }
+        System.arraycopy(mirror(), 0, trs, 0, TRS_SIZE);
+        return trs;
+    }
+
     /**
      * Get the 4x4 single matrix.
      * 
@@ -305,9 +439,26 @@ public class GVRTransform extends GVRComponent {
      *         OpenGL-compatible column-major format.
      */
     public float[] getModelMatrix() {
+        applyPendingWorld();
         return NativeTransform.getModelMatrix(getNative());
     }
 
+    /**
+     * Get the 4x4 single matrix without allocating a new array.
+     *
+     * @param matrix array of at least 16 {@code float}s which gets the
+     *               matrix in OpenGL-compatible column-major format.
+     * @return the input array
+     */
+    public float[] getModelMatrix(float[] matrix) {
+        if (matrix.length < 16) {
+            throw new IllegalArgumentException("Size less than 16.");
+        }
+        applyPendingWorld();
+        NativeTransform.copyModelMatrix(getNative(), matrix);
+        return matrix;
+    }
+
     /**
      * Get the 4x4 single local transform matrix.
      * 
@@ -315,6 +466,7 @@ public class GVRTransform extends GVRComponent {
      *         OpenGL-compatible column-major format.
      */
     public float[] getLocalModelMatrix() {
+        applyPending();
         return NativeTransform.getLocalModelMatrix(getNative());
     }
 
@@ -354,7 +506,14 @@ public class GVRTransform extends GVRComponent {
         if (mat.length != 16) {
             throw new IllegalArgumentException("Size not equal to 16.");
         }
-        NativeTransform.setModelMatrix(getNative(), mat);
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.setModelMatrix(this, mat);
+        } else {
+            applyPending();
+            NativeTransform.setModelMatrix(getNative(), mat);
+            invalidateMirror();
+        }
         return this;
     }
 
@@ -385,7 +544,13 @@ public class GVRTransform extends GVRComponent {
      *            'Z' delta
      */
     public void translate(float x, float y, float z) {
+        applyPending();
         NativeTransform.translate(getNative(), x, y, z);
+        if (isMirrorValid()) {
+            mTRS[POSITION] += x;
+            mTRS[POSITION + 1] += y;
+            mTRS[POSITION + 2] += z;
+        }
     }
 
     /**
@@ -409,7 +574,9 @@ public class GVRTransform extends GVRComponent {
      *            'Z' component of the axis.
      */
     public GVRTransform setRotationByAxis(float angle, float x, float y, float z) {
+        applyPending();
         NativeTransform.setRotationByAxis(getNative(), angle * TO_RADIANS, x, y, z);
+        invalidateMirror();
         return this;
     }
 
@@ -426,7 +593,9 @@ public class GVRTransform extends GVRComponent {
      *            'Z' component of the quaternion.
      */
     public void rotate(float w, float x, float y, float z) {
+        applyPending();
         NativeTransform.rotate(getNative(), w, x, y, z);
+        invalidateMirror();
     }
 
     /**
@@ -442,7 +611,9 @@ public class GVRTransform extends GVRComponent {
      *            'Z' component of the axis.
      */
     public void rotateByAxis(float angle, float x, float y, float z) {
+        applyPending();
         NativeTransform.rotateByAxis(getNative(), angle * TO_RADIANS, x, y, z);
+        invalidateMirror();
     }
 
     /**
@@ -466,8 +637,10 @@ public class GVRTransform extends GVRComponent {
      */
     public void rotateByAxisWithPivot(float angle, float axisX, float axisY,
             float axisZ, float pivotX, float pivotY, float pivotZ) {
+        applyPending();
         NativeTransform.rotateByAxisWithPivot(getNative(), angle * TO_RADIANS, axisX, axisY,
                 axisZ, pivotX, pivotY, pivotZ);
+        invalidateMirror();
     }
 
     /**
@@ -491,8 +664,10 @@ public class GVRTransform extends GVRComponent {
      */
     public void rotateWithPivot(float quatW, float quatX, float quatY,
             float quatZ, float pivotX, float pivotY, float pivotZ) {
+        applyPending();
         NativeTransform.rotateWithPivot(getNative(), quatW, quatX, quatY,
                 quatZ, pivotX, pivotY, pivotZ);
+        invalidateMirror();
     }
 
 
@@ -507,6 +682,98 @@ public class GVRTransform extends GVRComponent {
         setScale(1, 1, 1);
     }
 
+    /**
+     * Turn the Java side copy of local positions, rotations and scales on or
+     * off for all transforms. It is on by default.
+     *
+     * Transform getters read the copy, which is refreshed from native code
+     * at most once per frame. Turn it off if native code changes transforms
+     * in the middle of a frame and the change must be seen right away.
+     *
+     * @param enabled false to read every value from native code
+     */
+    public static void setMirrorEnabled(boolean enabled) {
+        sMirrorEnabled = enabled;
+        invalidateMirrors();
+    }
+
+    /**
+     * Make all transforms read their position, rotation and scale from
+     * native code again. Called at the start of every frame and by the
+     * framework methods which change transforms in native code, such as
+     * {@link GVRCameraRig#reset()}; call it after your own native code
+     * changed transforms, for example after a physics step.
+     */
+    public static void invalidateMirrors() {
+        ++sGeneration;
+    }
+
+    private boolean isMirrorValid() {
+        return mMirrorGeneration == sGeneration;
+    }
+
+    void invalidateMirror() {
+        mMirrorGeneration = 0;
+    }
+
+    void mirrorPosition(float x, float y, float z) {
+        if (isMirrorValid()) {
+            mTRS[POSITION] = x;
+            mTRS[POSITION + 1] = y;
+            mTRS[POSITION + 2] = z;
+        }
+    }
+
+    void mirrorRotation(float w, float x, float y, float z) {
+        if (isMirrorValid()) {
+            mTRS[ROTATION] = w;
+            mTRS[ROTATION + 1] = x;
+            mTRS[ROTATION + 2] = y;
+            mTRS[ROTATION + 3] = z;
+        }
+    }
+
+    void mirrorScale(float x, float y, float z) {
+        if (isMirrorValid()) {
+            mTRS[SCALE] = x;
+            mTRS[SCALE + 1] = y;
+            mTRS[SCALE + 2] = z;
+        }
+    }
+
+    /*
+     * Apply the changes of this transform still waiting in a batch, before
+     * native code reads or changes it.
+     */
+    private void applyPending() {
+        if (mPendingBatch != null) {
+            mPendingBatch.applyFor(this);
+        }
+    }
+
+    /*
+     * The world matrix also depends on the ancestors of this transform, whose
+     * changes may still wait in the batch of this thread: apply all of it, not
+     * only the entries of this transform.
+     */
+    private void applyPendingWorld() {
+        GVRTransformBatch batch = GVRTransformBatch.current();
+        if (batch != null) {
+            batch.apply();
+        }
+        applyPending();
+    }
+
+    private float[] mirror() {
+        applyPending();
+        int generation = sGeneration;
+        if (mMirrorGeneration != generation || !sMirrorEnabled) {
+            NativeTransform.getLocal(getNative(), mTRS);
+            mMirrorGeneration = generation;
+        }
+        return mTRS;
+    }
+
     @Override
     public String toString() {
         return "GVRTransform " + Integer.toHexString(hashCode()) + ", positionX = " + getPositionX()
@@ -537,6 +804,10 @@ class NativeTransform {
 
     static native void setPositionZ(long transform, float z);
 
+    static native void getLocal(long transform, float[] trs);
+
+    static native void applyBatch(long[] transforms, int[] operations, int count, Buffer data);
+
     static native float getRotationW(long transform);
 
     static native float getRotationX(long transform);
@@ -570,6 +841,8 @@ class NativeTransform {
 
     static native float[] getModelMatrix(long transform);
 
+    static native void copyModelMatrix(long transform, float[] matrix);
+
     static native float[] getLocalModelMatrix(long transform);
 
     static native void setModelMatrix(long tranform, float[] mat);
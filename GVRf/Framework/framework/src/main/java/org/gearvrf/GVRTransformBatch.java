@@ -0,0 +1,270 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects transform changes and applies them to the native transforms in a
+ * single call.
+ *
+ * Changes can be added explicitly, with {@link #setPosition(GVRTransform,
+ * float, float, float) setPosition()} and friends, or implicitly: between
+ * {@link #begin()} and {@link #end()}, the {@link GVRTransform} setters
+ * called on the same thread are added to the batch instead of calling into
+ * native code.
+ * <pre>
+ *     batch.begin();
+ *     try {
+ *         for (GVRSceneObject object : objects) {
+ *             object.getTransform().setPosition(x, y, z);
+ *         }
+ *     } finally {
+ *         batch.end();
+ *     }
+ * </pre>
+ * Transform getters, and the operations computed in native code such as
+ * {@link GVRTransform#rotateByAxis(float, float, float, float)}, apply the
+ * pending changes first, so the order of the changes is kept. The model
+ * matrix getters apply the whole batch of the calling thread, since the
+ * world matrix also depends on the parents of the transform.
+ *
+ * Consecutive changes to the same transform are merged into one native
+ * update. A batch must only be used by one thread at a time.
+ */
+public final class GVRTransformBatch {
+    // operation codes, as in transform_jni.cpp
+    static final int SET_POSITION = 0;
+    static final int SET_POSITION_X = 1;
+    static final int SET_POSITION_Y = 2;
+    static final int SET_POSITION_Z = 3;
+    static final int SET_ROTATION = 4;
+    static final int SET_SCALE = 5;
+    static final int SET_SCALE_X = 6;
+    static final int SET_SCALE_Y = 7;
+    static final int SET_SCALE_Z = 8;
+    static final int SET_MATRIX = 9;
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int FLOAT_BYTES = 4;
+
+    private static final ThreadLocal<GVRTransformBatch> sCurrent = new ThreadLocal<GVRTransformBatch>();
+    // number of batches between begin() and end(), on any thread
+    private static final AtomicInteger sActive = new AtomicInteger();
+
+    private GVRTransform[] mTargets;
+    private long[] mTransforms;
+    private int[] mOperations;
+    private int mCount;
+    private FloatBuffer mData;
+    private Thread mThread;
+    private GVRTransformBatch mPrevious;
+    private boolean mBegun;
+
+    /**
+     * Create an empty batch. It grows as needed.
+     */
+    public GVRTransformBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty batch.
+     *
+     * @param capacity number of changes the batch holds before growing
+     */
+    public GVRTransformBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        mTargets = new GVRTransform[capacity];
+        mTransforms = new long[capacity];
+        mOperations = new int[capacity];
+        mData = allocate(capacity * 4);
+    }
+
+    /**
+     * Add the {@link GVRTransform} setters called by this thread to the
+     * batch, until {@link #end()}. Batches can be nested: the innermost one
+     * gets the changes.
+     */
+    public void begin() {
+        if (mBegun) {
+            throw new IllegalStateException("Transform batch already begun");
+        }
+        mBegun = true;
+        mThread = Thread.currentThread();
+        mPrevious = sCurrent.get();
+        sCurrent.set(this);
+        sActive.incrementAndGet();
+    }
+
+    /**
+     * Stop adding the {@link GVRTransform} setters to the batch and
+     * {@link #apply()} it.
+     */
+    public void end() {
+        if (!mBegun) {
+            throw new IllegalStateException("Transform batch not begun");
+        }
+        sActive.decrementAndGet();
+        sCurrent.set(mPrevious);
+        mPrevious = null;
+        mBegun = false;
+        apply();
+    }
+
+    /**
+     * @return the number of changes waiting to be applied
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Set the position of a transform when the batch is applied.
+     *
+     * @return this batch
+     */
+    public GVRTransformBatch setPosition(GVRTransform transform, float x, float y, float z) {
+        add(transform, SET_POSITION, 3);
+        mData.put(x).put(y).put(z);
+        transform.mirrorPosition(x, y, z);
+        return this;
+    }
+
+    /**
+     * Set the rotation of a transform, as a quaternion, when the batch is
+     * applied.
+     *
+     * @return this batch
+     */
+    public GVRTransformBatch setRotation(GVRTransform transform, float w, float x, float y, float z) {
+        add(transform, SET_ROTATION, 4);
+        mData.put(w).put(x).put(y).put(z);
+        transform.mirrorRotation(w, x, y, z);
+        return this;
+    }
+
+    /**
+     * Set the scale of a transform when the batch is applied.
+     *
+     * @return this batch
+     */
+    public GVRTransformBatch setScale(GVRTransform transform, float x, float y, float z) {
+        add(transform, SET_SCALE, 3);
+        mData.put(x).put(y).put(z);
+        transform.mirrorScale(x, y, z);
+        return this;
+    }
+
+    /**
+     * Set the position, rotation and scale of a transform from a 4x4 matrix
+     * when the batch is applied.
+     *
+     * @param matrix 16 {@code float}s in OpenGL-compatible column-major
+     *               format
+     * @return this batch
+     */
+    public GVRTransformBatch setModelMatrix(GVRTransform transform, float[] matrix) {
+        if (matrix.length != 16) {
+            throw new IllegalArgumentException("Size not equal to 16.");
+        }
+        add(transform, SET_MATRIX, 16);
+        mData.put(matrix, 0, 16);
+        transform.invalidateMirror();
+        return this;
+    }
+
+    /**
+     * Apply all the changes in one native call and empty the batch.
+     */
+    public void apply() {
+        if (mCount == 0) {
+            return;
+        }
+        NativeTransform.applyBatch(mTransforms, mOperations, mCount, mData);
+        for (int i = 0; i < mCount; ++i) {
+            mTargets[i].mPendingBatch = null;
+            mTargets[i] = null;
+        }
+        mCount = 0;
+        mData.clear();
+        if (!mBegun) {
+            mThread = null;
+        }
+    }
+
+    /*
+     * The batch the GVRTransform setters of this thread go to, or null.
+     */
+    static GVRTransformBatch current() {
+        return sActive.get() == 0 ? null : sCurrent.get();
+    }
+
+    /*
+     * Apply the batch before a transform is read or changed in native code,
+     * unless another thread owns the batch.
+     */
+    void applyFor(GVRTransform transform) {
+        if (mThread == null || mThread == Thread.currentThread()) {
+            apply();
+        }
+    }
+
+    /*
+     * Set one component of the position or scale; the caller updates the
+     * mirror.
+     */
+    void setComponent(GVRTransform transform, int operation, float value) {
+        add(transform, operation, 1);
+        mData.put(value);
+    }
+
+    private void add(GVRTransform transform, int operation, int floats) {
+        if (mThread == null) {
+            mThread = Thread.currentThread();
+        }
+        if (transform.mPendingBatch != null && transform.mPendingBatch != this) {
+            // keep the order of changes made through different batches
+            transform.mPendingBatch.applyFor(transform);
+        }
+        if (mCount == mOperations.length) {
+            int capacity = mCount * 2;
+            mTargets = Arrays.copyOf(mTargets, capacity);
+            mTransforms = Arrays.copyOf(mTransforms, capacity);
+            mOperations = Arrays.copyOf(mOperations, capacity);
+        }
+        if (mData.remaining() < floats) {
+            FloatBuffer data = allocate(Math.max(mData.capacity() * 2, mData.position() + floats));
+            mData.flip();
+            data.put(mData);
+            mData = data;
+        }
+        mTargets[mCount] = transform;
+        mTransforms[mCount] = transform.getNative();
+        mOperations[mCount] = operation;
+        ++mCount;
+        transform.mPendingBatch = this;
+    }
+
+    private static FloatBuffer allocate(int floats) {
+        return ByteBuffer.allocateDirect(floats * FLOAT_BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+}
@@ -14,7 +14,6 @@
  */
 package org.gearvrf;
 
-import android.graphics.Bitmap;
 import android.opengl.GLES20;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -26,22 +25,15 @@ import org.gearvrf.asynchronous.GVRAsynchronousResourceLoader;
 import org.gearvrf.io.GVRGearCursorController;
 import org.gearvrf.io.GVRInputManager;
 import org.gearvrf.script.IScriptManager;
-import org.gearvrf.utility.ImageUtils;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.Threads;
 import org.gearvrf.utility.VrAppSettings;
 import org.gearvrf.utility.VrAppSettings.EyeBufferParams.DepthFormat;
 
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.ReentrantLock;
 
 abstract class GVRViewManager extends GVRContext {
@@ -64,6 +56,7 @@ abstract class GVRViewManager extends GVRContext {
         VrAppSettings appSettings = activity.getAppSettings();
         initScriptManager();
         mEventManager = new GVREventManager(this);
+        mPickService = new GVRPickService();
         mInputManager = new GVRInputManager(this, appSettings.getCursorControllerTypes(),appSettings.getNumControllers());
         mInputManager.scanDevices();
     }
@@ -87,7 +80,7 @@ abstract class GVRViewManager extends GVRContext {
         }
 
         mFrameListeners.clear();
-        mRunnables.clear();
+        mGlTasks.clear();
         mRunnablesPostRender.clear();
         super.onDestroy();
     }
@@ -96,6 +89,11 @@ abstract class GVRViewManager extends GVRContext {
         return mEventManager;
     }
 
+    @Override
+    public GVRPickService getPickService() {
+        return mPickService;
+    }
+
     public boolean dispatchKeyEvent(KeyEvent event) {
         return mInputManager.dispatchKeyEvent(event);
     }
@@ -175,16 +173,23 @@ abstract class GVRViewManager extends GVRContext {
 
     @Override
     public void registerDrawFrameListener(GVRDrawFrameListener frameListener) {
-        if (!mFrameListeners.contains(frameListener)) {
-            mFrameListeners.add(frameListener);
-        }
+        mFrameListeners.register(frameListener);
+    }
+
+    @Override
+    public void registerDrawFrameListener(GVRDrawFrameListener frameListener, int priority,
+            int interval, boolean deferrable) {
+        mFrameListeners.register(frameListener, priority, interval, deferrable);
     }
 
     @Override
     public void unregisterDrawFrameListener(GVRDrawFrameListener frameListener) {
-        if (mFrameListeners.contains(frameListener)) {
-            mFrameListeners.remove(frameListener);
-        }
+        mFrameListeners.unregister(frameListener);
+    }
+
+    @Override
+    public GVRDrawFrameScheduler getDrawFrameScheduler() {
+        return mFrameListeners;
     }
 
     /**
@@ -264,25 +269,10 @@ abstract class GVRViewManager extends GVRContext {
          * Without the sensor data, can't draw a scene properly.
          */
         if (!(mSensoredScene == null || !mMainScene.equals(mSensoredScene))) {
-            Runnable runnable;
-            while ((runnable = mRunnables.poll()) != null) {
-                try {
-                    runnable.run();
-                } catch (final Exception exc) {
-                    Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                    exc.printStackTrace();
-                }
-            }
+            mGlTasks.runFrame();
+            mPickService.beginFrame();
 
-            final List<GVRDrawFrameListener> frameListeners = mFrameListeners;
-            for (GVRDrawFrameListener listener : frameListeners) {
-                try {
-                    listener.onDrawFrame(mFrameTime);
-                } catch (final Exception exc) {
-                    Log.e(TAG, "DrawFrameListener %s threw %s", listener, exc.toString());
-                    exc.printStackTrace();
-                }
-            }
+            mFrameListeners.runFrame(mFrameTime);
         }
 
         return currentTime;
@@ -332,17 +322,7 @@ abstract class GVRViewManager extends GVRContext {
             // execute pending runnables now so any necessary gl calls
             // are done before onInit().  As an example the request to
             // get the GL_MAX_TEXTURE_SIZE needs to be fulfilled.
-            synchronized (mRunnables) {
-                Runnable runnable = null;
-                while ((runnable = mRunnables.poll()) != null) {
-                    try {
-                        runnable.run();
-                    } catch (final Exception exc) {
-                        Log.e(TAG, "Runnable-on-GL %s threw %s", runnable, exc.toString());
-                        exc.printStackTrace();
-                    }
-                }
-            }
+            mGlTasks.runAll();
 
             runOnTheFrameworkThread(new Runnable() {
                 @Override
@@ -495,13 +475,30 @@ abstract class GVRViewManager extends GVRContext {
 
     @Override
     public void runOnGlThread(Runnable runnable) {
+        runOnGlThread(null, runnable, GVRGlTaskScheduler.PRIORITY_NORMAL);
+    }
+
+    @Override
+    public void runOnGlThread(Runnable runnable, int priority) {
+        runOnGlThread(null, runnable, priority);
+    }
+
+    @Override
+    public void runOnGlThread(Object key, Runnable runnable, int priority) {
         if (mGLThreadID == Thread.currentThread().getId()) {
+            // an older task for the same key must not undo this one
+            mGlTasks.cancel(key);
             runnable.run();
         } else {
-            mRunnables.add(runnable);
+            mGlTasks.post(key, runnable, priority);
         }
     }
 
+    @Override
+    public GVRGlTaskScheduler getGlTaskScheduler() {
+        return mGlTasks;
+    }
+
     @Override
     public void runOnGlThreadPostRender(int delayFrames, Runnable runnable) {
         synchronized (mRunnablesPostRender) {
@@ -510,6 +507,7 @@ abstract class GVRViewManager extends GVRContext {
     }
 
     protected void beforeDrawEyes() {
+        GVRTransform.invalidateMirrors();
         GVRNotifications.notifyBeforeStep();
         mFrameHandler.beforeDrawEyes();
         makeShadowMaps(mMainScene.getNative(), getMainScene(), mRenderBundle.getShaderManager().getNative(),
@@ -592,73 +590,26 @@ abstract class GVRViewManager extends GVRContext {
         mScreenshot3DCallback = callback;
     }
 
-    protected void readRenderResult(GVRRenderTarget renderTarget, GVRViewManager.EYE eye, boolean useMultiview) {
-        if (mReadbackBuffer == null) {
-            final VrAppSettings settings = mApplication.getAppSettings();
-            final VrAppSettings.EyeBufferParams eyeBufferParams = settings.getEyeBufferParams();
-            mReadbackBufferWidth = eyeBufferParams.getResolutionWidth();
-            mReadbackBufferHeight = eyeBufferParams.getResolutionHeight();
-
-            mReadbackBuffer = ByteBuffer.allocateDirect(mReadbackBufferWidth * mReadbackBufferHeight * 4);
-            mReadbackBuffer.order(ByteOrder.nativeOrder());
-        }
-        readRenderResultNative(mReadbackBuffer,renderTarget.getNative(), eye.ordinal(), useMultiview );
-    }
-
-    protected void returnScreenshotToCaller(final GVRScreenshotCallback callback, final int width, final int height) {
-        // run the callback function in a background thread
-        final byte[] byteArray = Arrays.copyOf(mReadbackBuffer.array(), mReadbackBuffer.array().length);
-        Threads.spawn(new Runnable() {
-            public void run() {
-                final Bitmap capturedBitmap = ImageUtils.generateBitmapFlipV(byteArray, width, height);
-                callback.onScreenCaptured(capturedBitmap);
-            }
-        });
+    @Override
+    public void setScreenshotScaleFactor(int factor) {
+        mScreenshotPipeline.setScaleFactor(factor);
     }
 
-    protected void returnScreenshot3DToCaller(final GVRScreenshot3DCallback callback, final Bitmap[] bitmaps,
-                                              final int width, final int height) {
-
-        // run the callback function in a background thread
-        Threads.spawn(new Runnable() {
-            public void run() {
-                final Bitmap[] bitmapArray = new Bitmap[6];
-                Runnable[] threads = new Runnable[6];
-
-                for (int i = 0; i < 6; i++) {
-                    final int index = i;
-                    threads[i] = new Runnable() {
-                        public void run() {
-                            final Bitmap bitmap = bitmaps[index];
-                            bitmaps[index] = null;
-
-                            synchronized (this) {
-                                bitmapArray[index] = bitmap;
-                                notify();
-                            }
-                        }
-                    };
-                }
-
-                for (Runnable thread : threads) {
-                    Threads.spawnLow(thread);
-                }
-
-                for (int i = 0; i < 6; i++) {
-                    synchronized (threads[i]) {
-                        if (bitmapArray[i] == null) {
-                            try {
-                                threads[i].wait();
-                            } catch (InterruptedException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                }
+    /**
+     * Read the pixels of a render target into a pooled readback buffer.
+     * The caller owns the buffer and must give it to the screenshot
+     * pipeline, which returns it to the pool.
+     */
+    protected ByteBuffer readRenderResult(GVRRenderTarget renderTarget, GVRViewManager.EYE eye, boolean useMultiview) {
+        final VrAppSettings settings = mApplication.getAppSettings();
+        final VrAppSettings.EyeBufferParams eyeBufferParams = settings.getEyeBufferParams();
+        mReadbackBufferWidth = eyeBufferParams.getResolutionWidth();
+        mReadbackBufferHeight = eyeBufferParams.getResolutionHeight();
 
-                callback.onScreenCaptured(bitmapArray);
-            }
-        });
+        final ByteBuffer readbackBuffer = mScreenshotPipeline.acquireBuffer(mReadbackBufferWidth, mReadbackBufferHeight);
+        readRenderResultNative(readbackBuffer, renderTarget.getNative(), eye.ordinal(), useMultiview);
+        mCaptureIdleFrames = 0;
+        return readbackBuffer;
     }
 
     // capture 3D screenshot
@@ -666,9 +617,9 @@ abstract class GVRViewManager extends GVRContext {
         if (mScreenshot3DCallback == null) {
             return;
         }
-        final Bitmap[] bitmaps = new Bitmap[6];
-        renderSixCamerasAndReadback(mMainScene.getMainCameraRig(), bitmaps, renderTarget, isMultiview);
-        returnScreenshot3DToCaller(mScreenshot3DCallback, bitmaps, mReadbackBufferWidth, mReadbackBufferHeight);
+        final ByteBuffer[] buffers = new ByteBuffer[6];
+        renderSixCamerasAndReadback(mMainScene.getMainCameraRig(), buffers, renderTarget, isMultiview);
+        mScreenshotPipeline.deliver3D(buffers, mReadbackBufferWidth, mReadbackBufferHeight, mScreenshot3DCallback);
 
         mScreenshot3DCallback = null;
     }
@@ -688,8 +639,8 @@ abstract class GVRViewManager extends GVRContext {
         if (null == callback) {
             return;
         }
-        readRenderResult(renderTarget,eye,useMultiview);
-        returnScreenshotToCaller(callback, mReadbackBufferWidth, mReadbackBufferHeight);
+        final ByteBuffer readbackBuffer = readRenderResult(renderTarget, eye, useMultiview);
+        mScreenshotPipeline.deliver(readbackBuffer, mReadbackBufferWidth, mReadbackBufferHeight, true, callback);
     }
 
     // capture center eye
@@ -721,37 +672,26 @@ abstract class GVRViewManager extends GVRContext {
 
         renderTarget.render(mMainScene,centerCamera, mRenderBundle.getShaderManager(), posteffectRenderTextureA, posteffectRenderTextureB);
         centerCamera.removePostEffect(postEffect);
-        readRenderResult(renderTarget, EYE.MULTIVIEW, false);
+        final ByteBuffer readbackBuffer = readRenderResult(renderTarget, EYE.MULTIVIEW, false);
 
         if(isMultiview)
             renderTarget.endRendering();
 
-        final Bitmap bitmap = Bitmap.createBitmap(mReadbackBufferWidth, mReadbackBufferHeight, Bitmap.Config.ARGB_8888);
-        mReadbackBuffer.rewind();
-        bitmap.copyPixelsFromBuffer(mReadbackBuffer);
-        final GVRScreenshotCallback callback = mScreenshotCenterCallback;
-        Threads.spawn(new Runnable() {
-            public void run() {
-                callback.onScreenCaptured(bitmap);
-            }
-        });
-
+        // the post effect already flipped the image
+        mScreenshotPipeline.deliver(readbackBuffer, mReadbackBufferWidth, mReadbackBufferHeight, false,
+                                    mScreenshotCenterCallback);
         mScreenshotCenterCallback = null;
     }
 
-    private void renderOneCameraAndAddToList(final GVRPerspectiveCamera centerCamera, final Bitmap[] bitmaps, int index,
+    private void renderOneCameraAndAddToList(final GVRPerspectiveCamera centerCamera, final ByteBuffer[] buffers, int index,
                                              GVRRenderTarget renderTarget, GVRRenderTexture postEffectRenderTextureA, GVRRenderTexture postEffectRenderTextureB ) {
 
         renderTarget.cullFromCamera(mMainScene,centerCamera,mRenderBundle.getShaderManager());
         renderTarget.render(mMainScene,centerCamera,mRenderBundle.getShaderManager(),postEffectRenderTextureA, postEffectRenderTextureB);
-        readRenderResult(renderTarget,EYE.CENTER, false);
-
-        bitmaps[index] = Bitmap.createBitmap(mReadbackBufferWidth, mReadbackBufferHeight, Bitmap.Config.ARGB_8888);
-        mReadbackBuffer.rewind();
-        bitmaps[index].copyPixelsFromBuffer(mReadbackBuffer);
+        buffers[index] = readRenderResult(renderTarget,EYE.CENTER, false);
     }
 
-    private void renderSixCamerasAndReadback(final GVRCameraRig mainCameraRig, final Bitmap[] bitmaps, GVRRenderTarget renderTarget, boolean isMultiview) {
+    private void renderSixCamerasAndReadback(final GVRCameraRig mainCameraRig, final ByteBuffer[] buffers, GVRRenderTarget renderTarget, boolean isMultiview) {
         // temporarily create a center camera
         GVRPerspectiveCamera centerCamera = new GVRPerspectiveCamera(this);
         centerCamera.setFovY(90.0f);
@@ -780,24 +720,24 @@ abstract class GVRViewManager extends GVRContext {
         int index = 0;
         // render +x face
         centerCameraTransform.rotateByAxis(-90, 0, 1, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         // render -x face
         centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         // render +y face
         centerCameraTransform.rotateByAxis(-90, 0, 1, 0);
         centerCameraTransform.rotateByAxis(90, 1, 0, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         // render -y face
         centerCameraTransform.rotateByAxis(180, 1, 0, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         // render +z face
         centerCameraTransform.rotateByAxis(90, 1, 0, 0);
         centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         // render -z face
         centerCameraTransform.rotateByAxis(180, 0, 1, 0);
-        renderOneCameraAndAddToList(centerCamera, bitmaps, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
+        renderOneCameraAndAddToList(centerCamera, buffers, index++, renderTarget, posteffectRenderTextureA, posteffectRenderTextureB);
         centerCameraObject.detachCamera();
         mainCameraRig.getOwnerObject().removeChildObject(centerCameraObject);
         if(isMultiview)
@@ -807,7 +747,11 @@ abstract class GVRViewManager extends GVRContext {
     protected void captureFinish() {
         if (mScreenshotLeftCallback == null && mScreenshotRightCallback == null
                 && mScreenshotCenterCallback == null && mScreenshot3DCallback == null) {
-            mReadbackBuffer = null;
+            // keep the readback buffers while captures are periodic,
+            // free them once capturing has stopped for a while
+            if (++mCaptureIdleFrames == CAPTURE_IDLE_FRAMES) {
+                mScreenshotPipeline.trim();
+            }
         }
     }
 
@@ -829,8 +773,8 @@ abstract class GVRViewManager extends GVRContext {
 
     protected FrameHandler mFrameHandler = firstFrame;
 
-    protected List<GVRDrawFrameListener> mFrameListeners = new CopyOnWriteArrayList<GVRDrawFrameListener>();
-    protected final Queue<Runnable> mRunnables = new LinkedBlockingQueue<Runnable>();
+    protected final GVRDrawFrameScheduler mFrameListeners = new GVRDrawFrameScheduler();
+    protected final GVRGlTaskScheduler mGlTasks = new GVRGlTaskScheduler();
     protected final Map<Runnable, Integer> mRunnablesPostRender = new HashMap<Runnable, Integer>();
 
     protected GVRScene mMainScene;
@@ -840,12 +784,15 @@ abstract class GVRViewManager extends GVRContext {
     protected SplashScreen mSplashScreen;
 
     private final GVREventManager mEventManager;
+    private final GVRPickService mPickService;
     protected final GVRInputManager mInputManager;
     protected GVRRenderBundle mRenderBundle;
 
     protected GVRMain mMain;
 
-    protected ByteBuffer mReadbackBuffer;
+    protected final GVRScreenshotPipeline mScreenshotPipeline = new GVRScreenshotPipeline();
+    private static final int CAPTURE_IDLE_FRAMES = 300;
+    private int mCaptureIdleFrames;
     protected int mReadbackBufferWidth;
     protected int mReadbackBufferHeight;
 
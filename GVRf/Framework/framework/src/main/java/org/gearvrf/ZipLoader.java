@@ -17,14 +17,24 @@ package org.gearvrf;
 
 import android.content.Context;
 
+import org.gearvrf.utility.Threads;
+
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
@@ -39,10 +49,22 @@ import java.util.zip.ZipInputStream;
  * Note that the
  * {@link ZipLoader} makes use of a {@link ZipEntryProcessor}. The {@link ZipEntryProcessor} is a
  * user defined method that is applied to all entries in a zip file.
+ *
+ * Entries are processed in parallel on the {@link Threads} pool, with at most one entry per
+ * processor core in flight, so the {@link ZipEntryProcessor} must be thread safe. The results
+ * are always returned in the order of the entries in the zip file. A {@link ZipEntryListener}
+ * receives each result, in order, as soon as it is ready.
  */
 public abstract class ZipLoader {
     private static final String TAG = ZipLoader.class.getSimpleName();
 
+    /** Maximum number of entries being read or processed at the same time. */
+    private static final int MAX_PARALLEL_ENTRIES = Math.max(2,
+            Runtime.getRuntime().availableProcessors());
+
+    /** Initial buffer size for entries whose size is not stored in the zip file. */
+    private static final int UNKNOWN_SIZE_BUFFER = 16 * 1024;
+
     /**
      * Make use of the {@link ZipEntryProcessor} to process the {@link GVRAndroidResource}s
      * obtained from the zip file.
@@ -55,6 +77,8 @@ public abstract class ZipLoader {
          * {@link GVRContext#loadFutureTexture(GVRAndroidResource, int)} to return
          * a {@link java.util.concurrent.Future} to the {@link ZipLoader}.
          *
+         * Calls for different entries may run at the same time on different threads.
+         *
          * @param context  the GVRf context
          * @param resource a resource entry obtained from the zip file
          * @return a processed zip resource entry
@@ -62,6 +86,22 @@ public abstract class ZipLoader {
         T getItem(GVRContext context, GVRAndroidResource resource);
     }
 
+    /**
+     * Receives the processed entries while the rest of the zip file is still being loaded.
+     */
+    public interface ZipEntryListener<T> {
+        /**
+         * Called once per entry, in the order of the entries in the zip file, as soon as the
+         * entry and all the entries before it are processed. Calls are made one at a time, from
+         * the loader's worker threads.
+         *
+         * @param index the position of the entry in the zip file, ignoring directories
+         * @param item  the result of {@link ZipEntryProcessor#getItem(GVRContext,
+         *              GVRAndroidResource)} for the entry
+         */
+        void onItem(int index, T item);
+    }
+
     /**
      * Use this call to load a zip file using the
      * {@link ZipLoader} and apply the {@link ZipEntryProcessor} to each entry. The result is a
@@ -76,34 +116,254 @@ public abstract class ZipLoader {
      */
     public static <T> List<T> load(GVRContext gvrContext, String zipFileName, ZipEntryProcessor<T>
             processor) throws IOException {
+        return load(gvrContext, zipFileName, processor, null);
+    }
+
+    /**
+     * Load a zip file from the assets folder, applying the {@link ZipEntryProcessor} to each
+     * entry and passing each result to a {@link ZipEntryListener} as soon as it is ready.
+     *
+     * @param gvrContext  the GVRf context
+     * @param zipFileName the name of the zip file. This must be a file in the assets folder.
+     * @param processor   the {@link ZipEntryProcessor} to be applied to each zip entry in the file.
+     * @param listener    receives the processed entries in order; may be {@code null}
+     * @return a list of processed zip file entries.
+     * @throws IOException this function returns an {@link IOException} if there are issues
+     *                     processing the provided zip file.
+     */
+    public static <T> List<T> load(GVRContext gvrContext, String zipFileName, ZipEntryProcessor<T>
+            processor, ZipEntryListener<T> listener) throws IOException {
         Context context = gvrContext.getContext();
         InputStream inputStream = context.getAssets().open(zipFileName);
         ZipInputStream zipInputStream = new ZipInputStream(inputStream);
-        List<T> result = new ArrayList<T>();
+        Loader<T> loader = new Loader<T>(gvrContext, processor, listener);
 
         try {
             ZipEntry zipEntry;
+            byte[] buffer = null;
 
             while ((zipEntry = zipInputStream.getNextEntry()) != null) {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int count;
-                while ((count = zipInputStream.read(buffer)) != -1) {
-                    baos.write(buffer, 0, count);
+                if (zipEntry.isDirectory()) {
+                    continue;
                 }
+                // the stream can only be read on this thread, so read the entry before
+                // handing it to a worker
+                loader.acquire();
+                long size = zipEntry.getSize();
+                byte[] bytes;
+                int length;
+                if (size >= 0) {
+                    bytes = new byte[(int) size];
+                    length = readFully(zipInputStream, bytes);
+                } else {
+                    if (buffer == null) {
+                        buffer = new byte[UNKNOWN_SIZE_BUFFER];
+                    }
+                    length = 0;
+                    int count;
+                    while ((count = zipInputStream.read(buffer, length, buffer.length - length))
+                            != -1) {
+                        length += count;
+                        if (length == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                        }
+                    }
+                    bytes = Arrays.copyOf(buffer, length);
+                }
+                loader.submit(zipEntry.getName(), bytes, length);
+            }
+        } catch (IOException e) {
+            loader.cancel();
+            throw e;
+        } finally {
+            zipInputStream.close();
+        }
+        return loader.getResults();
+    }
 
-                byte[] bytes = baos.toByteArray();
-
-                InputStream resourceInputStream = new ByteArrayInputStream(bytes);
+    /**
+     * Load a zip file from storage, applying the {@link ZipEntryProcessor} to each entry.
+     *
+     * Unlike zip files in the assets folder, the entries of a file are read with random access,
+     * so reading and decompressing the entries also runs in parallel.
+     *
+     * @param gvrContext the GVRf context
+     * @param zipFile    the zip file
+     * @param processor  the {@link ZipEntryProcessor} to be applied to each zip entry in the file.
+     * @param listener   receives the processed entries in order; may be {@code null}
+     * @return a list of processed zip file entries.
+     * @throws IOException this function returns an {@link IOException} if there are issues
+     *                     processing the provided zip file.
+     */
+    public static <T> List<T> load(GVRContext gvrContext, File zipFile, ZipEntryProcessor<T>
+            processor, ZipEntryListener<T> listener) throws IOException {
+        final ZipFile file = new ZipFile(zipFile);
+        Loader<T> loader = new Loader<T>(gvrContext, processor, listener);
 
-                GVRAndroidResource androidResource = new GVRAndroidResource(zipEntry.getName(),
-                        resourceInputStream);
-                T item = processor.getItem(gvrContext, androidResource);
-                result.add(item);
+        try {
+            Enumeration<? extends ZipEntry> entries = file.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry zipEntry = entries.nextElement();
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+                loader.acquire();
+                loader.submit(zipEntry.getName(), new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        long size = zipEntry.getSize();
+                        if (size < 0 || size > Integer.MAX_VALUE) {
+                            throw new IOException("Unsupported size for " + zipEntry.getName());
+                        }
+                        byte[] bytes = new byte[(int) size];
+                        InputStream in = file.getInputStream(zipEntry);
+                        try {
+                            if (readFully(in, bytes) != bytes.length) {
+                                throw new EOFException("Truncated entry " + zipEntry.getName());
+                            }
+                        } finally {
+                            in.close();
+                        }
+                        return bytes;
+                    }
+                });
             }
+            return loader.getResults();
+        } catch (IOException e) {
+            loader.cancel();
+            throw e;
         } finally {
-            zipInputStream.close();
+            file.close();
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] bytes) throws IOException {
+        int length = 0;
+        int count;
+        while (length < bytes.length
+                && (count = in.read(bytes, length, bytes.length - length)) != -1) {
+            length += count;
+        }
+        return length;
+    }
+
+    /**
+     * Runs the processor on the {@link Threads} pool and puts the results back in entry order.
+     */
+    private static final class Loader<T> {
+        private final GVRContext mContext;
+        private final ZipEntryProcessor<T> mProcessor;
+        private final ZipEntryListener<T> mListener;
+        private final Semaphore mPermits = new Semaphore(MAX_PARALLEL_ENTRIES);
+        private final List<Future<T>> mFutures = new ArrayList<Future<T>>();
+
+        // guarded by mResults
+        private final List<Object> mResults = new ArrayList<Object>();
+        private int mNextToDeliver;
+
+        private static final Object PENDING = new Object();
+
+        Loader(GVRContext context, ZipEntryProcessor<T> processor, ZipEntryListener<T> listener) {
+            mContext = context;
+            mProcessor = processor;
+            mListener = listener;
+        }
+
+        /**
+         * Wait until fewer than {@link #MAX_PARALLEL_ENTRIES} entries are in flight. This also
+         * bounds the memory used by entries read ahead of the workers.
+         */
+        void acquire() throws IOException {
+            try {
+                mPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted loading zip file");
+            }
+        }
+
+        void submit(final String name, final byte[] bytes, final int length) {
+            submit(name, new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    return bytes;
+                }
+            }, length);
+        }
+
+        void submit(String name, Callable<byte[]> reader) {
+            submit(name, reader, -1);
+        }
+
+        private void submit(final String name, final Callable<byte[]> reader, final int length) {
+            final int index;
+            synchronized (mResults) {
+                index = mResults.size();
+                mResults.add(PENDING);
+            }
+            mFutures.add(Threads.spawn(new Callable<T>() {
+                @Override
+                public T call() throws Exception {
+                    try {
+                        byte[] bytes = reader.call();
+                        InputStream stream = new ByteArrayInputStream(bytes, 0,
+                                length >= 0 ? length : bytes.length);
+                        T item = mProcessor.getItem(mContext, new GVRAndroidResource(name, stream));
+                        deliver(index, item);
+                        return item;
+                    } finally {
+                        mPermits.release();
+                    }
+                }
+            }));
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(int index, T item) {
+            synchronized (mResults) {
+                mResults.set(index, item);
+                if (mListener == null) {
+                    return;
+                }
+                while (mNextToDeliver < mResults.size()) {
+                    Object next = mResults.get(mNextToDeliver);
+                    if (next == PENDING) {
+                        break;
+                    }
+                    mListener.onItem(mNextToDeliver++, (T) next);
+                }
+            }
+        }
+
+        List<T> getResults() throws IOException {
+            List<T> results = new ArrayList<T>(mFutures.size());
+            try {
+                for (Future<T> future : mFutures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted loading zip file");
+            } catch (ExecutionException e) {
+                cancel();
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+            return results;
+        }
+
+        void cancel() {
+            for (Future<T> future : mFutures) {
+                future.cancel(true);
+            }
         }
-        return result;
     }
 }
@@ -22,6 +22,7 @@ import org.gearvrf.GVRMaterial;
 import org.gearvrf.GVRSceneObject;
 import org.gearvrf.GVRShaderData;
 import org.gearvrf.GVRTransform;
+import org.gearvrf.GVRTransformBatch;
 import org.gearvrf.utility.Log;
 
 import android.graphics.Color;
@@ -329,10 +330,13 @@ public abstract class GVRAnimation {
      * 
      * @param frameTime
      *            elapsed time since the previous animation frame, in seconds
+     * @param batch
+     *            transform batch of the engine; it is ended while the
+     *            {@link GVROnRepeat} and {@link GVROnFinish} callbacks run
      * @return {@code true} to keep running the animation; {@code false} to shut
      *         it down
      */
-    final boolean onDrawFrame(float frameTime) {
+    final boolean onDrawFrame(float frameTime, GVRTransformBatch batch) {
         final int previousCycleCount = (int) (mElapsedTime / mDuration);
 
         mElapsedTime += frameTime;
@@ -353,7 +357,12 @@ public abstract class GVRAnimation {
             } else {
                 // Negative repeat count - call mOnRepeat, if we can
                 if (mOnRepeat != null) {
-                    stillRunning = mOnRepeat.iteration(this, mIterations);
+                    batch.end();
+                    try {
+                        stillRunning = mOnRepeat.iteration(this, mIterations);
+                    } finally {
+                        batch.begin();
+                    }
                 } else {
                     stillRunning = true; // repeat indefinitely
                 }
@@ -384,7 +393,14 @@ public abstract class GVRAnimation {
                 Log.d("ANIMATION", "%s finished", getClass().getSimpleName());
             }
             if (mOnFinish != null) {
-                mOnFinish.finished(this);
+                // the callback may use native code which reads transforms
+                // directly, so it must see the animated values
+                batch.end();
+                try {
+                    mOnFinish.finished(this);
+                } finally {
+                    batch.begin();
+                }
             }
             
             isFinished = true;
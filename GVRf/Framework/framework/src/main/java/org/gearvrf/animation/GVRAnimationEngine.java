@@ -21,6 +21,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import org.gearvrf.GVRContext;
 import org.gearvrf.GVRDrawFrameListener;
 import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTransformBatch;
 
 /**
  * This class runs {@linkplain GVRAnimation animations}.
@@ -61,6 +62,7 @@ public class GVRAnimationEngine {
 
     private final List<GVRAnimation> mAnimations = new CopyOnWriteArrayList<GVRAnimation>();
     private final GVRDrawFrameListener mOnDrawFrame = new DrawFrame();
+    private final GVRTransformBatch mTransformBatch = new GVRTransformBatch();
 
     protected GVRAnimationEngine(GVRContext gvrContext) {
         gvrContext.registerDrawFrameListener(mOnDrawFrame);
@@ -145,10 +147,18 @@ public class GVRAnimationEngine {
 
         @Override
         public void onDrawFrame(float frameTime) {
-            for (GVRAnimation animation : mAnimations) {
-                if (animation.onDrawFrame(frameTime) == false) {
-                    mAnimations.remove(animation);
+            // the transform changes of all the animations go to native
+            // code in one call; the batch is applied before the
+            // animation callbacks run
+            mTransformBatch.begin();
+            try {
+                for (GVRAnimation animation : mAnimations) {
+                    if (animation.onDrawFrame(frameTime, mTransformBatch) == false) {
+                        mAnimations.remove(animation);
+                    }
                 }
+            } finally {
+                mTransformBatch.end();
             }
         }
     }
@@ -0,0 +1,116 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.animation;
+
+import org.gearvrf.GVRAtlasInformation;
+import org.gearvrf.GVRHybridObject;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRTextureAtlas;
+
+import java.util.List;
+
+/**
+ * Play the images of a {@link GVRTextureAtlas} one after the other.
+ *
+ * The material keeps the atlas texture; each frame only updates the texture
+ * offset and scale uniforms, and only when the frame changes.
+ */
+public class GVRAtlasFrameAnimation extends GVRMaterialAnimation {
+
+    private final String mKey;
+    private final GVRAtlasInformation[] mFrames;
+    private int mLastFrame = -1;
+
+    /**
+     * Animate the main texture of a material through all the images of an
+     * atlas. The atlas texture is set as the main texture.
+     *
+     * @param target
+     *            {@link GVRMaterial} to animate. Its shader must have
+     *            {@code u_texture_offset} and {@code u_texture_scale}
+     *            uniforms, like the built-in texture shader.
+     * @param duration
+     *            The animation duration, in seconds.
+     * @param atlas
+     *            The frames of the animation.
+     */
+    public GVRAtlasFrameAnimation(GVRMaterial target, float duration,
+            GVRTextureAtlas atlas) {
+        this(target, duration, GVRTextureAtlas.MAIN_TEXTURE_KEY,
+                atlas.getAtlasInformation());
+        target.setMainTexture(atlas.getTexture());
+    }
+
+    /**
+     * Animate the main texture of a material through all the images of an
+     * atlas. The atlas texture is set as the main texture.
+     *
+     * @param target
+     *            {@link GVRSceneObject} containing a {@link GVRMaterial} to
+     *            animate.
+     * @param duration
+     *            The animation duration, in seconds.
+     * @param atlas
+     *            The frames of the animation.
+     */
+    public GVRAtlasFrameAnimation(GVRSceneObject target, float duration,
+            GVRTextureAtlas atlas) {
+        this(getMaterial(target), duration, atlas);
+    }
+
+    /**
+     * Animate the offset and scale of any texture of a material. The caller
+     * sets the texture holding the frames.
+     *
+     * @param target
+     *            {@link GVRMaterial} to animate.
+     * @param duration
+     *            The animation duration, in seconds.
+     * @param key
+     *            Prefix of the {@code [key]_offset} and {@code [key]_scale}
+     *            uniforms, as in
+     *            {@link GVRMaterial#setTextureAtlasInfo(String, GVRAtlasInformation)}
+     * @param frames
+     *            The UV rectangles of the frames, in order.
+     */
+    public GVRAtlasFrameAnimation(GVRMaterial target, float duration,
+            String key, List<GVRAtlasInformation> frames) {
+        super(target, duration);
+        if (frames.isEmpty()) {
+            throw new IllegalArgumentException("The animation needs at least one frame");
+        }
+        if (!target.hasUniform(key + "_offset") || !target.hasUniform(key + "_scale")) {
+            throw new IllegalArgumentException("Material must have " + key
+                    + "_offset and " + key + "_scale to animate atlas frames");
+        }
+        mKey = key;
+        mFrames = frames.toArray(new GVRAtlasInformation[frames.size()]);
+        showFrame(0);
+    }
+
+    @Override
+    protected void animate(GVRHybridObject target, float ratio) {
+        showFrame(Math.min((int) (ratio * mFrames.length), mFrames.length - 1));
+    }
+
+    private void showFrame(int frame) {
+        if (frame != mLastFrame) {
+            mLastFrame = frame;
+            mMaterial.setTextureAtlasInfo(mKey, mFrames[frame]);
+        }
+    }
+}
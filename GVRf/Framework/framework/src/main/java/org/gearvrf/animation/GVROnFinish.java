@@ -60,6 +60,13 @@ public interface GVROnFinish {
      * 
      * </ul>
      * 
+     * <p>
+     * The animation engine batches the transform changes of its animations.
+     * The batch is applied before this callback is called, and the
+     * callback's own transform changes go to native code right away, so
+     * code which reads transforms natively, like picking or bounding
+     * volumes, sees the finished state.
+     * 
      * @param animation
      *            The animation that just finished, so you can use the same
      *            callback with multiple animations.
@@ -44,8 +44,11 @@ public class GVRPose implements PrettyPrint
     private boolean	      mNeedSync;
     private Bone[]        mBones;
     private final Quaternionf mTempQuat = new Quaternionf();
-    public static final Matrix4f mTempMtxA = new Matrix4f();
-    public static final Matrix4f mTempMtxB = new Matrix4f();
+    private final Matrix4f mTempMtxA = new Matrix4f();
+    private final Matrix4f mTempMtxB = new Matrix4f();
+    private final BitSet  mDirtyBones;     // bones which must be visited by sync
+    private int[]         mChildStart;     // offset of first child of each bone in mChildren
+    private int[]         mChildren;       // child bone indices grouped by parent
     private static boolean sDebug = false;
 
     /**
@@ -81,6 +84,7 @@ public class GVRPose implements PrettyPrint
     {
         mSkeleton = skel;
         mBones = new Bone[skel.getNumBones()];
+        mDirtyBones = new BitSet(mBones.length);
         for (int i = 0; i < mBones.length; ++i)
         {
             mBones[i] = new Bone();
@@ -100,9 +104,17 @@ public class GVRPose implements PrettyPrint
     {
         mSkeleton = src.getSkeleton();
         mBones = new Bone[mSkeleton.getNumBones()];
+        mDirtyBones = new BitSet(mBones.length);
+        mChildStart = src.mChildStart;
+        mChildren = src.mChildren;
+        mNeedSync = src.mNeedSync;
         for (int i = 0; i < mBones.length; ++i)
         {
             mBones[i] = new Bone(src.getBone(i));
+            if (mBones[i].Changed != 0)
+            {
+                mDirtyBones.set(i);
+            }
         }
     }
 
@@ -211,6 +223,108 @@ public class GVRPose implements PrettyPrint
         }
     }
 
+    /**
+     * Set the world matrices of all the bones in this pose (relative to skeleton root).
+     * <p>
+     * The world space matrices for each bone are copied from the
+     * source array in the order of their bone index.
+     * The array must be as large as 16 times the number of bones in the skeleton
+     * (which can be obtained by calling {@link #getNumBones}).
+     * This lets a batch of poses be kept in flat float arrays
+     * without a {@link Matrix4f} for every bone.
+     * @param src	source array with world space matrices.
+     *
+     * @see #getWorldMatrices
+     * @see #setWorldMatrix
+     * @see #setLocalMatrices
+     */
+    public void	setWorldMatrices(float[] src)
+    {
+        if (src.length != mBones.length * 16)
+        {
+            throw new IllegalArgumentException("Source array is the wrong size");
+        }
+        for (int i = 0; i < mBones.length; ++i)
+        {
+            Bone bone = mBones[i];
+
+            bone.WorldMatrix.set(src, i * 16);
+            if (mSkeleton.getParentBoneIndex(i) < 0)
+            {
+                bone.LocalMatrix.set(bone.WorldMatrix);
+            }
+            bone.Changed = WORLD_POS | WORLD_ROT;
+        }
+        mDirtyBones.set(0, mBones.length);
+        mNeedSync = true;
+        sync();
+    }
+
+    /**
+     * Get the local matrices of all the bones in this pose (relative to parent bone).
+     * <p>
+     * The local space matrices for each bone are copied into the
+     * destination array in the order of their bone index.
+     * The array must be as large as 16 times the number of bones in the skeleton
+     * (which can be obtained by calling {@link #getNumBones}).
+     * @param dest	destination array to get local space matrices.
+     *
+     * @see #setLocalMatrices
+     * @see #getLocalMatrix
+     * @see #getWorldMatrices
+     */
+    public void	getLocalMatrices(float[] dest)
+    {
+        if (dest.length != mBones.length * 16)
+        {
+            throw new IllegalArgumentException("Destination array is the wrong size");
+        }
+        sync();
+        for (int i = 0; i < mBones.length; ++i)
+        {
+            mBones[i].LocalMatrix.get(dest, i * 16);
+        }
+    }
+
+    /**
+     * Set the local matrices of all the bones in this pose (relative to parent bone).
+     * <p>
+     * The local space matrices for each bone are copied from the
+     * source array in the order of their bone index.
+     * The array must be as large as 16 times the number of bones in the skeleton
+     * (which can be obtained by calling {@link #getNumBones}).
+     * Locked bones are not changed. The world matrices are
+     * updated the next time the pose is synchronized.
+     * @param src	source array with local space matrices.
+     *
+     * @see #getLocalMatrices
+     * @see #setLocalMatrix
+     * @see #setWorldMatrices
+     */
+    public void	setLocalMatrices(float[] src)
+    {
+        if (src.length != mBones.length * 16)
+        {
+            throw new IllegalArgumentException("Source array is the wrong size");
+        }
+        for (int i = 0; i < mBones.length; ++i)
+        {
+            if (!mSkeleton.isLocked(i))
+            {
+                Bone bone = mBones[i];
+
+                bone.LocalMatrix.set(src, i * 16);
+                if (mSkeleton.getParentBoneIndex(i) < 0)
+                {
+                    bone.WorldMatrix.set(bone.LocalMatrix);
+                }
+                bone.Changed = LOCAL_ROT;
+                mDirtyBones.set(i);
+            }
+        }
+        mNeedSync = true;
+    }
+
     /**
      * Set the world positions for the bones in this pose (relative to skeleton root).
      * <p>
@@ -244,6 +358,7 @@ public class GVRPose implements PrettyPrint
 
             bone.setWorldPosition(positions[t], positions[t + 1], positions[t + 2]);
             bone.Changed = WORLD_POS;
+            mDirtyBones.set(i);
             if (sDebug)
             {
                 Log.d("BONE", "setWorldPosition: %s %s", mSkeleton.getBoneName(i), bone.toString());
@@ -287,6 +402,7 @@ public class GVRPose implements PrettyPrint
 
             bone.setWorldRotation(rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
             bone.Changed |= WORLD_ROT;
+            mDirtyBones.set(i);
             calcLocal(bone, mSkeleton.getParentBoneIndex(i));
             if (sDebug)
             {
@@ -347,6 +463,7 @@ public class GVRPose implements PrettyPrint
         }
         mNeedSync = true;
         bone.Changed = Bone.WORLD_POS | Bone.WORLD_ROT;
+        mDirtyBones.set(boneindex);
         if (sDebug)
         {
             Log.d("BONE", "setWorldMatrix: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
@@ -440,6 +557,7 @@ public class GVRPose implements PrettyPrint
 
         bone.setWorldRotation(x, y, z, w);
         bone.Changed |= WORLD_ROT;
+        mDirtyBones.set(boneindex);
         if (mSkeleton.getParentBoneIndex(boneindex) < 0)
         {
             bone.LocalMatrix.set3x3(bone.WorldMatrix);
@@ -497,6 +615,7 @@ public class GVRPose implements PrettyPrint
 
         bone.LocalMatrix.set(mtx);
         bone.Changed = Bone.LOCAL_ROT;
+        mDirtyBones.set(boneindex);
         if (parentid < 0)
         {
             bone.WorldMatrix.set(bone.LocalMatrix);
@@ -547,6 +666,7 @@ public class GVRPose implements PrettyPrint
 
                 bone.setLocalRotation(rotations[t], rotations[t + 1], rotations[t + 2], rotations[t + 3]);
                 bone.Changed = LOCAL_ROT;
+                mDirtyBones.set(i);
                 if (sDebug)
                 {
                     Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(i), bone.toString());
@@ -609,6 +729,7 @@ public class GVRPose implements PrettyPrint
             mNeedSync = true;
         }
         bone.Changed = LOCAL_ROT;
+        mDirtyBones.set(boneindex);
         if (sDebug)
         {
             Log.d("BONE", "setLocalRotation: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
@@ -657,6 +778,7 @@ public class GVRPose implements PrettyPrint
             mNeedSync = true;
         }
         bone.Changed = LOCAL_ROT;
+        mDirtyBones.set(boneindex);
         if (sDebug)
         {
             Log.d("BONE", "setLocalPosition: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
@@ -674,6 +796,7 @@ public class GVRPose implements PrettyPrint
         bone.LocalMatrix.set(trans);
         bone.WorldMatrix.set(trans);
         bone.Changed = WORLD_POS | WORLD_ROT;
+        mDirtyBones.set(0);
         mNeedSync = true;
         sync();
     }
@@ -720,6 +843,10 @@ public class GVRPose implements PrettyPrint
         for (int i = 0; i < numbones; ++i)
         {
             mBones[i].copy(src.getBone(i));
+            if (mBones[i].Changed != 0)
+            {
+                mDirtyBones.set(i);
+            }
         }
     }
 
@@ -750,6 +877,7 @@ public class GVRPose implements PrettyPrint
             }
             bone.Changed = 0;
         }
+        mDirtyBones.clear();
         sync();
     }
 
@@ -770,6 +898,7 @@ public class GVRPose implements PrettyPrint
             bone.clearRotation();
             bone.Changed = 0;
         }
+        mDirtyBones.clear();
     }
 
     /**
@@ -798,6 +927,7 @@ public class GVRPose implements PrettyPrint
             dstBone = mBones[i];
             srcBone.WorldMatrix.invertAffine(dstBone.WorldMatrix);
             dstBone.Changed = WORLD_ROT | WORLD_POS;
+            mDirtyBones.set(i);
             if (sDebug)
             {
                 Log.d("BONE", "invert: %s %s", mSkeleton.getBoneName(i), dstBone.toString());
@@ -858,6 +988,7 @@ public class GVRPose implements PrettyPrint
             bone.WorldMatrix.scale(v.x, v.y, v.z);
             bone.Changed = WORLD_ROT | WORLD_POS;
         }
+        mDirtyBones.set(0, mBones.length);
         if (sDebug)
         {
             Log.d("BONE", "setWorldScale: %s ", mSkeleton.getBoneName(0), bone.toString());
@@ -873,50 +1004,113 @@ public class GVRPose implements PrettyPrint
      * The local and world rotations are not automatically kept in sync.
      * When a pose is updated, the updates do not take complete
      * effect until you call this function.
+     * <p>
+     * Only the bones which were changed since the last sync
+     * and their descendants are visited. The rest of the
+     * skeleton is not touched.
      */
     public boolean	sync()
     {
         if (!mNeedSync)
             return false;
         mNeedSync = false;
-        for (int i = 0; i < mBones.length; ++i)
+        if (mChildStart == null)
+        {
+            makeChildren();
+        }
+        for (int i = mDirtyBones.nextSetBit(0); i >= 0; i = mDirtyBones.nextSetBit(i + 1))
         {
             Bone 	bone = mBones[i];
             int		pid = mSkeleton.getParentBoneIndex(i);
-            boolean	update;
 
-            if (pid < 0)							        // root bone?
-                continue;
-            update = (mBones[pid].Changed & (WORLD_ROT | LOCAL_ROT)) != 0;
-            if (!mSkeleton.isLocked(i))				        // bone not locked?
+            if (pid >= 0)                                   // root bones are not recalculated
+            {
+                syncBone(bone, i, pid);
+            }
+            if ((bone.Changed & (WORLD_ROT | LOCAL_ROT)) != 0)
             {
-                if ((bone.Changed == WORLD_ROT) ||
-                    ((bone.Changed & Bone.WORLD_POS) != 0))	// world matrix changed?
+                for (int c = mChildStart[i]; c < mChildStart[i + 1]; ++c)
                 {
-                    calcLocal(bone, pid);					// calculate local rotation and position
-                    if (sDebug)
-                    {
-                        Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), bone.toString());
-                    }
-                    continue;
+                    mDirtyBones.set(mChildren[c]);          // children inherit the change
                 }
             }
-            if (update ||								    // use local pos & rot?
-                (bone.Changed & (LOCAL_ROT | WORLD_ROT)) != 0)
+        }
+        for (int i = mDirtyBones.nextSetBit(0); i >= 0; i = mDirtyBones.nextSetBit(i + 1))
+        {
+            mBones[i].Changed = 0;
+        }
+        mDirtyBones.clear();
+        return true;
+    }
+
+    /**
+     * Updates the local or world matrix of a single non-root bone
+     * based on what changed in the bone and its parent.
+     */
+    private void syncBone(Bone bone, int boneindex, int pid)
+    {
+        boolean	update = (mBones[pid].Changed & (WORLD_ROT | LOCAL_ROT)) != 0;
+
+        if (!mSkeleton.isLocked(boneindex))				// bone not locked?
+        {
+            if ((bone.Changed == WORLD_ROT) ||
+                ((bone.Changed & Bone.WORLD_POS) != 0))	// world matrix changed?
             {
-                bone.Changed = LOCAL_ROT;
-                calcWorld(bone, pid);				        // update world rotation & position
+                calcLocal(bone, pid);					// calculate local rotation and position
                 if (sDebug)
                 {
-                    Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(i), bone.toString());
+                    Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
                 }
+                return;
             }
         }
-        for (int i = 0; i < mBones.length; ++i)
+        if (update ||								    // use local pos & rot?
+            (bone.Changed & (LOCAL_ROT | WORLD_ROT)) != 0)
         {
-            mBones[i].Changed = 0;
+            bone.Changed = LOCAL_ROT;
+            calcWorld(bone, pid);				        // update world rotation & position
+            if (sDebug)
+            {
+                Log.d("BONE", "sync: %s %s", mSkeleton.getBoneName(boneindex), bone.toString());
+            }
         }
-        return true;
+    }
+
+    /**
+     * Builds the child lists used to propagate changes down the hierarchy.
+     * Children of a bone are stored contiguously in mChildren
+     * starting at mChildStart[parent].
+     */
+    private void makeChildren()
+    {
+        int numbones = mBones.length;
+        int[] start = new int[numbones + 1];
+        int[] children = new int[numbones];
+
+        for (int i = 0; i < numbones; ++i)
+        {
+            int pid = mSkeleton.getParentBoneIndex(i);
+            if (pid >= 0)
+            {
+                ++start[pid + 1];
+            }
+        }
+        for (int i = 0; i < numbones; ++i)
+        {
+            start[i + 1] += start[i];
+        }
+        int[] next = new int[numbones];
+        System.arraycopy(start, 0, next, 0, numbones);
+        for (int i = 0; i < numbones; ++i)
+        {
+            int pid = mSkeleton.getParentBoneIndex(i);
+            if (pid >= 0)
+            {
+                children[next[pid]++] = i;
+            }
+        }
+        mChildren = children;
+        mChildStart = start;
     }
 
     /**
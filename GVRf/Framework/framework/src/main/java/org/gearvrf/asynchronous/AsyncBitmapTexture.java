@@ -29,6 +29,7 @@ import java.nio.ByteBuffer;
 
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRAndroidResource.CancelableCallback;
+import org.gearvrf.GVRBitmapCache;
 import org.gearvrf.GVRBitmapImage;
 import org.gearvrf.GVRContext;
 import org.gearvrf.asynchronous.Throttler.AsyncLoader;
@@ -345,17 +346,33 @@ class AsyncBitmapTexture {
 
         @Override
         protected Bitmap loadResource() throws IOException {
+            GVRBitmapCache cache = GVRBitmapCache.getTextureCache();
+            // the decoded size depends on the texture size and memory limits
+            String variant = glMaxTextureSize + "x" + glMaxTextureSize + ":" + maxImageSize;
+            if (cache != null) {
+                Bitmap cached = cache.get(resource, variant);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
             Bitmap bitmap;
+            boolean[] shrunk = { false };
             String resourceName = resource.getResourceFilename();
             if (resourceName.toLowerCase().endsWith("tga")) {
                 // decodeStream for sure do not support tga
                 bitmap = decodeStreamTGA(resource.getStream());
             } else {
                 bitmap = decodeStream(resource.getStream(),
-                        glMaxTextureSize, glMaxTextureSize, true, null, false);
+                        glMaxTextureSize, glMaxTextureSize, true, null, false, shrunk);
             }
 
             resource.closeStream();
+            // a bitmap shrunk for lack of memory is not what the variant
+            // stands for: decode it again next time
+            if (cache != null && bitmap != null && !shrunk[0]) {
+                cache.putLater(resource, variant, bitmap);
+            }
             return bitmap;
         }
     }
@@ -648,6 +665,17 @@ class AsyncBitmapTexture {
     static Bitmap decodeStream(InputStream stream, int requestedWidth,
             int requestedHeight, final boolean canShrink,
             Bitmap possibleAlternative, boolean closeStream) {
+        return decodeStream(stream, requestedWidth, requestedHeight, canShrink,
+                possibleAlternative, closeStream, null);
+    }
+
+    /*
+     * As above; if shrunk is not null, shrunk[0] tells whether the bitmap
+     * was decoded at a smaller size than planned because memory ran out.
+     */
+    private static Bitmap decodeStream(InputStream stream, int requestedWidth,
+            int requestedHeight, final boolean canShrink,
+            Bitmap possibleAlternative, boolean closeStream, boolean[] shrunk) {
         BitmapFactory.Options options = standardBitmapFactoryOptions();
 
         try {
@@ -671,6 +699,9 @@ class AsyncBitmapTexture {
                     // Rewind stream to read again
                     helper.rewind();
                     options.inSampleSize *= 2; // try again, at half-size
+                    if (shrunk != null) {
+                        shrunk[0] = true;
+                    }
                 }
             } while (canShrink);
 
@@ -33,7 +33,8 @@ import org.gearvrf.utility.FileNameUtils;
  * Async resource loading: compressed cube map textures.
  *
  * We directly use CompressedImage.load() in loadResource() to detect
- * the format of and load compressed textures.
+ * the format of and load compressed textures. The faces come from a zip
+ * file, or from a single KTX cube map file.
  *
  * @since 1.6.9
  */
@@ -102,6 +103,9 @@ class AsyncCompressedCubemapTexture {
         public GVRCompressedCubemapImage convert(GVRContext gvrContext,
                                                  CompressedTexture[] textureArray) {
           CompressedTexture texture = textureArray[0];
+          if (texture instanceof KTX.KtxCompressedTexture) {
+            return ((KTX.KtxCompressedTexture) texture).toCubemapTexture(gvrContext);
+          }
           byte[][] data = new byte[6][];
           int[] dataOffset = new int[6];
           for (int i = 0; i < 6; ++i) {
@@ -122,6 +126,9 @@ class AsyncCompressedCubemapTexture {
 
       @Override
       protected CompressedTexture[] loadResource() throws IOException {
+        if (resource.getCompressedLoader() instanceof KTX) {
+          return new CompressedTexture[] { loadKtx() };
+        }
         CompressedTexture[] textureArray = new CompressedTexture[6];
         ZipInputStream zipInputStream = new ZipInputStream(resource.getStream());
 
@@ -145,5 +152,23 @@ class AsyncCompressedCubemapTexture {
         }
         return textureArray;
       }
+
+      /*
+       * A KTX cube map holds all six faces in one file.
+       */
+      private CompressedTexture loadKtx() throws IOException {
+        GVRKtxContainer container;
+        try {
+          container = GVRKtxContainer.load(resource);
+        } finally {
+          resource.closeStream();
+        }
+        KTX.KtxCompressedTexture texture =
+            (KTX.KtxCompressedTexture) KTX.toCompressedTexture(container);
+        if (!texture.isCubemap()) {
+          throw new IllegalArgumentException("KTX file " + resource + " is not a cube map");
+        }
+        return texture;
+      }
     }
 }
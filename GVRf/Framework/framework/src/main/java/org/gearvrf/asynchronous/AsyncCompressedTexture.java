@@ -16,6 +16,7 @@
 package org.gearvrf.asynchronous;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.gearvrf.GVRAndroidResource;
 import org.gearvrf.GVRCompressedImage;
@@ -104,6 +105,13 @@ class AsyncCompressedTexture {
         protected CompressedTexture loadResource() {
             GVRCompressedTextureLoader loader = resource.getCompressedLoader();
             CompressedTexture compressedTexture = null;
+            if (loader instanceof KTX) {
+                compressedTexture = loadMapped();
+                if (compressedTexture != null) {
+                    resource.closeStream();
+                    return compressedTexture;
+                }
+            }
             try {
                 compressedTexture = CompressedTexture
                         .parse(resource.getStream(), false, loader);
@@ -115,5 +123,22 @@ class AsyncCompressedTexture {
             }
             return compressedTexture;
         }
+
+        /*
+         * Memory map KTX files so the texture is uploaded straight from the
+         * file, without reading it into the heap.
+         */
+        private CompressedTexture loadMapped() {
+            try {
+                ByteBuffer data = resource.map();
+                if (data != null) {
+                    Log.d("ASYNC", "map compressed texture %s", resource);
+                    return KTX.toCompressedTexture(GVRKtxContainer.parse(data));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return null;
+        }
     }
 }
@@ -0,0 +1,533 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.asynchronous;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.gearvrf.GVRAndroidResource;
+import org.gearvrf.utility.Log;
+
+/**
+ * A parsed KTX (version 1 or 2) texture container.
+ *
+ * The container keeps the file contents in a single {@link ByteBuffer} and
+ * hands out slices of it, so no image data is copied. File-backed resources
+ * (and assets stored uncompressed in the APK) are memory mapped by
+ * {@link #load(GVRAndroidResource)}.
+ *
+ * All the KTX layouts are described: 2D, 3D, cube map and array textures,
+ * compressed or not, with any number of mip-map levels. Use
+ * {@link #getImage(int, int, int)} to get the data of one face of one layer
+ * at one level, or {@link #getLevel(int)} for a whole level.
+ *
+ * KTX2 files are supported when they are not supercompressed and their Vulkan
+ * format has an OpenGL ES equivalent (ETC2, EAC, ASTC and 8-bit RGB(A)).
+ *
+ * @see <a href="https://www.khronos.org/opengles/sdk/tools/KTX/file_format_spec/">KTX</a>
+ * @see <a href="https://github.khronos.org/KTX-Specification/">KTX2</a>
+ */
+public final class GVRKtxContainer {
+    private static final String TAG = Log.tag(GVRKtxContainer.class);
+
+    // '«', 'K', 'T', 'X', ' ', '1', '1', '»', '\r', '\n', '\x1A', '\n'
+    private static final byte[] KTX1_IDENTIFIER = { (byte) 0xAB, 0x4B, 0x54, 0x58, 0x20,
+            0x31, 0x31, (byte) 0xBB, 0x0D, 0x0A, 0x1A, 0x0A };
+    // '«', 'K', 'T', 'X', ' ', '2', '0', '»', '\r', '\n', '\x1A', '\n'
+    private static final byte[] KTX2_IDENTIFIER = { (byte) 0xAB, 0x4B, 0x54, 0x58, 0x20,
+            0x32, 0x30, (byte) 0xBB, 0x0D, 0x0A, 0x1A, 0x0A };
+
+    private static final int KTX1_HEADER_SIZE = 64;
+    private static final int KTX2_HEADER_SIZE = 80;
+    private static final int KTX1_ENDIANNESS = 0x04030201;
+
+    private static final int GL_UNSIGNED_BYTE = 0x1401;
+    private static final int GL_RGB = 0x1907;
+    private static final int GL_RGBA = 0x1908;
+    private static final int GL_RGB8 = 0x8051;
+    private static final int GL_RGBA8 = 0x8058;
+    private static final int GL_SRGB8 = 0x8C41;
+    private static final int GL_SRGB8_ALPHA8 = 0x8C43;
+
+    private final ByteBuffer mData;
+    private final int mVersion;
+    private final int mGLType;
+    private final int mGLFormat;
+    private final int mGLInternalFormat;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mDepth;
+    private final int mLayers;
+    private final int mFaces;
+    private final int mLevels;
+    private final boolean mGenerateMipmaps;
+    // start and size of each level in mData
+    private final int[] mLevelOffsets;
+    private final int[] mLevelSizes;
+    // KTX1 pads each face of a non-array cube map to 4 bytes
+    private final int[] mFaceStrides;
+
+    private GVRKtxContainer(ByteBuffer data, int version, int glType, int glFormat,
+            int glInternalFormat, int width, int height, int depth, int layers, int faces,
+            int levels, boolean generateMipmaps, int[] levelOffsets, int[] levelSizes,
+            int[] faceStrides) {
+        mData = data;
+        mVersion = version;
+        mGLType = glType;
+        mGLFormat = glFormat;
+        mGLInternalFormat = glInternalFormat;
+        mWidth = width;
+        mHeight = height;
+        mDepth = depth;
+        mLayers = layers;
+        mFaces = faces;
+        mLevels = levels;
+        mGenerateMipmaps = generateMipmaps;
+        mLevelOffsets = levelOffsets;
+        mLevelSizes = levelSizes;
+        mFaceStrides = faceStrides;
+    }
+
+    /**
+     * @return true if {@code data} starts with a KTX or KTX2 identifier. The
+     *         buffer position is not changed.
+     */
+    public static boolean isKtx(ByteBuffer data) {
+        return getVersion(data) != 0;
+    }
+
+    private static int getVersion(ByteBuffer data) {
+        if (data.remaining() < KTX1_IDENTIFIER.length) {
+            return 0;
+        }
+        byte[] identifier = new byte[KTX1_IDENTIFIER.length];
+        data.duplicate().get(identifier);
+        if (Arrays.equals(identifier, KTX1_IDENTIFIER)) {
+            return 1;
+        } else if (Arrays.equals(identifier, KTX2_IDENTIFIER)) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Load a KTX file, memory mapping it if possible.
+     *
+     * @param resource a KTX or KTX2 file
+     * @return the parsed container
+     * @throws IOException if the resource cannot be read or is not a valid
+     *         KTX file
+     */
+    public static GVRKtxContainer load(GVRAndroidResource resource) throws IOException {
+        ByteBuffer data = resource.map();
+        if (data == null) {
+            try {
+                data = ByteBuffer.wrap(readFully(resource.getStream()));
+            } finally {
+                resource.closeStream();
+            }
+        }
+        return parse(data);
+    }
+
+    /**
+     * Parse a KTX file held in a buffer. The container keeps a reference to
+     * the buffer; its contents must not change.
+     *
+     * @param data the file contents, from the buffer's position to its limit
+     * @return the parsed container
+     * @throws IOException if the data is not a valid KTX file
+     */
+    public static GVRKtxContainer parse(ByteBuffer data) throws IOException {
+        data = data.slice();
+        switch (getVersion(data)) {
+        case 1:
+            return parseKtx1(data);
+        case 2:
+            return parseKtx2(data);
+        default:
+            throw new IOException("Not a KTX file");
+        }
+    }
+
+    private static GVRKtxContainer parseKtx1(ByteBuffer data) throws IOException {
+        if (data.remaining() < KTX1_HEADER_SIZE) {
+            throw new IOException("Truncated KTX header");
+        }
+        ByteBuffer header = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        header.position(KTX1_IDENTIFIER.length);
+        int endianness = header.getInt();
+        if (endianness != KTX1_ENDIANNESS) {
+            if (Integer.reverseBytes(endianness) != KTX1_ENDIANNESS) {
+                throw new IOException(String.format("Unexpected KTX endianness %08X", endianness));
+            }
+            header.order(ByteOrder.BIG_ENDIAN);
+        }
+        boolean swapped = header.order() != ByteOrder.LITTLE_ENDIAN;
+
+        int glType = header.getInt();
+        int glTypeSize = header.getInt();
+        int glFormat = header.getInt();
+        int glInternalFormat = header.getInt();
+        header.getInt(); // glBaseInternalFormat
+        int width = header.getInt();
+        int height = header.getInt();
+        int depth = header.getInt();
+        int layers = header.getInt();
+        int faces = header.getInt();
+        int levels = header.getInt();
+        int bytesOfKeyValueData = header.getInt();
+
+        if (swapped && glTypeSize > 1) {
+            throw new IOException("Big endian KTX files with " + glTypeSize
+                    + " byte components are not supported");
+        }
+        checkLayout(width, height, depth, layers, faces);
+        boolean generateMipmaps = levels == 0;
+        levels = Math.max(levels, 1);
+
+        boolean cubemap = faces == 6 && layers == 0;
+        int[] levelOffsets = new int[levels];
+        int[] levelSizes = new int[levels];
+        int[] faceStrides = new int[levels];
+        int position = KTX1_HEADER_SIZE + bytesOfKeyValueData;
+        for (int level = 0; level < levels; ++level) {
+            if (position < 0 || position + 4 > data.limit()) {
+                throw new IOException("Truncated KTX level " + level);
+            }
+            int imageSize = header.getInt(position);
+            position += 4;
+            // for non-array cube maps, imageSize is the size of one face
+            int faceStride = cubemap ? align4(imageSize) : imageSize;
+            int levelSize = cubemap ? faceStride * 5 + imageSize : imageSize;
+            if (imageSize < 0 || position + levelSize > data.limit()) {
+                throw new IOException("Truncated KTX level " + level);
+            }
+            levelOffsets[level] = position;
+            levelSizes[level] = levelSize;
+            faceStrides[level] = cubemap ? faceStride : imageSize / (Math.max(layers, 1) * faces);
+            position += align4(levelSize);
+        }
+
+        Log.d(TAG, "KTX: internal format = %x, %dx%dx%d, %d layers, %d faces, %d levels",
+                glInternalFormat, width, height, depth, layers, faces, levels);
+        return new GVRKtxContainer(data, 1, glType, glFormat, glInternalFormat, width, height,
+                depth, layers, faces, levels, generateMipmaps, levelOffsets, levelSizes,
+                faceStrides);
+    }
+
+    private static GVRKtxContainer parseKtx2(ByteBuffer data) throws IOException {
+        if (data.remaining() < KTX2_HEADER_SIZE) {
+            throw new IOException("Truncated KTX2 header");
+        }
+        ByteBuffer header = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        header.position(KTX2_IDENTIFIER.length);
+        int vkFormat = header.getInt();
+        header.getInt(); // typeSize
+        int width = header.getInt();
+        int height = header.getInt();
+        int depth = header.getInt();
+        int layers = header.getInt();
+        int faces = header.getInt();
+        int levels = header.getInt();
+        int supercompression = header.getInt();
+        if (supercompression != 0) {
+            throw new IOException("Supercompressed KTX2 files are not supported (scheme "
+                    + supercompression + ")");
+        }
+        checkLayout(width, height, depth, layers, faces);
+        boolean generateMipmaps = levels == 0;
+        levels = Math.max(levels, 1);
+
+        int[] format = toGLFormat(vkFormat);
+        if (format == null) {
+            throw new IOException("KTX2 Vulkan format " + vkFormat + " has no OpenGL ES equivalent");
+        }
+
+        // skip the data format descriptor, key/value and supercompression indices
+        header.position(KTX2_HEADER_SIZE);
+        int[] levelOffsets = new int[levels];
+        int[] levelSizes = new int[levels];
+        int[] faceStrides = new int[levels];
+        if (header.remaining() < levels * 24) {
+            throw new IOException("Truncated KTX2 level index");
+        }
+        for (int level = 0; level < levels; ++level) {
+            long offset = header.getLong();
+            long size = header.getLong();
+            header.getLong(); // uncompressedByteLength
+            if (offset < 0 || size < 0 || offset + size > data.limit()) {
+                throw new IOException("Truncated KTX2 level " + level);
+            }
+            levelOffsets[level] = (int) offset;
+            levelSizes[level] = (int) size;
+            faceStrides[level] = (int) size / (Math.max(layers, 1) * faces);
+        }
+
+        Log.d(TAG, "KTX2: vkFormat = %d, %dx%dx%d, %d layers, %d faces, %d levels",
+                vkFormat, width, height, depth, layers, faces, levels);
+        return new GVRKtxContainer(data, 2, format[1], format[2], format[0], width, height,
+                depth, layers, faces, levels, generateMipmaps, levelOffsets, levelSizes,
+                faceStrides);
+    }
+
+    private static void checkLayout(int width, int height, int depth, int layers, int faces)
+            throws IOException {
+        if (width <= 0 || height < 0 || depth < 0 || layers < 0) {
+            throw new IOException(String.format("Invalid KTX size %dx%dx%d, %d layers",
+                    width, height, depth, layers));
+        }
+        if (faces != 1 && faces != 6) {
+            throw new IOException("Invalid KTX face count " + faces);
+        }
+    }
+
+    /**
+     * Map the Vulkan formats that have an OpenGL ES equivalent.
+     *
+     * @return internal format, type and format, or null
+     */
+    private static int[] toGLFormat(int vkFormat) {
+        // VK_FORMAT_ASTC_4x4_UNORM_BLOCK ... VK_FORMAT_ASTC_12x12_SRGB_BLOCK alternate
+        // UNORM and SRGB, in the same block size order as the GL formats
+        if (vkFormat >= 157 && vkFormat <= 184) {
+            int block = (vkFormat - 157) / 2;
+            boolean srgb = ((vkFormat - 157) & 1) != 0;
+            return new int[] { (srgb ? 0x93D0 : 0x93B0) + block, 0, 0 };
+        }
+        switch (vkFormat) {
+        case 147: return new int[] { 0x9274, 0, 0 }; // ETC2_R8G8B8_UNORM
+        case 148: return new int[] { 0x9275, 0, 0 }; // ETC2_R8G8B8_SRGB
+        case 149: return new int[] { 0x9276, 0, 0 }; // ETC2_R8G8B8A1_UNORM
+        case 150: return new int[] { 0x9277, 0, 0 }; // ETC2_R8G8B8A1_SRGB
+        case 151: return new int[] { 0x9278, 0, 0 }; // ETC2_R8G8B8A8_UNORM
+        case 152: return new int[] { 0x9279, 0, 0 }; // ETC2_R8G8B8A8_SRGB
+        case 153: return new int[] { 0x9270, 0, 0 }; // EAC_R11_UNORM
+        case 154: return new int[] { 0x9271, 0, 0 }; // EAC_R11_SNORM
+        case 155: return new int[] { 0x9272, 0, 0 }; // EAC_R11G11_UNORM
+        case 156: return new int[] { 0x9273, 0, 0 }; // EAC_R11G11_SNORM
+        case 23:  return new int[] { GL_RGB8, GL_UNSIGNED_BYTE, GL_RGB }; // R8G8B8_UNORM
+        case 29:  return new int[] { GL_SRGB8, GL_UNSIGNED_BYTE, GL_RGB }; // R8G8B8_SRGB
+        case 37:  return new int[] { GL_RGBA8, GL_UNSIGNED_BYTE, GL_RGBA }; // R8G8B8A8_UNORM
+        case 43:  return new int[] { GL_SRGB8_ALPHA8, GL_UNSIGNED_BYTE, GL_RGBA }; // R8G8B8A8_SRGB
+        default:  return null;
+        }
+    }
+
+    /** @return 1 for KTX files, 2 for KTX2 files */
+    public int getVersion() {
+        return mVersion;
+    }
+
+    /** @return true if the data is compressed ({@code glType} is 0) */
+    public boolean isCompressed() {
+        return mGLType == 0;
+    }
+
+    /** @return the OpenGL data type of uncompressed data, 0 if compressed */
+    public int getGLType() {
+        return mGLType;
+    }
+
+    /** @return the OpenGL pixel format of uncompressed data, 0 if compressed */
+    public int getGLFormat() {
+        return mGLFormat;
+    }
+
+    /** @return the OpenGL internal format */
+    public int getGLInternalFormat() {
+        return mGLInternalFormat;
+    }
+
+    /** @return the width of level 0, in pixels */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /** @return the height of level 0, in pixels; 0 for 1D textures */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /** @return the depth of level 0, in pixels; 0 unless this is a 3D texture */
+    public int getDepth() {
+        return mDepth;
+    }
+
+    /** @return the number of array layers; 0 unless this is an array texture */
+    public int getLayerCount() {
+        return mLayers;
+    }
+
+    /** @return 6 for cube maps, 1 otherwise */
+    public int getFaceCount() {
+        return mFaces;
+    }
+
+    /** @return the number of mip-map levels in the file */
+    public int getLevelCount() {
+        return mLevels;
+    }
+
+    /** @return true if the file asks for the mip-map levels to be generated */
+    public boolean isGenerateMipmaps() {
+        return mGenerateMipmaps;
+    }
+
+    /** @return true for cube maps and cube map arrays */
+    public boolean isCubemap() {
+        return mFaces == 6;
+    }
+
+    /** @return true for array textures */
+    public boolean isArray() {
+        return mLayers > 0;
+    }
+
+    /** @return the width of a mip-map level, in pixels */
+    public int getLevelWidth(int level) {
+        return Math.max(1, mWidth >> level);
+    }
+
+    /** @return the height of a mip-map level, in pixels */
+    public int getLevelHeight(int level) {
+        return Math.max(1, mHeight >> level);
+    }
+
+    /** @return true if the container data is a memory mapped or other direct buffer */
+    public boolean isDirect() {
+        return mData.isDirect();
+    }
+
+    /**
+     * The whole container, including the header. Offsets returned by
+     * {@link #getLevelOffset(int)} are relative to the start of this buffer.
+     *
+     * @return a new read-only view of the container data
+     */
+    public ByteBuffer getData() {
+        return mData.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the offset of a mip-map level from the start of {@link #getData()}
+     */
+    public int getLevelOffset(int level) {
+        return mLevelOffsets[level];
+    }
+
+    /**
+     * @return the size in bytes of a mip-map level, all layers and faces
+     *         included
+     */
+    public int getLevelSize(int level) {
+        return mLevelSizes[level];
+    }
+
+    /**
+     * @return the size in bytes of one face of one layer at a mip-map level
+     */
+    public int getImageSize(int level) {
+        return isCubemap() && !isArray() && mVersion == 1
+                ? mLevelSizes[level] - mFaceStrides[level] * 5
+                : mFaceStrides[level];
+    }
+
+    /**
+     * @return the data of a mip-map level, all layers and faces included,
+     *         without copying
+     */
+    public ByteBuffer getLevel(int level) {
+        return slice(mLevelOffsets[level], mLevelSizes[level]);
+    }
+
+    /**
+     * The data of one face of one layer at a mip-map level, without copying.
+     * For 3D textures, the image holds all the depth slices.
+     *
+     * @param level mip-map level
+     * @param layer array layer; 0 if this is not an array texture
+     * @param face  cube map face, in the order +X, -X, +Y, -Y, +Z, -Z; 0 if
+     *              this is not a cube map
+     * @return the image data
+     */
+    public ByteBuffer getImage(int level, int layer, int face) {
+        if (layer < 0 || layer >= Math.max(mLayers, 1) || face < 0 || face >= mFaces) {
+            throw new IndexOutOfBoundsException("No layer " + layer + ", face " + face);
+        }
+        int stride = mFaceStrides[level];
+        int offset = mLevelOffsets[level] + (layer * mFaces + face) * stride;
+        return slice(offset, getImageSize(level));
+    }
+
+    /**
+     * The offset of one face of one layer in every level from
+     * {@code firstLevel} on, relative to the start of {@link #getBuffer()}
+     * plus {@code base}.
+     */
+    int[] getImageOffsets(int firstLevel, int layer, int face, int base) {
+        int[] offsets = new int[mLevels - firstLevel];
+        for (int level = firstLevel; level < mLevels; ++level) {
+            int stride = mFaceStrides[level];
+            offsets[level - firstLevel] = base + mLevelOffsets[level]
+                    + (layer * mFaces + face) * stride;
+        }
+        return offsets;
+    }
+
+    /**
+     * The size of one face of one layer in every level from
+     * {@code firstLevel} on.
+     */
+    int[] getImageSizes(int firstLevel) {
+        int[] sizes = new int[mLevels - firstLevel];
+        for (int level = firstLevel; level < mLevels; ++level) {
+            sizes[level - firstLevel] = getImageSize(level);
+        }
+        return sizes;
+    }
+
+    ByteBuffer getBuffer() {
+        return mData;
+    }
+
+    private ByteBuffer slice(int offset, int size) {
+        ByteBuffer view = mData.duplicate();
+        view.limit(offset + size);
+        view.position(offset);
+        return view.slice();
+    }
+
+    private static int align4(int size) {
+        return (size + 3) & ~3;
+    }
+
+    private static byte[] readFully(InputStream stream) throws IOException {
+        byte[] data = new byte[Math.max(stream.available(), 64 * 1024)];
+        int length = 0;
+        int count;
+        while ((count = stream.read(data, length, data.length - length)) != -1) {
+            length += count;
+            if (length == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+        }
+        return length == data.length ? data : Arrays.copyOf(data, length);
+    }
+}
@@ -15,208 +15,167 @@
 
 package org.gearvrf.asynchronous;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
+import org.gearvrf.GVRCompressedCubemapImage;
 import org.gearvrf.GVRCompressedImage;
 import org.gearvrf.GVRContext;
+import org.gearvrf.GVRTextureParameters;
 import org.gearvrf.utility.Log;
 import org.gearvrf.utility.RuntimeAssertion;
 
+/**
+ * Loads KTX and KTX2 files through {@link GVRKtxContainer}.
+ *
+ * The image data is never copied: the texture reads the mip-map levels
+ * straight out of the file buffer, which is memory mapped when the resource
+ * allows it. Textures are uploaded smallest mip-map first, so a small
+ * version is drawn on the next frame and the larger levels follow on later
+ * frames.
+ *
+ * Cube map files are loaded by
+ * {@link GVRAsynchronousResourceLoader#loadCompressedCubemapTexture}, which
+ * gets the six faces of the base level from the same file.
+ */
 class KTX extends GVRCompressedTextureLoader {
 
     private static final String TAG = Log.tag(KTX.class);
 
-    // http://www.khronos.org/opengles/sdk/tools/KTX/file_format_spec
-    // Byte[12] identifier
-    // UInt32 endianness
-    // UInt32 glType
-    // UInt32 glTypeSize
-    // UInt32 glFormat
-    // Uint32 glInternalFormat
-    // Uint32 glBaseInternalFormat
-    // UInt32 pixelWidth
-    // UInt32 pixelHeight
-    // UInt32 pixelDepth
-    // UInt32 numberOfArrayElements
-    // UInt32 numberOfFaces
-    // UInt32 numberOfMipmapLevels
-    // UInt32 bytesOfKeyValueData
-
-    private static final int[] SIGNATURE = {
-            // '«', 'K', 'T', 'X', ' ', '1', '1', '»', '\r', '\n', '\x1A', '\n'
-            0xAB4B5458, 0x203131BB, 0x0D0A1A0A };
+    // Largest dimension of the first, quickly uploaded version of a texture
+    private static final int FIRST_UPLOAD_SIZE = 64;
+    // Mip-map levels added by each later upload
+    private static final int LEVELS_PER_UPLOAD = 2;
+    private static final int CUBE_FACES = 6;
+
+    // 12 byte identifier, 13 UInt32
+    private static final int HEADER_LENGTH = 12 + 13 * Reader.INTEGER_BYTES;
 
     @Override
     public int headerLength() {
-        return (SIGNATURE.length + 13) * Reader.INTEGER_BYTES;
+        return HEADER_LENGTH;
     }
 
     @Override
     public boolean sniff(byte[] data, Reader reader) {
-        for (int chunk : SIGNATURE) {
-            if (chunk != reader.readBE(Reader.INTEGER_BYTES)) {
-                return false;
-            }
-        }
-        // else
-        return true;
+        return GVRKtxContainer.isKtx(ByteBuffer.wrap(data));
     }
 
     @Override
     public CompressedTexture parse(byte[] data, Reader reader) {
-        reader.skip(SIGNATURE.length * Reader.INTEGER_BYTES);
-
-        int endianness = reader.readLE(Reader.INTEGER_BYTES);
-        boolean littleEndian;
-        switch (endianness) {
-        case 0x01020304:
-            littleEndian = false;
-            break;
-        case 0x04030201:
-            littleEndian = true;
-            break;
-        default:
-            throw new RuntimeAssertion("Unexpected endianness %08X", endianness);
+        try {
+            return toCompressedTexture(GVRKtxContainer.parse(ByteBuffer.wrap(data)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
         }
-        Log.d(TAG, "endianness = %08x, littleEndian == %b", endianness,
-                littleEndian);
-
-        KtxReader ktxReader = new KtxReader(reader, littleEndian);
+    }
 
-        int glType = ktxReader.readInt();
-        int glTypeSize = ktxReader.readInt();
-        int glFormat = ktxReader.readInt();
-        if (glType != 0 | glTypeSize != 1 || glFormat != 0) {
+    static CompressedTexture toCompressedTexture(GVRKtxContainer container) {
+        if (!container.isCompressed()) {
             throw new RuntimeAssertion(
-                    "Uncompressed ktx textures not supported, yet: glType = %d, glTypeSize = %x, glFormat = %d",
-                    glType, glTypeSize, glFormat);
+                    "Uncompressed ktx textures not supported, yet: glType = %d, glFormat = %d",
+                    container.getGLType(), container.getGLFormat());
         }
+        return new KtxCompressedTexture(container);
+    }
 
-        int glInternalFormat = ktxReader.readInt();
-        int glBaseInternalFormat = ktxReader.readInt();
-        int pixelWidth = ktxReader.readInt();
-        int pixelHeight = ktxReader.readInt();
+    static class KtxCompressedTexture extends CompressedTexture {
+        private final GVRKtxContainer container;
 
-        int pixelDepth = ktxReader.readInt();
-        if (pixelDepth != 0) {
-            throw new RuntimeAssertion("3D textures not supported");
+        private KtxCompressedTexture(GVRKtxContainer container) {
+            super(container.getGLInternalFormat(), container.getWidth(),
+                    container.getHeight(), container.getImageSize(0),
+                    container.getLevelCount(), container.getBuffer());
+            this.container = container;
         }
 
-        int numberOfArrayElements = ktxReader.readInt();
-        if (numberOfArrayElements != 0) {
-            throw new RuntimeAssertion("Array textures not supported");
+        boolean isCubemap() {
+            return container.isCubemap() && !container.isArray();
         }
 
-        int numberOfFaces = ktxReader.readInt();
-        if (numberOfFaces != 1) {
-            throw new RuntimeAssertion("Cube maps not supported");
+        /*
+         * The native cube map takes the base level of each face, as slices of
+         * the file data: the faces share the backing array when there is one.
+         */
+        GVRCompressedCubemapImage toCubemapTexture(GVRContext gvrContext) {
+            byte[][] faces = new byte[CUBE_FACES][];
+            int[] offsets = new int[CUBE_FACES];
+            ByteBuffer data = container.getBuffer();
+            for (int face = 0; face < CUBE_FACES; ++face) {
+                if (data.hasArray()) {
+                    faces[face] = data.array();
+                    offsets[face] = container.getImageOffsets(0, 0, face, data.arrayOffset())[0];
+                } else {
+                    ByteBuffer image = container.getImage(0, 0, face);
+                    faces[face] = new byte[image.remaining()];
+                    image.get(faces[face]);
+                }
+            }
+            return new GVRCompressedCubemapImage(gvrContext, internalformat,
+                    width, height, container.getImageSize(0), faces, offsets);
         }
 
-        int numberOfMipmapLevels = ktxReader.readInt();
-        int bytesOfKeyValueData = ktxReader.readInt();
-
-        Log.d(TAG,
-                "glInternalFormat = %x, glBaseInternalFormat = %x, pixelWidth = %d, pixelHeight = %d, numberOfMipmapLevels = %d, bytesOfKeyValueData = %d",
-                glInternalFormat, glBaseInternalFormat, pixelWidth,
-                pixelHeight, numberOfMipmapLevels, bytesOfKeyValueData);
-
-        // 13 UInt32 plus a Byte[12], plus any key-value pairs
-        int headerSize = (SIGNATURE.length + 13) * Reader.INTEGER_BYTES
-                + bytesOfKeyValueData;
-
-        ByteBuffer buffer = ByteBuffer.wrap(data, headerSize, data.length
-                - headerSize);
-        return new KtxCompressedTexture(
-        /* glBaseInternalFormat */glInternalFormat, pixelWidth, pixelHeight,
-                numberOfMipmapLevels, buffer, littleEndian);
-    }
-
-    private static class KtxReader {
-        private final Reader reader;
-        private final boolean littleEndian;
+        @Override
+        GVRCompressedImage toTexture(GVRContext gvrContext, int quality) {
+            if (container.isArray() || container.getDepth() > 0) {
+                Log.w(TAG, "Only the first image of KTX %s textures is loaded",
+                        container.isArray() ? "array" : "3D");
+            } else if (container.isCubemap()) {
+                Log.w(TAG, "Only the first face of a KTX cube map is loaded as a 2D texture;"
+                        + " use loadCompressedCubemapTexture() to load all of them");
+            }
 
-        private KtxReader(Reader reader, boolean littleEndian) {
-            this.reader = reader;
-            this.littleEndian = littleEndian;
-        }
+            int firstLevel = levels - 1;
+            while (firstLevel > 0 && Math.max(container.getLevelWidth(firstLevel - 1),
+                    container.getLevelHeight(firstLevel - 1)) <= FIRST_UPLOAD_SIZE) {
+                --firstLevel;
+            }
 
-        int readInt() {
-            return littleEndian ? reader.readLE(Reader.INTEGER_BYTES) : reader
-                    .readBE(Reader.INTEGER_BYTES);
+            GVRCompressedImage image = new GVRCompressedImage(gvrContext,
+                    width, height, imageSize, internalformat, null, levels, quality);
+            upload(image, firstLevel);
+            if (firstLevel > 0) {
+                uploadLater(gvrContext, image, firstLevel);
+            }
+            return image;
         }
-    }
 
-    private static class KtxCompressedTexture extends CompressedTexture {
-        private static final String TAG = Log.tag(KtxCompressedTexture.class);
-
-        private final boolean littleEndian;
-
-        private KtxCompressedTexture(int internalformat, int width, int height,
-                int levels, ByteBuffer data, boolean littleEndian) {
-            super(internalformat, width, height, -1, levels, data);
-            this.littleEndian = littleEndian;
+        @Override
+        GVRCompressedImage toTexture(GVRContext gvrContext, int quality,
+                GVRTextureParameters textureParameters) {
+            return toTexture(gvrContext, quality);
         }
 
-        @Override
-        public GVRCompressedImage toTexture(GVRContext gvrContext, int quality) {
-
-            ByteBuffer data = getData();
-            ByteOrder defaultOrder = data.order();
-            ByteOrder dataOrder = littleEndian ? ByteOrder.LITTLE_ENDIAN
-                    : ByteOrder.BIG_ENDIAN;
-            int[]   outOffsets = new int[levels];
-
-            for (int fileLevel = 0; fileLevel < levels; ++fileLevel)
-            {
-                data.order(dataOrder);
-                int imageSize = data.getInt();
-                data.order(defaultOrder);
-                int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
-
-                outOffsets[fileLevel] = data.position();
-                data.position(data.position() + imageSize + imagePadding);
-            }
-            GVRCompressedImage result = new GVRCompressedImage(gvrContext,
-                                                               width, height, imageSize, internalformat, data.array(), levels, quality);
-            result.setDataOffsets(outOffsets);
-/*
-            GVRCompressedImage result = new GVRCompressedImage(gvrContext,
-                    GVRCompressedImage.GL_TARGET, levels, quality);
-            result.rebind();
-
-            for (int fileLevel = 0; fileLevel < levels; ++fileLevel) {
-                data.order(dataOrder);
-                int imageSize = data.getInt();
-                data.order(defaultOrder);
-                if (fileLevel == 0)
-                {
-                    outData = new byte[imageSize * 2];
+        /*
+         * Each upload re-specifies the texture from a larger base level, one
+         * frame after the other.
+         */
+        private void uploadLater(final GVRContext gvrContext, final GVRCompressedImage image,
+                final int previousLevel) {
+            gvrContext.runOnGlThreadPostRender(1, new Runnable() {
+                @Override
+                public void run() {
+                    int level = Math.max(previousLevel - LEVELS_PER_UPLOAD, 0);
+                    upload(image, level);
+                    if (level > 0) {
+                        uploadLater(gvrContext, image, level);
+                    }
                 }
+            });
+        }
 
-                int imagePadding = (4 - (imageSize & 0x03)) & 0x03;
-
-                Log.d(TAG,
-                        "Creating level %d as %dx%d, internalformat = %x; imageSize = %d (imagePadding = %d), position = %d",
-                        fileLevel, //
-                        width >>> fileLevel, height >>> fileLevel, //
-                        internalformat, imageSize, imagePadding, //
-                        data.position());
-                System.arraycopy(data, data.position(), outData, outOffset, imageSize);
-                outOffset += imageSize;
-                outSize += imageSize >> 1;
-                // Note that this call does NOT advance the Buffer position
-                GLES30.glCompressedTexImage2D(GL_TEXTURE_2D, fileLevel,
-                        internalformat, Math.max(1, width >> fileLevel),
-                        Math.max(1, height >> fileLevel), 0, imageSize, data);
-                data.position(data.position() + imageSize + imagePadding);
+        private void upload(GVRCompressedImage image, int firstLevel) {
+            int width = container.getLevelWidth(firstLevel);
+            int height = container.getLevelHeight(firstLevel);
+            int[] sizes = container.getImageSizes(firstLevel);
+            ByteBuffer data = container.getBuffer();
+            if (data.hasArray()) {
+                int[] offsets = container.getImageOffsets(firstLevel, 0, 0, data.arrayOffset());
+                image.update(width, height, sizes[0], data.array(), sizes.length, offsets, sizes);
+            } else {
+                int[] offsets = container.getImageOffsets(firstLevel, 0, 0, 0);
+                image.update(width, height, sizes[0], data, sizes.length, offsets, sizes);
             }
-            GVRCompressedImage result2 = new GVRCompressedImage(gvrContext,
-                    GVRCompressedImage.GL_TARGET, width, height, outSize, outData, 0, levels, quality);
-            result.unbind();
-*/
-            return result;
         }
-
     }
 }
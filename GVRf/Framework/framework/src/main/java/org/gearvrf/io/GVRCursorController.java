@@ -42,6 +42,7 @@ import org.joml.Vector3f;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -171,13 +172,21 @@ public abstract class GVRCursorController implements IEventReceiver
     protected float nearDepth = 0.50f;
     protected float farDepth = 50.0f;
     protected final Vector3f position, origin;
-    protected List<KeyEvent> keyEvent;
-    private List<KeyEvent> processedKeyEvent;
-    protected List<MotionEvent> motionEvent;
-    private List<MotionEvent> processedMotionEvent;
+    private static final int EVENT_QUEUE_SIZE = 256;
+    private final GVREventQueue<KeyEvent> keyEventQueue;
+    private final ArrayList<KeyEvent> processedKeyEvent;
+    private final GVREventQueue<MotionEvent> motionEventQueue;
+    private final ArrayList<MotionEvent> processedMotionEvent;
+    private final List<MotionEvent> processedMotionEventView;
     private GVREventReceiver listeners;
 
+    /*
+     * eventLock serializes the threads which consume events,
+     * producerLock serializes the threads which queue them.
+     * The two sides never wait on each other.
+     */
     protected Object eventLock = new Object();
+    private final Object producerLock = new Object();
     protected GVRSceneObject mCursor = null;
     protected boolean enable = false;
     protected Object mCursorLock = new Object();
@@ -242,10 +251,11 @@ public abstract class GVRCursorController implements IEventReceiver
         uniqueControllerId++;
         position = new Vector3f(0, 0, -1);
         origin = new Vector3f(0, 0, 0);
-        keyEvent = new ArrayList<KeyEvent>();
-        processedKeyEvent = new ArrayList<KeyEvent>();
-        motionEvent = new ArrayList<MotionEvent>();
-        processedMotionEvent = new ArrayList<MotionEvent>();
+        keyEventQueue = new GVREventQueue<KeyEvent>(EVENT_QUEUE_SIZE);
+        processedKeyEvent = new ArrayList<KeyEvent>(EVENT_QUEUE_SIZE);
+        motionEventQueue = new GVREventQueue<MotionEvent>(EVENT_QUEUE_SIZE);
+        processedMotionEvent = new ArrayList<MotionEvent>(EVENT_QUEUE_SIZE);
+        processedMotionEventView = Collections.unmodifiableList(processedMotionEvent);
         listeners = new GVREventReceiver(this);
         if (mPicker == null)
         {
@@ -282,24 +292,23 @@ public abstract class GVRCursorController implements IEventReceiver
      * @param event event to dispatch
      * @return true if event handled, false if event should be routed to the application
      */
-    synchronized public boolean dispatchKeyEvent(KeyEvent event)
+    public boolean dispatchKeyEvent(KeyEvent event)
     {
-        synchronized (eventLock) {
-            this.keyEvent.add(event);
-        }
+        setKeyEvent(event);
         return true;
     }
 
     /**
      * Dispatch a motion event for this controller.
+     * <p>
+     * The controller queues a copy of the event
+     * so the caller keeps ownership of the input event.
      * @param event event to dispatch
      * @return true if event handled, false if event should be routed to the application
      */
-    synchronized public boolean dispatchMotionEvent(MotionEvent event)
+    public boolean dispatchMotionEvent(MotionEvent event)
     {
-        synchronized (eventLock) {
-            this.motionEvent.add(event);
-        }
+        setMotionEvent(MotionEvent.obtain(event));
         return true;
     }
 
@@ -582,17 +591,35 @@ public abstract class GVRCursorController implements IEventReceiver
      * {@link IControllerEvent} or the {@link ISensorEvents} listener to
      * query for the {@link MotionEvent}s whenever a a callback is made.
      *
-     * The {@link MotionEvent}s reported would be valid for the lifetime of that
-     * callback and would be recycled and reset on completion. Make use to the
-     * {@link MotionEvent#obtain(MotionEvent)} to clone a copy of the
-     * {@link MotionEvent}.
+     * The list and its {@link MotionEvent}s are only valid for the lifetime
+     * of that callback, the controller recycles the events on completion.
+     * Use {@link #drainMotionEvents(List)} to keep copies past the callback.
      *
-     * @return a list of {@link MotionEvent}s processed by the
-     * {@link GVRCursorController} .
+     * @return a read-only view of the {@link MotionEvent}s processed by the
+     * {@link GVRCursorController}.
      */
     public List<MotionEvent> getMotionEvents() {
+        return processedMotionEventView;
+    }
+
+    /**
+     * Append copies of the {@link MotionEvent}s processed by the
+     * {@link GVRCursorController} since the last callback to a list.
+     *
+     * Unlike {@link #getMotionEvents()} the copies belong to the caller,
+     * can be kept past the callback and must be recycled when no longer
+     * needed.
+     *
+     * @param out list to add the copies to.
+     * @return the number of {@link MotionEvent}s added.
+     */
+    public int drainMotionEvents(List<MotionEvent> out) {
         synchronized (eventLock) {
-            return processedMotionEvent;
+            final int count = processedMotionEvent.size();
+            for (int i = 0; i < count; ++i) {
+                out.add(MotionEvent.obtain(processedMotionEvent.get(i)));
+            }
+            return count;
         }
     }
 
@@ -741,8 +768,9 @@ public abstract class GVRCursorController implements IEventReceiver
             }
 
             synchronized (eventLock) {
-                keyEvent.clear();
-                motionEvent.clear();
+                keyEventQueue.clear(null);
+                motionEventQueue.drainTo(processedMotionEvent);
+                recycleMotionEvents(processedMotionEvent.size());
             }
             update();
             context.getInputManager().removeCursorController(this);
@@ -1036,8 +1064,8 @@ public abstract class GVRCursorController implements IEventReceiver
      * @param keyEvent
      */
     protected void setKeyEvent(KeyEvent keyEvent) {
-        synchronized (eventLock) {
-            this.keyEvent.add(keyEvent);
+        synchronized (producerLock) {
+            keyEventQueue.offer(keyEvent);
         }
     }
 
@@ -1053,9 +1081,26 @@ public abstract class GVRCursorController implements IEventReceiver
      *                    {@link GVRCursorController}.
      */
     protected void setMotionEvent(MotionEvent motionEvent) {
-        synchronized (eventLock) {
-            this.motionEvent.add(motionEvent);
+        boolean queued;
+
+        synchronized (producerLock) {
+            queued = motionEventQueue.offer(motionEvent);
         }
+        if (!queued)
+        {
+            motionEvent.recycle();
+        }
+    }
+
+    /**
+     * Get the number of input events which were discarded because
+     * they arrived faster than the {@link GVRCursorController} could
+     * process them.
+     * @return number of key and motion events dropped.
+     */
+    public long getDroppedEventCount()
+    {
+        return keyEventQueue.getDroppedCount() + motionEventQueue.getDroppedCount();
     }
 
     protected final class ControllerPick implements Runnable
@@ -1116,28 +1161,32 @@ public abstract class GVRCursorController implements IEventReceiver
      * will use that object to derive its position and orientation.
      * The "active" state of this controller is used to indicate touch.
      * The cursor position is updated after picking.
+     * <p>
+     * The picker gets its own copy of the event, which is
+     * recycled once the pick events have been delivered.
      */
     protected void updatePicker(MotionEvent event, boolean isActive)
     {
-        final MotionEvent newEvent = (event != null) ? event : null;
+        final MotionEvent newEvent = (event != null) ? MotionEvent.obtain(event) : null;
         final ControllerPick controllerPick = new ControllerPick(mPicker, newEvent, isActive);
         context.runOnGlThread(controllerPick);
     }
 
     /**
      * Process the input data.
+     * <p>
+     * All of the events queued since the last update are
+     * drained in one batch and dispatched to the listeners.
+     * Afterwards all of the motion events are recycled; the
+     * picker works on its own copy of the latest one.
      */
     private void update()
     {
-        boolean hasEvents = false;
         // set the newly received key and motion events.
         synchronized (eventLock)
         {
-            hasEvents = (keyEvent.size() > 0) || (motionEvent.size() > 0);
-            processedKeyEvent.addAll(keyEvent);
-            keyEvent.clear();
-            processedMotionEvent.addAll(motionEvent);
-            motionEvent.clear();
+            keyEventQueue.drainTo(processedKeyEvent);
+            motionEventQueue.drainTo(processedMotionEvent);
         }
         previousActive = active;
         if ((scene != null) && (mPicker != null))
@@ -1149,9 +1198,22 @@ public abstract class GVRCursorController implements IEventReceiver
         // reset the set key and motion events.
         synchronized (eventLock)
         {
+            recycleMotionEvents(processedMotionEvent.size());
             processedKeyEvent.clear();
-            processedMotionEvent.clear();
         }
     }
 
+    /**
+     * Recycle the first <i>count</i> processed motion events
+     * and empty the processed list. Must be called with eventLock held.
+     */
+    private void recycleMotionEvents(int count)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            processedMotionEvent.get(i).recycle();
+        }
+        processedMotionEvent.clear();
+    }
+
 }
@@ -0,0 +1,162 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.io;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single producer / single consumer ring buffer used by
+ * {@link GVRCursorController} to hand input events from the
+ * input thread to the thread which processes them.
+ * <p>
+ * Neither side takes a lock. The producer publishes an event by
+ * storing it in the next free slot and then advancing the tail,
+ * the consumer drains all published events in one batch and then
+ * advances the head. The slot array is allocated once and reused,
+ * so queueing and draining do not allocate.
+ * <p>
+ * Only one thread may call {@link #offer} at a time and only one
+ * thread may call {@link #drainTo} or {@link #clear} at a time.
+ * If the queue is full the new event is rejected and counted
+ * in {@link #getDroppedCount()}.
+ */
+final class GVREventQueue<T>
+{
+    private final Object[]   mSlots;
+    private final int        mMask;
+    private final AtomicLong mHead = new AtomicLong();  // next slot to read, written by consumer
+    private final AtomicLong mTail = new AtomicLong();  // next slot to write, written by producer
+    private long             mCachedHead;               // producer's view of mHead
+    private volatile long    mDropped;
+
+    /**
+     * Construct a queue which can hold at least the given number of events.
+     * @param capacity minimum number of events, rounded up to a power of two.
+     */
+    GVREventQueue(int capacity)
+    {
+        int size = 1;
+        while (size < capacity)
+        {
+            size <<= 1;
+        }
+        mSlots = new Object[size];
+        mMask = size - 1;
+    }
+
+    /**
+     * Add an event to the end of the queue.
+     * Must only be called from the producer thread.
+     * @param event event to add.
+     * @return true if added, false if the queue was full.
+     */
+    boolean offer(T event)
+    {
+        long tail = mTail.get();
+
+        if (tail - mCachedHead >= mSlots.length)
+        {
+            mCachedHead = mHead.get();
+            if (tail - mCachedHead >= mSlots.length)
+            {
+                mDropped++;
+                return false;
+            }
+        }
+        mSlots[(int) tail & mMask] = event;
+        mTail.lazySet(tail + 1);    // publish the slot after it is written
+        return true;
+    }
+
+    /**
+     * Move all of the queued events into the destination list
+     * in the order they were added.
+     * Must only be called from the consumer thread.
+     * @param dest list to append events to.
+     * @return number of events drained.
+     */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<T> dest)
+    {
+        long head = mHead.get();
+        long tail = mTail.get();
+
+        for (long i = head; i < tail; ++i)
+        {
+            int index = (int) i & mMask;
+            dest.add((T) mSlots[index]);
+            mSlots[index] = null;
+        }
+        mHead.lazySet(tail);
+        return (int) (tail - head);
+    }
+
+    /**
+     * Discard all of the queued events.
+     * Must only be called from the consumer thread.
+     * @param dest if not null, the discarded events are added to this list
+     *             so the caller can release them.
+     */
+    void clear(List<T> dest)
+    {
+        if (dest != null)
+        {
+            drainTo(dest);
+            return;
+        }
+        long head = mHead.get();
+        long tail = mTail.get();
+
+        for (long i = head; i < tail; ++i)
+        {
+            mSlots[(int) i & mMask] = null;
+        }
+        mHead.lazySet(tail);
+    }
+
+    /**
+     * @return true if there are no queued events.
+     */
+    boolean isEmpty()
+    {
+        return mHead.get() == mTail.get();
+    }
+
+    /**
+     * @return number of queued events.
+     */
+    int size()
+    {
+        return (int) (mTail.get() - mHead.get());
+    }
+
+    /**
+     * @return maximum number of events the queue can hold.
+     */
+    int capacity()
+    {
+        return mSlots.length;
+    }
+
+    /**
+     * @return number of events rejected because the queue was full.
+     */
+    long getDroppedCount()
+    {
+        return mDropped;
+    }
+}
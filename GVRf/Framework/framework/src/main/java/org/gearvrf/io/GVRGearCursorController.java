@@ -44,7 +44,6 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 
@@ -572,14 +571,32 @@ public final class GVRGearCursorController extends GVRCursorController
                                     prevButtonHome, KeyEvent.KEYCODE_HOME);
         prevButtonHome = handleResult == -1 ? prevButtonHome : handleResult;
         event.recycle();
-        if (keyEvent.size() > 0 || motionEvent.size() > 0)
+        if (mPropagateEvents.hasEvents())
         {
-            mPropagateEvents.init(keyEvent, motionEvent);
             getGVRContext().getActivity().runOnUiThread(mPropagateEvents);
         }
         invalidate();
     }
 
+    /*
+     * Events generated by the controller are also forwarded
+     * to the activity on the UI thread. Motion events are copied
+     * because the originals are recycled after they are processed.
+     */
+    @Override
+    protected void setKeyEvent(KeyEvent keyEvent)
+    {
+        super.setKeyEvent(keyEvent);
+        mPropagateEvents.addKeyEvent(keyEvent);
+    }
+
+    @Override
+    protected void setMotionEvent(MotionEvent motionEvent)
+    {
+        mPropagateEvents.addMotionEvent(MotionEvent.obtain(motionEvent));
+        super.setMotionEvent(motionEvent);
+    }
+
     private int handleEnterButton(int key, PointF pointF, boolean touched)
     {
         long time = SystemClock.uptimeMillis();
@@ -809,10 +826,24 @@ public final class GVRGearCursorController extends GVRCursorController
             mContext = context;
         }
 
-        public void init(List<KeyEvent> keyEvents, List<MotionEvent> motionEvents)
+        public void addKeyEvent(KeyEvent keyEvent)
+        {
+            mKeyEvents.add(keyEvent);
+        }
+
+        /**
+         * Queue a motion event to send to the activity.
+         * The event is recycled after it has been sent.
+         * @param motionEvent event to send
+         */
+        public void addMotionEvent(MotionEvent motionEvent)
+        {
+            mMotionEvents.add(motionEvent);
+        }
+
+        public boolean hasEvents()
         {
-            mKeyEvents.addAll(keyEvents);
-            mMotionEvents.addAll(motionEvents);
+            return !mKeyEvents.isEmpty() || !mMotionEvents.isEmpty();
         }
 
         public void run() {
@@ -828,8 +859,7 @@ public final class GVRGearCursorController extends GVRCursorController
             }
 
             for (Iterator<MotionEvent> it = mMotionEvents.iterator(); it.hasNext(); ) {
-                final MotionEvent e = it.next();
-                final MotionEvent dupe = MotionEvent.obtain(e);
+                final MotionEvent dupe = it.next();
                 it.remove();
 
                 //@todo move the io package back to gearvrf
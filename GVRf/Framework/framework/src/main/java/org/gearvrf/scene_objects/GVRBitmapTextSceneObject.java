@@ -0,0 +1,417 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gearvrf.scene_objects;
+
+import android.graphics.Color;
+
+import org.gearvrf.GVRBitmapFont;
+import org.gearvrf.GVRBitmapFont.Glyph;
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRIndexBuffer;
+import org.gearvrf.GVRMaterial;
+import org.gearvrf.GVRMesh;
+import org.gearvrf.GVRRenderData;
+import org.gearvrf.GVRSceneObject;
+import org.gearvrf.GVRVertexBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Text drawn with the glyphs of a {@link GVRBitmapFont}.
+ * <p>
+ * Unlike {@link GVRTextViewSceneObject}, which renders an Android
+ * {@code TextView} into its own texture, this object is one mesh with a quad
+ * per glyph. All the text objects using a font share its texture, so hundreds
+ * of labels cost no texture memory or canvas rendering: changing the text
+ * only rewrites the vertices of the mesh. Text objects in the default color
+ * also share the font material.
+ * <p>
+ * The text is centered on the origin of the object, in the XY plane. Lines
+ * are separated by {@code '\n'}.
+ */
+public class GVRBitmapTextSceneObject extends GVRSceneObject {
+    private static final String VERTEX_DESCRIPTOR = "float3 a_position float2 a_texcoord";
+    private static final int MIN_CAPACITY = 8; // glyphs
+    // quads are indexed with chars
+    private static final int MAX_CAPACITY = 65536 / 4;
+
+    /**
+     * Horizontal alignment of the lines of a multi-line text.
+     */
+    public enum Justify { BEGIN, MIDDLE, END }
+
+    private final GVRBitmapFont mFont;
+    private final GVRMesh mMesh;
+    private float mLineHeight;
+    private Justify mJustify = Justify.MIDDLE;
+    private CharSequence mText = "";
+    private GVRMaterial mMaterial;
+    private int mColor = Color.WHITE;
+
+    private int mCapacity;
+    private FloatBuffer mPositions;
+    private FloatBuffer mTexCoords;
+    // line widths of the text being laid out, in font pixels
+    private float[] mLineWidths = new float[4];
+    private float mWidth;
+    private float mHeight;
+
+    /**
+     * Show text on a {@linkplain GVRSceneObject scene object}.
+     *
+     * @param gvrContext
+     *            current {@link GVRContext}
+     * @param font
+     *            the font of the text
+     * @param lineHeight
+     *            distance between two lines of text, in scene units. The
+     *            glyphs are scaled accordingly.
+     * @param text
+     *            the text to show
+     */
+    public GVRBitmapTextSceneObject(GVRContext gvrContext, GVRBitmapFont font, float lineHeight,
+            CharSequence text) {
+        super(gvrContext, new GVRMesh(gvrContext, VERTEX_DESCRIPTOR), font.getMaterial());
+        mFont = font;
+        mMesh = getRenderData().getMesh();
+        mLineHeight = lineHeight;
+        GVRRenderData renderData = getRenderData();
+        renderData.setAlphaBlend(true);
+        renderData.setRenderingOrder(GVRRenderData.GVRRenderingOrder.TRANSPARENT);
+        if (text != null) {
+            mText = text.toString();
+        }
+        layout();
+    }
+
+    /**
+     * Show text on a {@linkplain GVRSceneObject scene object}, one unit per
+     * line.
+     *
+     * @param gvrContext
+     *            current {@link GVRContext}
+     * @param font
+     *            the font of the text
+     * @param text
+     *            the text to show
+     */
+    public GVRBitmapTextSceneObject(GVRContext gvrContext, GVRBitmapFont font, CharSequence text) {
+        this(gvrContext, font, 1.0f, text);
+    }
+
+    /**
+     * @return the font of the text
+     */
+    public GVRBitmapFont getFont() {
+        return mFont;
+    }
+
+    /**
+     * Change the text. The mesh is only updated if the text is different.
+     *
+     * @param text
+     *            the text to show
+     */
+    public void setText(CharSequence text) {
+        if (text == null) {
+            text = "";
+        }
+        if (contentEquals(mText, text)) {
+            return;
+        }
+        // copy, in case a mutable sequence changes afterwards
+        mText = text.toString();
+        layout();
+    }
+
+    /**
+     * @return the text shown
+     */
+    public CharSequence getText() {
+        return mText;
+    }
+
+    /**
+     * @return the text shown, as a {@link String}
+     */
+    public String getTextString() {
+        return mText.toString();
+    }
+
+    /**
+     * Set the distance between two lines of text.
+     *
+     * @param lineHeight
+     *            distance in scene units. The glyphs are scaled accordingly.
+     */
+    public void setLineHeight(float lineHeight) {
+        if (lineHeight != mLineHeight) {
+            mLineHeight = lineHeight;
+            layout();
+        }
+    }
+
+    /**
+     * @return the distance between two lines of text, in scene units
+     */
+    public float getLineHeight() {
+        return mLineHeight;
+    }
+
+    /**
+     * Set the alignment of the lines of text, when there are several.
+     */
+    public void setJustification(Justify justify) {
+        if (justify != mJustify) {
+            mJustify = justify;
+            layout();
+        }
+    }
+
+    /**
+     * @return the alignment of the lines of text
+     */
+    public Justify getJustification() {
+        return mJustify;
+    }
+
+    /**
+     * @return the width of the text, in scene units
+     */
+    public float getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * @return the height of the text, in scene units
+     */
+    public float getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Set the color of the text. Text in another color than white stops
+     * sharing the font material, and keeps the
+     * {@linkplain GVRBitmapFont#getDistanceFieldSmoothing() smoothing} the
+     * font has at this time.
+     *
+     * @param color
+     *            an Android {@link Color}; the alpha channel sets the opacity
+     */
+    public void setTextColor(int color) {
+        if (color == mColor) {
+            return;
+        }
+        mColor = color;
+        if (mMaterial == null) {
+            mMaterial = mFont.createMaterial();
+            getRenderData().setMaterial(mMaterial);
+        }
+        mMaterial.setVec3("u_color", Color.red(color) / 255.0f, Color.green(color) / 255.0f,
+                Color.blue(color) / 255.0f);
+        mMaterial.setFloat("u_opacity", Color.alpha(color) / 255.0f);
+    }
+
+    /**
+     * @return the color of the text, as an Android {@link Color}
+     */
+    public int getTextColor() {
+        return mColor;
+    }
+
+    /*
+     * Rebuild the vertices of the glyphs.
+     */
+    private void layout() {
+        final CharSequence text = mText;
+        final int length = text.length();
+        final float scale = mLineHeight / mFont.getLineHeight();
+
+        // measure the lines and count the visible glyphs
+        int lines = 0;
+        int glyphs = 0;
+        float lineWidth = 0;
+        float maxWidth = 0;
+        int previous = -1;
+        for (int i = 0; i < length; ) {
+            final int c = Character.codePointAt(text, i);
+            i += Character.charCount(c);
+            if (c == '\n') {
+                lines = addLine(lines, lineWidth);
+                maxWidth = Math.max(maxWidth, lineWidth);
+                lineWidth = 0;
+                previous = -1;
+                continue;
+            }
+            Glyph glyph = getGlyph(c);
+            if (glyph == null) {
+                continue;
+            }
+            if (previous >= 0) {
+                lineWidth += mFont.getKerning(previous, glyph.id);
+            }
+            lineWidth += glyph.xAdvance;
+            if (glyph.width > 0 && glyph.height > 0) {
+                ++glyphs;
+            }
+            previous = glyph.id;
+        }
+        lines = addLine(lines, lineWidth);
+        maxWidth = Math.max(maxWidth, lineWidth);
+        glyphs = Math.min(glyphs, MAX_CAPACITY);
+
+        mWidth = maxWidth * scale;
+        mHeight = lines * mLineHeight;
+        reserve(glyphs);
+
+        // emit a quad per glyph, from the top line down
+        final FloatBuffer positions = mPositions;
+        final FloatBuffer texCoords = mTexCoords;
+        positions.clear();
+        texCoords.clear();
+        int line = 0;
+        int emitted = 0;
+        float penX = lineStart(0, maxWidth);
+        float penY = lines * mFont.getLineHeight() * 0.5f;
+        previous = -1;
+        for (int i = 0; i < length && emitted < glyphs; ) {
+            final int c = Character.codePointAt(text, i);
+            i += Character.charCount(c);
+            if (c == '\n') {
+                ++line;
+                penX = lineStart(line, maxWidth);
+                penY -= mFont.getLineHeight();
+                previous = -1;
+                continue;
+            }
+            Glyph glyph = getGlyph(c);
+            if (glyph == null) {
+                continue;
+            }
+            if (previous >= 0) {
+                penX += mFont.getKerning(previous, glyph.id);
+            }
+            if (glyph.width > 0 && glyph.height > 0) {
+                final float left = (penX + glyph.xOffset) * scale;
+                final float right = left + glyph.width * scale;
+                final float top = (penY - glyph.yOffset) * scale;
+                final float bottom = top - glyph.height * scale;
+                // same vertex order as GVRMesh.createQuad
+                positions.put(left).put(top).put(0.0f);
+                positions.put(left).put(bottom).put(0.0f);
+                positions.put(right).put(top).put(0.0f);
+                positions.put(right).put(bottom).put(0.0f);
+                texCoords.put(glyph.u0).put(glyph.v0);
+                texCoords.put(glyph.u0).put(glyph.v1);
+                texCoords.put(glyph.u1).put(glyph.v0);
+                texCoords.put(glyph.u1).put(glyph.v1);
+                ++emitted;
+            }
+            penX += glyph.xAdvance;
+            previous = glyph.id;
+        }
+        // the unused quads collapse to the origin and draw nothing
+        while (positions.hasRemaining()) {
+            positions.put(0.0f);
+        }
+        while (texCoords.hasRemaining()) {
+            texCoords.put(0.0f);
+        }
+        GVRVertexBuffer vertices = mMesh.getVertexBuffer();
+        vertices.setFloatVec("a_position", positions);
+        vertices.setFloatVec("a_texcoord", texCoords);
+    }
+
+    private Glyph getGlyph(int c) {
+        Glyph glyph = mFont.getGlyph(c);
+        return glyph != null ? glyph : mFont.getFallbackGlyph();
+    }
+
+    private int addLine(int lines, float width) {
+        if (lines == mLineWidths.length) {
+            float[] widths = new float[lines * 2];
+            System.arraycopy(mLineWidths, 0, widths, 0, lines);
+            mLineWidths = widths;
+        }
+        mLineWidths[lines] = width;
+        return lines + 1;
+    }
+
+    private float lineStart(int line, float maxWidth) {
+        final float width = mLineWidths[line];
+        switch (mJustify) {
+        case BEGIN:
+            return -maxWidth * 0.5f;
+        case END:
+            return maxWidth * 0.5f - width;
+        default:
+            return -width * 0.5f;
+        }
+    }
+
+    /*
+     * Make room for a number of glyphs. The vertex and index buffers cannot
+     * be resized, so they only grow, by doubling, and the indices are only
+     * written when they do.
+     */
+    private void reserve(int glyphs) {
+        if (glyphs <= mCapacity && mPositions != null) {
+            return;
+        }
+        int capacity = Math.max(mCapacity, MIN_CAPACITY);
+        while (capacity < glyphs) {
+            capacity *= 2;
+        }
+        capacity = Math.min(capacity, MAX_CAPACITY);
+        mCapacity = capacity;
+        mPositions = allocate(capacity * 4 * 3);
+        mTexCoords = allocate(capacity * 4 * 2);
+
+        char[] indices = new char[capacity * 6];
+        for (int i = 0, v = 0; i < indices.length; i += 6, v += 4) {
+            indices[i] = (char) v;
+            indices[i + 1] = (char) (v + 1);
+            indices[i + 2] = (char) (v + 2);
+            indices[i + 3] = (char) (v + 1);
+            indices[i + 4] = (char) (v + 3);
+            indices[i + 5] = (char) (v + 2);
+        }
+        GVRContext gvrContext = getGVRContext();
+        GVRIndexBuffer indexBuffer = new GVRIndexBuffer(gvrContext, 2, indices.length);
+        indexBuffer.setShortVec(indices);
+        mMesh.setVertexBuffer(new GVRVertexBuffer(gvrContext, VERTEX_DESCRIPTOR, capacity * 4));
+        mMesh.setIndexBuffer(indexBuffer);
+    }
+
+    private static FloatBuffer allocate(int floats) {
+        return ByteBuffer.allocateDirect(floats * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static boolean contentEquals(CharSequence a, CharSequence b) {
+        final int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+/* Copyright 2015 Samsung Electronics Co., LTD
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gearvrf.shaders;
+
+import android.content.Context;
+
+import org.gearvrf.GVRContext;
+import org.gearvrf.GVRShaderData;
+import org.gearvrf.GVRShaderTemplate;
+import org.gearvrf.R;
+import org.gearvrf.utility.TextFile;
+
+/**
+ * Shader which renders the glyphs of a bitmap font.
+ * This shader does not use light sources.
+ * @<code>
+ *    a_position    position vertex attribute
+ *    a_texcoord    texture coordinate vertex attribute
+ *    u_color       text color
+ *    u_opacity     opacity
+ *    u_smoothing   0 for glyphs drawn in the alpha channel, otherwise half
+ *                  the width of the edge of signed distance field glyphs
+ *    u_texture     glyph atlas
+ * </code>
+ * @see org.gearvrf.GVRBitmapFont
+ */
+public class GVRBitmapTextShader extends GVRShaderTemplate
+{
+    public GVRBitmapTextShader(GVRContext gvrContext)
+    {
+        super("float3 u_color float u_opacity float u_smoothing", "sampler2D u_texture", "float3 a_position float2 a_texcoord", GLSLESVersion.VULKAN);
+        Context context = gvrContext.getContext();
+        setSegment("FragmentTemplate", TextFile.readTextFile(context, R.raw.bitmap_text_frag));
+        setSegment("VertexTemplate", TextFile.readTextFile(context, R.raw.pos_tex_ubo));
+    }
+
+    protected void setMaterialDefaults(GVRShaderData material)
+    {
+        material.setVec3("u_color", 1.0f, 1.0f, 1.0f);
+        material.setFloat("u_opacity", 1.0f);
+        material.setFloat("u_smoothing", 0.0f);
+    }
+}
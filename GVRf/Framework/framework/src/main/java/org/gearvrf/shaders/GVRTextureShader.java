@@ -43,7 +43,7 @@ public class GVRTextureShader extends GVRShaderTemplate
 
     public GVRTextureShader(GVRContext gvrcontext)
     {
-        super("float4 ambient_color; float4 diffuse_color; float4 specular_color; float4 emissive_color; float3 u_color; float u_opacity; float specular_exponent; float line_width",
+        super("float4 ambient_color; float4 diffuse_color; float4 specular_color; float4 emissive_color; float3 u_color; float u_opacity; float specular_exponent; float line_width; float2 u_texture_offset; float2 u_texture_scale",
               "sampler2D u_texture; sampler2D diffuseTexture",
               "float3 a_position; float2 a_texcoord; float3 a_normal", GLSLESVersion.VULKAN);
         if (fragTemplate == null) {
@@ -91,6 +91,8 @@ public class GVRTextureShader extends GVRShaderTemplate
         material.setVec4("specular_color", 0.0f, 0.0f, 0.0f, 1.0f);
         material.setVec4("emissive_color", 0.0f, 0.0f, 0.0f, 1.0f);
         material.setFloat("specular_exponent", 0.0f);
+        material.setVec2("u_texture_offset", 0.0f, 0.0f);
+        material.setVec2("u_texture_scale", 1.0f, 1.0f);
     }
 }
 
@@ -29,6 +29,8 @@
 #include "objects/components/perspective_camera.h"
 #include "objects/components/render_data.h"
 #include "objects/components/mesh_collider.h"
+#include "objects/components/box_collider.h"
+#include "objects/components/sphere_collider.h"
 
 namespace gvr {
 
@@ -151,6 +153,176 @@ void Picker::pickBounds(Scene* scene,
     scene->unlockColliders();
 }
 
+/*
+ * Intersects the input colliders with a ray in world coordinates
+ * and returns the list of collisions sorted by distance.
+ * This is the narrow phase used by the Java collider tree,
+ * which only passes the colliders whose bounds the ray hits.
+ */
+void Picker::pickColliders(const std::vector<Collider*>& colliders,
+                           std::vector<ColliderData>& picklist,
+                           float ox, float oy, float oz,
+                           float dx, float dy, float dz)
+{
+    glm::vec3 ray_start(ox, oy, oz);
+    glm::vec3 ray_dir(dx, dy, dz);
+
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        Collider* collider = *it;
+        SceneObject* owner = collider->owner_object();
+        if (collider->enabled() && (owner != NULL) && owner->enabled())
+        {
+            ColliderData data = collider->isHit(owner, ray_start, ray_dir);
+            if ((collider->pick_distance() > 0) && (collider->pick_distance() < data.Distance))
+            {
+                data.IsHit = false;
+            }
+            if (data.IsHit)
+            {
+                picklist.push_back(data);
+            }
+        }
+    }
+    std::sort(picklist.begin(), picklist.end(), compareColliderData);
+}
+
+/*
+ * Intersects the input colliders with the bounding spheres
+ * of a set of scene objects (collidables) and returns
+ * the list of collisions. The index of the collidable that hit
+ * is returned in the CollidableIndex field of the ColliderData.
+ */
+void Picker::pickColliderBounds(const std::vector<Collider*>& colliders,
+                                std::vector<ColliderData>& picklist,
+                                const std::vector<SceneObject*>& collidables)
+{
+    for (auto it = colliders.begin(); it != colliders.end(); ++it)
+    {
+        int cursorID = 0;
+        Collider* collider = *it;
+        SceneObject* owner = collider->owner_object();
+
+        for (auto it2 = collidables.begin(); it2 != collidables.end(); ++it2, ++cursorID)
+        {
+            SceneObject* collidable = *it2;
+            if ((collidable == NULL) || !collidable->enabled())
+            {
+                continue;
+            }
+            BoundingVolume& bv = collidable->getBoundingVolume();
+            glm::vec3 center(bv.center());
+            float bsphere[4] = { center.x, center.y, center.z, bv.radius()};
+
+            if (collider->enabled() &&
+                (owner != NULL) &&
+                owner->enabled() &&
+                (bsphere[3] > 0) &&
+                (bsphere[3] != std::numeric_limits<float>::infinity()))
+            {
+                ColliderData data = collider->isHit(owner, bsphere);
+                if (data.IsHit)
+                {
+                    data.CollidableIndex = cursorID;
+                    data.ObjectHit = owner;
+                    picklist.push_back(data);
+                }
+            }
+        }
+    }
+}
+
+/*
+ * Computes the world space axis aligned bounding box of a collider.
+ * The bounds are returned as the minimum corner followed by
+ * the maximum corner. Box and sphere colliders use their own
+ * extents, other colliders use the bounds of their mesh.
+ * If none of these are available the hierarchical bounds
+ * of the owner are used.
+ * @returns true if the collider has bounds, false if not
+ */
+bool Picker::getColliderBounds(Collider* collider, float* bounds)
+{
+    SceneObject* owner = collider->owner_object();
+    if (owner == NULL)
+    {
+        return false;
+    }
+    Transform* t = owner->transform();
+    RenderData* rd = owner->render_data();
+    Mesh* mesh = (rd != NULL) ? rd->mesh() : NULL;
+    BoundingVolume local;
+    BoundingVolume world;
+
+    switch (collider->shape_type())
+    {
+        case COLLIDER_SHAPE_BOX:
+        {
+            glm::vec3 half_extents = static_cast<BoxCollider*>(collider)->get_half_extents();
+            local.expand(-half_extents);
+            local.expand(half_extents);
+            break;
+        }
+
+        case COLLIDER_SHAPE_SPHERE:
+        {
+            float radius = static_cast<SphereCollider*>(collider)->get_radius();
+            glm::vec3 center(0, 0, 0);
+            if (mesh != NULL)
+            {
+                const BoundingVolume& meshbv = mesh->getBoundingVolume();
+                center = meshbv.center();
+                if (radius <= 0)
+                {
+                    radius = meshbv.radius();
+                }
+            }
+            if (radius <= 0)
+            {
+                radius = 1;
+            }
+            local.expand(center - glm::vec3(radius));
+            local.expand(center + glm::vec3(radius));
+            break;
+        }
+
+        case COLLIDER_SHAPE_MESH:
+        {
+            Mesh* collider_mesh = static_cast<MeshCollider*>(collider)->mesh();
+            if (collider_mesh != NULL)
+            {
+                mesh = collider_mesh;
+            }
+            if (mesh != NULL)
+            {
+                local.expand(mesh->getBoundingVolume());
+            }
+            break;
+        }
+    }
+    if ((t != NULL) && (local.radius() > 0))
+    {
+        world.transform(local, t->getModelMatrix());
+    }
+    else
+    {
+        world.expand(owner->getBoundingVolume());
+    }
+    if (world.radius() <= 0)
+    {
+        return false;
+    }
+    const glm::vec3& minCorner = world.min_corner();
+    const glm::vec3& maxCorner = world.max_corner();
+    bounds[0] = minCorner.x;
+    bounds[1] = minCorner.y;
+    bounds[2] = minCorner.z;
+    bounds[3] = maxCorner.x;
+    bounds[4] = maxCorner.y;
+    bounds[5] = maxCorner.z;
+    return true;
+}
+
 /**
  * Picks a single scene object from the scene. If the object has a mesh collider, the picker will calculate the
  * texture coordinates and barycentric coordinates of the corresponding hit-point. Note that this will do nothing
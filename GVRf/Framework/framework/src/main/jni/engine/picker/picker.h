@@ -64,6 +64,16 @@ public:
     static glm::vec3 pickSceneObjectAgainstBoundingBox(
             SceneObject* scene_object, float ox, float oy, float oz,
             float dx, float dy, float dz);
+    static void pickColliders(
+            const std::vector<Collider*>& colliders,
+            std::vector<ColliderData>& picklist,
+            float ox, float oy, float oz,
+            float dx, float dy, float dz);
+    static void pickColliderBounds(
+            const std::vector<Collider*>& colliders,
+            std::vector<ColliderData>& picklist,
+            const std::vector<SceneObject*>& collidables);
+    static bool getColliderBounds(Collider* collider, float* bounds);
 };
 
 }
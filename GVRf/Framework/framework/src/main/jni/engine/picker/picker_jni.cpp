@@ -22,6 +22,7 @@
 #include "picker.h"
 #include "objects/scene.h"
 
+#include <limits>
 #include "util/gvr_jni.h"
 #include "glm/gtc/type_ptr.hpp"
 
@@ -57,6 +58,24 @@ extern "C" {
     JNIEXPORT jobjectArray JNICALL
     Java_org_gearvrf_NativePicker_pickVisible(JNIEnv * env,
             jobject obj, jlong jscene);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_getPickVersion(JNIEnv * env, jobject obj);
+    JNIEXPORT jobjectArray JNICALL
+    Java_org_gearvrf_NativePicker_pickColliders(JNIEnv * env,
+            jobject obj, jlongArray jcolliders, jint count,
+            jfloat ox, jfloat oy, jfloat oz, jfloat dx, jfloat dy, jfloat dz);
+    JNIEXPORT jobjectArray JNICALL
+    Java_org_gearvrf_NativePicker_pickColliderBounds(JNIEnv * env,
+            jobject obj, jlongArray jcolliders, jint count, jobject jcollidables);
+    JNIEXPORT jint JNICALL
+    Java_org_gearvrf_NativePicker_getColliderBounds(JNIEnv * env,
+            jobject obj, jlongArray jcolliders, jint count, jfloatArray jbounds);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_getPickVersion(JNIEnv * env, jobject obj)
+{
+    return static_cast<jint>(Collider::pickVersion());
 }
 
 JNIEXPORT jlongArray JNICALL
@@ -84,28 +103,15 @@ Java_org_gearvrf_NativePicker_pickScene(JNIEnv * env,
 }
 
 
-JNIEXPORT jobjectArray JNICALL
-Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
-        jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
-        jfloat dy, jfloat dz)
+/*
+ * Makes a Java array of GVRPickedObject from a list of ray collisions.
+ */
+static jobjectArray makePickList(JNIEnv* env, const std::vector<ColliderData>& colliders)
 {
     jclass pickerClass = env->FindClass("org/gearvrf/GVRPicker");
     jclass hitClass = env->FindClass("org/gearvrf/GVRPicker$GVRPickedObject");
     jmethodID makeHitMesh = env->GetStaticMethodID(pickerClass, "makeHitMesh", "(JFFFFIFFFFFFFF)Lorg/gearvrf/GVRPicker$GVRPickedObject;");
     jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeHit", "(JFFFF)Lorg/gearvrf/GVRPicker$GVRPickedObject;");
-
-    Scene* scene = reinterpret_cast<Scene*>(jscene);
-    std::vector<ColliderData> colliders;
-    Transform* t = reinterpret_cast<Transform*>(jtransform);
-
-    if (t == NULL) {
-        t = scene->main_camera_rig()->getHeadTransform();
-        if (nullptr == t) {
-            return nullptr;
-        }
-    }
-    Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz);
-
     int i = 0;
     int size = colliders.size();
     jobjectArray pickList = env->NewObjectArray(size, hitClass, NULL);
@@ -141,6 +147,81 @@ Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
     return pickList;
 }
 
+/*
+ * Gets the native collider pointers from a Java long array.
+ */
+static void getColliders(JNIEnv* env, jlongArray jcolliders, jint count, std::vector<Collider*>& colliders)
+{
+    jlong* ptrs = env->GetLongArrayElements(jcolliders, 0);
+
+    colliders.reserve(count);
+    for (int i = 0; i < count; ++i)
+    {
+        colliders.push_back(reinterpret_cast<Collider*>(ptrs[i]));
+    }
+    env->ReleaseLongArrayElements(jcolliders, ptrs, JNI_ABORT);
+}
+
+JNIEXPORT jobjectArray JNICALL
+Java_org_gearvrf_NativePicker_pickObjects(JNIEnv * env,
+        jobject obj, jlong jscene, jlong jtransform, jfloat ox, jfloat oy, jfloat oz, jfloat dx,
+        jfloat dy, jfloat dz)
+{
+    Scene* scene = reinterpret_cast<Scene*>(jscene);
+    std::vector<ColliderData> colliders;
+    Transform* t = reinterpret_cast<Transform*>(jtransform);
+
+    if (t == NULL) {
+        t = scene->main_camera_rig()->getHeadTransform();
+        if (nullptr == t) {
+            return nullptr;
+        }
+    }
+    Picker::pickScene(scene, colliders, t, ox, oy, oz, dx, dy, dz);
+    return makePickList(env, colliders);
+}
+
+JNIEXPORT jobjectArray JNICALL
+Java_org_gearvrf_NativePicker_pickColliders(JNIEnv * env,
+        jobject obj, jlongArray jcolliders, jint count,
+        jfloat ox, jfloat oy, jfloat oz, jfloat dx, jfloat dy, jfloat dz)
+{
+    std::vector<Collider*> colliders;
+    std::vector<ColliderData> picklist;
+
+    getColliders(env, jcolliders, count, colliders);
+    Picker::pickColliders(colliders, picklist, ox, oy, oz, dx, dy, dz);
+    return makePickList(env, picklist);
+}
+
+JNIEXPORT jint JNICALL
+Java_org_gearvrf_NativePicker_getColliderBounds(JNIEnv * env,
+        jobject obj, jlongArray jcolliders, jint count, jfloatArray jbounds)
+{
+    jlong* ptrs = env->GetLongArrayElements(jcolliders, 0);
+    jfloat* bounds = env->GetFloatArrayElements(jbounds, 0);
+    int n = 0;
+
+    for (int i = 0; i < count; ++i)
+    {
+        Collider* collider = reinterpret_cast<Collider*>(ptrs[i]);
+        float* b = bounds + i * 6;
+
+        if (Picker::getColliderBounds(collider, b))
+        {
+            ++n;
+        }
+        else
+        {
+            b[0] = b[1] = b[2] = std::numeric_limits<float>::infinity();
+            b[3] = b[4] = b[5] = -std::numeric_limits<float>::infinity();
+        }
+    }
+    env->ReleaseFloatArrayElements(jbounds, bounds, 0);
+    env->ReleaseLongArrayElements(jcolliders, ptrs, JNI_ABORT);
+    return n;
+}
+
 JNIEXPORT jobject JNICALL
 Java_org_gearvrf_NativePicker_pickClosest(JNIEnv * env,
                                           jobject obj, jlong jscene, jlong jtransform,
@@ -193,28 +274,17 @@ Java_org_gearvrf_NativePicker_pickClosest(JNIEnv * env,
     return hitObject;
 }
 
-JNIEXPORT jobjectArray JNICALL
-Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
-                                         jlong jscene,
-                                         jobject jcollidables)
+/*
+ * Gets the native scene objects from a Java list of GVRSceneObject.
+ */
+static void getCollidables(JNIEnv* env, jobject jcollidables, int n, std::vector<SceneObject*>& collidables)
 {
     jclass listClass = env->FindClass("java/util/List");
-    jmethodID sizeMethod = env->GetMethodID(listClass, "size", "()I");
-    int n = env->CallIntMethod(jcollidables, sizeMethod, jcollidables);
-    int i = 0;
-
-    if (n == 0)
-    {
-        return NULL;
-    }
     jclass hybridClass = env->FindClass("org/gearvrf/GVRHybridObject");
     jmethodID getMethod = env->GetMethodID(listClass, "get", "(I)Ljava/lang/Object;");
     jmethodID nativeMethod = env->GetMethodID(hybridClass, "getNative", "()J");
-    Scene *scene = reinterpret_cast<Scene *>(jscene);
-    std::vector<ColliderData> colliders;
-    std::vector<SceneObject *> collidables;
 
-    for (i = 0; i < n; ++i)
+    for (int i = 0; i < n; ++i)
     {
         jobject sceneObj = env->CallObjectMethod(jcollidables, getMethod, i);
         if (sceneObj != NULL)
@@ -231,8 +301,13 @@ Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
     }
     env->DeleteLocalRef(listClass);
     env->DeleteLocalRef(hybridClass);
-    Picker::pickBounds(scene, colliders, collidables);
+}
 
+/*
+ * Makes a Java array of GVRPickedObject from a list of bounds collisions.
+ */
+static jobjectArray makeBoundsPickList(JNIEnv* env, const std::vector<ColliderData>& colliders)
+{
     if (colliders.size() == 0)
     {
         return NULL;
@@ -242,7 +317,7 @@ Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
     jmethodID makeHit = env->GetStaticMethodID(pickerClass, "makeObjectHit", "(JIFFFF)Lorg/gearvrf/GVRPicker$GVRPickedObject;");
     jobjectArray pickList = env->NewObjectArray(colliders.size(), hitClass, NULL);
 
-    i = 0;
+    int i = 0;
     for (auto it = colliders.begin(); it != colliders.end(); ++it)
     {
         const ColliderData& data = *it;
@@ -270,6 +345,53 @@ Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
     return pickList;
 }
 
+JNIEXPORT jobjectArray JNICALL
+Java_org_gearvrf_NativePicker_pickBounds(JNIEnv * env, jobject obj,
+                                         jlong jscene,
+                                         jobject jcollidables)
+{
+    jclass listClass = env->FindClass("java/util/List");
+    jmethodID sizeMethod = env->GetMethodID(listClass, "size", "()I");
+    int n = env->CallIntMethod(jcollidables, sizeMethod, jcollidables);
+
+    env->DeleteLocalRef(listClass);
+    if (n == 0)
+    {
+        return NULL;
+    }
+    Scene *scene = reinterpret_cast<Scene *>(jscene);
+    std::vector<ColliderData> colliders;
+    std::vector<SceneObject *> collidables;
+
+    getCollidables(env, jcollidables, n, collidables);
+    Picker::pickBounds(scene, colliders, collidables);
+    return makeBoundsPickList(env, colliders);
+}
+
+JNIEXPORT jobjectArray JNICALL
+Java_org_gearvrf_NativePicker_pickColliderBounds(JNIEnv * env, jobject obj,
+                                                 jlongArray jcolliders, jint count,
+                                                 jobject jcollidables)
+{
+    jclass listClass = env->FindClass("java/util/List");
+    jmethodID sizeMethod = env->GetMethodID(listClass, "size", "()I");
+    int n = env->CallIntMethod(jcollidables, sizeMethod, jcollidables);
+
+    env->DeleteLocalRef(listClass);
+    if ((n == 0) || (count == 0))
+    {
+        return NULL;
+    }
+    std::vector<Collider*> colliders;
+    std::vector<ColliderData> picklist;
+    std::vector<SceneObject *> collidables;
+
+    getColliders(env, jcolliders, count, colliders);
+    getCollidables(env, jcollidables, n, collidables);
+    Picker::pickColliderBounds(colliders, picklist, collidables);
+    return makeBoundsPickList(env, picklist);
+}
+
 JNIEXPORT jobject JNICALL
 Java_org_gearvrf_NativePicker_pickSceneObject(JNIEnv * env,
                                               jobject obj, jlong jscene_object,
@@ -142,7 +142,20 @@ void GLBitmapImage::updateFromBitmap(int texid)
         LOGE("BitmapImage::updateFromBitmap bitmap is null");
         return;
     }
-    if (mIsBuffer)
+    if (mIsBuffer && mIsCompressed)
+    {
+        jbyte* pixels = static_cast<jbyte*>(env->GetDirectBufferAddress(mBitmap));
+        if (mLevels > 1)
+        {
+            loadCompressedMipMaps(pixels, mFormat);
+        }
+        else
+        {
+            glCompressedTexImage2D(mGLTarget, 0, mFormat, mWidth, mHeight, 0,
+                                   mImageSize, pixels + getDataOffset(0));
+        }
+    }
+    else if (mIsBuffer)
     {
         updateFromBuffer(env, mGLTarget, mBitmap);
     } else {
@@ -156,17 +169,25 @@ void GLBitmapImage::updateFromBitmap(int texid)
 
 void GLBitmapImage::loadCompressedMipMaps(jbyte *data, int format)
 {
+    int levels = 0;
     for (int level = 0; level < mLevels; ++level)
     {
         int levelOffset = getDataOffset(level);
-        int levelSize = getDataOffset(level + 1) - levelOffset;
+        int levelSize = getDataSize(level);
+        if (levelSize <= 0)
+        {
+            LOGE("BitmapImage::loadCompressedMipMaps unknown size of level %d", level);
+            break;
+        }
         int width = mWidth >> level;
         int height = mHeight >> level;
         if (width < 1) width = 1;
         if (height < 1) height = 1;
-        glCompressedTexImage2D(mGLTarget, level, format, width, height, levelOffset, levelSize,
-                               data);
+        glCompressedTexImage2D(mGLTarget, level, format, width, height, 0, levelSize,
+                               data + levelOffset);
+        ++levels;
     }
+    glTexParameteri(mGLTarget, GL_TEXTURE_MAX_LEVEL, (levels > 0) ? levels - 1 : 0);
 }
 
 }
@@ -25,6 +25,7 @@
 
 namespace gvr
 {
+    std::atomic<unsigned int> Collider::pick_version_(0);
 
 /*
  * Transform a ray in world coordinates to be in the coordinate space of a model.
@@ -48,11 +49,19 @@ namespace gvr
     void Collider::onAddedToScene(Scene *scene)
     {
         scene->addCollider(this);
+        invalidatePick();
     }
 
     void Collider::onRemovedFromScene(Scene *scene)
     {
         scene->removeCollider(this);
+        invalidatePick();
+    }
+
+    void Collider::set_enable(bool enable)
+    {
+        Component::set_enable(enable);
+        invalidatePick();
     }
 
 /*
@@ -22,6 +22,7 @@
 #define COLLIDER_H_
 
 #include <vector>
+#include <atomic>
 #include "glm/glm.hpp"
 
 #include "collider_shape_types.h"
@@ -109,13 +110,34 @@ public:
     static void transformRay(const glm::mat4& matrix, glm::vec3& rayStart, glm::vec3& rayDir);
     virtual void onAddedToScene(Scene* scene);
     virtual void onRemovedFromScene(Scene* scene);
+    virtual void set_enable(bool enable);
     static void transformSphere(const glm::mat4& model_matrix, float* sphere);
 
+    /*
+     * Get the pick version.
+     *
+     * The pick version changes whenever something happens
+     * which could change the result of a pick: a collider is
+     * added, removed, enabled or disabled or an object
+     * with a collider (or one of its ancestors) moves.
+     */
+    static unsigned int pickVersion() {
+        return pick_version_;
+    }
+
+    /*
+     * Indicate that previous pick results may no longer be valid.
+     */
+    static void invalidatePick() {
+        ++pick_version_;
+    }
+
 protected:
     Collider() : Component(Collider::getComponentType()), pick_distance_(0) {}
     explicit Collider(long long type) : Component(type), pick_distance_(0) {}
 
     float pick_distance_;
+    static std::atomic<unsigned int> pick_version_;
 
     Collider(const Collider& collider) = delete;
     Collider(Collider&& collider) = delete;
@@ -225,6 +225,38 @@ public:
         invalidate(false);
     }
 
+    /*
+     * Copy position, rotation (w, x, y, z) and scale, in that order,
+     * into 10 floats.
+     */
+    void get_local(float* trs) const {
+        std::lock_guard<std::mutex> lock(mutex_);
+        trs[0] = position_.x;
+        trs[1] = position_.y;
+        trs[2] = position_.z;
+        trs[3] = rotation_.w;
+        trs[4] = rotation_.x;
+        trs[5] = rotation_.y;
+        trs[6] = rotation_.z;
+        trs[7] = scale_.x;
+        trs[8] = scale_.y;
+        trs[9] = scale_.z;
+    }
+
+    /*
+     * Set position, rotation (w, x, y, z) and scale from 10 floats, in the
+     * order of get_local, with a single invalidation.
+     */
+    void set_local(const float* trs, bool rotationUpdated) {
+        {
+            std::lock_guard<std::mutex> lock(mutex_);
+            position_ = glm::vec3(trs[0], trs[1], trs[2]);
+            rotation_ = glm::quat(trs[3], trs[4], trs[5], trs[6]);
+            scale_ = glm::vec3(trs[7], trs[8], trs[9]);
+        }
+        invalidate(rotationUpdated);
+    }
+
     bool isModelMatrixValid() {
         std::lock_guard<std::mutex> lock(mutex_);
         return model_matrix_.isValid();
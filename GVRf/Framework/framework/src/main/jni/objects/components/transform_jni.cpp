@@ -56,6 +56,13 @@ Java_org_gearvrf_NativeTransform_setPositionY(JNIEnv * env,
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeTransform_setPositionZ(JNIEnv * env,
         jobject obj, jlong jtransform, jfloat z);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getLocal(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jtrs);
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_applyBatch(JNIEnv * env,
+        jobject obj, jlongArray jtransforms, jintArray joperations, jint count,
+        jobject jdata);
 JNIEXPORT jfloat JNICALL
 Java_org_gearvrf_NativeTransform_getRotationW(JNIEnv * env,
         jobject obj, jlong jtransform);
@@ -110,6 +117,10 @@ JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeTransform_getModelMatrix(JNIEnv * env,
         jobject obj, jlong jtransform);
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_copyModelMatrix(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix);
+
 JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeTransform_getLocalModelMatrix(JNIEnv * env,
         jobject obj, jlong jtransform);
@@ -331,6 +342,14 @@ Java_org_gearvrf_NativeTransform_getModelMatrix(JNIEnv * env,
     return jmatrix;
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_copyModelMatrix(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jmatrix) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    glm::mat4 matrix = transform->getModelMatrix();
+    env->SetFloatArrayRegion(jmatrix, 0, 16, glm::value_ptr(matrix));
+}
+
 JNIEXPORT jfloatArray JNICALL
 Java_org_gearvrf_NativeTransform_getLocalModelMatrix(JNIEnv * env,
         jobject obj, jlong jtransform) {
@@ -346,6 +365,94 @@ Java_org_gearvrf_NativeTransform_getLocalModelMatrix(JNIEnv * env,
     return jmatrix;
 }
 
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_getLocal(JNIEnv * env,
+        jobject obj, jlong jtransform, jfloatArray jtrs) {
+    Transform* transform = reinterpret_cast<Transform*>(jtransform);
+    jfloat trs[10];
+    transform->get_local(trs);
+    env->SetFloatArrayRegion(jtrs, 0, 10, trs);
+}
+
+// operation codes of GVRTransformBatch
+enum BatchOperation {
+    SET_POSITION, SET_POSITION_X, SET_POSITION_Y, SET_POSITION_Z,
+    SET_ROTATION,
+    SET_SCALE, SET_SCALE_X, SET_SCALE_Y, SET_SCALE_Z,
+    SET_MATRIX
+};
+
+JNIEXPORT void JNICALL
+Java_org_gearvrf_NativeTransform_applyBatch(JNIEnv * env,
+        jobject obj, jlongArray jtransforms, jintArray joperations, jint count,
+        jobject jdata) {
+    const float* data = static_cast<const float*>(env->GetDirectBufferAddress(jdata));
+    jlong* transforms = env->GetLongArrayElements(jtransforms, 0);
+    jint* operations = env->GetIntArrayElements(joperations, 0);
+
+    // consecutive changes to one transform are made to a copy of its
+    // position, rotation and scale, then set all at once
+    Transform* current = nullptr;
+    float trs[10];
+    bool changed = false;
+    bool rotated = false;
+    for (int i = 0; i < count; ++i) {
+        Transform* transform = reinterpret_cast<Transform*>(transforms[i]);
+        if (transform != current) {
+            if (changed) {
+                current->set_local(trs, rotated);
+            }
+            current = transform;
+            current->get_local(trs);
+            changed = rotated = false;
+        }
+        switch (operations[i]) {
+        case SET_POSITION:
+            trs[0] = data[0]; trs[1] = data[1]; trs[2] = data[2];
+            data += 3;
+            break;
+        case SET_POSITION_X:
+        case SET_POSITION_Y:
+        case SET_POSITION_Z:
+            trs[operations[i] - SET_POSITION_X] = *data++;
+            break;
+        case SET_ROTATION:
+            trs[3] = data[0]; trs[4] = data[1]; trs[5] = data[2]; trs[6] = data[3];
+            data += 4;
+            rotated = true;
+            break;
+        case SET_SCALE:
+            trs[7] = data[0]; trs[8] = data[1]; trs[9] = data[2];
+            data += 3;
+            break;
+        case SET_SCALE_X:
+        case SET_SCALE_Y:
+        case SET_SCALE_Z:
+            trs[7 + operations[i] - SET_SCALE_X] = *data++;
+            break;
+        case SET_MATRIX:
+            if (changed) {
+                current->set_local(trs, rotated);
+            }
+            current->setModelMatrix(glm::make_mat4(data));
+            data += 16;
+            current->get_local(trs);
+            changed = rotated = false;
+            continue;
+        default:
+            LOGE("applyBatch: unknown operation %d", operations[i]);
+            continue;
+        }
+        changed = true;
+    }
+    if (changed) {
+        current->set_local(trs, rotated);
+    }
+
+    env->ReleaseIntArrayElements(joperations, operations, JNI_ABORT);
+    env->ReleaseLongArrayElements(jtransforms, transforms, JNI_ABORT);
+}
+
 JNIEXPORT void JNICALL
 Java_org_gearvrf_NativeTransform_setModelMatrix(JNIEnv * env,
 		jobject obj, jlong jtransform, jfloatArray mat){
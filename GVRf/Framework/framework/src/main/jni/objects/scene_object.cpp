@@ -249,6 +249,12 @@ void SceneObject::removeChildObject(SceneObject* child)
     }
 }
 
+void SceneObject::set_enable(bool enable)
+{
+    enabled_ = enable;
+    Collider::invalidatePick();
+}
+
 void SceneObject::onTransformChanged()
 {
     Transform* t = transform();
@@ -256,6 +262,10 @@ void SceneObject::onTransformChanged()
     {
         t->invalidate();
     }
+    if (getComponent(Collider::getComponentType()))
+    {
+        Collider::invalidatePick();
+    }
     setTransformDirty();
     dirtyHierarchicalBoundingVolume();
     if (getChildrenCount() > 0)
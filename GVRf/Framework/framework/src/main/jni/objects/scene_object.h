@@ -54,9 +54,7 @@ public:
         return enabled_;
     }
 
-    void set_enable(bool enable) {
-        enabled_ = enable;
-    }
+    void set_enable(bool enable);
 
     void set_in_frustum(bool in_frustum = true) {
         in_frustum_ = in_frustum;
@@ -91,7 +91,7 @@ void BitmapImage::update(JNIEnv* env, int xoffset, int yoffset, int width, int h
 }
 
 void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
-                         jbyteArray data, int levels, const int* dataOffsets)
+                         jbyteArray data, int levels, const int* dataOffsets, const int* dataSizes)
 {
     std::lock_guard<std::mutex> lock(mUpdateLock);
     env->GetJavaVM(&mJava);
@@ -102,6 +102,7 @@ void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
     mIsCompressed = true;
     mImageSize = imageSize;
     setDataOffsets(dataOffsets, levels);
+    setDataSizes(dataSizes, dataSizes ? levels : 0);
     if (data != NULL)
     {
         mData = static_cast<jbyteArray>(env->NewGlobalRef(data));
@@ -113,6 +114,32 @@ void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
     }
 }
 
+/*
+ * Compressed data in a direct buffer, usually a memory mapped file.
+ * The offsets are relative to the start of the buffer.
+ */
+void BitmapImage::update(JNIEnv *env, int width, int height, int imageSize,
+                         jobject buffer, int levels, const int* dataOffsets, const int* dataSizes)
+{
+    std::lock_guard<std::mutex> lock(mUpdateLock);
+    env->GetJavaVM(&mJava);
+    clearData(env);
+    mWidth = width;
+    mHeight = height;
+    mLevels = levels;
+    mIsCompressed = true;
+    mImageSize = imageSize;
+    setDataOffsets(dataOffsets, levels);
+    setDataSizes(dataSizes, dataSizes ? levels : 0);
+    if (buffer != NULL)
+    {
+        mBitmap = env->NewGlobalRef(buffer);
+        mIsBuffer = true;
+        set_transparency(hasAlpha(mFormat));
+        signalUpdate();
+    }
+}
+
 void BitmapImage::clearData(JNIEnv* env)
 {
     if (mData != NULL)
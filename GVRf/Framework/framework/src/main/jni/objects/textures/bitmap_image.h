@@ -40,7 +40,9 @@ namespace gvr {
         void update(JNIEnv* env, int xoffset, int yoffset, int width, int height,
                     int format, int type, jobject bitmap);
         void update(JNIEnv *env, int width, int height, int imageSize,
-                    jbyteArray bytes, int levels, const int* dataOffsets);
+                    jbyteArray bytes, int levels, const int* dataOffsets, const int* dataSizes);
+        void update(JNIEnv *env, int width, int height, int imageSize,
+                    jobject buffer, int levels, const int* dataOffsets, const int* dataSizes);
 
         void set_transparency(bool hasTransparency) {
             mHasTransparency = hasTransparency;
@@ -46,7 +46,14 @@ namespace gvr
     JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeBitmapImage_updateCompressed(JNIEnv *env, jobject obj,
                                                         jlong jtexture, jint width, int height, jint imageSize,
-                                                        jbyteArray jdata, jint levels, jintArray offset);
+                                                        jbyteArray jdata, jint levels, jintArray offset,
+                                                        jintArray sizes);
+
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeBitmapImage_updateCompressedBuffer(JNIEnv *env, jobject obj,
+                                                              jlong jtexture, jint width, jint height, jint imageSize,
+                                                              jobject jbuffer, jint levels, jintArray offsets,
+                                                              jintArray sizes);
 
     JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeBitmapImage_updateFromBitmap(JNIEnv *env, jobject obj,
@@ -113,7 +120,8 @@ namespace gvr
     JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeBitmapImage_updateCompressed(JNIEnv *env, jobject obj,
                                                         jlong jtexture, jint width, jint height, jint imageSize,
-                                                        jbyteArray jdata, jint levels, jintArray joffsets)
+                                                        jbyteArray jdata, jint levels, jintArray joffsets,
+                                                        jintArray jsizes)
     {
         LOGV("updateCompressed: data = %p, offsets = %p", jdata, joffsets);
         jobject keep1 = env->NewLocalRef(jdata);
@@ -121,12 +129,34 @@ namespace gvr
         BitmapImage *texture = reinterpret_cast<BitmapImage *>(jtexture);
         jintArray array = static_cast<jintArray>(env->NewLocalRef(joffsets));
         int* offsets = env->GetIntArrayElements(array, 0);
-        texture->update(env, width, height, imageSize, jdata, levels, offsets);
+        int* sizes = (jsizes != NULL) ? env->GetIntArrayElements(jsizes, 0) : NULL;
+        texture->update(env, width, height, imageSize, jdata, levels, offsets, sizes);
+        if (sizes != NULL)
+        {
+            env->ReleaseIntArrayElements(jsizes, sizes, JNI_ABORT);
+        }
         env->ReleaseIntArrayElements(array, offsets, 0);
         env->DeleteLocalRef(keep1);
         env->DeleteLocalRef(keep2);
     }
 
+    JNIEXPORT void JNICALL
+    Java_org_gearvrf_NativeBitmapImage_updateCompressedBuffer(JNIEnv *env, jobject obj,
+                                                              jlong jtexture, jint width, jint height, jint imageSize,
+                                                              jobject jbuffer, jint levels, jintArray joffsets,
+                                                              jintArray jsizes)
+    {
+        BitmapImage *texture = reinterpret_cast<BitmapImage *>(jtexture);
+        int* offsets = env->GetIntArrayElements(joffsets, 0);
+        int* sizes = (jsizes != NULL) ? env->GetIntArrayElements(jsizes, 0) : NULL;
+        texture->update(env, width, height, imageSize, jbuffer, levels, offsets, sizes);
+        if (sizes != NULL)
+        {
+            env->ReleaseIntArrayElements(jsizes, sizes, JNI_ABORT);
+        }
+        env->ReleaseIntArrayElements(joffsets, offsets, JNI_ABORT);
+    }
+
     JNIEXPORT void JNICALL
     Java_org_gearvrf_NativeBitmapImage_setFileName(JNIEnv *env, jobject obj,
                                                    jlong jtexture, jstring jfile)
@@ -116,6 +116,32 @@ public:
         }
     }
 
+    /*
+     * Size of a compressed mip-map level. Without explicit sizes, a level
+     * ends where the next one starts and level 0 is mImageSize bytes.
+     */
+    int getDataSize(int level)
+    {
+        if ((level >= 0) && (level < mDataSizes.size()))
+        {
+            return mDataSizes[level];
+        }
+        if ((level >= 0) && (level + 1 < mDataOffsets.size()))
+        {
+            return mDataOffsets[level + 1] - mDataOffsets[level];
+        }
+        return (level == 0) ? mImageSize : 0;
+    }
+
+    void setDataSizes(const int* sizes, int n)
+    {
+        mDataSizes.resize(n);
+        for (int i = 0; i < n; ++i)
+        {
+            mDataSizes[i] = sizes[i];
+        }
+    }
+
     bool checkForUpdate(int texid)
     {
         if (texid && updatePending())
@@ -155,6 +181,7 @@ protected:
     int     mFormat;
     std::string mFileName;
     std::vector<int>    mDataOffsets;
+    std::vector<int>    mDataSizes;
 
 private:
     Image(const Image& image) = delete;
@@ -146,8 +146,17 @@ std::map<int, VkFormat> compressed_formats = {
             LOGE("BitmapImage::updateFromMemory array is null");
             return;
         }
-        mLevels = 0;
         jbyte *pixels = env->GetByteArrayElements(mData, 0);
+        updateFromPixels(pixels);
+        env->ReleaseByteArrayElements(mData, pixels, 0);
+        clearData(env);
+    }
+
+    /*
+     * Only the base level is uploaded.
+     */
+    void VkBitmapImage::updateFromPixels(jbyte *pixels) {
+        mLevels = 0;
         std::vector<void *> texData;
         std::vector<VkBufferImageCopy> bufferCopyRegions;
         std::vector<ImageInfo> imageInfos;
@@ -180,9 +189,6 @@ std::map<int, VkFormat> compressed_formats = {
 
             updateMipVkImage(mImageSize, texData, imageInfos, bufferCopyRegions, target,
                              internal_format, 1);
-
-        env->ReleaseByteArrayElements(mData, pixels, 0);
-        clearData(env);
     }
 
     void VkBitmapImage::updateFromBitmap(int texid) {
@@ -191,7 +197,9 @@ std::map<int, VkFormat> compressed_formats = {
             LOGE("BitmapImage::updateFromBitmap bitmap is null");
             return;
         }
-        if(mIsBuffer) {
+        if (mIsBuffer && mIsCompressed) {
+            updateFromPixels(static_cast<jbyte *>(env->GetDirectBufferAddress(mBitmap)));
+        } else if(mIsBuffer) {
             updateFromBuffer(env, getImageType(), mBitmap);
         } else {
             updateFromBitmap(env, getImageType(), mBitmap);